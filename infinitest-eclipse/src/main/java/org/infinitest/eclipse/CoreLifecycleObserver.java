@@ -53,6 +53,7 @@ public class CoreLifecycleObserver implements CoreLifecycleListener {
 		collector.attachCore(core);
 		core.addTestResultsListener(slowTestObserver);
 		core.addDisabledTestListener(slowTestObserver);
+		slowTestObserver.restoreMarkers(core.getRunStatistics());
 		core.addConsoleOutputListener(populatingListener);
 		core.addTestQueueListener(clearingListener);
 	}
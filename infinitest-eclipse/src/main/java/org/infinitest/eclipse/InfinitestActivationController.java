@@ -27,7 +27,10 @@
  */
 package org.infinitest.eclipse;
 
+import static org.eclipse.jdt.core.ElementChangedEvent.*;
+
 import org.eclipse.core.resources.*;
+import org.eclipse.jdt.core.*;
 import org.infinitest.*;
 import org.infinitest.eclipse.trim.*;
 import org.springframework.beans.factory.annotation.*;
@@ -40,6 +43,7 @@ public class InfinitestActivationController implements PluginActivationControlle
 	private EventQueue eventQueue;
 	private NamedRunnable markerClearingRunnable;
 	private IResourceChangeListener updateNotifier;
+	private IElementChangedListener classpathListener;
 	private IWorkspace workspace;
 
 	@Autowired
@@ -67,6 +71,11 @@ public class InfinitestActivationController implements PluginActivationControlle
 		this.updateNotifier = updateNotifier;
 	}
 
+	@Autowired
+	public void setClasspathListener(IElementChangedListener classpathListener) {
+		this.classpathListener = classpathListener;
+	}
+
 	@Override
 	public void enable() {
 		if (!pluginEnabled) {
@@ -77,6 +86,7 @@ public class InfinitestActivationController implements PluginActivationControlle
 	@Override
 	public void disable() {
 		workspace.removeResourceChangeListener(updateNotifier);
+		JavaCore.removeElementChangedListener(classpathListener);
 		pluginEnabled = false;
 
 		eventQueue.pushNamed(markerClearingRunnable);
@@ -85,6 +95,7 @@ public class InfinitestActivationController implements PluginActivationControlle
 	private void attachListener() {
 		pluginEnabled = true;
 		workspace.addResourceChangeListener(updateNotifier);
+		JavaCore.addElementChangedListener(classpathListener, POST_CHANGE);
 	}
 
 	@Override
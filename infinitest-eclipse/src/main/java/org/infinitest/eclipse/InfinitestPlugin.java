@@ -92,6 +92,7 @@ public class InfinitestPlugin extends AbstractUIPlugin {
 	protected void initializeDefaultPreferences(IPreferenceStore store) {
 		store.setDefault(PARALLEL_CORES, 1);
 		store.setDefault(SLOW_TEST_WARNING, getSlowTestTimeLimit());
+		store.setDefault(REUSE_TEST_RUNNER, isTestRunnerReused());
 	}
 
 	// Only used for testing.
@@ -125,5 +126,6 @@ public class InfinitestPlugin extends AbstractUIPlugin {
 	void restoreSavedPreferences(Preferences preferences, CoreSettings coreSettings) {
 		coreSettings.setConcurrentCoreCount(preferences.getInt(PARALLEL_CORES));
 		InfinitestGlobalSettings.setSlowTestTimeLimit(preferences.getLong(SLOW_TEST_WARNING));
+		InfinitestGlobalSettings.setTestRunnerReused(preferences.getBoolean(REUSE_TEST_RUNNER));
 	}
 }
@@ -73,6 +73,18 @@ public class SlowTestObserver implements DisabledTestListener, TestResultsListen
 		}
 	}
 
+	/**
+	 * Marks the tests that were slow in the previous session, before they run
+	 * again.
+	 */
+	public void restoreMarkers(RunStatistics statistics) {
+		for (Map.Entry<String, List<MethodStats>> eachTest : statistics.getPreviousMethodStats().entrySet()) {
+			for (MethodStats methodStat : eachTest.getValue()) {
+				runStatsUpdated(eachTest.getKey(), methodStat);
+			}
+		}
+	}
+
 	@Override
 	public void testsDisabled(Collection<String> testName) {
 		for (String eachTest : testName) {
@@ -43,7 +43,7 @@ public class ConsoleClearingListener implements TestQueueListener {
 
 	@Override
 	public void testQueueUpdated(TestQueueEvent event) {
-		if (event.getInitialSize() == event.getTestQueue().size()) {
+		if (event.getInitialSize() == event.getQueueSize()) {
 			writer.clearConsole();
 		}
 	}
@@ -27,7 +27,12 @@
  */
 package org.infinitest.eclipse.event;
 
+import static com.google.common.collect.Sets.*;
 import static org.eclipse.core.resources.IResourceChangeEvent.*;
+import static org.eclipse.core.resources.IResourceDelta.*;
+
+import java.io.*;
+import java.util.*;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -52,22 +57,57 @@ class ClassFileChangeProcessor extends EclipseEventProcessor {
 
 	@Override
 	public void processEvent(IResourceChangeEvent event) throws CoreException {
-		if (containsClassFileChanges(getDeltas(event))) {
+		ClassFileChanges changes = new ClassFileChanges();
+		changes.collect(getDeltas(event));
+		if (changes.isEmpty()) {
+			return;
+		}
+		if (changes.unlocatedFiles) {
+			// Not on the local file system, the cores will have to look for
+			// themselves
 			workspace.updateProjects();
+		} else {
+			workspace.updateProjects(changes.changedFiles, changes.removedFiles);
 		}
 	}
 
-	private boolean containsClassFileChanges(IResourceDelta... deltas) {
+	/**
+	 * The class files the build wrote or deleted, so the cores don't have to
+	 * scan their output directories to find them.
+	 */
+	private static class ClassFileChanges {
+		private final Set<File> changedFiles = newHashSet();
+		private final Set<File> removedFiles = newHashSet();
+		private boolean unlocatedFiles;
+
 		// DEBT SHould use IResourceDeltaVisitor instead
-		for (IResourceDelta delta : deltas) {
-			if (isClassFile(delta) || containsClassFileChanges(delta.getAffectedChildren())) {
-				return true;
+		void collect(IResourceDelta... deltas) {
+			for (IResourceDelta delta : deltas) {
+				if (isClassFile(delta)) {
+					add(delta);
+				} else {
+					collect(delta.getAffectedChildren());
+				}
+			}
+		}
+
+		private void add(IResourceDelta delta) {
+			IPath location = (delta.getResource() == null) ? null : delta.getResource().getLocation();
+			if (location == null) {
+				unlocatedFiles = true;
+			} else if (delta.getKind() == REMOVED) {
+				removedFiles.add(location.toFile());
+			} else {
+				changedFiles.add(location.toFile());
 			}
 		}
-		return false;
-	}
 
-	private boolean isClassFile(IResourceDelta delta) {
-		return delta.getFullPath().toPortableString().endsWith(".class");
+		private boolean isClassFile(IResourceDelta delta) {
+			return delta.getFullPath().toPortableString().endsWith(".class");
+		}
+
+		boolean isEmpty() {
+			return changedFiles.isEmpty() && removedFiles.isEmpty() && !unlocatedFiles;
+		}
 	}
 }
@@ -0,0 +1,75 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.eclipse.event;
+
+import static org.eclipse.jdt.core.IJavaElement.*;
+import static org.eclipse.jdt.core.IJavaElementDelta.*;
+
+import org.eclipse.jdt.core.*;
+import org.infinitest.eclipse.workspace.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+/**
+ * Tells the workspace when the classpath of a Java project changes, including
+ * changes of the libraries of a classpath container or of the JRE, which don't
+ * show up as resource changes.
+ */
+@Component
+class ClasspathChangeListener implements IElementChangedListener {
+	private static final int CLASSPATH_CHANGES = F_CLASSPATH_CHANGED | F_RESOLVED_CLASSPATH_CHANGED | F_OPENED | F_CLOSED;
+
+	private final WorkspaceFacade workspace;
+
+	@Autowired
+	ClasspathChangeListener(WorkspaceFacade workspace) {
+		this.workspace = workspace;
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		if (classpathChanged(event.getDelta())) {
+			workspace.classpathChanged();
+		}
+	}
+
+	private boolean classpathChanged(IJavaElementDelta delta) {
+		if (delta.getElement().getElementType() == JAVA_PROJECT) {
+			return (delta.getKind() != CHANGED) || ((delta.getFlags() & CLASSPATH_CHANGES) != 0);
+		}
+		// Only the Java model itself has projects as children
+		if (delta.getElement().getElementType() == JAVA_MODEL) {
+			for (IJavaElementDelta each : delta.getAffectedChildren()) {
+				if (classpathChanged(each)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -68,6 +68,10 @@ public class PreferenceChangeHandler {
 		if (PARALLEL_CORES.equals(preference)) {
 			updateConcurrency((String) newValue);
 		}
+
+		if (REUSE_TEST_RUNNER.equals(preference)) {
+			setTestRunnerReused((Boolean) newValue);
+		}
 	}
 
 	private void updateConcurrency(String newValue) {
@@ -64,6 +64,7 @@ public class PreferencePage extends FieldEditorPreferencePage implements IWorkbe
 		addField(autoTestEditor);
 		addField(createParallelizationEditor());
 		addField(createSlowTestWarningCutoffEditor());
+		addField(new BooleanFieldEditor(REUSE_TEST_RUNNER, "Reuse Test Runner Process", getFieldEditorParent()));
 	}
 
 	private FieldEditor createSlowTestWarningCutoffEditor() {
@@ -74,7 +75,7 @@ public class PreferencePage extends FieldEditorPreferencePage implements IWorkbe
 	}
 
 	private FieldEditor createParallelizationEditor() {
-		IntegerFieldEditor editor = new IntegerFieldEditor(PARALLEL_CORES, "Projects Tested Concurrently", getFieldEditorParent());
+		IntegerFieldEditor editor = new IntegerFieldEditor(PARALLEL_CORES, "Parallel Test Runner Processes", getFieldEditorParent());
 		editor.setEmptyStringAllowed(false);
 		editor.setValidRange(1, 16);
 		return editor;
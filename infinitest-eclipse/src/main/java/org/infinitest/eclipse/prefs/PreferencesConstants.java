@@ -41,4 +41,6 @@ public abstract class PreferencesConstants {
 
 	public static final String SLOW_TEST_WARNING = "org.infinitest.eclipse.slow-warning";
 
+	public static final String REUSE_TEST_RUNNER = "org.infinitest.eclipse.reuse-runner";
+
 }
@@ -27,14 +27,19 @@
  */
 package org.infinitest.eclipse.workspace;
 
+import static com.google.common.base.Throwables.*;
 import static com.google.common.collect.Lists.*;
+import static java.util.concurrent.Executors.*;
 import static org.infinitest.eclipse.InfinitestCoreClasspath.*;
 import static org.infinitest.eclipse.workspace.WorkspaceStatusFactory.*;
 import static org.infinitest.util.Events.*;
 import static org.infinitest.util.InfinitestUtils.*;
 
 import java.io.*;
+import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.eclipse.core.runtime.*;
 import org.infinitest.*;
@@ -44,14 +49,23 @@ import org.infinitest.util.*;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.stereotype.*;
 
+import com.google.common.util.concurrent.*;
+
 @Component
 class EclipseWorkspace implements WorkspaceFacade {
+	// Updates spend much of their time reading class files, so even a single
+	// processor benefits from a second one
+	private static final int MAX_PARALLEL_UPDATES = Math.max(2, Runtime.getRuntime().availableProcessors());
+
 	private final CoreRegistry coreRegistry;
 	private final CoreFactory coreFactory;
 	private WorkspaceStatus status;
 	private final List<WorkspaceStatusListener> statusListeners = newArrayList();
 	private final Events<UpdateListener> updateEvent = eventFor(UpdateListener.class);
 	private final ProjectSet projectSet;
+	private final ConcurrentMap<URI, RuntimeEnvironment> runtimeEnvironments = new ConcurrentHashMap<URI, RuntimeEnvironment>();
+	private final AtomicInteger classpathChanges = new AtomicInteger();
+	private ExecutorService updateExecutor;
 
 	@Autowired
 	EclipseWorkspace(ProjectSet projectSet, CoreRegistry coreRegistry, CoreFactory coreFactory) {
@@ -67,16 +81,36 @@ class EclipseWorkspace implements WorkspaceFacade {
 
 	@Override
 	public void updateProjects() throws CoreException {
+		updateProjects(null, null);
+	}
+
+	/**
+	 * @param changedClassFiles
+	 *            the class files the build wrote, or null to have each core
+	 *            look for changes in its output directories
+	 */
+	@Override
+	public void updateProjects(Collection<File> changedClassFiles, Collection<File> removedClassFiles) throws CoreException {
 		if (projectSet.hasErrors()) {
 			setStatus(workspaceErrors());
 		} else {
-			int numberOfTestsToRun = updateProjectsIn(projectSet);
+			int numberOfTestsToRun = updateProjectsIn(projectSet, changedClassFiles, removedClassFiles);
 			if (numberOfTestsToRun == 0) {
 				setStatus(noTestsRun());
 			}
 		}
 	}
 
+	/**
+	 * Forgets the runtime environments of every project, since a project also
+	 * sees the classpath of the projects it depends on.
+	 */
+	@Override
+	public void classpathChanged() {
+		classpathChanges.incrementAndGet();
+		runtimeEnvironments.clear();
+	}
+
 	public void setStatus(WorkspaceStatus newStatus) {
 		status = newStatus;
 		for (WorkspaceStatusListener each : statusListeners) {
@@ -88,24 +122,135 @@ class EclipseWorkspace implements WorkspaceFacade {
 		return status;
 	}
 
-	private int updateProjectsIn(ProjectSet projectSet) throws CoreException {
+	/**
+	 * Updates the cores of the projects in parallel, since each one scans and
+	 * parses its own output directories. The environments are still built on
+	 * the calling thread, as they query the Java model. Running the tests found
+	 * is up to the concurrency controller of each core.
+	 */
+	private int updateProjectsIn(ProjectSet projectSet, Collection<File> changedClassFiles, Collection<File> removedClassFiles) throws CoreException {
 		updateEvent.fire();
-		int totalTests = 0;
+		setStatus(findingTests(0));
+		List<Callable<Integer>> updates = newArrayList();
 		for (ProjectFacade project : projectSet.projects()) {
-			setStatus(findingTests(totalTests));
-			totalTests += updateProject(project);
+			Callable<Integer> update = updateOf(project, changedClassFiles, removedClassFiles);
+			if (update != null) {
+				updates.add(update);
+			}
+		}
+		if (updates.isEmpty()) {
+			return 0;
+		}
+		if (updates.size() == 1) {
+			return runUpdate(updates.get(0));
+		}
+
+		CompletionService<Integer> completedUpdates = new ExecutorCompletionService<Integer>(getUpdateExecutor());
+		List<Future<Integer>> pendingUpdates = newArrayList();
+		for (Callable<Integer> each : updates) {
+			pendingUpdates.add(completedUpdates.submit(each));
+		}
+		int totalTests = 0;
+		try {
+			for (int remaining = updates.size(); remaining > 0; remaining--) {
+				totalTests += completedUpdates.take().get();
+				if (remaining > 1) {
+					setStatus(findingTests(totalTests));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw propagate(e.getCause());
+		} finally {
+			for (Future<Integer> each : pendingUpdates) {
+				each.cancel(true);
+			}
 		}
 		return totalTests;
 	}
 
-	private int updateProject(ProjectFacade project) throws CoreException {
-		RuntimeEnvironment environment = buildRuntimeEnvironment(project);
-		InfinitestCore core = coreRegistry.getCore(project.getLocationURI());
-		if (core == null) {
-			core = createCore(project, environment);
+	/**
+	 * @return the update of the project's core, or null if none of the changed
+	 *         class files are on its classpath
+	 */
+	private Callable<Integer> updateOf(ProjectFacade project, Collection<File> changedClassFiles, Collection<File> removedClassFiles) throws CoreException {
+		final RuntimeEnvironment environment = runtimeEnvironmentOf(project);
+		InfinitestCore existingCore = coreRegistry.getCore(project.getLocationURI());
+		final InfinitestCore core = existingCore == null ? createCore(project, environment) : existingCore;
+		// A new core, or one whose environment changes, has to index its
+		// classes from scratch
+		if ((changedClassFiles == null) || (existingCore == null) || !environment.equals(core.getRuntimeEnvironment())) {
+			return new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					core.setRuntimeEnvironment(environment);
+					return core.update();
+				}
+			};
 		}
-		core.setRuntimeEnvironment(environment);
-		return core.update();
+
+		List<File> classDirectories = environment.classDirectoriesInClasspath();
+		final List<File> changedFiles = filesIn(classDirectories, changedClassFiles);
+		final List<File> removedFiles = filesIn(classDirectories, removedClassFiles);
+		if (changedFiles.isEmpty() && removedFiles.isEmpty()) {
+			return null;
+		}
+		return new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				return core.update(changedFiles, removedFiles);
+			}
+		};
+	}
+
+	private static List<File> filesIn(List<File> directories, Collection<File> files) {
+		List<File> filesInDirectories = newArrayList();
+		for (File each : files) {
+			String path = each.getAbsolutePath();
+			for (File directory : directories) {
+				if (path.startsWith(directory.getAbsolutePath() + File.separator)) {
+					filesInDirectories.add(each);
+					break;
+				}
+			}
+		}
+		return filesInDirectories;
+	}
+
+	private int runUpdate(Callable<Integer> update) {
+		try {
+			return update.call();
+		} catch (Exception e) {
+			throw propagate(e);
+		}
+	}
+
+	private synchronized ExecutorService getUpdateExecutor() {
+		if (updateExecutor == null) {
+			ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("Infinitest project update %d").setDaemon(true).build();
+			updateExecutor = newFixedThreadPool(MAX_PARALLEL_UPDATES, threadFactory);
+		}
+		return updateExecutor;
+	}
+
+	/**
+	 * Resolving the classpath of a project is expensive, so its environment is
+	 * only built again once the classpath changed.
+	 */
+	RuntimeEnvironment runtimeEnvironmentOf(ProjectFacade project) throws CoreException {
+		URI location = project.getLocationURI();
+		RuntimeEnvironment environment = runtimeEnvironments.get(location);
+		if (environment == null) {
+			int changesBefore = classpathChanges.get();
+			environment = buildRuntimeEnvironment(project);
+			// An environment built while the classpath changed may already be
+			// out of date
+			if (classpathChanges.get() == changesBefore) {
+				runtimeEnvironments.put(location, environment);
+			}
+		}
+		return environment;
 	}
 
 	public RuntimeEnvironment buildRuntimeEnvironment(ProjectFacade project) throws CoreException {
@@ -27,8 +27,23 @@
  */
 package org.infinitest.eclipse.workspace;
 
+import java.io.*;
+import java.util.*;
+
 import org.eclipse.core.runtime.*;
 
 public interface WorkspaceFacade {
 	void updateProjects() throws CoreException;
+
+	/**
+	 * Updates the projects whose classpath contains the class files the build
+	 * changed or removed, without scanning their output directories.
+	 */
+	void updateProjects(Collection<File> changedClassFiles, Collection<File> removedClassFiles) throws CoreException;
+
+	/**
+	 * Called when the classpath of a project changed, so the next update
+	 * resolves the classpaths again.
+	 */
+	void classpathChanged();
 }
\ No newline at end of file
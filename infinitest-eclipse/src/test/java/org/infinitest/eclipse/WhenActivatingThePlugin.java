@@ -30,6 +30,7 @@ package org.infinitest.eclipse;
 import static org.mockito.Mockito.*;
 
 import org.eclipse.core.resources.*;
+import org.eclipse.jdt.core.*;
 import org.infinitest.*;
 import org.infinitest.eclipse.trim.*;
 import org.junit.*;
@@ -54,6 +55,7 @@ public class WhenActivatingThePlugin {
 		controller.setVisualStatusRegistry(visualStatusRegistry);
 		controller.setWorkspace(workspace);
 		controller.setUpdateNotifier(coreUpdateNotifier);
+		controller.setClasspathListener(mock(IElementChangedListener.class));
 		controller.setEventQueue(eventQueue);
 		controller.setMarkerClearingRunnable(markerClearingRunnable);
 	}
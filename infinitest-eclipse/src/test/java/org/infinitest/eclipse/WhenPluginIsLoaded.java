@@ -49,14 +49,21 @@ public class WhenPluginIsLoaded {
 		plugin = new InfinitestPlugin();
 	}
 
+	@After
+	public void cleanup() {
+		InfinitestGlobalSettings.resetToDefaults();
+	}
+
 	@Test
 	public void shouldRestoreSavedPreferences() {
 		when(preferences.getInt(PARALLEL_CORES)).thenReturn(4);
 		when(preferences.getLong(SLOW_TEST_WARNING)).thenReturn(1000L);
+		when(preferences.getBoolean(REUSE_TEST_RUNNER)).thenReturn(true);
 
 		plugin.restoreSavedPreferences(preferences, coreSettings);
 
 		verify(coreSettings).setConcurrentCoreCount(4);
 		assertEquals(1000L, InfinitestGlobalSettings.getSlowTestTimeLimit());
+		assertTrue(InfinitestGlobalSettings.isTestRunnerReused());
 	}
 }
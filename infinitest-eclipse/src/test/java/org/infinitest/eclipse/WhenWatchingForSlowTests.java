@@ -96,6 +96,18 @@ public class WhenWatchingForSlowTests {
 		verify(mockMarkerRegistry).removeMarkers("MyTest");
 	}
 
+	@Test
+	public void shouldRestoreMarkersOfTestsThatWereSlowInThePreviousSession() {
+		methodStats.startTime = 0;
+		methodStats.stopTime = 5000;
+		RunStatistics statistics = mock(RunStatistics.class);
+		when(statistics.getPreviousMethodStats()).thenReturn(Collections.singletonMap("MyTest", asList(methodStats)));
+
+		observer.restoreMarkers(statistics);
+
+		verify(mockMarkerRegistry).addMarker(expectedMarker);
+	}
+
 	@Test
 	public void canRemoveAllMarkers() {
 		observer.clearMarkers();
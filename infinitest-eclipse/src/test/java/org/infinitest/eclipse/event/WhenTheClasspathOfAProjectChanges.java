@@ -0,0 +1,84 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.eclipse.event;
+
+import static org.eclipse.jdt.core.IJavaElement.*;
+import static org.eclipse.jdt.core.IJavaElementDelta.*;
+import static org.mockito.Mockito.*;
+
+import org.eclipse.jdt.core.*;
+import org.infinitest.eclipse.workspace.*;
+import org.junit.*;
+
+public class WhenTheClasspathOfAProjectChanges {
+	private WorkspaceFacade workspace;
+	private ClasspathChangeListener listener;
+
+	@Before
+	public void inContext() {
+		workspace = mock(WorkspaceFacade.class);
+		listener = new ClasspathChangeListener(workspace);
+	}
+
+	@Test
+	public void shouldTellTheWorkspaceWhenTheResolvedClasspathChanged() {
+		listener.elementChanged(eventFor(delta(JAVA_PROJECT, CHANGED, F_RESOLVED_CLASSPATH_CHANGED)));
+
+		verify(workspace).classpathChanged();
+	}
+
+	@Test
+	public void shouldTellTheWorkspaceWhenAProjectIsAdded() {
+		listener.elementChanged(eventFor(delta(JAVA_PROJECT, ADDED, 0)));
+
+		verify(workspace).classpathChanged();
+	}
+
+	@Test
+	public void shouldIgnoreChangesOfTheContentOfAProject() {
+		listener.elementChanged(eventFor(delta(JAVA_PROJECT, CHANGED, F_CHILDREN)));
+
+		verify(workspace, never()).classpathChanged();
+	}
+
+	private static ElementChangedEvent eventFor(IJavaElementDelta projectDelta) {
+		IJavaElementDelta modelDelta = delta(JAVA_MODEL, CHANGED, F_CHILDREN);
+		when(modelDelta.getAffectedChildren()).thenReturn(new IJavaElementDelta[] { projectDelta });
+		return new ElementChangedEvent(modelDelta, ElementChangedEvent.POST_CHANGE);
+	}
+
+	private static IJavaElementDelta delta(int elementType, int kind, int flags) {
+		IJavaElement element = mock(IJavaElement.class);
+		when(element.getElementType()).thenReturn(elementType);
+		IJavaElementDelta delta = mock(IJavaElementDelta.class);
+		when(delta.getElement()).thenReturn(element);
+		when(delta.getKind()).thenReturn(kind);
+		when(delta.getFlags()).thenReturn(flags);
+		return delta;
+	}
+}
@@ -62,6 +62,16 @@ public class WhenCreatingAndRemovingCores implements CoreLifecycleListener {
 		assertSame(coreRemoved, mockCore);
 	}
 
+	@Test
+	public void shouldStopTheTestRunnerProcessesOfRemovedCores() throws URISyntaxException {
+		InfinitestCore mockCore = mock(InfinitestCore.class);
+		registry.addCore(new URI("//someProject"), mockCore);
+
+		registry.removeCore(new URI("//someProject"));
+
+		verify(mockCore).dispose();
+	}
+
 	@Override
 	public void coreCreated(InfinitestCore core) {
 		coreAdded = core;
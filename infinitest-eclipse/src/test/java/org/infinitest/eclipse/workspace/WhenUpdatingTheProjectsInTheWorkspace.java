@@ -28,7 +28,9 @@
 package org.infinitest.eclipse.workspace;
 
 import static com.google.common.collect.Lists.*;
+import static java.util.Arrays.*;
 import static java.util.Collections.*;
+import static java.util.concurrent.TimeUnit.*;
 import static org.infinitest.eclipse.util.StatusMatchers.*;
 import static org.infinitest.eclipse.workspace.JavaProjectBuilder.*;
 import static org.infinitest.eclipse.workspace.WorkspaceStatusFactory.*;
@@ -39,6 +41,8 @@ import static org.mockito.Mockito.*;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.eclipse.core.runtime.*;
 import org.eclipse.jdt.core.*;
@@ -46,6 +50,10 @@ import org.infinitest.*;
 import org.infinitest.eclipse.*;
 import org.infinitest.eclipse.status.*;
 import org.junit.*;
+import org.mockito.invocation.*;
+import org.mockito.stubbing.*;
+
+import com.google.common.io.*;
 
 public class WhenUpdatingTheProjectsInTheWorkspace extends ResourceEventSupport {
 	private List<ProjectFacade> projects;
@@ -173,6 +181,74 @@ public class WhenUpdatingTheProjectsInTheWorkspace extends ResourceEventSupport
 		verify(coreB).setRuntimeEnvironment(any(RuntimeEnvironment.class));
 	}
 
+	@Test
+	public void shouldUpdateCoresInParallel() throws CoreException {
+		JavaProjectBuilder projectB = project("/projectB");
+		projects.add(newFacade(projectB));
+		final CountDownLatch bothUpdating = new CountDownLatch(2);
+		InfinitestCore coreA = prepateCore(projectAUri(), 0);
+		InfinitestCore coreB = prepateCore(projectB.getProject().getLocationURI(), 0);
+		Answer<Integer> waitForTheOtherCore = new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws InterruptedException {
+				bothUpdating.countDown();
+				return bothUpdating.await(5, SECONDS) ? 10 : 0;
+			}
+		};
+		when(coreA.update()).thenAnswer(waitForTheOtherCore);
+		when(coreB.update()).thenAnswer(waitForTheOtherCore);
+
+		workspace.updateProjects();
+
+		assertStatusIs(findingTests(10));
+		verify(coreA).setRuntimeEnvironment(any(RuntimeEnvironment.class));
+		verify(coreB).setRuntimeEnvironment(any(RuntimeEnvironment.class));
+	}
+
+	@Test
+	public void shouldOnlyGiveCoresTheChangedClassFilesOnTheirClasspath() throws CoreException {
+		final File classDirectory = Files.createTempDir();
+		ProjectFacade facade = new ProjectFacade(project) {
+			@Override
+			public String rawClasspath() {
+				return classDirectory.getAbsolutePath();
+			}
+		};
+		projects.clear();
+		projects.add(facade);
+		InfinitestCore core = prepateCore(projectAUri(), 1);
+		when(core.getRuntimeEnvironment()).thenReturn(workspace.buildRuntimeEnvironment(facade));
+		File changedFile = new File(classDirectory, "com/fakeco/Changed.class");
+		List<File> noFiles = emptyList();
+
+		workspace.updateProjects(asList(changedFile, new File("elsewhere/Other.class")), noFiles);
+
+		verify(core).update(asList(changedFile), noFiles);
+		verify(core, never()).update();
+	}
+
+	@Test
+	public void shouldResolveTheClasspathAgainOnlyAfterItChanged() throws CoreException {
+		final AtomicInteger classpathResolutions = new AtomicInteger();
+		projects.clear();
+		projects.add(new ProjectFacade(project) {
+			@Override
+			public String rawClasspath() {
+				classpathResolutions.incrementAndGet();
+				return "classpath";
+			}
+		});
+		prepateCore(projectAUri(), 1);
+
+		workspace.updateProjects();
+		workspace.updateProjects();
+		assertEquals(1, classpathResolutions.get());
+
+		workspace.classpathChanged();
+		workspace.updateProjects();
+		assertEquals(2, classpathResolutions.get());
+	}
+
 	private void assertStatusIs(WorkspaceStatus expectedStatus) {
 		assertThat(workspace.getStatus(), equalsStatus(expectedStatus));
 	}
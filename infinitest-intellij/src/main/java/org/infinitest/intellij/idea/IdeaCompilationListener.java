@@ -27,14 +27,35 @@
  */
 package org.infinitest.intellij.idea;
 
+import static com.google.common.collect.Sets.*;
+import static java.util.concurrent.Executors.*;
+import static java.util.concurrent.TimeUnit.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
 import org.infinitest.*;
 import org.infinitest.intellij.*;
 
+import com.google.common.util.concurrent.*;
 import com.intellij.openapi.compiler.*;
 
+/**
+ * Collects the class files generated during a compilation and updates the core
+ * once, with all of them, when the compilation finishes.
+ */
 public class IdeaCompilationListener implements CompilationStatusListener, TestControl {
+	// Some compilers never report the end of a compilation. Their files are
+	// used once no new one was generated for this long.
+	static final long QUIET_PERIOD = 500;
+
+	private static final ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("Infinitest compilation listener").setDaemon(true).build());
+
 	private final InfinitestCore core;
 	private final ModuleSettings moduleSettings;
+	private final Set<File> generatedFiles = newLinkedHashSet();
+	private ScheduledFuture<?> pendingUpdate;
 	private boolean shouldRunTests = true;
 
 	public IdeaCompilationListener(InfinitestCore core, ModuleSettings moduleSettings) {
@@ -45,13 +66,40 @@ public class IdeaCompilationListener implements CompilationStatusListener, TestC
 	@Override
 	public void compilationFinished(boolean aborted, int errors, int warnings, CompileContext compileContext) {
 		if (!aborted && (errors == 0)) {
-			doRunTests();
+			doRunTests(takeGeneratedFiles());
+		} else {
+			// The files are kept for the next successful compilation
+			cancelPendingUpdate();
 		}
 	}
 
 	@Override
-	public void fileGenerated(String outputRoot, String relativePath) {
-		doRunTests();
+	public synchronized void fileGenerated(String outputRoot, String relativePath) {
+		if (!relativePath.endsWith(".class")) {
+			return;
+		}
+		generatedFiles.add(new File(outputRoot, relativePath));
+		cancelPendingUpdate();
+		pendingUpdate = scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				doRunTests(takeGeneratedFiles());
+			}
+		}, QUIET_PERIOD, MILLISECONDS);
+	}
+
+	private synchronized void cancelPendingUpdate() {
+		if (pendingUpdate != null) {
+			pendingUpdate.cancel(false);
+			pendingUpdate = null;
+		}
+	}
+
+	private synchronized List<File> takeGeneratedFiles() {
+		cancelPendingUpdate();
+		List<File> files = new ArrayList<File>(generatedFiles);
+		generatedFiles.clear();
+		return files;
 	}
 
 	@Override
@@ -67,7 +115,7 @@ public class IdeaCompilationListener implements CompilationStatusListener, TestC
 		return shouldRunTests;
 	}
 
-	private void doRunTests() {
+	private void doRunTests(List<File> changedFiles) {
 		if (!shouldRunTests) {
 			return;
 		}
@@ -77,7 +125,13 @@ public class IdeaCompilationListener implements CompilationStatusListener, TestC
 			return;
 		}
 
+		// A new environment means the core has to index every class again
+		boolean environmentChanged = !runtimeEnvironment.equals(core.getRuntimeEnvironment());
 		core.setRuntimeEnvironment(runtimeEnvironment);
-		core.update();
+		if (environmentChanged || changedFiles.isEmpty()) {
+			core.update();
+		} else {
+			core.update(changedFiles);
+		}
 	}
 }
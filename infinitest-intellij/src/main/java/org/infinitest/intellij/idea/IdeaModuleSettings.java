@@ -31,6 +31,7 @@ import static java.io.File.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
 import org.apache.log4j.*;
 import org.infinitest.*;
@@ -38,17 +39,23 @@ import org.infinitest.intellij.*;
 import org.jetbrains.annotations.*;
 import org.testng.collections.*;
 
+import com.intellij.*;
 import com.intellij.ide.plugins.*;
+import com.intellij.openapi.application.*;
 import com.intellij.openapi.compiler.*;
 import com.intellij.openapi.extensions.*;
 import com.intellij.openapi.module.*;
 import com.intellij.openapi.projectRoots.*;
 import com.intellij.openapi.roots.*;
+import com.intellij.openapi.util.*;
 import com.intellij.openapi.vfs.*;
 
 public class IdeaModuleSettings implements ModuleSettings {
 	private final Module module;
 	private final InfinitestJarLocator locator = new InfinitestJarLocator();
+	private volatile RuntimeEnvironment runtimeEnvironment;
+	private final AtomicInteger rootChanges = new AtomicInteger();
+	private boolean listeningForRootChanges;
 
 	public IdeaModuleSettings(Module module) {
 		this.module = module;
@@ -72,9 +79,49 @@ public class IdeaModuleSettings implements ModuleSettings {
 		return module.getName();
 	}
 
+	/**
+	 * Walking the order entries of the module and its dependencies is
+	 * expensive, so the environment is kept until the roots of the project, or
+	 * its SDK, change. It may be called from any thread, the model is read in a
+	 * read action.
+	 */
 	@Override
 	@Nullable
 	public RuntimeEnvironment getRuntimeEnvironment() {
+		listenForRootChanges();
+		RuntimeEnvironment environment = runtimeEnvironment;
+		if (environment == null) {
+			int changesBefore = rootChanges.get();
+			environment = ApplicationManager.getApplication().runReadAction(new Computable<RuntimeEnvironment>() {
+				@Override
+				public RuntimeEnvironment compute() {
+					return buildRuntimeEnvironment();
+				}
+			});
+			// Roots that changed meanwhile may not be in this environment
+			if (rootChanges.get() == changesBefore) {
+				runtimeEnvironment = environment;
+			}
+		}
+		return environment;
+	}
+
+	private synchronized void listenForRootChanges() {
+		if (listeningForRootChanges) {
+			return;
+		}
+		listeningForRootChanges = true;
+		module.getProject().getMessageBus().connect(module).subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter() {
+			@Override
+			public void rootsChanged(ModuleRootEvent event) {
+				rootChanges.incrementAndGet();
+				runtimeEnvironment = null;
+			}
+		});
+	}
+
+	@Nullable
+	private RuntimeEnvironment buildRuntimeEnvironment() {
 		File sdkPath = getSdkHomePath();
 		if (sdkPath == null) {
 			return null;
@@ -99,6 +99,7 @@ public class InfinitestLauncherImpl implements InfinitestLauncher {
 	public void stop() {
 		toolWindowRegistry.unregisterToolWindow(toolWindowId());
 		compilationNotifier.removeCompilationStatusListener(testControl);
+		infinitestBuilder.getCore().dispose();
 	}
 
 	private String toolWindowId() {
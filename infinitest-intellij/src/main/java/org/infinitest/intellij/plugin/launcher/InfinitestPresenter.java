@@ -94,7 +94,7 @@ public class InfinitestPresenter implements StatusChangeListener, TestQueueListe
 	public void testQueueUpdated(TestQueueEvent event) {
 		view.setMaximumProgress(event.getInitialSize());
 		view.setProgress(1 + event.getTestsRun());
-		if (!event.getTestQueue().isEmpty()) {
+		if (!event.isQueueEmpty()) {
 			view.setCurrentTest(event.getCurrentTest());
 		}
 	}
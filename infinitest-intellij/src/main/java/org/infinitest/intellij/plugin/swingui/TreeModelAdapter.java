@@ -55,30 +55,36 @@ class TreeModelAdapter implements TreeModel, FailureListListener {
 
 	@Override
 	public Object getChild(Object parent, int index) {
+		FailureIndex failures = collector.getFailureIndex();
 		if (parent == getRoot()) {
-			return collector.getPointOfFailure(index);
+			return failures.getPointOfFailure(index);
 		}
-		if (collector.isPointOfFailure(parent)) {
-			return collector.getTestsFor((PointOfFailure) parent).get(index);
+		if (failures.isPointOfFailure(parent)) {
+			return failures.getFailures((PointOfFailure) parent).get(index);
 		}
 		return null;
 	}
 
 	@Override
 	public int getChildCount(Object parent) {
+		FailureIndex failures = collector.getFailureIndex();
 		if (parent.equals(getRoot())) {
-			return collector.getPointOfFailureCount();
+			return failures.getPointOfFailureCount();
 		}
-		if (collector.isPointOfFailure(parent)) {
-			return collector.getTestsFor((PointOfFailure) parent).size();
+		if (failures.isPointOfFailure(parent)) {
+			return failures.getFailures((PointOfFailure) parent).size();
 		}
 		return 0;
 	}
 
 	@Override
 	public int getIndexOfChild(Object parent, Object child) {
+		FailureIndex failures = collector.getFailureIndex();
 		if (getRoot().equals(parent)) {
-			return collector.getPointOfFailureIndex((PointOfFailure) child);
+			return failures.getPosition(child);
+		}
+		if (failures.isPointOfFailure(parent)) {
+			return failures.getFailures((PointOfFailure) parent).indexOf(child);
 		}
 		return 0;
 	}
@@ -27,8 +27,11 @@
  */
 package org.infinitest.intellij;
 
+import static java.util.Arrays.*;
 import static org.mockito.Mockito.*;
 
+import java.io.*;
+
 import org.infinitest.*;
 import org.infinitest.intellij.idea.*;
 import org.junit.*;
@@ -71,4 +74,47 @@ public class WhenCompilationCompletes {
 		verify(core, never()).setRuntimeEnvironment(Matchers.any(RuntimeEnvironment.class));
 		verify(core, never()).update();
 	}
+
+	@Test
+	public void shouldUpdateCoreOnceWithAllGeneratedClassFiles() {
+		when(core.getRuntimeEnvironment()).thenReturn(moduleSettings.getRuntimeEnvironment());
+		CompilationStatusListener listener = new IdeaCompilationListener(core, moduleSettings);
+		listener.fileGenerated("out", "com/fakeco/AClass.class");
+		listener.fileGenerated("out", "com/fakeco/ATest.class");
+		listener.fileGenerated("out", "com/fakeco/messages.properties");
+		listener.compilationFinished(false, 0, 0, null);
+
+		verify(core).update(asList(new File("out", "com/fakeco/AClass.class"), new File("out", "com/fakeco/ATest.class")));
+		verify(core, never()).update();
+	}
+
+	@Test
+	public void shouldUpdateCoreWhenNoMoreFilesAreGenerated() {
+		when(core.getRuntimeEnvironment()).thenReturn(moduleSettings.getRuntimeEnvironment());
+		CompilationStatusListener listener = new IdeaCompilationListener(core, moduleSettings);
+		listener.fileGenerated("out", "com/fakeco/AClass.class");
+
+		verify(core, timeout(5000)).update(asList(new File("out", "com/fakeco/AClass.class")));
+	}
+
+	@Test
+	public void shouldKeepGeneratedFilesUntilCompilationSucceeds() {
+		when(core.getRuntimeEnvironment()).thenReturn(moduleSettings.getRuntimeEnvironment());
+		CompilationStatusListener listener = new IdeaCompilationListener(core, moduleSettings);
+		listener.fileGenerated("out", "com/fakeco/AClass.class");
+		listener.compilationFinished(false, 1, 0, null);
+		listener.fileGenerated("out", "com/fakeco/ATest.class");
+		listener.compilationFinished(false, 0, 0, null);
+
+		verify(core).update(asList(new File("out", "com/fakeco/AClass.class"), new File("out", "com/fakeco/ATest.class")));
+	}
+
+	@Test
+	public void shouldUpdateEverythingWhenTheEnvironmentChanged() {
+		CompilationStatusListener listener = new IdeaCompilationListener(core, moduleSettings);
+		listener.fileGenerated("out", "com/fakeco/AClass.class");
+		listener.compilationFinished(false, 0, 0, null);
+
+		verify(core).update();
+	}
 }
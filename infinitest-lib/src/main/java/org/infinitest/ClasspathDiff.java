@@ -0,0 +1,126 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest;
+
+import static com.google.common.base.Splitter.*;
+import static com.google.common.collect.Sets.*;
+import static java.io.File.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.jar.*;
+
+/**
+ * The entries added to or removed from the classpath between two environments.
+ * Entries that only moved are left out, since they still provide the same
+ * classes.
+ */
+class ClasspathDiff {
+	private static final String CLASS_EXTENSION = ".class";
+
+	private final Set<File> addedEntries;
+	private final Set<File> removedEntries;
+	private final Set<File> removedClassDirectories;
+
+	ClasspathDiff(ClasspathProvider previous, ClasspathProvider current) {
+		Set<File> previousEntries = entriesOf(previous);
+		Set<File> currentEntries = entriesOf(current);
+		addedEntries = difference(currentEntries, previousEntries).immutableCopy();
+		removedEntries = difference(previousEntries, currentEntries).immutableCopy();
+		removedClassDirectories = newLinkedHashSet();
+		for (File each : previous.classDirectoriesInClasspath()) {
+			if (removedEntries.contains(each)) {
+				removedClassDirectories.add(each);
+			}
+		}
+	}
+
+	private static Set<File> entriesOf(ClasspathProvider classpath) {
+		Set<File> entries = newLinkedHashSet();
+		for (String each : on(pathSeparator).omitEmptyStrings().split(classpath.getCompleteClasspath())) {
+			entries.add(new File(each));
+		}
+		return entries;
+	}
+
+	public boolean isEmpty() {
+		return addedEntries.isEmpty() && removedEntries.isEmpty();
+	}
+
+	/**
+	 * The class directories that are no longer on the classpath, so their
+	 * class files no longer count.
+	 */
+	public Set<File> getRemovedClassDirectories() {
+		return removedClassDirectories;
+	}
+
+	/**
+	 * Lists the classes of the jars that were added or removed. New class
+	 * directories are left out, their class files are found like any other
+	 * new class file.
+	 *
+	 * @throws IOException
+	 *             if one of the jars can't be read, which includes a removed
+	 *             jar that was deleted since
+	 */
+	public Set<String> findLibraryClasses() throws IOException {
+		Set<String> classNames = newHashSet();
+		for (File each : addedEntries) {
+			if (!each.isDirectory() && each.exists()) {
+				addClassesIn(each, classNames);
+			}
+		}
+		for (File each : removedEntries) {
+			if (!removedClassDirectories.contains(each)) {
+				addClassesIn(each, classNames);
+			}
+		}
+		return classNames;
+	}
+
+	private static void addClassesIn(File jar, Set<String> classNames) throws IOException {
+		JarFile jarFile = new JarFile(jar);
+		try {
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()) {
+				String path = entries.nextElement().getName();
+				if (path.endsWith(CLASS_EXTENSION)) {
+					classNames.add(path.substring(0, path.length() - CLASS_EXTENSION.length()).replace('/', '.'));
+				}
+			}
+		} finally {
+			jarFile.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "added " + addedEntries + ", removed " + removedEntries;
+	}
+}
@@ -30,6 +30,11 @@ package org.infinitest;
 public interface ConcurrencyController {
 	void acquire() throws InterruptedException;
 
+	/**
+	 * Acquires a permit only if one is available right away.
+	 */
+	boolean tryAcquire();
+
 	void release();
 
 	void setCoreCount(int coreCount);
@@ -28,7 +28,9 @@
 package org.infinitest;
 
 import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
 import static com.google.common.collect.Sets.*;
+import static java.lang.System.*;
 import static java.util.logging.Level.*;
 import static org.infinitest.util.InfinitestUtils.*;
 
@@ -38,25 +40,40 @@ import java.util.*;
 import org.infinitest.changedetect.*;
 import org.infinitest.parser.*;
 import org.infinitest.testrunner.*;
+import org.infinitest.testrunner.cache.*;
 import org.infinitest.testrunner.queue.*;
 
 /**
  * @author <a href="mailto:benrady@gmail.com">Ben Rady</a>
  */
 class DefaultInfinitestCore implements InfinitestCore {
+	// Saving the index after every single change would mean writing the whole
+	// index on every save in the IDE
+	private static final long INDEX_SAVE_INTERVAL = 30 * 1000;
+
 	private final TestRunner runner;
 	private TestDetector testDetector;
 	private ChangeDetector changeDetector;
 	private final Set<Class<? extends Throwable>> caughtExceptions;
-	private final EventNormalizer normalizer;
+	private final EventDispatcher dispatcher;
 	private RuntimeEnvironment currentEnvironment;
 	private String name;
 	private final List<ReloadListener> reloadListeners;
 	private final List<DisabledTestListener> disabledTestListeners;
 	private final RunStatistics stats;
+	private final TestComparator testPriority;
+	private IndexStore indexStore;
+	private JarChangeDetector jarChangeDetector;
+	private ResultCache resultCache;
+	private boolean indexChanged;
+	private long lastIndexSave;
+	// Changes found when the classpath changed, for the next update to process
+	private final Set<File> pendingChangedFiles = newHashSet();
+	private final Set<File> pendingRemovedFiles = newHashSet();
+	private final Set<String> pendingTests = newHashSet();
 
 	DefaultInfinitestCore(TestRunner testRunner, EventQueue eventQueue) {
-		normalizer = new EventNormalizer(eventQueue);
+		dispatcher = new EventDispatcher(eventQueue);
 		runner = testRunner;
 		reloadListeners = newArrayList();
 		caughtExceptions = newLinkedHashSet();
@@ -64,7 +81,14 @@ class DefaultInfinitestCore implements InfinitestCore {
 
 		stats = new RunStatistics();
 		runner.addTestResultsListener(stats);
-		runner.setTestPriority(new TestComparator(stats));
+		runner.addTestQueueListener(new TestQueueAdapter() {
+			@Override
+			public void testRunComplete() {
+				stats.saveRunHistory();
+			}
+		});
+		testPriority = new TestComparator(stats);
+		runner.setTestPriority(testPriority);
 	}
 
 	public void setTestDetector(TestDetector testDetector) {
@@ -75,11 +99,79 @@ class DefaultInfinitestCore implements InfinitestCore {
 		this.changeDetector = changeDetector;
 	}
 
+	/**
+	 * Where to persist the dependency index between sessions. Without one, every
+	 * session starts by indexing and testing everything.
+	 */
+	public void setIndexStore(IndexStore indexStore) {
+		this.indexStore = indexStore;
+	}
+
+	/**
+	 * What finds the classes that changed in the jars of the classpath.
+	 * Without one, tests only run again when a class directory changes.
+	 */
+	public void setJarChangeDetector(JarChangeDetector jarChangeDetector) {
+		this.jarChangeDetector = jarChangeDetector;
+		if ((jarChangeDetector != null) && (currentEnvironment != null)) {
+			jarChangeDetector.setClasspathProvider(currentEnvironment);
+		}
+	}
+
+	/**
+	 * Where to find the results of tests that already passed against the
+	 * current version of the classes they use. Without one, every test found
+	 * is run.
+	 */
+	public void setResultCache(ResultCache resultCache) {
+		if (this.resultCache != null) {
+			runner.removeTestStatusListener(this.resultCache);
+		}
+		this.resultCache = resultCache;
+		if (resultCache != null) {
+			runner.addTestResultsListener(resultCache);
+			if (currentEnvironment != null) {
+				resultCache.setRuntimeEnvironment(currentEnvironment);
+			}
+		}
+	}
+
+	/**
+	 * Where to remember how tests ran, so priorities and slow tests are known
+	 * from the start of the next session.
+	 */
+	public void setRunHistory(RunHistory runHistory) {
+		stats.setRunHistory(runHistory);
+	}
+
 	@Override
 	public synchronized int update(Collection<File> changedFiles) {
+		return update(changedFiles, findRemovedClassFiles());
+	}
+
+	@Override
+	public synchronized int update(Collection<File> changedFiles, Collection<File> removedFiles) {
+		if (changeDetector != null) {
+			changeDetector.acknowledgeChanges(changedFiles, removedFiles);
+		}
+		return processChanges(changedFiles, removedFiles);
+	}
+
+	private int processChanges(Collection<File> changedFiles, Collection<File> removedFiles) {
 		log(CONFIG, "Core Update " + name);
-		int testsRun = runOptimizedTestSet(changedFiles);
+		findChangedJars();
+		if (!pendingChangedFiles.isEmpty() || !pendingRemovedFiles.isEmpty()) {
+			changedFiles = union(pendingChangedFiles, newHashSet(changedFiles)).immutableCopy();
+			removedFiles = union(pendingRemovedFiles, newHashSet(removedFiles)).immutableCopy();
+			pendingChangedFiles.clear();
+			pendingRemovedFiles.clear();
+		}
+		int testsRun = runOptimizedTestSet(changedFiles, removedFiles);
 		caughtExceptions.clear();
+		if (!changedFiles.isEmpty() || !removedFiles.isEmpty()) {
+			indexChanged = true;
+		}
+		saveIndexIfNeeded();
 		return testsRun;
 	}
 
@@ -88,7 +180,7 @@ class DefaultInfinitestCore implements InfinitestCore {
 	@Override
 	public synchronized int update() {
 		try {
-			return update(findChangedClassFiles());
+			return processChanges(findChangedClassFiles(), findRemovedClassFiles());
 		} catch (IOException e) {
 			checkForFatalError(e);
 		}
@@ -98,43 +190,187 @@ class DefaultInfinitestCore implements InfinitestCore {
 	@Override
 	public void reload() {
 		log("Reloading core " + name);
+		// The saved index may be the reason for the reload
+		if ((indexStore != null) && (currentEnvironment != null)) {
+			indexStore.delete(currentEnvironment);
+		}
+		clearIndex();
+	}
+
+	private void clearIndex() {
 		testDetector.clear();
 		changeDetector.clear();
+		pendingChangedFiles.clear();
+		pendingRemovedFiles.clear();
+		pendingTests.clear();
+		lastIndexSave = 0;
 
 		fireReload();
 	}
 
+	/**
+	 * A new JDK or working directory may change the outcome of any test, so
+	 * everything is indexed and tested again. When only the classpath changed,
+	 * the index is kept and only the classes using the classes of the added or
+	 * removed jars count as changed. New VM arguments, like system properties,
+	 * may change the outcome of any test too, so all of them are run again.
+	 */
 	@Override
-	public void setRuntimeEnvironment(RuntimeEnvironment environment) {
+	public synchronized void setRuntimeEnvironment(RuntimeEnvironment environment) {
 		if ((currentEnvironment == null) || !environment.equals(currentEnvironment)) {
+			RuntimeEnvironment previousEnvironment = currentEnvironment;
 			currentEnvironment = environment;
 			runner.setRuntimeEnvironment(environment);
-			changeDetector.setClasspathProvider(environment);
-			testDetector.setClasspathProvider(environment);
-			reload();
+			if (resultCache != null) {
+				resultCache.setRuntimeEnvironment(environment);
+			}
+			updateJarChangeDetector(environment);
+			if ((previousEnvironment == null) || !environment.sharesJvmWith(previousEnvironment) || !changeClasspath(previousEnvironment, environment)) {
+				changeDetector.setClasspathProvider(environment);
+				testDetector.setClasspathProvider(environment);
+				clearIndex();
+				restoreIndex();
+			}
+		}
+	}
+
+	private void updateJarChangeDetector(RuntimeEnvironment environment) {
+		if (jarChangeDetector != null) {
+			jarChangeDetector.setClasspathProvider(environment);
+		}
+	}
+
+	/**
+	 * The classes that use a class that changed in a jar are parsed again, as
+	 * if they had changed themselves, which reruns the tests that depend on
+	 * them.
+	 */
+	private void findChangedJars() {
+		if (jarChangeDetector == null) {
+			return;
+		}
+		Set<String> changedClasses = jarChangeDetector.findChangedClasses();
+		if (resultCache != null) {
+			resultCache.setLibraryContentHash(jarChangeDetector.getContentHash());
+		}
+		if (!changedClasses.isEmpty()) {
+			log(name + " Classes changed in jars: " + changedClasses);
+			pendingChangedFiles.addAll(testDetector.invalidateClassesUsing(changedClasses));
+		}
+	}
+
+	/**
+	 * @return false if the changes can't be worked out, and the core has to
+	 *         start over
+	 */
+	private boolean changeClasspath(RuntimeEnvironment previousEnvironment, RuntimeEnvironment environment) {
+		ClasspathDiff diff = new ClasspathDiff(previousEnvironment, environment);
+		Set<String> libraryClasses;
+		try {
+			libraryClasses = diff.findLibraryClasses();
+		} catch (IOException e) {
+			log(CONFIG, name + " Cannot tell which classes changed with the classpath: " + e.getMessage());
+			return false;
+		}
+		log(name + " Classpath changed: " + diff);
+
+		// Carry the index over, the parsed classes don't depend on the classpath
+		IndexSnapshot snapshot = new IndexSnapshot();
+		testDetector.saveIndex(snapshot);
+		Map<File, Long> timestamps = changeDetector.getTimestamps();
+		changeDetector.setClasspathProvider(environment);
+		testDetector.setClasspathProvider(environment);
+		testDetector.restoreIndex(snapshot);
+
+		Map<File, Long> remainingTimestamps = newHashMap();
+		for (Map.Entry<File, Long> each : timestamps.entrySet()) {
+			if (isInAny(diff.getRemovedClassDirectories(), each.getKey())) {
+				pendingRemovedFiles.add(each.getKey());
+			} else {
+				remainingTimestamps.put(each.getKey(), each.getValue());
+			}
+		}
+		changeDetector.restoreTimestamps(remainingTimestamps);
+		pendingChangedFiles.addAll(testDetector.invalidateClassesUsing(libraryClasses));
+		if (!environment.getVMArgs().equals(previousEnvironment.getVMArgs())) {
+			log(name + " VM arguments changed, running all tests");
+			pendingTests.addAll(testDetector.getCurrentTests());
 		}
+		return true;
 	}
 
-	private int runOptimizedTestSet(Collection<File> changedFiles) {
+	private static boolean isInAny(Set<File> directories, File file) {
+		String path = file.getAbsolutePath();
+		for (File each : directories) {
+			if (path.startsWith(each.getAbsolutePath() + File.separator)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void restoreIndex() {
+		if (indexStore != null) {
+			IndexSnapshot snapshot = indexStore.load(currentEnvironment);
+			if (snapshot != null) {
+				log(name + " Restoring dependency index of " + snapshot.getClasses().size() + " classes");
+				testDetector.restoreIndex(snapshot);
+				changeDetector.restoreTimestamps(snapshot.getTimestamps());
+				lastIndexSave = currentTimeMillis();
+			}
+		}
+	}
+
+	private void saveIndexIfNeeded() {
+		if ((indexStore != null) && indexChanged && ((currentTimeMillis() - lastIndexSave) > INDEX_SAVE_INTERVAL)) {
+			IndexSnapshot snapshot = new IndexSnapshot();
+			testDetector.saveIndex(snapshot);
+			snapshot.setTimestamps(changeDetector.getTimestamps());
+			indexStore.save(currentEnvironment, snapshot);
+			indexChanged = false;
+			lastIndexSave = currentTimeMillis();
+		}
+	}
+
+	private int runOptimizedTestSet(Collection<File> changedFiles, Collection<File> removedFiles) {
 		Set<String> oldTests = testDetector.getCurrentTests();
-		Collection<JavaClass> testsToRun = testDetector.findTestsToRun(changedFiles);
+		Set<String> testsToRun = namesOf(testDetector.findTestsToRun(changedFiles));
+		if (!removedFiles.isEmpty()) {
+			testsToRun.addAll(namesOf(testDetector.removeClasses(removedFiles)));
+		}
 		Set<String> newTests = testDetector.getCurrentTests();
 		fireDisabledTestEvents(difference(oldTests, newTests));
+		// Tests queued by a change of environment, unless they are gone since
+		testsToRun.addAll(intersection(pendingTests, newTests));
+		pendingTests.clear();
 		if (!testsToRun.isEmpty()) {
 			log(name + " Running tests: " + testsToRun);
+			getRunner().prioritiesChanged(stats.setDistancesFromChanges(testDetector.getDistancesFromChanges()));
 			runTests(testsToRun);
 		}
 		return testsToRun.size();
 	}
 
-	private Collection<File> findChangedClassFiles() throws IOException {
-		if (changeDetector.filesWereRemoved()) {
-			// Instead of reloading the core when a file is removed,
-			// we should ask the test detector to remove it from the dependency
-			// graph
-			log("Files removed. Reloading " + name);
-			reload();
+	private static Set<String> namesOf(Collection<JavaClass> classes) {
+		Set<String> names = newHashSet();
+		for (JavaClass each : classes) {
+			names.add(each.getName());
 		}
+		return names;
+	}
+
+	private Collection<File> findRemovedClassFiles() {
+		if (changeDetector == null) {
+			return Collections.emptySet();
+		}
+		Collection<File> removedFiles = changeDetector.findRemovedFiles();
+		if (!removedFiles.isEmpty()) {
+			log(name + " Files removed: " + removedFiles);
+		}
+		return removedFiles;
+	}
+
+	private Collection<File> findChangedClassFiles() throws IOException {
 		Collection<File> changedFiles = changeDetector.findChangedFiles();
 		if (!changedFiles.isEmpty()) {
 			log(name + " Files changed: " + changedFiles);
@@ -142,18 +378,19 @@ class DefaultInfinitestCore implements InfinitestCore {
 		return changedFiles;
 	}
 
+	@Override
 	public RunStatistics getRunStatistics() {
 		return stats;
 	}
 
 	@Override
 	public void addTestResultsListener(TestResultsListener l) {
-		getRunner().addTestResultsListener(normalizer.testEventNormalizer(l));
+		getRunner().addTestResultsListener(dispatcher.testResultsDispatcher(l));
 	}
 
 	@Override
 	public void removeTestResultsListener(TestResultsListener l) {
-		getRunner().removeTestStatusListener(normalizer.testEventNormalizer(l));
+		getRunner().removeTestStatusListener(dispatcher.testResultsDispatcher(l));
 	}
 
 	@Override
@@ -163,13 +400,13 @@ class DefaultInfinitestCore implements InfinitestCore {
 
 	@Override
 	public void addTestQueueListener(TestQueueListener listener) {
-		getRunner().addTestQueueListener(normalizer.testQueueNormalizer(listener));
+		getRunner().addTestQueueListener(dispatcher.testQueueDispatcher(listener));
 		reloadListeners.add(listener);
 	}
 
 	@Override
 	public void removeTestQueueListener(TestQueueListener listener) {
-		getRunner().removeTestQueueListener(normalizer.testQueueNormalizer(listener));
+		getRunner().removeTestQueueListener(dispatcher.testQueueDispatcher(listener));
 		reloadListeners.remove(listener);
 	}
 
@@ -184,12 +421,12 @@ class DefaultInfinitestCore implements InfinitestCore {
 
 	@Override
 	public void addConsoleOutputListener(ConsoleOutputListener listener) {
-		getRunner().addConsoleOutputListener(normalizer.consoleEventNormalizer(listener));
+		getRunner().addConsoleOutputListener(dispatcher.consoleOutputDispatcher(listener));
 	}
 
 	@Override
 	public void removeConsoleOutputListener(ConsoleOutputListener listener) {
-		getRunner().removeConsoleOutputListener(normalizer.consoleEventNormalizer(listener));
+		getRunner().removeConsoleOutputListener(dispatcher.consoleOutputDispatcher(listener));
 	}
 
 	@Override
@@ -202,6 +439,12 @@ class DefaultInfinitestCore implements InfinitestCore {
 		disabledTestListeners.remove(listener);
 	}
 
+	@Override
+	public void dispose() {
+		getRunner().dispose();
+		stats.saveRunHistory();
+	}
+
 	@Override
 	public boolean isEventSourceFor(TestCaseEvent testCaseEvent) {
 		return testCaseEvent.getSource().equals(getRunner());
@@ -227,17 +470,37 @@ class DefaultInfinitestCore implements InfinitestCore {
 		caughtExceptions.add(e.getClass());
 	}
 
-	private void runTests(Collection<JavaClass> testsToRun) {
-		List<String> tests = classesToNames(testsToRun);
-		getRunner().runTests(tests);
+	private void runTests(Collection<String> testsToRun) {
+		List<String> tests = newArrayList();
+		Map<String, TestResults> cachedResults = newHashMap();
+		for (String test : testsToRun) {
+			TestResults results = findCachedResults(test);
+			if (results == null) {
+				if (isLoggable(FINE)) {
+					log(FINE, "Priority of " + testPriority.explain(test));
+				}
+				tests.add(test);
+			} else {
+				cachedResults.put(test, results);
+			}
+		}
+		if (!cachedResults.isEmpty()) {
+			log(name + " Reusing results of: " + cachedResults.keySet());
+		}
+		// Run first, so the runner knows the run isn't over when it replays
+		if (!tests.isEmpty()) {
+			getRunner().runTests(tests);
+		}
+		if (!cachedResults.isEmpty()) {
+			getRunner().replayResults(cachedResults);
+		}
 	}
 
-	private List<String> classesToNames(Collection<JavaClass> classes) {
-		List<String> tests = newArrayList();
-		for (JavaClass javaClass : classes) {
-			tests.add(javaClass.getName());
+	private TestResults findCachedResults(String test) {
+		if (resultCache == null) {
+			return null;
 		}
-		return tests;
+		return resultCache.lookup(test, testDetector.getFingerprint(test));
 	}
 
 	private void fireReload() {
@@ -0,0 +1,199 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest;
+
+import static com.google.common.collect.Lists.*;
+import static org.infinitest.util.InfinitestUtils.*;
+
+import java.util.*;
+
+import org.infinitest.testrunner.*;
+
+/**
+ * Moves the events of a core to the UI's {@link EventQueue}. Events are
+ * buffered and delivered in order by a single job, so a burst of events costs
+ * one push on the queue instead of one per event.
+ * <p/>
+ * The listeners it creates are equal when they wrap the same listener, so they
+ * can be removed from the runner by wrapping the listener again.
+ */
+class EventDispatcher {
+	private final EventQueue eventQueue;
+	private List<Runnable> pendingEvents;
+	private boolean drainScheduled;
+
+	public EventDispatcher(EventQueue eventQueue) {
+		this.eventQueue = eventQueue;
+		pendingEvents = newArrayList();
+	}
+
+	public TestQueueListener testQueueDispatcher(TestQueueListener listener) {
+		return new TestQueueDispatcher(listener);
+	}
+
+	public TestResultsListener testResultsDispatcher(TestResultsListener listener) {
+		return new TestResultsDispatcher(listener);
+	}
+
+	public ConsoleOutputListener consoleOutputDispatcher(ConsoleOutputListener listener) {
+		return new ConsoleOutputDispatcher(listener);
+	}
+
+	private void dispatch(Runnable event) {
+		synchronized (this) {
+			pendingEvents.add(event);
+			if (drainScheduled) {
+				return;
+			}
+			drainScheduled = true;
+		}
+		eventQueue.pushNamed(new NamedRunnable("Processing Results") {
+			@Override
+			public void run() {
+				drain();
+			}
+		});
+	}
+
+	private void drain() {
+		List<Runnable> events;
+		synchronized (this) {
+			events = pendingEvents;
+			pendingEvents = newArrayList();
+			drainScheduled = false;
+		}
+		for (Runnable each : events) {
+			try {
+				each.run();
+			} catch (RuntimeException e) {
+				// One broken listener shouldn't keep the others from hearing
+				// about the rest of the batch
+				log("Error in event dispatcher", e);
+			}
+		}
+	}
+
+	private abstract class ListenerDispatcher<T> {
+		protected final T listener;
+
+		ListenerDispatcher(T listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if ((obj == null) || (obj.getClass() != getClass())) {
+				return false;
+			}
+			return ((ListenerDispatcher<?>) obj).listener.equals(listener);
+		}
+
+		@Override
+		public int hashCode() {
+			return listener.hashCode();
+		}
+	}
+
+	private class TestQueueDispatcher extends ListenerDispatcher<TestQueueListener> implements TestQueueListener {
+		TestQueueDispatcher(TestQueueListener listener) {
+			super(listener);
+		}
+
+		@Override
+		public void reloading() {
+			dispatch(new Runnable() {
+				@Override
+				public void run() {
+					listener.reloading();
+				}
+			});
+		}
+
+		@Override
+		public void testQueueUpdated(final TestQueueEvent event) {
+			dispatch(new Runnable() {
+				@Override
+				public void run() {
+					listener.testQueueUpdated(event);
+				}
+			});
+		}
+
+		@Override
+		public void testRunComplete() {
+			dispatch(new Runnable() {
+				@Override
+				public void run() {
+					listener.testRunComplete();
+				}
+			});
+		}
+	}
+
+	private class TestResultsDispatcher extends ListenerDispatcher<TestResultsListener> implements TestResultsListener {
+		TestResultsDispatcher(TestResultsListener listener) {
+			super(listener);
+		}
+
+		@Override
+		public void testCaseStarting(final TestEvent event) {
+			dispatch(new Runnable() {
+				@Override
+				public void run() {
+					listener.testCaseStarting(event);
+				}
+			});
+		}
+
+		@Override
+		public void testCaseComplete(final TestCaseEvent event) {
+			dispatch(new Runnable() {
+				@Override
+				public void run() {
+					listener.testCaseComplete(event);
+				}
+			});
+		}
+	}
+
+	private class ConsoleOutputDispatcher extends ListenerDispatcher<ConsoleOutputListener> implements ConsoleOutputListener {
+		ConsoleOutputDispatcher(ConsoleOutputListener listener) {
+			super(listener);
+		}
+
+		@Override
+		public void consoleOutputUpdate(final String newText, final OutputType outputType) {
+			dispatch(new Runnable() {
+				@Override
+				public void run() {
+					listener.consoleOutputUpdate(newText, outputType);
+				}
+			});
+		}
+	}
+}
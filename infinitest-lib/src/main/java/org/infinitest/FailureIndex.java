@@ -0,0 +1,93 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest;
+
+import java.util.*;
+
+import org.infinitest.testrunner.*;
+
+import com.google.common.collect.*;
+
+/**
+ * An immutable view of the current failures, grouped by point of failure in
+ * the order the points were first seen. Lookups never scan the failures, so
+ * tree models can query it once per node.
+ *
+ * @see ResultCollector#getFailureIndex()
+ */
+public class FailureIndex {
+	private final ImmutableList<PointOfFailure> pointsOfFailure;
+	private final ImmutableMap<PointOfFailure, Integer> positions;
+	private final ImmutableListMultimap<PointOfFailure, TestEvent> failures;
+
+	FailureIndex(Map<PointOfFailure, List<TestEvent>> failuresByPointOfFailure) {
+		ImmutableMap.Builder<PointOfFailure, Integer> positionsBuilder = ImmutableMap.builder();
+		ImmutableListMultimap.Builder<PointOfFailure, TestEvent> failuresBuilder = ImmutableListMultimap.builder();
+		int position = 0;
+		for (Map.Entry<PointOfFailure, List<TestEvent>> each : failuresByPointOfFailure.entrySet()) {
+			positionsBuilder.put(each.getKey(), position++);
+			failuresBuilder.putAll(each.getKey(), each.getValue());
+		}
+		pointsOfFailure = ImmutableList.copyOf(failuresByPointOfFailure.keySet());
+		positions = positionsBuilder.build();
+		failures = failuresBuilder.build();
+	}
+
+	public List<PointOfFailure> getPointsOfFailure() {
+		return pointsOfFailure;
+	}
+
+	public PointOfFailure getPointOfFailure(int position) {
+		return pointsOfFailure.get(position);
+	}
+
+	public int getPointOfFailureCount() {
+		return pointsOfFailure.size();
+	}
+
+	/**
+	 * @return the position of the point of failure, or -1 if no test fails
+	 *         there
+	 */
+	public int getPosition(Object pointOfFailure) {
+		Integer position = positions.get(pointOfFailure);
+		return position == null ? -1 : position;
+	}
+
+	public boolean isPointOfFailure(Object node) {
+		return positions.containsKey(node);
+	}
+
+	public List<TestEvent> getFailures(PointOfFailure pointOfFailure) {
+		return failures.get(pointOfFailure);
+	}
+
+	public int getFailureCount() {
+		return failures.size();
+	}
+}
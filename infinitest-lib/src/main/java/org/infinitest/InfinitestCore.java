@@ -72,10 +72,19 @@ public interface InfinitestCore {
 	int update();
 
 	/**
-	 * Uses a list of changed files instead of searching for them
+	 * Uses a list of changed files instead of searching for them. The class
+	 * files removed since the last update are still looked for, since the IDE
+	 * doesn't always report them.
 	 */
 	int update(Collection<File> changedFiles);
 
+	/**
+	 * Uses the class files the IDE reports as changed or removed instead of
+	 * searching for them. They won't be reported again by the next
+	 * {@link #update()}.
+	 */
+	int update(Collection<File> changedFiles, Collection<File> removedFiles);
+
 	/**
 	 * Re-indexes all the classes in the output directory and re-runs all the
 	 * tests.
@@ -97,6 +106,12 @@ public interface InfinitestCore {
 
 	boolean isEventSourceFor(TestCaseEvent testCaseEvent);
 
+	/**
+	 * What is known about the tests of this core, including what was recorded
+	 * in previous sessions.
+	 */
+	RunStatistics getRunStatistics();
+
 	/**
 	 * Listens for console output generated from test runs. Note that this event
 	 * could be fired after the test queue listener says the test run is
@@ -106,4 +121,10 @@ public interface InfinitestCore {
 
 	void removeConsoleOutputListener(ConsoleOutputListener listener);
 
+	/**
+	 * Stops the test runner processes kept for the next runs. Call it once the
+	 * core is no longer used.
+	 */
+	void dispose();
+
 }
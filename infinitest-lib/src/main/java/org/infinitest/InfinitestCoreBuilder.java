@@ -28,6 +28,7 @@
 package org.infinitest;
 
 import static com.google.common.base.Preconditions.*;
+import static org.infinitest.util.InfinitestGlobalSettings.*;
 
 import java.io.*;
 
@@ -35,6 +36,7 @@ import org.infinitest.changedetect.*;
 import org.infinitest.filter.*;
 import org.infinitest.parser.*;
 import org.infinitest.testrunner.*;
+import org.infinitest.testrunner.cache.*;
 
 /**
  * Used to create instances of an {@link InfinitestCore}.
@@ -42,6 +44,9 @@ import org.infinitest.testrunner.*;
  * @author bjrady
  */
 public class InfinitestCoreBuilder {
+	private static final int RESULTS_CACHED_IN_MEMORY = 1000;
+	private static final int RESULTS_CACHED_ON_DISK = 10000;
+
 	private TestFilter filterList;
 	private final Class<? extends TestRunner> runnerClass;
 	private final RuntimeEnvironment runtimeEnvironment;
@@ -68,12 +73,49 @@ public class InfinitestCoreBuilder {
 		runner.setConcurrencyController(controller);
 		DefaultInfinitestCore core = new DefaultInfinitestCore(runner, eventQueue);
 		core.setName(coreName);
-		core.setChangeDetector(new FileChangeDetector());
+		core.setChangeDetector(createChangeDetector());
 		core.setTestDetector(createTestDetector(filterList));
+		core.setIndexStore(new IndexStore());
+		core.setJarChangeDetector(new JarChangeDetector());
+		core.setResultCache(createResultCache());
+		core.setRunHistory(createRunHistory());
 		core.setRuntimeEnvironment(runtimeEnvironment);
 		return core;
 	}
 
+	protected ChangeDetector createChangeDetector() {
+		if (WatchServiceChangeDetector.isSupported()) {
+			return new WatchServiceChangeDetector();
+		}
+		return new FileChangeDetector();
+	}
+
+	protected RunHistory createRunHistory() {
+		// Like the dependency index, one file for each set of output directories
+		String name = "history-" + Integer.toHexString(runtimeEnvironment.getClassOutputDirs().hashCode()) + ".bin";
+		return new RunHistory(new File(getInfinitestDirectory(), name));
+	}
+
+	/**
+	 * @return null if results should not be cached
+	 */
+	protected ResultCache createResultCache() {
+		if (!isResultCacheEnabled()) {
+			return null;
+		}
+		File resultDirectory = new File(getInfinitestDirectory(), "results");
+		ResultStore localStore = new LayeredResultStore(new MemoryResultStore(RESULTS_CACHED_IN_MEMORY), new DirectoryResultStore(resultDirectory, RESULTS_CACHED_ON_DISK));
+		ResultStore sharedStore = null;
+		if (getSharedResultCacheUrl() != null) {
+			sharedStore = new HttpResultStore(getSharedResultCacheUrl());
+		}
+		return new ResultCache(localStore, sharedStore);
+	}
+
+	private File getInfinitestDirectory() {
+		return new File(runtimeEnvironment.getWorkingDirectory(), ".infinitest");
+	}
+
 	protected TestDetector createTestDetector(TestFilter testFilterList) {
 		return new ClassFileTestDetector(testFilterList);
 	}
@@ -52,6 +52,11 @@ public class MultiCoreConcurrencyController implements ConcurrencyController {
 		semaphore.acquire();
 	}
 
+	@Override
+	public boolean tryAcquire() {
+		return semaphore.tryAcquire();
+	}
+
 	@Override
 	public void release() {
 		semaphore.release();
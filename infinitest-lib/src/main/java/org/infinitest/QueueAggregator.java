@@ -29,12 +29,15 @@ package org.infinitest;
 
 import static com.google.common.collect.Lists.*;
 import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
 import static java.lang.Math.*;
 
 import java.util.*;
 
 public class QueueAggregator {
 	private int initialSize = 0;
+	private int queueSize = 0;
+	private String currentTest;
 	private final Map<InfinitestCore, AggregatingQueueListener> coreQueueListeners;
 	public static final String STATUS_PROPERTY = "status";
 	private final List<TestQueueListener> queueListeners;
@@ -59,28 +62,27 @@ public class QueueAggregator {
 	}
 
 	public void detach(InfinitestCore core) {
-		core.removeTestQueueListener(coreQueueListeners.remove(core));
+		AggregatingQueueListener listener = coreQueueListeners.remove(core);
+		core.removeTestQueueListener(listener);
+		if (listener != null) {
+			queueSize -= listener.queueSize;
+		}
 	}
 
-	private void fireTestQueueEvent() {
-		List<String> aggregatedQueue = getAggregatedQueue();
-		initialSize = max(initialSize, aggregatedQueue.size());
+	private void fireTestQueueEvent(List<String> added, List<String> removed, TestQueueEvent event) {
+		initialSize = max(initialSize, queueSize);
+		if (event.getCurrentTest() != null) {
+			currentTest = event.getCurrentTest();
+		}
+		TestQueueEvent aggregatedEvent = new TestQueueEvent(added, removed, event.getStarted(), queueSize, initialSize, currentTest);
 		for (TestQueueListener each : queueListeners) {
-			each.testQueueUpdated(new TestQueueEvent(aggregatedQueue, initialSize));
+			each.testQueueUpdated(aggregatedEvent);
 		}
-		if (aggregatedQueue.isEmpty()) {
+		if (queueSize == 0) {
 			initialSize = 0;
 		}
 	}
 
-	private List<String> getAggregatedQueue() {
-		List<String> aggregatedQueue = newArrayList();
-		for (AggregatingQueueListener each : coreQueueListeners.values()) {
-			aggregatedQueue.addAll(each.currentQueue);
-		}
-		return aggregatedQueue;
-	}
-
 	private void fireReloadingEvent() {
 		for (TestQueueListener each : queueListeners) {
 			each.reloading();
@@ -88,7 +90,7 @@ public class QueueAggregator {
 	}
 
 	private void fireCompleteEvent() {
-		if (getAggregatedQueue().isEmpty()) {
+		if (queueSize == 0) {
 			for (TestQueueListener each : queueListeners) {
 				each.testRunComplete();
 			}
@@ -99,8 +101,13 @@ public class QueueAggregator {
 		return coreQueueListeners;
 	}
 
+	/**
+	 * Keeps the tests queued by one core up to date from its events, so the
+	 * aggregated queue never has to be rebuilt from every core.
+	 */
 	private class AggregatingQueueListener extends TestQueueAdapter {
-		private List<String> currentQueue = newArrayList();
+		private final Set<String> queuedTests = newLinkedHashSet();
+		private int queueSize;
 
 		@Override
 		public void reloading() {
@@ -114,9 +121,18 @@ public class QueueAggregator {
 
 		@Override
 		public void testQueueUpdated(TestQueueEvent event) {
-			currentQueue = event.getTestQueue();
-			fireTestQueueEvent();
+			List<String> removed = newArrayList(event.getRemoved());
+			if (event.isSnapshot()) {
+				removed.addAll(queuedTests);
+				queuedTests.clear();
+			}
+			queuedTests.removeAll(event.getRemoved());
+			queuedTests.removeAll(event.getStarted());
+			queuedTests.addAll(event.getAdded());
+
+			QueueAggregator.this.queueSize += event.getQueueSize() - queueSize;
+			queueSize = event.getQueueSize();
+			fireTestQueueEvent(event.getAdded(), removed, event);
 		}
 	}
-
 }
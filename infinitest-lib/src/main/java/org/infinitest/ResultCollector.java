@@ -37,8 +37,6 @@ import java.util.*;
 
 import org.infinitest.testrunner.*;
 
-import com.google.common.collect.*;
-
 /**
  * Listens to events fired by the infinitest core to track the state of
  * individual test cases.
@@ -50,14 +48,17 @@ public class ResultCollector implements DisabledTestListener, TestQueueListener,
 	private final Map<String, TestCaseEvent> resultMap;
 	private final List<FailureListListener> changeListeners;
 	private final List<StatusChangeListener> statusChangeListeners;
-	private final ListMultimap<PointOfFailure, TestEvent> failuresByPointOfFailure;
+	// Kept up to date as results arrive, in the order points of failure
+	// were first seen
+	private final Map<PointOfFailure, List<TestEvent>> failuresByPointOfFailure;
+	private volatile FailureIndex failureIndex;
 	private final QueueAggregator queueAggregator;
 
 	public ResultCollector() {
 		resultMap = newHashMap();
 		changeListeners = newArrayList();
 		statusChangeListeners = newArrayList();
-		failuresByPointOfFailure = ArrayListMultimap.create();
+		failuresByPointOfFailure = newLinkedHashMap();
 		status = SCANNING;
 		queueAggregator = new QueueAggregator();
 		queueAggregator.addListener(this);
@@ -80,7 +81,7 @@ public class ResultCollector implements DisabledTestListener, TestQueueListener,
 		core.removeDisabledTestListener(this);
 		List<String> tests = findFailingTestsForCore(core);
 		for (String string : tests) {
-			resultMap.remove(string);
+			unindex(resultMap.remove(string));
 		}
 	}
 
@@ -106,10 +107,10 @@ public class ResultCollector implements DisabledTestListener, TestQueueListener,
 	public void testCaseComplete(TestCaseEvent event) {
 		TestCaseFailures failureSet = getCurrentFailuresForTestCase(event);
 		for (TestEvent each : event.getFailureEvents()) {
-			failuresByPointOfFailure.put(each.getPointOfFailure(), each);
 			failureSet.addNewFailure(each);
 		}
-		resultMap.put(event.getTestName(), event);
+		unindex(resultMap.put(event.getTestName(), event));
+		index(event);
 		fireCachedFailureEvents(failureSet);
 	}
 
@@ -126,41 +127,70 @@ public class ResultCollector implements DisabledTestListener, TestQueueListener,
 		fireUpdateEvent(testCaseFailures.updatedFailures());
 	}
 
-	public List<PointOfFailure> getPointsOfFailure() {
-		List<PointOfFailure> resultList = newArrayList();
-		for (TestEvent failure : getFailures()) {
-			PointOfFailure pointOfFailure = failure.getPointOfFailure();
-			if (!resultList.contains(pointOfFailure)) {
-				resultList.add(pointOfFailure);
+	private void index(TestCaseEvent event) {
+		for (TestEvent each : event.getFailureEvents()) {
+			if (each.getPointOfFailure() == null) {
+				continue;
+			}
+			List<TestEvent> failures = failuresByPointOfFailure.get(each.getPointOfFailure());
+			if (failures == null) {
+				failures = newArrayList();
+				failuresByPointOfFailure.put(each.getPointOfFailure(), failures);
+			}
+			failures.add(each);
+		}
+		failureIndex = null;
+	}
+
+	private void unindex(TestCaseEvent event) {
+		if (event == null) {
+			return;
+		}
+		for (TestEvent each : event.getFailureEvents()) {
+			List<TestEvent> failures = failuresByPointOfFailure.get(each.getPointOfFailure());
+			if ((failures != null) && failures.remove(each) && failures.isEmpty()) {
+				failuresByPointOfFailure.remove(each.getPointOfFailure());
 			}
 		}
-		return resultList;
+		failureIndex = null;
+	}
+
+	/**
+	 * @return the current failures grouped by point of failure. The index is
+	 *         only rebuilt after results change, and never changes once
+	 *         returned, so readers on other threads can keep using it.
+	 */
+	public FailureIndex getFailureIndex() {
+		FailureIndex index = failureIndex;
+		if (index == null) {
+			index = new FailureIndex(failuresByPointOfFailure);
+			failureIndex = index;
+		}
+		return index;
+	}
+
+	public List<PointOfFailure> getPointsOfFailure() {
+		return getFailureIndex().getPointsOfFailure();
 	}
 
 	public PointOfFailure getPointOfFailure(int i) {
-		return getPointsOfFailure().get(i);
+		return getFailureIndex().getPointOfFailure(i);
 	}
 
 	public boolean isPointOfFailure(Object parent) {
-		return getPointsOfFailure().contains(parent);
+		return getFailureIndex().isPointOfFailure(parent);
 	}
 
 	public List<TestEvent> getTestsFor(PointOfFailure pointOfFailure) {
-		List<TestEvent> matchedEvents = new ArrayList<TestEvent>();
-		for (TestEvent event : getFailures()) {
-			if (event.getPointOfFailure().equals(pointOfFailure)) {
-				matchedEvents.add(event);
-			}
-		}
-		return matchedEvents;
+		return getFailureIndex().getFailures(pointOfFailure);
 	}
 
 	public int getPointOfFailureCount() {
-		return getPointsOfFailure().size();
+		return getFailureIndex().getPointOfFailureCount();
 	}
 
 	public int getPointOfFailureIndex(PointOfFailure pointOfFailure) {
-		return getPointsOfFailure().indexOf(pointOfFailure);
+		return getFailureIndex().getPosition(pointOfFailure);
 	}
 
 	public void addChangeListener(FailureListListener listener) {
@@ -182,10 +212,11 @@ public class ResultCollector implements DisabledTestListener, TestQueueListener,
 	public void clear() {
 		resultMap.clear();
 		failuresByPointOfFailure.clear();
+		failureIndex = null;
 	}
 
 	public List<TestEvent> getFailuresForPointOfFailure(PointOfFailure pointOfFailure) {
-		return failuresByPointOfFailure.get(pointOfFailure);
+		return getTestsFor(pointOfFailure);
 	}
 
 	public CoreStatus getStatus() {
@@ -197,6 +228,7 @@ public class ResultCollector implements DisabledTestListener, TestQueueListener,
 		for (String eachTest : testNames) {
 			TestCaseEvent event = resultMap.remove(eachTest);
 			if (event != null) {
+				unindex(event);
 				fireChangeEvent(noEvents(), event.getFailureEvents());
 			}
 		}
@@ -222,7 +254,7 @@ public class ResultCollector implements DisabledTestListener, TestQueueListener,
 
 	@Override
 	public void testQueueUpdated(TestQueueEvent event) {
-		if (!event.getTestQueue().isEmpty()) {
+		if (!event.isQueueEmpty()) {
 			setStatus(RUNNING);
 		}
 	}
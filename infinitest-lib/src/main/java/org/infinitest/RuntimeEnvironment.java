@@ -27,6 +27,7 @@
  */
 package org.infinitest;
 
+import static com.google.common.base.Joiner.*;
 import static com.google.common.collect.Lists.*;
 import static com.google.common.collect.Maps.*;
 import static java.io.File.*;
@@ -53,7 +54,9 @@ public class RuntimeEnvironment implements ClasspathProvider {
 	private final String rawClasspath;
 	private final List<String> additionalArgs;
 	private String infinitestRuntimeClasspath;
+	private String completeClasspath;
 	private List<File> classDirs;
+	private int fingerprint;
 	private final CustomJvmArgumentsReader customArgumentsReader;
 
 	/**
@@ -96,6 +99,49 @@ public class RuntimeEnvironment implements ClasspathProvider {
 		return environment;
 	}
 
+	/**
+	 * Like {@link #createProcessEnvironment()}, but the classpath only has the
+	 * libraries. The class directories are loaded by the test runner process
+	 * itself, again for every run, so the process can be kept between runs.
+	 * 
+	 * @see #getReloadableClasspath()
+	 */
+	public Map<String, String> createReusableProcessEnvironment() {
+		Map<String, String> environment = newHashMap();
+		environment.put("CLASSPATH", getLibraryClasspath());
+		return environment;
+	}
+
+	private String getLibraryClasspath() {
+		String infinitestJarPath = findInfinitestJar();
+		List<String> entries = newArrayList();
+		for (String each : getClasspathElements(getRawClasspath())) {
+			if (!new File(each).isDirectory()) {
+				entries.add(each);
+			}
+		}
+		if (infinitestJarPath != null) {
+			entries.add(infinitestJarPath);
+		}
+		return on(pathSeparator).join(entries);
+	}
+
+	/**
+	 * The class directories of the classpath, which change while tests are
+	 * written, unlike libraries.
+	 */
+	public String getReloadableClasspath() {
+		String infinitestJarPath = findInfinitestJar();
+		File infinitestJar = infinitestJarPath == null ? null : new File(infinitestJarPath).getAbsoluteFile();
+		List<String> entries = newArrayList();
+		for (File each : classDirectoriesInClasspath()) {
+			if (!each.getAbsoluteFile().equals(infinitestJar)) {
+				entries.add(each.getPath());
+			}
+		}
+		return on(pathSeparator).join(entries);
+	}
+
 	private List<String> addCustomArguments() {
 		return customArgumentsReader.readCustomArguments();
 	}
@@ -106,20 +152,33 @@ public class RuntimeEnvironment implements ClasspathProvider {
 	 */
 	public void setInfinitestRuntimeClassPath(String infinitestRuntimeClassPath) {
 		infinitestRuntimeClasspath = infinitestRuntimeClassPath;
+		completeClasspath = null;
 	}
 
+	/**
+	 * The classpath is built, and each of its entries checked, only once per
+	 * environment, since environments are now kept until the classpath of the
+	 * project changes.
+	 */
 	@Override
 	public String getCompleteClasspath() {
-		String completeClasspath = getRawClasspath();
+		if (completeClasspath == null) {
+			completeClasspath = buildCompleteClasspath();
+		}
+		return completeClasspath;
+	}
+
+	private String buildCompleteClasspath() {
+		String classpath = getRawClasspath();
 		String infinitestJarPath = findInfinitestJar();
 		log(CONFIG, "Found infinitest jar classpath entry at " + infinitestJarPath);
 		if (infinitestJarPath != null) {
-			completeClasspath = completeClasspath + File.pathSeparator + infinitestJarPath;
+			classpath = classpath + File.pathSeparator + infinitestJarPath;
 		} else {
 			log(SEVERE, "Could not find a classpath entry for Infinitest Core in " + infinitestRuntimeClasspath);
 		}
-		validateClasspath(completeClasspath);
-		return completeClasspath;
+		validateClasspath(classpath);
+		return classpath;
 	}
 
 	@VisibleForTesting
@@ -185,12 +244,36 @@ public class RuntimeEnvironment implements ClasspathProvider {
 
 	public void addVMArgs(List<String> newArgs) {
 		additionalArgs.addAll(newArgs);
+		fingerprint = 0;
+	}
+
+	/**
+	 * @return the arguments added with {@link #addVMArgs(List)}
+	 */
+	public List<String> getVMArgs() {
+		return Collections.unmodifiableList(additionalArgs);
+	}
+
+	/**
+	 * @return true if tests would run with the same JDK and from the same
+	 *         working directory in both environments, whatever their classpaths
+	 */
+	public boolean sharesJvmWith(RuntimeEnvironment other) {
+		return other.javaHome.equals(javaHome) && other.workingDirectory.equals(workingDirectory);
 	}
 
 	@Override
 	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
 		if (obj instanceof RuntimeEnvironment) {
 			RuntimeEnvironment other = (RuntimeEnvironment) obj;
+			// Comparing the cached hashes first spares comparing the classpaths,
+			// which can be several kilobytes long, of environments that differ
+			if (other.hashCode() != hashCode()) {
+				return false;
+			}
 			return other.classOutputDirs.equals(classOutputDirs) && other.workingDirectory.equals(workingDirectory) && other.rawClasspath.equals(rawClasspath) && other.javaHome.equals(javaHome) && other.additionalArgs.equals(additionalArgs);
 		}
 		return false;
@@ -198,9 +281,12 @@ public class RuntimeEnvironment implements ClasspathProvider {
 
 	@Override
 	public int hashCode() {
-		// CHECKSTYLE:OFF
-		return classOutputDirs.hashCode() ^ additionalArgs.hashCode() ^ javaHome.hashCode() ^ workingDirectory.hashCode() ^ rawClasspath.hashCode();
-		// CHECKSTYLE:ON
+		if (fingerprint == 0) {
+			// CHECKSTYLE:OFF
+			fingerprint = classOutputDirs.hashCode() ^ additionalArgs.hashCode() ^ javaHome.hashCode() ^ workingDirectory.hashCode() ^ rawClasspath.hashCode();
+			// CHECKSTYLE:ON
+		}
+		return fingerprint;
 	}
 
 	@Override
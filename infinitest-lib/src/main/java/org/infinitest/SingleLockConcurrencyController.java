@@ -37,6 +37,11 @@ public class SingleLockConcurrencyController implements ConcurrencyController {
 		semaphore.acquire();
 	}
 
+	@Override
+	public boolean tryAcquire() {
+		return semaphore.tryAcquire();
+	}
+
 	@Override
 	public void release() {
 		semaphore.release();
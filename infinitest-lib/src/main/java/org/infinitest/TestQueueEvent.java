@@ -27,31 +27,90 @@
  */
 package org.infinitest;
 
+import static java.util.Collections.*;
+
 import java.util.*;
 
+/**
+ * Describes how a test queue changed since the previous event: the tests that
+ * were added, removed or started, along with the resulting size of the queue.
+ * <p/>
+ * An event created from a whole queue is a snapshot: it replaces whatever its
+ * listeners knew about the queue before.
+ */
 public class TestQueueEvent {
-	private final List<String> testQueue;
+	private final List<String> added;
+	private final List<String> removed;
+	private final List<String> started;
+	private final int queueSize;
 	private final int initialSize;
+	private final String currentTest;
+	private final boolean snapshot;
 
 	public TestQueueEvent(List<String> testQueue, int initialSize) {
-		this.testQueue = testQueue;
+		this(testQueue, Collections.<String> emptyList(), Collections.<String> emptyList(), testQueue.size(), initialSize, testQueue.isEmpty() ? null : testQueue.get(0), true);
+	}
+
+	public TestQueueEvent(List<String> added, List<String> removed, List<String> started, int queueSize, int initialSize, String currentTest) {
+		this(added, removed, started, queueSize, initialSize, currentTest, false);
+	}
+
+	private TestQueueEvent(List<String> added, List<String> removed, List<String> started, int queueSize, int initialSize, String currentTest, boolean snapshot) {
+		this.added = unmodifiableList(added);
+		this.removed = unmodifiableList(removed);
+		this.started = unmodifiableList(started);
+		this.queueSize = queueSize;
 		this.initialSize = initialSize;
+		this.currentTest = currentTest;
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * @return true if {@link #getAdded()} is the whole queue rather than the
+	 *         tests added since the previous event
+	 */
+	public boolean isSnapshot() {
+		return snapshot;
+	}
+
+	public List<String> getAdded() {
+		return added;
+	}
+
+	public List<String> getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * @return the tests taken off the queue to be run, in the order they
+	 *         started
+	 */
+	public List<String> getStarted() {
+		return started;
+	}
+
+	public int getQueueSize() {
+		return queueSize;
 	}
 
-	public List<String> getTestQueue() {
-		return testQueue;
+	public boolean isQueueEmpty() {
+		return queueSize == 0;
 	}
 
 	public int getInitialSize() {
 		return initialSize;
 	}
 
-	// Now that we can execute tests in parallel, what does this mean?
+	/**
+	 * @return the test that started last, or the next one in the queue for a
+	 *         snapshot. Several tests can run at the same time, this is only
+	 *         the most recent of them.
+	 */
 	public String getCurrentTest() {
-		return testQueue.get(0);
+		return currentTest;
 	}
 
 	public int getTestsRun() {
-		return getInitialSize() - getTestQueue().size();
+		return getInitialSize() - getQueueSize();
 	}
 }
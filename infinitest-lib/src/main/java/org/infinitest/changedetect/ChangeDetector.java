@@ -39,5 +39,29 @@ public interface ChangeDetector {
 
 	boolean filesWereRemoved();
 
+	/**
+	 * The class files removed since the last call. They are no longer tracked,
+	 * so a class file written again at the same place is reported as changed.
+	 */
+	Set<File> findRemovedFiles();
+
 	void setClasspathProvider(ClasspathProvider classpath);
+
+	/**
+	 * The modification time of every class file seen so far, as of the last
+	 * call to {@link #findChangedFiles()}.
+	 */
+	Map<File, Long> getTimestamps();
+
+	/**
+	 * Picks up from timestamps saved by an earlier session, so only files that
+	 * changed since then are reported.
+	 */
+	void restoreTimestamps(Map<File, Long> timestamps);
+
+	/**
+	 * Takes note of changes found by someone else, such as the IDE's build, so
+	 * they aren't reported again.
+	 */
+	void acknowledgeChanges(Collection<File> changedFiles, Collection<File> removedFiles);
 }
\ No newline at end of file
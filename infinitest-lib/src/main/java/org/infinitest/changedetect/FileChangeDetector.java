@@ -57,6 +57,14 @@ public class FileChangeDetector implements ChangeDetector {
 		return findFiles(classDirectories, false);
 	}
 
+	/**
+	 * Checks only the given class files or package directories instead of
+	 * walking every class directory in the classpath.
+	 */
+	synchronized Set<File> findChangedFiles(Collection<File> classFilesOrPackages) throws IOException {
+		return findFiles(classFilesOrPackages.toArray(new File[classFilesOrPackages.size()]), true);
+	}
+
 	private Set<File> findFiles(File[] classesOrDirectories, boolean isPackage) throws IOException {
 		Set<File> changedFiles = new HashSet<File>();
 		for (File classFileOrDirectory : classesOrDirectories) {
@@ -99,7 +107,21 @@ public class FileChangeDetector implements ChangeDetector {
 		timestampIndex = new HashMap<File, Long>();
 	}
 
-	private Set<File> findRemovedFiles() {
+	/**
+	 * Stops tracking a class file, returning true if it had been seen before.
+	 */
+	synchronized boolean forget(File classFile) {
+		return timestampIndex.remove(classFile) != null;
+	}
+
+	@Override
+	public synchronized Set<File> findRemovedFiles() {
+		Set<File> removedFiles = removedFiles();
+		timestampIndex.keySet().removeAll(removedFiles);
+		return removedFiles;
+	}
+
+	private Set<File> removedFiles() {
 		Set<File> removedFiles = new HashSet<File>();
 		for (File key : timestampIndex.keySet()) {
 			if (!key.exists()) {
@@ -109,8 +131,28 @@ public class FileChangeDetector implements ChangeDetector {
 		return removedFiles;
 	}
 
+	@Override
+	public synchronized Map<File, Long> getTimestamps() {
+		return new HashMap<File, Long>(timestampIndex);
+	}
+
+	@Override
+	public synchronized void restoreTimestamps(Map<File, Long> timestamps) {
+		timestampIndex.putAll(timestamps);
+	}
+
+	@Override
+	public synchronized void acknowledgeChanges(Collection<File> changedFiles, Collection<File> removedFiles) {
+		for (File each : changedFiles) {
+			if (ClassFileFilter.isClassFile(each)) {
+				timestampIndex.put(each, getModificationTimestamp(each));
+			}
+		}
+		timestampIndex.keySet().removeAll(removedFiles);
+	}
+
 	@Override
 	public synchronized boolean filesWereRemoved() {
-		return !findRemovedFiles().isEmpty();
+		return !removedFiles().isEmpty();
 	}
 }
@@ -0,0 +1,192 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.changedetect;
+
+import static com.google.common.base.Splitter.*;
+import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
+import static java.io.File.*;
+import static java.util.logging.Level.*;
+import static org.infinitest.util.InfinitestUtils.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.infinitest.*;
+
+import com.google.common.base.*;
+import com.google.common.hash.*;
+
+/**
+ * Finds the classes that changed in the jars of the classpath, like the jars
+ * of sibling modules rebuilt by Maven or Gradle. A jar is only opened when its
+ * size or modification time changed, and then only its central directory is
+ * read: the CRC of each entry tells which classes changed.
+ */
+public class JarChangeDetector {
+	private static final String CLASS_EXTENSION = ".class";
+
+	private final Map<File, JarState> jarStates;
+	private List<File> jars;
+
+	public JarChangeDetector() {
+		jarStates = newHashMap();
+		jars = Collections.emptyList();
+	}
+
+	/**
+	 * Jars that stay on the classpath keep their state, so a change made while
+	 * the classpath changed is still found.
+	 */
+	public synchronized void setClasspathProvider(ClasspathProvider classpath) {
+		Set<File> classDirectories = newHashSet(classpath.classDirectoriesInClasspath());
+		List<File> jarsInClasspath = new ArrayList<File>();
+		for (String each : on(pathSeparator).omitEmptyStrings().split(classpath.getCompleteClasspath())) {
+			File entry = new File(each);
+			if (!classDirectories.contains(entry)) {
+				jarsInClasspath.add(entry);
+			}
+		}
+		jars = jarsInClasspath;
+		jarStates.keySet().retainAll(jars);
+	}
+
+	/**
+	 * @return the names of the classes added to, changed in or removed from the
+	 *         jars since the last call. The first time a jar is seen, its
+	 *         classes are not reported.
+	 */
+	public synchronized Set<String> findChangedClasses() {
+		Set<String> changedClasses = newHashSet();
+		for (File each : jars) {
+			JarState previousState = jarStates.get(each);
+			if ((previousState != null) && previousState.isUpToDate(each)) {
+				continue;
+			}
+			JarState state = readState(each);
+			if (state == null) {
+				// Missing, or being written. It's read again once it's back.
+				continue;
+			}
+			if (previousState != null) {
+				changedClasses.addAll(previousState.findChangedClasses(state));
+			}
+			jarStates.put(each, state);
+		}
+		return changedClasses;
+	}
+
+	/**
+	 * @return a hash of the content of every jar read so far, which only
+	 *         changes when one of their classes does
+	 */
+	public synchronized String getContentHash() {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		for (File each : jars) {
+			JarState state = jarStates.get(each);
+			if (state != null) {
+				hasher.putString(state.contentHash, Charsets.UTF_8);
+			}
+		}
+		return hasher.hash().toString();
+	}
+
+	private JarState readState(File jar) {
+		if (!jar.isFile()) {
+			return null;
+		}
+		try {
+			return JarState.read(jar);
+		} catch (IOException e) {
+			log(FINE, "Could not read classpath entry " + jar + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static class JarState {
+		private final long length;
+		private final long lastModified;
+		private final SortedMap<String, Long> classCrcs;
+		private final String contentHash;
+
+		private JarState(long length, long lastModified, SortedMap<String, Long> classCrcs) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.classCrcs = classCrcs;
+			Hasher hasher = Hashing.murmur3_128().newHasher();
+			for (Map.Entry<String, Long> each : classCrcs.entrySet()) {
+				hasher.putString(each.getKey(), Charsets.UTF_8).putLong(each.getValue());
+			}
+			contentHash = hasher.hash().toString();
+		}
+
+		static JarState read(File jar) throws IOException {
+			// Taken before reading, so a jar written meanwhile is read again
+			long length = jar.length();
+			long lastModified = jar.lastModified();
+			SortedMap<String, Long> classCrcs = newTreeMap();
+			ZipFile zipFile = new ZipFile(jar);
+			try {
+				Enumeration<? extends ZipEntry> entries = zipFile.entries();
+				while (entries.hasMoreElements()) {
+					ZipEntry entry = entries.nextElement();
+					if (entry.getName().endsWith(CLASS_EXTENSION)) {
+						classCrcs.put(classNameOf(entry.getName()), entry.getCrc());
+					}
+				}
+			} finally {
+				zipFile.close();
+			}
+			return new JarState(length, lastModified, classCrcs);
+		}
+
+		private static String classNameOf(String path) {
+			return path.substring(0, path.length() - CLASS_EXTENSION.length()).replace('/', '.');
+		}
+
+		boolean isUpToDate(File jar) {
+			return (jar.length() == length) && (jar.lastModified() == lastModified);
+		}
+
+		Set<String> findChangedClasses(JarState newState) {
+			Set<String> changedClasses = newHashSet();
+			if (contentHash.equals(newState.contentHash)) {
+				// Only touched, or rebuilt without changes
+				return changedClasses;
+			}
+			for (Map.Entry<String, Long> each : newState.classCrcs.entrySet()) {
+				if (!each.getValue().equals(classCrcs.get(each.getKey()))) {
+					changedClasses.add(each.getKey());
+				}
+			}
+			changedClasses.addAll(difference(classCrcs.keySet(), newState.classCrcs.keySet()));
+			return changedClasses;
+		}
+	}
+}
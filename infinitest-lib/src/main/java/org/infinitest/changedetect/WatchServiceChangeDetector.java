@@ -0,0 +1,318 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.changedetect;
+
+import static java.lang.Character.*;
+import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.logging.Level.*;
+import static org.infinitest.util.InfinitestUtils.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.infinitest.*;
+
+/**
+ * Listens to file system events for the class directories instead of walking
+ * them on every update, so an update costs time proportional to the number of
+ * changed files. The directories are only walked on the first update, after a
+ * {@link #clear()}, or when the watch service overflows. If the platform can't
+ * deliver native file events, this falls back to a full timestamp scan.
+ */
+public class WatchServiceChangeDetector implements ChangeDetector {
+	private final FileChangeDetector scanner;
+	private final Map<WatchKey, File> watchedDirectories;
+	private final Set<File> dirtyFiles;
+	private final Set<File> removedFiles;
+	private final Set<File> unwatchedClassDirectories;
+	private List<File> classDirectories;
+	private WatchService watchService;
+	private boolean watchingUnavailable;
+	private boolean rescanNeeded;
+	private boolean removalCheckNeeded;
+
+	public WatchServiceChangeDetector() {
+		this(new FileChangeDetector());
+	}
+
+	WatchServiceChangeDetector(FileChangeDetector scanner) {
+		this.scanner = scanner;
+		watchedDirectories = new HashMap<WatchKey, File>();
+		dirtyFiles = new HashSet<File>();
+		removedFiles = new HashSet<File>();
+		unwatchedClassDirectories = new HashSet<File>();
+		classDirectories = Collections.emptyList();
+		rescanNeeded = true;
+	}
+
+	/**
+	 * True if the running JVM provides java.nio.file (Java 7 and later).
+	 */
+	public static boolean isSupported() {
+		try {
+			Class.forName("java.nio.file.WatchService");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public synchronized void setClasspathProvider(ClasspathProvider classpath) {
+		scanner.setClasspathProvider(classpath);
+		classDirectories = classpath.classDirectoriesInClasspath();
+		stopWatching();
+		watchingUnavailable = false;
+		clear();
+	}
+
+	@Override
+	public synchronized Set<File> findChangedFiles() throws IOException {
+		processEvents();
+		if (rescanNeeded || (watchService == null) || classDirectoryAppeared()) {
+			return rescan();
+		}
+
+		Set<File> candidates = new HashSet<File>();
+		for (File each : dirtyFiles) {
+			if (each.exists()) {
+				candidates.add(each);
+			}
+		}
+		dirtyFiles.clear();
+		return scanner.findChangedFiles(candidates);
+	}
+
+	private Set<File> rescan() throws IOException {
+		rescanNeeded = false;
+		dirtyFiles.clear();
+		// Start watching before scanning, so changes made during the scan are
+		// picked up by the next update instead of being lost
+		startWatching();
+		return scanner.findChangedFiles();
+	}
+
+	private boolean classDirectoryAppeared() {
+		for (File each : unwatchedClassDirectories) {
+			if (each.isDirectory()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized boolean filesWereRemoved() {
+		checkForRemovedFiles();
+		return !removedFiles.isEmpty();
+	}
+
+	@Override
+	public synchronized Set<File> findRemovedFiles() {
+		checkForRemovedFiles();
+		Set<File> result = new HashSet<File>(removedFiles);
+		removedFiles.clear();
+		return result;
+	}
+
+	private void checkForRemovedFiles() {
+		processEvents();
+		if (removalCheckNeeded) {
+			removalCheckNeeded = false;
+			removedFiles.addAll(scanner.findRemovedFiles());
+		}
+	}
+
+	@Override
+	public synchronized void clear() {
+		scanner.clear();
+		dirtyFiles.clear();
+		removedFiles.clear();
+		removalCheckNeeded = false;
+		rescanNeeded = true;
+	}
+
+	@Override
+	public Map<File, Long> getTimestamps() {
+		return scanner.getTimestamps();
+	}
+
+	@Override
+	public synchronized void restoreTimestamps(Map<File, Long> timestamps) {
+		// The next update rescans anyway, and only reports files whose
+		// timestamps differ
+		scanner.restoreTimestamps(timestamps);
+	}
+
+	@Override
+	public synchronized void acknowledgeChanges(Collection<File> changedFiles, Collection<File> removedFiles) {
+		// File events for these files may still be on their way. They are
+		// dropped once the scanner sees the timestamps haven't changed.
+		scanner.acknowledgeChanges(changedFiles, removedFiles);
+		this.removedFiles.removeAll(removedFiles);
+	}
+
+	private void processEvents() {
+		if (watchService == null) {
+			return;
+		}
+		WatchKey key = watchService.poll();
+		while (key != null) {
+			File directory = watchedDirectories.get(key);
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == OVERFLOW) {
+					log(CONFIG, "Too many file system events. Rescanning class directories");
+					rescanNeeded = true;
+					removalCheckNeeded = true;
+				} else if (directory != null) {
+					File file = new File(directory, event.context().toString());
+					if (event.kind() == ENTRY_DELETE) {
+						fileDeleted(file);
+					} else {
+						fileChanged(file);
+					}
+				}
+			}
+			if (!key.reset()) {
+				directoryNoLongerWatched(key);
+			}
+			key = watchService.poll();
+		}
+	}
+
+	private void directoryNoLongerWatched(WatchKey key) {
+		File directory = watchedDirectories.remove(key);
+		// A whole package went away, we don't know which class files were in it
+		removalCheckNeeded = true;
+		if (classDirectories.contains(directory)) {
+			// Usually a clean build. We'll start watching again once it's back.
+			unwatchedClassDirectories.add(directory);
+		}
+	}
+
+	private void fileChanged(File file) {
+		if (file.isDirectory()) {
+			if (isValidPackage(file)) {
+				// Class files may have been written before we could register the
+				// new package, so the whole package is checked on the next update
+				watchTree(file);
+				dirtyFiles.add(file);
+			}
+		} else if (ClassFileFilter.isClassFile(file)) {
+			dirtyFiles.add(file);
+		}
+	}
+
+	private void fileDeleted(File file) {
+		dirtyFiles.remove(file);
+		if (ClassFileFilter.isClassFile(file) && scanner.forget(file)) {
+			removedFiles.add(file);
+		}
+	}
+
+	private void startWatching() {
+		if (watchingUnavailable) {
+			return;
+		}
+		try {
+			if (watchService == null) {
+				watchService = createWatchService();
+			}
+			unwatchedClassDirectories.clear();
+			for (File each : classDirectories) {
+				if (each.isDirectory()) {
+					register(each);
+				} else {
+					unwatchedClassDirectories.add(each);
+				}
+			}
+		} catch (IOException e) {
+			log(WARNING, "Cannot watch class directories for changes, falling back to scanning: " + e.getMessage());
+			stopWatching();
+			watchingUnavailable = true;
+		}
+	}
+
+	private WatchService createWatchService() throws IOException {
+		WatchService service = FileSystems.getDefault().newWatchService();
+		// Some platforms only emulate file events by polling every few seconds,
+		// which would make us miss changes. Scanning is better in that case.
+		if (service.getClass().getName().endsWith("PollingWatchService")) {
+			service.close();
+			throw new IOException("No native file system events on this platform");
+		}
+		return service;
+	}
+
+	private void watchTree(File packageDirectory) {
+		try {
+			register(packageDirectory);
+		} catch (IOException e) {
+			log(CONFIG, "Could not watch " + packageDirectory + ". Rescanning class directories");
+			rescanNeeded = true;
+		}
+	}
+
+	private void register(File directory) throws IOException {
+		WatchKey key = directory.toPath().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+		watchedDirectories.put(key, directory);
+		File[] children = directory.listFiles(new DirectoryFilter());
+		if (children != null) {
+			for (File child : children) {
+				if (isValidPackage(child)) {
+					register(child);
+				}
+			}
+		}
+	}
+
+	private boolean isValidPackage(File directory) {
+		return isJavaIdentifierStart(directory.getName().charAt(0));
+	}
+
+	private void stopWatching() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				log(CONFIG, "Error while closing watch service: " + e.getMessage());
+			}
+			watchService = null;
+		}
+		watchedDirectories.clear();
+		unwatchedClassDirectories.clear();
+	}
+
+	private static class DirectoryFilter implements FileFilter {
+		@Override
+		public boolean accept(File pathname) {
+			return pathname.isDirectory();
+		}
+	}
+}
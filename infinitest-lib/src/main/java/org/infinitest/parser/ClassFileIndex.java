@@ -28,21 +28,23 @@
 package org.infinitest.parser;
 
 import static com.google.common.collect.Sets.*;
-import static org.jgrapht.Graphs.*;
 
 import java.io.*;
 import java.util.*;
 
 import org.infinitest.*;
-import org.jgrapht.*;
-import org.jgrapht.graph.*;
 
 import com.google.common.annotations.*;
+import com.google.common.base.*;
 import com.google.common.collect.*;
+import com.google.common.hash.*;
 
 public class ClassFileIndex {
+	// Enough to remember the dependents of the classes being worked on
+	private static final int CACHED_DEPENDENTS = 64;
+
 	private final JavaClassBuilder builder;
-	private DirectedGraph<JavaClass, DefaultEdge> graph;
+	private DependencyGraph graph;
 
 	public ClassFileIndex(ClasspathProvider classpath) {
 		this(new JavaClassBuilder(classpath));
@@ -51,20 +53,14 @@ public class ClassFileIndex {
 	@VisibleForTesting
 	ClassFileIndex(JavaClassBuilder classBuilder) {
 		builder = classBuilder;
-		graph = new DefaultDirectedGraph<JavaClass, DefaultEdge>(DefaultEdge.class);
+		graph = new DependencyGraph(CACHED_DEPENDENTS);
 	}
 
 	public Set<JavaClass> findClasses(Collection<File> changedFiles) {
-		// First update class index
-		List<String> changedClassesNames = new ArrayList<String>();
-		for (File changedFile : changedFiles) {
-			String changedClassname = builder.classFileChanged(changedFile);
-			if (changedClassname != null) {
-				changedClassesNames.add(changedClassname);
-			}
-		}
+		// First parse the changed files, in parallel
+		List<String> changedClassesNames = builder.classFilesChanged(changedFiles);
 
-		// Then find dependencies
+		// Then merge them into the index and find dependencies
 		Set<JavaClass> changedClasses = newHashSet();
 		for (String changedClassesName : changedClassesNames) {
 			JavaClass javaClass = builder.getClass(changedClassesName);
@@ -77,6 +73,60 @@ public class ClassFileIndex {
 		return changedClasses;
 	}
 
+	/**
+	 * Forgets the classes found in the given files.
+	 *
+	 * @return the classes that depended on the removed ones, directly or not
+	 */
+	public Set<JavaClass> removeClasses(Collection<File> removedFiles) {
+		Set<File> files = newHashSet();
+		for (File each : removedFiles) {
+			files.add(each.getAbsoluteFile());
+		}
+		List<JavaClass> removedClasses = Lists.newArrayList();
+		for (JavaClass each : graph.getClasses()) {
+			if (each.locatedInClassFile() && files.contains(each.getClassFile().getAbsoluteFile())) {
+				removedClasses.add(each);
+			}
+		}
+
+		Set<JavaClass> dependents = graph.findAllDependents(removedClasses);
+		for (JavaClass each : removedClasses) {
+			graph.remove(each);
+			builder.classFileRemoved(each);
+			dependents.remove(each);
+		}
+		return dependents;
+	}
+
+	/**
+	 * Forgets the fingerprints of the class files of the indexed classes that
+	 * use any of the given classes, so they are parsed again.
+	 *
+	 * @return those class files
+	 */
+	public Set<File> invalidateClassesUsing(Set<String> classNames) {
+		// What was read of them in the jars is out of date too
+		builder.forgetClasses(classNames);
+		Set<File> classFiles = newHashSet();
+		for (JavaClass each : graph.getClasses()) {
+			if (each.locatedInClassFile() && uses(each, classNames)) {
+				builder.forgetHash(each.getClassFile());
+				classFiles.add(each.getClassFile());
+			}
+		}
+		return classFiles;
+	}
+
+	private static boolean uses(JavaClass javaClass, Set<String> classNames) {
+		for (String each : javaClass.getImports()) {
+			if (classNames.contains(each)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public JavaClass findJavaClass(String classname) {
 		JavaClass clazz = findClass(classname);
 		if (clazz == null) {
@@ -89,71 +139,108 @@ public class ClassFileIndex {
 	}
 
 	private JavaClass findClass(String classname) {
-		for (JavaClass jClass : graph.vertexSet()) {
-			if (jClass.getName().equals(classname)) {
-				return jClass;
-			}
-		}
-		return null;
+		return graph.find(classname);
 	}
 
 	private void addToIndex(JavaClass newClass) {
-		addToGraph(newClass);
+		// A class that is already indexed keeps the classes that depend on it
+		graph.add(newClass);
 		updateParentReferences(newClass);
 	}
 
-	private void addToGraph(JavaClass newClass) {
-		if (!graph.addVertex(newClass)) {
-			replaceVertex(newClass);
+	private void updateParentReferences(JavaClass parentClass) {
+		for (String child : parentClass.getImports()) {
+			JavaClass childClass = findJavaClass(child);
+			if ((childClass != null) && !childClass.equals(parentClass)) {
+				graph.addDependency(parentClass, childClass);
+			}
 		}
 	}
 
-	private List<JavaClass> getParents(JavaClass childClass) {
-		return predecessorListOf(graph, childClass);
+	public Set<JavaClass> findChangedParents(Set<JavaClass> classes) {
+		Set<JavaClass> changedParents = Sets.newHashSet(classes);
+		changedParents.addAll(graph.findAllDependents(classes));
+		return changedParents;
 	}
 
-	private void replaceVertex(JavaClass newClass) {
-		List<JavaClass> incomingEdges = getParents(newClass);
-
-		graph.removeVertex(newClass);
-		graph.addVertex(newClass);
-		for (JavaClass each : incomingEdges) {
-			graph.addEdge(each, newClass);
-		}
+	/**
+	 * @return how many dependencies separate each of the given classes from
+	 *         the nearest changed class
+	 */
+	public Map<JavaClass, Integer> findDistances(Set<JavaClass> changedClasses, Set<JavaClass> classes) {
+		return graph.findDistances(changedClasses, classes);
 	}
 
-	private void updateParentReferences(JavaClass parentClass) {
-		for (String child : parentClass.getImports()) {
-			JavaClass childClass = findJavaClass(child);
-			if ((childClass != null) && !childClass.equals(parentClass)) {
-				if (graph.containsVertex(childClass)) {
-					graph.addEdge(parentClass, childClass);
+	/**
+	 * Hashes the names and fingerprints of the class and of all the class
+	 * files it depends on, so the result only changes when one of them does.
+	 * Classes from jars are left out.
+	 *
+	 * @return null if a class file hasn't been fingerprinted yet
+	 */
+	public String fingerprintOf(JavaClass javaClass) {
+		SortedMap<String, String> fingerprints = Maps.newTreeMap();
+		for (JavaClass each : graph.findAllDependencies(javaClass)) {
+			if (each.locatedInClassFile()) {
+				String hash = builder.getHash(each.getClassFile());
+				if (hash == null) {
+					return null;
 				}
+				fingerprints.put(each.getName(), hash);
 			}
 		}
+		if (fingerprints.isEmpty()) {
+			return null;
+		}
+
+		Hasher hasher = Hashing.sha1().newHasher();
+		for (Map.Entry<String, String> each : fingerprints.entrySet()) {
+			hasher.putString(each.getKey(), Charsets.UTF_8).putString(each.getValue(), Charsets.UTF_8);
+		}
+		return hasher.hash().toString();
 	}
 
-	// Loop through all changed classes, adding their parents (and their
-	// parents)
-	// to another set of changed classes
-	public Set<JavaClass> findChangedParents(Set<JavaClass> classes) {
-		Set<JavaClass> changedParents = Sets.newHashSet(classes);
-		for (JavaClass jclass : classes) {
-			findParents(jclass, changedParents);
+	public void saveTo(IndexSnapshot snapshot) {
+		for (JavaClass each : graph.getClasses()) {
+			if (each.locatedInClassFile()) {
+				snapshot.addClass(each, builder.getHash(each.getClassFile()));
+			}
 		}
-		return changedParents;
 	}
 
-	private void findParents(JavaClass jclass, Set<JavaClass> changedParents) {
-		for (JavaClass parent : getParents(jclass)) {
-			if (changedParents.add(parent)) {
-				findParents(parent, changedParents);
+	public void restore(IndexSnapshot snapshot) {
+		Map<String, JavaClass> restoredClasses = Maps.newHashMap();
+		for (JavaClass each : snapshot.getClasses()) {
+			graph.add(each);
+			restoredClasses.put(each.getName(), each);
+			String hash = snapshot.getHash(each.getClassFile());
+			if (hash != null) {
+				builder.restoreHash(each.getClassFile(), each.getName(), hash);
+			}
+		}
+		for (JavaClass parent : snapshot.getClasses()) {
+			for (String child : parent.getImports()) {
+				JavaClass childClass = restoredClasses.get(child);
+				if ((childClass != null) && !childClass.equals(parent)) {
+					graph.addDependency(parent, childClass);
+				}
 			}
 		}
 	}
 
 	public void clear() {
-		graph = new DefaultDirectedGraph<JavaClass, DefaultEdge>(DefaultEdge.class);
+		graph = new DependencyGraph(CACHED_DEPENDENTS);
+		// Otherwise the class files that didn't change would not be indexed
+		// again
+		clearHashes();
+	}
+
+	/**
+	 * Makes the next changes to any class file count, even if its fingerprint
+	 * is the same.
+	 */
+	public void clearHashes() {
+		builder.clearHashes();
 	}
 
 	public boolean isIndexed(Class<Object> clazz) {
@@ -162,8 +249,7 @@ public class ClassFileIndex {
 
 	public Set<String> getIndexedClasses() {
 		Set<String> classes = newHashSet();
-		Set<JavaClass> vertexSet = graph.vertexSet();
-		for (JavaClass each : vertexSet) {
+		for (JavaClass each : graph.getClasses()) {
 			classes.add(each.getName());
 		}
 		return classes;
@@ -0,0 +1,160 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static com.google.common.collect.Sets.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * What {@link ClassFileReader} found in a class file: the classes it refers to
+ * and everything needed to decide whether it's a test. Only kept while a batch
+ * of changed classes is being parsed, except for library classes that tests
+ * inherit from.
+ */
+class ClassFileInfo {
+	static final int JUNIT_TEST = 1;
+	static final int TESTNG_TEST = 2;
+	static final int RUN_WITH = 4;
+
+	private static final int ACC_INTERFACE = 0x0200;
+	private static final int ACC_ABSTRACT = 0x0400;
+
+	private final String name;
+	private final String superclassName;
+	private final int accessFlags;
+	private final Set<String> imports;
+	private int classAnnotations;
+	private int methodAnnotations;
+	private boolean declaresMethodsNamedTest;
+	private boolean hasNonPrivateConstructor;
+	private boolean hasJUnitCompatibleConstructor;
+	private File classFile;
+
+	ClassFileInfo(String name, String superclassName, int accessFlags) {
+		this.name = name;
+		this.superclassName = superclassName;
+		this.accessFlags = accessFlags;
+		imports = newHashSet();
+	}
+
+	String getName() {
+		return name;
+	}
+
+	String getSuperclassName() {
+		return superclassName;
+	}
+
+	boolean isAbstract() {
+		return (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) != 0;
+	}
+
+	void addImport(String className) {
+		imports.add(className);
+	}
+
+	String[] getImports() {
+		String[] array = new String[imports.size()];
+
+		int index = 0;
+		for (String anImport : imports) {
+			array[index++] = anImport.intern(); // Use less memory
+		}
+		return array;
+	}
+
+	void addClassAnnotations(int annotations) {
+		classAnnotations |= annotations;
+	}
+
+	void addMethodAnnotations(int annotations) {
+		methodAnnotations |= annotations;
+	}
+
+	void addMethodNamedTest() {
+		declaresMethodsNamedTest = true;
+	}
+
+	void addConstructor(boolean jUnitCompatible) {
+		hasNonPrivateConstructor = true;
+		hasJUnitCompatibleConstructor |= jUnitCompatible;
+	}
+
+	boolean isAnnotatedWithCustomRunner() {
+		return (classAnnotations & RUN_WITH) != 0;
+	}
+
+	boolean isTestNGTestClass() {
+		return (classAnnotations & TESTNG_TEST) != 0;
+	}
+
+	boolean declaresJUnit4Tests() {
+		return (methodAnnotations & JUNIT_TEST) != 0;
+	}
+
+	boolean declaresTestNGTests() {
+		return (methodAnnotations & TESTNG_TEST) != 0;
+	}
+
+	/**
+	 * Only counts public methods, since those are the only ones a JUnit 3
+	 * runner would run.
+	 */
+	boolean declaresMethodsNamedTest() {
+		return declaresMethodsNamedTest;
+	}
+
+	boolean hasNonPrivateConstructor() {
+		return hasNonPrivateConstructor;
+	}
+
+	/**
+	 * A public constructor taking either no argument or the test name.
+	 */
+	boolean hasJUnitCompatibleConstructor() {
+		return hasJUnitCompatibleConstructor;
+	}
+
+	void setClassFile(File classFile) {
+		this.classFile = classFile;
+	}
+
+	/**
+	 * @return the class file, or null if the class was found in a jar
+	 */
+	File getClassFile() {
+		return classFile;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static com.google.common.base.Splitter.*;
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
+import static java.io.File.*;
+import static java.util.logging.Level.*;
+import static org.infinitest.util.InfinitestUtils.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.jar.*;
+
+import com.google.common.io.*;
+
+/**
+ * Finds and reads class files by class name in the directories and jars of a
+ * classpath, in classpath order.
+ */
+class ClassFileLocator {
+	private final List<File> entries;
+	private final Map<File, JarFile> jars;
+	private final Set<File> unreadableJars;
+
+	ClassFileLocator(String classpath) {
+		entries = newArrayList();
+		for (String each : on(pathSeparator).omitEmptyStrings().split(classpath)) {
+			entries.add(new File(each));
+		}
+		jars = newHashMap();
+		unreadableJars = newHashSet();
+	}
+
+	/**
+	 * @return the class, or null if it's not on the classpath
+	 */
+	ClassFileInfo find(String className) throws IOException {
+		String path = className.replace('.', '/') + ".class";
+		for (File entry : entries) {
+			JarFile jar = jars.get(entry);
+			if (jar != null) {
+				JarEntry jarEntry = jar.getJarEntry(path);
+				if (jarEntry != null) {
+					return read(jar, jarEntry);
+				}
+			} else if (entry.isDirectory()) {
+				File classFile = new File(entry, path);
+				if (classFile.isFile()) {
+					return read(classFile);
+				}
+			} else if (entry.isFile() && !unreadableJars.contains(entry)) {
+				jar = openJar(entry);
+				if (jar != null) {
+					JarEntry jarEntry = jar.getJarEntry(path);
+					if (jarEntry != null) {
+						return read(jar, jarEntry);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * JDK classes are usually not on the project classpath, but we still need
+	 * to know they exist.
+	 */
+	boolean isSystemClass(String className) {
+		return ClassLoader.getSystemResource(className.replace('.', '/') + ".class") != null;
+	}
+
+	void close() {
+		for (JarFile each : jars.values()) {
+			try {
+				each.close();
+			} catch (IOException e) {
+				log(FINE, "Could not close " + each.getName() + ": " + e.getMessage());
+			}
+		}
+		jars.clear();
+		unreadableJars.clear();
+	}
+
+	private ClassFileInfo read(File classFile) throws IOException {
+		ClassFileInfo info = ClassFileReader.read(Files.toByteArray(classFile), classFile.getPath());
+		info.setClassFile(classFile);
+		return info;
+	}
+
+	private ClassFileInfo read(JarFile jar, JarEntry entry) throws IOException {
+		InputStream inputStream = jar.getInputStream(entry);
+		try {
+			return ClassFileReader.read(ByteStreams.toByteArray(inputStream), jar.getName() + "!" + entry.getName());
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	private JarFile openJar(File entry) {
+		try {
+			JarFile jar = new JarFile(entry);
+			jars.put(entry, jar);
+			return jar;
+		} catch (IOException e) {
+			// Not a jar, or not a valid one. Either way, there are no classes in it.
+			log(FINE, "Skipping classpath entry " + entry + ": " + e.getMessage());
+			unreadableJars.add(entry);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import junit.framework.*;
+
+import org.infinitest.*;
+
+import com.google.common.io.*;
+
+/**
+ * Reads class files with a {@link ClassFileReader}. Only classes found in a
+ * directory of the classpath are fully parsed, since they are the only ones
+ * we index. Classes in jars are read when a test inherits from them.
+ * <p/>
+ * {@link #classFileChanged(File)} can be called from several threads at once.
+ * Looking classes up on the classpath is serialized.
+ */
+public class ClassFileParser {
+	private final ClassFileLocator locator;
+	private final Map<String, ClassFileInfo> parsedClasses;
+	private final Map<String, JavaClass> classesByName;
+	private final Map<String, ClassFileInfo> libraryClasses;
+	private final Set<String> missingClasses;
+	private final Map<String, CacheEntry> byPath;
+
+	public ClassFileParser(String classpath) {
+		locator = new ClassFileLocator(classpath);
+		parsedClasses = new ConcurrentHashMap<String, ClassFileInfo>();
+		classesByName = new ConcurrentHashMap<String, JavaClass>();
+		libraryClasses = newHashMap();
+		missingClasses = newHashSet();
+		byPath = new ConcurrentHashMap<String, CacheEntry>();
+	}
+
+	/**
+	 * Forgets the classes parsed since the last call, since their class files
+	 * may change, and releases the jars so they can be rebuilt. Classes that
+	 * were missing are looked for again, they may have been compiled since.
+	 */
+	public synchronized void clear() {
+		parsedClasses.clear();
+		classesByName.clear();
+		missingClasses.clear();
+		locator.close();
+	}
+
+	public JavaClass getClass(String className) {
+		JavaClass clazz = classesByName.get(className);
+		if (clazz == null) {
+			ClassFileInfo classFile = findClassFile(className);
+			if (classFile == null) {
+				if (!locator.isSystemClass(className)) {
+					throw new MissingClassException("Expected to find " + className);
+				}
+				clazz = new UnparsableClass(className);
+			} else if (classFile.getClassFile() == null) {
+				// Classes in jars are never indexed, so we don't need their
+				// imports
+				clazz = new UnparsableClass(className);
+			} else {
+				clazz = new ParsedClass(className, classFile.getImports(), isATest(classFile), classFile.getClassFile());
+			}
+
+			classesByName.put(className, clazz);
+		}
+
+		return clazz;
+	}
+
+	public static class CacheEntry {
+		final String fingerprint;
+		final String classname;
+
+		public CacheEntry(String fingerprint, String classname) {
+			this.fingerprint = fingerprint;
+			this.classname = classname;
+		}
+	}
+
+	/**
+	 * @return the {@link ClassFingerprint} of the class file when it was last
+	 *         parsed
+	 */
+	public String getHash(File classFile) {
+		CacheEntry entry = byPath.get(classFile.getAbsolutePath());
+		return entry == null ? null : entry.fingerprint;
+	}
+
+	public void restoreHash(File classFile, String classname, String fingerprint) {
+		byPath.put(classFile.getAbsolutePath(), new CacheEntry(fingerprint, classname));
+	}
+
+	/**
+	 * Forgets the fingerprint of the class file, so it's parsed again the next
+	 * time it's reported as changed.
+	 */
+	public void forgetHash(File classFile) {
+		byPath.remove(classFile.getAbsolutePath());
+	}
+
+	/**
+	 * Forgets the fingerprints of all the class files, so they are all parsed
+	 * again the next time they are reported as changed.
+	 */
+	public void clearHashes() {
+		byPath.clear();
+	}
+
+	/**
+	 * @return the name of the class, or null if it only changed in ways that
+	 *         don't affect tests, like its line numbers
+	 */
+	public String classFileChanged(File file) throws IOException {
+		// Read the file only once, to both fingerprint and parse it
+		byte[] bytes = Files.toByteArray(file);
+		String fingerprint = ClassFingerprint.of(bytes, file.getPath());
+		CacheEntry entry = byPath.get(file.getAbsolutePath());
+		if ((entry != null) && entry.fingerprint.equals(fingerprint)) {
+			return null;
+		}
+
+		ClassFileInfo classFile = ClassFileReader.read(bytes, file.getPath());
+		classFile.setClassFile(file);
+		String classname = classFile.getName();
+
+		parsedClasses.put(classname, classFile);
+		classesByName.remove(classname);
+		byPath.put(file.getAbsolutePath(), new CacheEntry(fingerprint, classname));
+
+		return classname;
+	}
+
+	public void classFileRemoved(File file, String classname) {
+		byPath.remove(file.getAbsolutePath());
+		parsedClasses.remove(classname);
+		classesByName.remove(classname);
+	}
+
+	/**
+	 * Forgets what was read of these classes in the jars, or that they were
+	 * missing, since the jars changed.
+	 */
+	public synchronized void forgetClasses(Set<String> classNames) {
+		for (String each : classNames) {
+			libraryClasses.remove(each);
+			missingClasses.remove(each);
+			classesByName.remove(each);
+		}
+	}
+
+	private ClassFileInfo findClassFile(String className) {
+		try {
+			return lookup(className);
+		} catch (IOException e) {
+			// Can occur when a class file disappears or is being written
+			throw new MissingClassException("Could not read " + className, e);
+		}
+	}
+
+	// The jars and the library classes read from them are shared
+	private synchronized ClassFileInfo lookup(String className) throws IOException {
+		ClassFileInfo classFile = parsedClasses.get(className);
+		if (classFile == null) {
+			classFile = libraryClasses.get(className);
+		}
+		if ((classFile != null) || missingClasses.contains(className)) {
+			return classFile;
+		}
+
+		classFile = locator.find(className);
+		if (classFile == null) {
+			missingClasses.add(className);
+		} else if (classFile.getClassFile() != null) {
+			parsedClasses.put(className, classFile);
+		} else {
+			// Classes in jars are kept until the jar changes
+			libraryClasses.put(className, classFile);
+		}
+		return classFile;
+	}
+
+	private boolean isATest(ClassFileInfo classFile) {
+		if (classFile.isAbstract()) {
+			return false;
+		}
+		List<ClassFileInfo> hierarchy = findHierarchy(classFile);
+		boolean usesCustomRunner = usesCustomRunner(hierarchy);
+		return hasTests(hierarchy, usesCustomRunner) && canInstantiate(classFile, usesCustomRunner);
+	}
+
+	private boolean hasTests(List<ClassFileInfo> hierarchy, boolean usesCustomRunner) {
+		return usesCustomRunner || hierarchy.get(0).isTestNGTestClass() || hasTestMethods(hierarchy);
+	}
+
+	private boolean usesCustomRunner(List<ClassFileInfo> hierarchy) {
+		for (ClassFileInfo each : hierarchy) {
+			if (each.isAnnotatedWithCustomRunner()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean hasTestMethods(List<ClassFileInfo> hierarchy) {
+		// JUnit 3 tests are methods named test... declared below TestCase
+		int testCaseIndex = indexOfTestCase(hierarchy);
+		for (int i = 0; i < hierarchy.size(); i++) {
+			ClassFileInfo each = hierarchy.get(i);
+			if (each.declaresJUnit4Tests() || each.declaresTestNGTests()) {
+				return true;
+			}
+			if ((i < testCaseIndex) && each.declaresMethodsNamedTest()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int indexOfTestCase(List<ClassFileInfo> hierarchy) {
+		for (int i = 0; i < hierarchy.size(); i++) {
+			if (hierarchy.get(i).getName().equals(TestCase.class.getName())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean canInstantiate(ClassFileInfo classFile, boolean usesCustomRunner) {
+		if (usesCustomRunner) {
+			return classFile.hasNonPrivateConstructor();
+		}
+		return classFile.hasJUnitCompatibleConstructor();
+	}
+
+	/**
+	 * @return the class followed by all its superclasses we can find
+	 */
+	private List<ClassFileInfo> findHierarchy(ClassFileInfo classFile) {
+		List<ClassFileInfo> hierarchy = newArrayList(classFile);
+		Set<String> names = newHashSet(classFile.getName());
+		String superclassName = classFile.getSuperclassName();
+		while ((superclassName != null) && names.add(superclassName)) {
+			ClassFileInfo superclass = findSuperclass(superclassName);
+			if (superclass == null) {
+				break;
+			}
+			hierarchy.add(superclass);
+			superclassName = superclass.getSuperclassName();
+		}
+		return hierarchy;
+	}
+
+	private ClassFileInfo findSuperclass(String superclassName) {
+		try {
+			return lookup(superclassName);
+		} catch (IOException e) {
+			// Treat it like a superclass outside of the project classpath
+			return null;
+		}
+	}
+}
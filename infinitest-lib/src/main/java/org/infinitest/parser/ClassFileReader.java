@@ -0,0 +1,227 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static org.infinitest.parser.ClassFileInfo.*;
+import static org.infinitest.parser.DescriptorParser.*;
+
+import org.junit.Test;
+import org.junit.runner.*;
+
+/**
+ * Reads the parts of a class file we care about in a single pass over its
+ * bytes: the classes it refers to, its annotations and the signatures of its
+ * constructors and methods. Strings in the constant pool are only decoded when
+ * we need them, and method bodies are skipped entirely.
+ */
+class ClassFileReader extends ClassFileScanner {
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_PRIVATE = 0x0002;
+
+	private static final String VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+	private static final String INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations";
+	private static final String VISIBLE_PARAMETER_ANNOTATIONS = "RuntimeVisibleParameterAnnotations";
+	private static final String INVISIBLE_PARAMETER_ANNOTATIONS = "RuntimeInvisibleParameterAnnotations";
+
+	private static final String CONSTRUCTOR = "<init>";
+	private static final String STATIC_INITIALIZER = "<clinit>";
+	private static final String DEFAULT_CONSTRUCTOR = "()V";
+	private static final String TEST_NAME_CONSTRUCTOR = "(Ljava/lang/String;)V";
+
+	private static final String JUNIT_TEST_ANNOTATION = descriptorOf(Test.class);
+	private static final String TESTNG_TEST_ANNOTATION = descriptorOf(org.testng.annotations.Test.class);
+	private static final String RUN_WITH_ANNOTATION = descriptorOf(RunWith.class);
+
+	private ClassFileReader(byte[] bytes, String source) {
+		super(bytes, source);
+	}
+
+	/**
+	 * @param source
+	 *            where the bytes come from, to report malformed class files
+	 */
+	static ClassFileInfo read(byte[] bytes, String source) throws MalformedClassFileException {
+		try {
+			return new ClassFileReader(bytes, source).readClass();
+		} catch (RuntimeException e) {
+			throw malformed(source, e);
+		}
+	}
+
+	private ClassFileInfo readClass() throws MalformedClassFileException {
+		readHeader();
+
+		int accessFlags = readUnsignedShort();
+		String name = classNameAt(readUnsignedShort());
+		int superclassIndex = readUnsignedShort();
+		String superclassName = superclassIndex == 0 ? null : classNameAt(superclassIndex);
+		int interfaces = readUnsignedShort();
+		position += 2 * interfaces; // They are in the constant pool anyway
+
+		ClassFileInfo classFile = new ClassFileInfo(name, superclassName, accessFlags);
+		addConstantPoolClasses(classFile);
+		readFields(classFile);
+		readMethods(classFile);
+		classFile.addClassAnnotations(readAttributes(classFile));
+		return classFile;
+	}
+
+	private void addConstantPoolClasses(ClassFileInfo classFile) {
+		for (int i = 1; i < tags.length; i++) {
+			if (tags[i] == CLASS) {
+				String className = utf8At(readUnsignedShort(offsets[i]));
+				if (className.startsWith("[")) {
+					classFile.addImport(parseClassNameFromConstantPoolDescriptor(className));
+				} else {
+					classFile.addImport(className.replace('/', '.'));
+				}
+			}
+		}
+	}
+
+	private void readFields(ClassFileInfo classFile) {
+		int count = readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			position += 2; // Access flags
+			position += 2; // Name
+			classFile.addImport(parseClassNameFromConstantPoolDescriptor(utf8At(readUnsignedShort())));
+			readAttributes(classFile);
+		}
+	}
+
+	private void readMethods(ClassFileInfo classFile) {
+		int count = readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			int accessFlags = readUnsignedShort();
+			String name = utf8At(readUnsignedShort());
+			int descriptorIndex = readUnsignedShort();
+			int annotations = readAttributes(classFile);
+
+			if ((accessFlags & ACC_PRIVATE) != 0) {
+				continue;
+			}
+			if (CONSTRUCTOR.equals(name)) {
+				classFile.addConstructor(isJUnitCompatibleConstructor(accessFlags, utf8At(descriptorIndex)));
+			} else if (!STATIC_INITIALIZER.equals(name) && (accessFlags & ACC_PUBLIC) != 0) {
+				// Test runners only run public methods
+				classFile.addMethodAnnotations(annotations);
+				if (name.startsWith("test")) {
+					classFile.addMethodNamedTest();
+				}
+			}
+		}
+	}
+
+	private boolean isJUnitCompatibleConstructor(int accessFlags, String descriptor) {
+		if ((accessFlags & ACC_PUBLIC) == 0) {
+			return false;
+		}
+		return DEFAULT_CONSTRUCTOR.equals(descriptor) || TEST_NAME_CONSTRUCTOR.equals(descriptor);
+	}
+
+	/**
+	 * Adds the annotations found in the attributes of a class, field or method
+	 * to the imports and skips everything else.
+	 *
+	 * @return the test annotations found, see {@link ClassFileInfo#JUNIT_TEST}
+	 */
+	private int readAttributes(ClassFileInfo classFile) {
+		int annotations = 0;
+		int count = readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			String name = utf8At(readUnsignedShort());
+			int length = readInt();
+			int end = position + length;
+			if (VISIBLE_ANNOTATIONS.equals(name) || INVISIBLE_ANNOTATIONS.equals(name)) {
+				annotations |= readAnnotations(classFile);
+			} else if (VISIBLE_PARAMETER_ANNOTATIONS.equals(name) || INVISIBLE_PARAMETER_ANNOTATIONS.equals(name)) {
+				int parameters = bytes[position++] & 0xFF;
+				for (int j = 0; j < parameters; j++) {
+					readAnnotations(classFile);
+				}
+			}
+			position = end;
+		}
+		return annotations;
+	}
+
+	private int readAnnotations(ClassFileInfo classFile) {
+		int annotations = 0;
+		int count = readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			String type = readAnnotation();
+			classFile.addImport(parseClassNameFromConstantPoolDescriptor(type));
+			if (JUNIT_TEST_ANNOTATION.equals(type)) {
+				annotations |= JUNIT_TEST;
+			} else if (TESTNG_TEST_ANNOTATION.equals(type)) {
+				annotations |= TESTNG_TEST;
+			} else if (RUN_WITH_ANNOTATION.equals(type)) {
+				annotations |= RUN_WITH;
+			}
+		}
+		return annotations;
+	}
+
+	/**
+	 * @return the type descriptor of the annotation
+	 */
+	private String readAnnotation() {
+		String type = utf8At(readUnsignedShort());
+		int pairs = readUnsignedShort();
+		for (int i = 0; i < pairs; i++) {
+			position += 2; // Element name
+			skipElementValue();
+		}
+		return type;
+	}
+
+	private void skipElementValue() {
+		int tag = bytes[position++];
+		switch (tag) {
+		case 'e':
+			position += 4;
+			break;
+		case '@':
+			readAnnotation();
+			break;
+		case '[':
+			int count = readUnsignedShort();
+			for (int i = 0; i < count; i++) {
+				skipElementValue();
+			}
+			break;
+		default:
+			// Constants and classes are a single constant pool index
+			position += 2;
+		}
+	}
+
+	private static String descriptorOf(Class<?> annotation) {
+		return "L" + annotation.getName().replace('.', '/') + ";";
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+/**
+ * Walks the bytes of a class file. Offsets of the constant pool entries are
+ * read up front so entries can be looked up directly, while strings are only
+ * decoded when asked for.
+ *
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html">The class file format</a>
+ */
+abstract class ClassFileScanner {
+	private static final int MAGIC = 0xCAFEBABE;
+
+	protected static final int UTF8 = 1;
+	protected static final int INTEGER = 3;
+	protected static final int FLOAT = 4;
+	protected static final int LONG = 5;
+	protected static final int DOUBLE = 6;
+	protected static final int CLASS = 7;
+	protected static final int STRING = 8;
+	protected static final int FIELD_REF = 9;
+	protected static final int METHOD_REF = 10;
+	protected static final int INTERFACE_METHOD_REF = 11;
+	protected static final int NAME_AND_TYPE = 12;
+	protected static final int METHOD_HANDLE = 15;
+	protected static final int METHOD_TYPE = 16;
+	protected static final int DYNAMIC = 17;
+	protected static final int INVOKE_DYNAMIC = 18;
+	protected static final int MODULE = 19;
+	protected static final int PACKAGE = 20;
+
+	protected final byte[] bytes;
+	protected final String source;
+	protected int[] offsets;
+	protected byte[] tags;
+	private String[] strings;
+	protected int position;
+
+	protected ClassFileScanner(byte[] bytes, String source) {
+		this.bytes = bytes;
+		this.source = source;
+	}
+
+	/**
+	 * Truncated files and invalid constant pool references end up as runtime
+	 * exceptions while scanning.
+	 */
+	protected static MalformedClassFileException malformed(String source, RuntimeException cause) {
+		MalformedClassFileException exception = new MalformedClassFileException(source);
+		exception.initCause(cause);
+		return exception;
+	}
+
+	/**
+	 * Reads up to the end of the constant pool.
+	 */
+	protected void readHeader() throws MalformedClassFileException {
+		if (readInt() != MAGIC) {
+			throw new MalformedClassFileException(source);
+		}
+		position += 4; // Minor and major version
+		readConstantPool();
+	}
+
+	private void readConstantPool() throws MalformedClassFileException {
+		int count = readUnsignedShort();
+		offsets = new int[count];
+		tags = new byte[count];
+		strings = new String[count];
+		for (int i = 1; i < count; i++) {
+			byte tag = bytes[position++];
+			tags[i] = tag;
+			offsets[i] = position;
+			switch (tag) {
+			case UTF8:
+				position += 2 + readUnsignedShort(position);
+				break;
+			case CLASS:
+			case STRING:
+			case METHOD_TYPE:
+			case MODULE:
+			case PACKAGE:
+				position += 2;
+				break;
+			case METHOD_HANDLE:
+				position += 3;
+				break;
+			case INTEGER:
+			case FLOAT:
+			case FIELD_REF:
+			case METHOD_REF:
+			case INTERFACE_METHOD_REF:
+			case NAME_AND_TYPE:
+			case DYNAMIC:
+			case INVOKE_DYNAMIC:
+				position += 4;
+				break;
+			case LONG:
+			case DOUBLE:
+				// These take two entries
+				position += 8;
+				i++;
+				break;
+			default:
+				throw new MalformedClassFileException(source + " (unknown constant pool tag " + tag + ")");
+			}
+		}
+	}
+
+	protected String classNameAt(int index) {
+		return utf8At(readUnsignedShort(offsets[index])).replace('/', '.');
+	}
+
+	protected String utf8At(int index) {
+		if (tags[index] != UTF8) {
+			throw new IllegalArgumentException("Constant pool entry " + index + " is not a string");
+		}
+		String value = strings[index];
+		if (value == null) {
+			value = decodeUtf8(offsets[index]);
+			strings[index] = value;
+		}
+		return value;
+	}
+
+	// Class files use a modified UTF-8, where the null character takes two
+	// bytes and supplementary characters are encoded as surrogate pairs
+	private String decodeUtf8(int offset) {
+		int start = offset + 2;
+		int end = start + readUnsignedShort(offset);
+		char[] chars = new char[end - start];
+		int length = 0;
+		int i = start;
+		while (i < end) {
+			int b = bytes[i++] & 0xFF;
+			if (b < 0x80) {
+				chars[length++] = (char) b;
+			} else if ((b & 0xE0) == 0xC0) {
+				chars[length++] = (char) (((b & 0x1F) << 6) | (bytes[i++] & 0x3F));
+			} else {
+				chars[length++] = (char) (((b & 0x0F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F));
+			}
+		}
+		return new String(chars, 0, length);
+	}
+
+	protected int readUnsignedShort() {
+		int value = readUnsignedShort(position);
+		position += 2;
+		return value;
+	}
+
+	protected int readUnsignedShort(int offset) {
+		return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+	}
+
+	protected int readInt() {
+		int value = readInt(position);
+		position += 4;
+		return value;
+	}
+
+	protected int readInt(int offset) {
+		return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+	}
+}
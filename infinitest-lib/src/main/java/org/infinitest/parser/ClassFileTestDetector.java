@@ -27,6 +27,7 @@
  */
 package org.infinitest.parser;
 
+import static com.google.common.collect.Maps.*;
 import static com.google.common.collect.Sets.*;
 import static org.infinitest.util.InfinitestUtils.*;
 
@@ -44,9 +45,11 @@ public class ClassFileTestDetector implements TestDetector {
 	private final TestFilter filters;
 	private ClassFileIndex index;
 	private ClasspathProvider classpath;
+	private final Map<String, Integer> distancesFromChanges;
 
 	public ClassFileTestDetector(TestFilter testFilterList) {
 		filters = testFilterList;
+		distancesFromChanges = newHashMap();
 	}
 
 	@Override
@@ -66,12 +69,40 @@ public class ClassFileTestDetector implements TestDetector {
 		Set<JavaClass> changedClasses = index.findClasses(changedFiles);
 		Set<JavaClass> changedParents = index.findChangedParents(changedClasses);
 
-		// combine two sets
-		changedClasses.addAll(changedParents);
-
 		// run through total set, and pick out tests to run
 		log(Level.FINE, "Total changeset: " + changedParents);
-		return filterTests(changedClasses);
+		Set<JavaClass> testsToRun = filterTests(changedParents);
+		rememberDistances(index.findDistances(changedClasses, testsToRun));
+		return testsToRun;
+	}
+
+	private void rememberDistances(Map<JavaClass, Integer> distances) {
+		distancesFromChanges.clear();
+		for (Map.Entry<JavaClass, Integer> each : distances.entrySet()) {
+			distancesFromChanges.put(each.getKey().getName(), each.getValue());
+		}
+	}
+
+	@Override
+	public synchronized Map<String, Integer> getDistancesFromChanges() {
+		return new HashMap<String, Integer>(distancesFromChanges);
+	}
+
+	@Override
+	public synchronized String getFingerprint(String testName) {
+		return index.fingerprintOf(index.findJavaClass(testName));
+	}
+
+	@Override
+	public synchronized Set<JavaClass> removeClasses(Collection<File> removedFiles) {
+		Set<JavaClass> dependents = index.removeClasses(removedFiles);
+		log(Level.FINE, "Classes depending on removed files: " + dependents);
+		return filterTests(dependents);
+	}
+
+	@Override
+	public synchronized Set<File> invalidateClassesUsing(Set<String> classNames) {
+		return index.invalidateClassesUsing(classNames);
 	}
 
 	private Set<JavaClass> filterTests(Set<JavaClass> changedClasses) {
@@ -105,6 +136,10 @@ public class ClassFileTestDetector implements TestDetector {
 		return jclass.isATest() && !filters.match(jclass);
 	}
 
+	void clearHashes() {
+		index.clearHashes();
+	}
+
 	boolean isIndexed(Class<Object> clazz) {
 		return index.isIndexed(clazz);
 	}
@@ -123,6 +158,16 @@ public class ClassFileTestDetector implements TestDetector {
 		index = new ClassFileIndex(classpath);
 	}
 
+	@Override
+	public void saveIndex(IndexSnapshot snapshot) {
+		index.saveTo(snapshot);
+	}
+
+	@Override
+	public void restoreIndex(IndexSnapshot snapshot) {
+		index.restore(snapshot);
+	}
+
 	@Override
 	public Set<String> getCurrentTests() {
 		Set<String> tests = newHashSet();
@@ -0,0 +1,374 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import java.util.*;
+
+import com.google.common.collect.*;
+import com.google.common.hash.*;
+
+/**
+ * Hashes what a class does rather than the exact bytes the compiler wrote: its
+ * declaration, fields, methods, bytecode and annotations. Constant pool
+ * references are hashed as the constants they point to, so the order of the
+ * constant pool doesn't matter. Debug information is left out, which means
+ * editing a comment or reformatting code, which only moves line numbers,
+ * gives the same fingerprint.
+ */
+class ClassFingerprint extends ClassFileScanner {
+	private static final Set<String> IGNORED_ATTRIBUTES = ImmutableSet.of( //
+			"SourceFile", //
+			"SourceDebugExtension", //
+			"LineNumberTable", //
+			"LocalVariableTable", //
+			"LocalVariableTypeTable", //
+			// Computed by the compiler from the bytecode, for the verifier
+			"StackMapTable");
+
+	private static final int LDC = 0x12;
+	private static final int LDC_W = 0x13;
+	private static final int LDC2_W = 0x14;
+	private static final int TABLESWITCH = 0xaa;
+	private static final int LOOKUPSWITCH = 0xab;
+	private static final int GETSTATIC = 0xb2;
+	private static final int INVOKESTATIC = 0xb8;
+	private static final int INVOKEINTERFACE = 0xb9;
+	private static final int INVOKEDYNAMIC = 0xba;
+	private static final int NEW = 0xbb;
+	private static final int ANEWARRAY = 0xbd;
+	private static final int CHECKCAST = 0xc0;
+	private static final int INSTANCEOF = 0xc1;
+	private static final int WIDE = 0xc4;
+	private static final int MULTIANEWARRAY = 0xc5;
+	private static final int IINC = 0x84;
+
+	// Length of each instruction, opcode included, except for the switches
+	// and wide instructions
+	private static final int[] INSTRUCTION_LENGTHS = new int[256];
+
+	static {
+		Arrays.fill(INSTRUCTION_LENGTHS, 1);
+		setLength(2, 0x10, 0x10); // bipush
+		setLength(2, LDC, LDC);
+		setLength(2, 0x15, 0x19); // iload to aload
+		setLength(2, 0x36, 0x3a); // istore to astore
+		setLength(2, 0xa9, 0xa9); // ret
+		setLength(2, 0xbc, 0xbc); // newarray
+		setLength(3, 0x11, 0x11); // sipush
+		setLength(3, LDC_W, LDC2_W);
+		setLength(3, IINC, IINC);
+		setLength(3, 0x99, 0xa8); // conditional jumps, goto and jsr
+		setLength(3, GETSTATIC, INVOKESTATIC);
+		setLength(3, NEW, NEW);
+		setLength(3, ANEWARRAY, ANEWARRAY);
+		setLength(3, CHECKCAST, INSTANCEOF);
+		setLength(3, 0xc6, 0xc7); // ifnull and ifnonnull
+		setLength(4, MULTIANEWARRAY, MULTIANEWARRAY);
+		setLength(5, INVOKEINTERFACE, INVOKEDYNAMIC);
+		setLength(5, 0xc8, 0xc9); // goto_w and jsr_w
+	}
+
+	private final Hasher hasher;
+
+	private ClassFingerprint(byte[] bytes, String source) {
+		super(bytes, source);
+		hasher = Hashing.sha1().newHasher();
+	}
+
+	/**
+	 * @param source
+	 *            where the bytes come from, to report malformed class files
+	 */
+	static String of(byte[] bytes, String source) throws MalformedClassFileException {
+		try {
+			return new ClassFingerprint(bytes, source).fingerprint();
+		} catch (RuntimeException e) {
+			throw malformed(source, e);
+		}
+	}
+
+	private String fingerprint() throws MalformedClassFileException {
+		readHeader();
+		hasher.putBytes(bytes, 4, 4); // Minor and major version
+
+		hasher.putInt(readUnsignedShort()); // Access flags
+		putConstant(readUnsignedShort());
+		putConstantOrNone(readUnsignedShort());
+		putConstants();
+		putMembers(); // Fields
+		putMembers(); // Methods
+		putAttributes();
+		return hasher.hash().toString();
+	}
+
+	private void putMembers() {
+		int count = readUnsignedShort();
+		hasher.putInt(count);
+		for (int i = 0; i < count; i++) {
+			hasher.putInt(readUnsignedShort()); // Access flags
+			putConstant(readUnsignedShort());
+			putConstant(readUnsignedShort());
+			putAttributes();
+		}
+	}
+
+	private void putAttributes() {
+		int count = readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			int nameIndex = readUnsignedShort();
+			String name = utf8At(nameIndex);
+			int length = readInt();
+			int end = position + length;
+			if (!IGNORED_ATTRIBUTES.contains(name)) {
+				putConstant(nameIndex);
+				putAttribute(name, length);
+			}
+			position = end;
+		}
+	}
+
+	private void putAttribute(String name, int length) {
+		if ("Code".equals(name)) {
+			putCode();
+		} else if ("ConstantValue".equals(name) || "Signature".equals(name) || "NestHost".equals(name)) {
+			putConstant(readUnsignedShort());
+		} else if ("Exceptions".equals(name) || "NestMembers".equals(name) || "PermittedSubclasses".equals(name)) {
+			putConstants();
+		} else if ("RuntimeVisibleAnnotations".equals(name) || "RuntimeInvisibleAnnotations".equals(name)) {
+			putAnnotations();
+		} else if ("RuntimeVisibleParameterAnnotations".equals(name) || "RuntimeInvisibleParameterAnnotations".equals(name)) {
+			int parameters = bytes[position++] & 0xFF;
+			hasher.putInt(parameters);
+			for (int i = 0; i < parameters; i++) {
+				putAnnotations();
+			}
+		} else if ("AnnotationDefault".equals(name)) {
+			putElementValue();
+		} else if ("InnerClasses".equals(name)) {
+			int count = readUnsignedShort();
+			hasher.putInt(count);
+			for (int i = 0; i < count; i++) {
+				putConstantOrNone(readUnsignedShort());
+				putConstantOrNone(readUnsignedShort());
+				putConstantOrNone(readUnsignedShort());
+				hasher.putInt(readUnsignedShort()); // Access flags
+			}
+		} else if ("EnclosingMethod".equals(name)) {
+			putConstant(readUnsignedShort());
+			putConstantOrNone(readUnsignedShort());
+		} else if ("BootstrapMethods".equals(name)) {
+			int count = readUnsignedShort();
+			hasher.putInt(count);
+			for (int i = 0; i < count; i++) {
+				putConstant(readUnsignedShort());
+				putConstants();
+			}
+		} else {
+			// Anything else is hashed as is. At worst, a change in the order of
+			// the constant pool is taken for a change of the class.
+			hasher.putBytes(bytes, position, length);
+		}
+	}
+
+	private void putCode() {
+		hasher.putBytes(bytes, position, 4); // Max stack and max locals
+		position += 4;
+		int codeLength = readInt();
+		putInstructions(position, codeLength);
+		position += codeLength;
+
+		int exceptionHandlers = readUnsignedShort();
+		hasher.putInt(exceptionHandlers);
+		for (int i = 0; i < exceptionHandlers; i++) {
+			hasher.putBytes(bytes, position, 6); // Start, end and handler
+			position += 6;
+			putConstantOrNone(readUnsignedShort());
+		}
+		putAttributes();
+	}
+
+	private void putInstructions(int start, int length) {
+		int end = start + length;
+		int pc = start;
+		while (pc < end) {
+			int opcode = bytes[pc] & 0xFF;
+			int next = pc + instructionLength(start, pc, opcode);
+			hasher.putByte((byte) opcode);
+			if (opcode == LDC) {
+				putConstant(bytes[pc + 1] & 0xFF);
+			} else if (referencesConstant(opcode)) {
+				putConstant(readUnsignedShort(pc + 1));
+				if (opcode == MULTIANEWARRAY) {
+					hasher.putByte(bytes[pc + 3]); // Dimensions
+				}
+			} else {
+				// Jump offsets don't change unless the code does
+				hasher.putBytes(bytes, pc + 1, next - pc - 1);
+			}
+			pc = next;
+		}
+	}
+
+	private int instructionLength(int start, int pc, int opcode) {
+		if ((opcode == TABLESWITCH) || (opcode == LOOKUPSWITCH)) {
+			// Operands are aligned on four bytes from the start of the code
+			int operands = start + (((pc - start) + 4) & ~3);
+			if (opcode == TABLESWITCH) {
+				int low = readInt(operands + 4);
+				int high = readInt(operands + 8);
+				return (operands - pc) + 12 + (4 * ((high - low) + 1));
+			}
+			int pairs = readInt(operands + 4);
+			return (operands - pc) + 8 + (8 * pairs);
+		}
+		if (opcode == WIDE) {
+			return (bytes[pc + 1] & 0xFF) == IINC ? 6 : 4;
+		}
+		return INSTRUCTION_LENGTHS[opcode];
+	}
+
+	private static boolean referencesConstant(int opcode) {
+		return ((opcode >= LDC_W) && (opcode <= LDC2_W)) //
+				|| ((opcode >= GETSTATIC) && (opcode <= NEW)) //
+				|| (opcode == ANEWARRAY) || (opcode == CHECKCAST) || (opcode == INSTANCEOF) || (opcode == MULTIANEWARRAY);
+	}
+
+	private void putAnnotations() {
+		int count = readUnsignedShort();
+		hasher.putInt(count);
+		for (int i = 0; i < count; i++) {
+			putAnnotation();
+		}
+	}
+
+	private void putAnnotation() {
+		putConstant(readUnsignedShort()); // Type
+		int pairs = readUnsignedShort();
+		hasher.putInt(pairs);
+		for (int i = 0; i < pairs; i++) {
+			putConstant(readUnsignedShort()); // Element name
+			putElementValue();
+		}
+	}
+
+	private void putElementValue() {
+		byte tag = bytes[position++];
+		hasher.putByte(tag);
+		switch (tag) {
+		case 'e':
+			putConstant(readUnsignedShort()); // Type
+			putConstant(readUnsignedShort()); // Constant name
+			break;
+		case '@':
+			putAnnotation();
+			break;
+		case '[':
+			int count = readUnsignedShort();
+			hasher.putInt(count);
+			for (int i = 0; i < count; i++) {
+				putElementValue();
+			}
+			break;
+		default:
+			putConstant(readUnsignedShort());
+		}
+	}
+
+	/**
+	 * Hashes a count followed by as many constant pool indexes.
+	 */
+	private void putConstants() {
+		int count = readUnsignedShort();
+		hasher.putInt(count);
+		for (int i = 0; i < count; i++) {
+			putConstant(readUnsignedShort());
+		}
+	}
+
+	private void putConstantOrNone(int index) {
+		if (index == 0) {
+			hasher.putByte((byte) 0);
+		} else {
+			putConstant(index);
+		}
+	}
+
+	private void putConstant(int index) {
+		byte tag = tags[index];
+		int offset = offsets[index];
+		hasher.putByte(tag);
+		switch (tag) {
+		case UTF8:
+			int length = readUnsignedShort(offset);
+			hasher.putInt(length);
+			hasher.putBytes(bytes, offset + 2, length);
+			break;
+		case INTEGER:
+		case FLOAT:
+			hasher.putBytes(bytes, offset, 4);
+			break;
+		case LONG:
+		case DOUBLE:
+			hasher.putBytes(bytes, offset, 8);
+			break;
+		case CLASS:
+		case STRING:
+		case METHOD_TYPE:
+		case MODULE:
+		case PACKAGE:
+			putConstant(readUnsignedShort(offset));
+			break;
+		case FIELD_REF:
+		case METHOD_REF:
+		case INTERFACE_METHOD_REF:
+		case NAME_AND_TYPE:
+			putConstant(readUnsignedShort(offset));
+			putConstant(readUnsignedShort(offset + 2));
+			break;
+		case METHOD_HANDLE:
+			hasher.putByte(bytes[offset]); // Kind
+			putConstant(readUnsignedShort(offset + 1));
+			break;
+		case DYNAMIC:
+		case INVOKE_DYNAMIC:
+			// The bootstrap method is an index in the BootstrapMethods
+			// attribute, which is hashed on its own
+			hasher.putBytes(bytes, offset, 2);
+			putConstant(readUnsignedShort(offset + 2));
+			break;
+		default:
+			throw new IllegalArgumentException("Constant pool entry " + index + " is empty");
+		}
+	}
+
+	private static void setLength(int length, int firstOpcode, int lastOpcode) {
+		for (int opcode = firstOpcode; opcode <= lastOpcode; opcode++) {
+			INSTRUCTION_LENGTHS[opcode] = length;
+		}
+	}
+}
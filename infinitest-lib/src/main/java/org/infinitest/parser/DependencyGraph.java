@@ -0,0 +1,445 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
+
+import java.util.*;
+
+/**
+ * A directed graph from each class to the classes it depends on.
+ * <p/>
+ * Classes are numbered as they are added. Edges are kept as arrays of these
+ * numbers in both directions, so finding a class by name, its dependencies or
+ * its dependents never needs to look at the rest of the graph, and an edge
+ * only costs two ints.
+ * <p/>
+ * The classes that depend on a given class, directly or not, can be cached.
+ * A cached result is dropped as soon as an edge it went through changes.
+ * <p/>
+ * Numbers of removed classes are not reused. Classes that depended on a
+ * removed class are linked to it again if a class with the same name comes
+ * back.
+ */
+class DependencyGraph {
+	private static final int INITIAL_CAPACITY = 64;
+	private static final int[] NO_EDGES = new int[0];
+	// Looking up the dependents of many classes at once is cheaper in a single
+	// pass than one class at a time, even with some of them cached
+	private static final int MAX_CACHED_LOOKUP = 16;
+
+	private final Map<String, Integer> ids;
+	private JavaClass[] classes;
+	private int[][] dependencies;
+	private int[] dependencyCounts;
+	private int[][] dependents;
+	private int[] dependentCounts;
+	private int nextId;
+	private final Map<String, Set<String>> dependentsOfRemovedClasses;
+	private final int cacheSize;
+	private final Map<Integer, BitSet> cachedDependents;
+	private final BitSet reached;
+	private int[] stack;
+
+	DependencyGraph() {
+		this(0);
+	}
+
+	/**
+	 * @param cacheSize
+	 *            how many classes to remember the dependents of, 0 to disable
+	 *            caching
+	 */
+	DependencyGraph(final int cacheSize) {
+		this.cacheSize = cacheSize;
+		ids = newHashMap();
+		dependentsOfRemovedClasses = newHashMap();
+		classes = new JavaClass[INITIAL_CAPACITY];
+		dependencies = new int[INITIAL_CAPACITY][];
+		dependencyCounts = new int[INITIAL_CAPACITY];
+		dependents = new int[INITIAL_CAPACITY][];
+		dependentCounts = new int[INITIAL_CAPACITY];
+		cachedDependents = new LinkedHashMap<Integer, BitSet>(16, 0.75f, true) {
+			private static final long serialVersionUID = -1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, BitSet> eldest) {
+				return size() > cacheSize;
+			}
+		};
+		reached = new BitSet();
+		stack = new int[INITIAL_CAPACITY];
+	}
+
+	JavaClass find(String classname) {
+		Integer id = ids.get(classname);
+		return id == null ? null : classes[id];
+	}
+
+	boolean contains(JavaClass javaClass) {
+		return ids.containsKey(javaClass.getName());
+	}
+
+	/**
+	 * Adds a class, or replaces the class with the same name. A replaced class
+	 * keeps its dependents, but loses its dependencies since they are read
+	 * again from its new version.
+	 *
+	 * @return true if the class was not in the graph yet
+	 */
+	boolean add(JavaClass javaClass) {
+		Integer existingId = ids.get(javaClass.getName());
+		if (existingId != null) {
+			classes[existingId] = javaClass;
+			removeDependencies(existingId);
+			return false;
+		}
+
+		int id = nextId++;
+		ensureCapacity(nextId);
+		ids.put(javaClass.getName(), id);
+		classes[id] = javaClass;
+		dependencies[id] = NO_EDGES;
+		dependents[id] = NO_EDGES;
+		relinkDependents(javaClass);
+		return true;
+	}
+
+	private void relinkDependents(JavaClass javaClass) {
+		Set<String> formerDependents = dependentsOfRemovedClasses.remove(javaClass.getName());
+		if (formerDependents == null) {
+			return;
+		}
+		for (String each : formerDependents) {
+			JavaClass dependent = find(each);
+			if ((dependent != null) && Arrays.asList(dependent.getImports()).contains(javaClass.getName())) {
+				addDependency(dependent, javaClass);
+			}
+		}
+	}
+
+	/**
+	 * Removes a class and all its edges, in both directions.
+	 *
+	 * @return false if the class was not in the graph
+	 */
+	boolean remove(JavaClass javaClass) {
+		Integer id = ids.remove(javaClass.getName());
+		if (id == null) {
+			return false;
+		}
+		invalidateCachedDependents(id);
+		cachedDependents.remove(id);
+
+		removeDependencies(id);
+		if (dependentCounts[id] > 0) {
+			Set<String> formerDependents = newHashSet();
+			for (int i = 0; i < dependentCounts[id]; i++) {
+				int dependent = dependents[id][i];
+				dependencyCounts[dependent] = remove(dependencies[dependent], dependencyCounts[dependent], id);
+				formerDependents.add(classes[dependent].getName());
+			}
+			dependentsOfRemovedClasses.put(javaClass.getName(), formerDependents);
+		}
+		classes[id] = null;
+		dependents[id] = NO_EDGES;
+		dependentCounts[id] = 0;
+		return true;
+	}
+
+	/**
+	 * @return false if either class isn't in the graph, or the dependency is
+	 *         already known
+	 */
+	boolean addDependency(JavaClass dependent, JavaClass dependency) {
+		Integer from = ids.get(dependent.getName());
+		Integer to = ids.get(dependency.getName());
+		if ((from == null) || (to == null) || contains(dependencies[from], dependencyCounts[from], to)) {
+			return false;
+		}
+		invalidateCachedDependents(to);
+
+		dependencies[from] = append(dependencies[from], dependencyCounts[from]++, to);
+		dependents[to] = append(dependents[to], dependentCounts[to]++, from);
+		return true;
+	}
+
+	/**
+	 * @return the classes that depend directly on the given class
+	 */
+	List<JavaClass> getDependents(JavaClass javaClass) {
+		Integer id = ids.get(javaClass.getName());
+		if (id == null) {
+			return Collections.emptyList();
+		}
+
+		List<JavaClass> result = newArrayListWithCapacity(dependentCounts[id]);
+		for (int i = 0; i < dependentCounts[id]; i++) {
+			result.add(classes[dependents[id][i]]);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the given classes that are in the graph, and all the classes
+	 *         that depend on them, directly or through other classes
+	 */
+	Set<JavaClass> findAllDependents(Collection<JavaClass> javaClasses) {
+		boolean useCache = (cacheSize > 0) && (javaClasses.size() <= MAX_CACHED_LOOKUP);
+		for (JavaClass each : javaClasses) {
+			Integer id = ids.get(each.getName());
+			if (id == null) {
+				continue;
+			}
+			if (useCache) {
+				reached.or(cachedDependentsOf(id));
+			} else {
+				collectDependents(id, reached);
+			}
+		}
+
+		Set<JavaClass> result = newHashSetWithExpectedSize(reached.cardinality());
+		for (int id = reached.nextSetBit(0); id >= 0; id = reached.nextSetBit(id + 1)) {
+			result.add(classes[id]);
+		}
+		reached.clear();
+		return result;
+	}
+
+	/**
+	 * @return the class, if it is in the graph, and all the classes it depends
+	 *         on, directly or through other classes
+	 */
+	List<JavaClass> findAllDependencies(JavaClass javaClass) {
+		Integer id = ids.get(javaClass.getName());
+		if (id == null) {
+			return Collections.emptyList();
+		}
+		if (stack.length < nextId) {
+			stack = new int[classes.length];
+		}
+
+		List<JavaClass> result = newArrayList();
+		int top = 0;
+		reached.set(id);
+		stack[top++] = id;
+		while (top > 0) {
+			int current = stack[--top];
+			result.add(classes[current]);
+			int[] edges = dependencies[current];
+			for (int i = 0; i < dependencyCounts[current]; i++) {
+				int dependency = edges[i];
+				if (!reached.get(dependency)) {
+					reached.set(dependency);
+					stack[top++] = dependency;
+				}
+			}
+		}
+		reached.clear();
+		return result;
+	}
+
+	private BitSet cachedDependentsOf(int id) {
+		BitSet dependentsOfClass = cachedDependents.get(id);
+		if (dependentsOfClass == null) {
+			dependentsOfClass = new BitSet(nextId);
+			collectDependents(id, dependentsOfClass);
+			cachedDependents.put(id, dependentsOfClass);
+		}
+		return dependentsOfClass;
+	}
+
+	// Iterative, so long chains of dependencies can't overflow the call stack.
+	// Every class is pushed at most once, so the stack never outgrows the graph.
+	private void collectDependents(int id, BitSet found) {
+		if (found.get(id)) {
+			return;
+		}
+		if (stack.length < nextId) {
+			stack = new int[classes.length];
+		}
+		int top = 0;
+		found.set(id);
+		stack[top++] = id;
+		while (top > 0) {
+			int current = stack[--top];
+			int[] edges = dependents[current];
+			for (int i = 0; i < dependentCounts[current]; i++) {
+				int dependent = edges[i];
+				if (!found.get(dependent)) {
+					found.set(dependent);
+					stack[top++] = dependent;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return for each target that can be reached, the smallest number of
+	 *         dependencies between it and one of the given classes: 0 for the
+	 *         given classes themselves, 1 for the classes that use them
+	 *         directly
+	 */
+	Map<JavaClass, Integer> findDistances(Collection<JavaClass> javaClasses, Collection<JavaClass> targets) {
+		BitSet wanted = new BitSet(nextId);
+		for (JavaClass each : targets) {
+			Integer id = ids.get(each.getName());
+			if (id != null) {
+				wanted.set(id);
+			}
+		}
+		Map<JavaClass, Integer> distances = newHashMapWithExpectedSize(wanted.cardinality());
+		if (stack.length < nextId) {
+			stack = new int[classes.length];
+		}
+
+		// Breadth first, using the stack as a queue, so each class is first
+		// reached by one of its shortest paths
+		int head = 0;
+		int tail = 0;
+		for (JavaClass each : javaClasses) {
+			Integer id = ids.get(each.getName());
+			if ((id != null) && !reached.get(id)) {
+				reached.set(id);
+				stack[tail++] = id;
+			}
+		}
+		int distance = 0;
+		int endOfLevel = tail;
+		while ((head < tail) && !wanted.isEmpty()) {
+			if (head == endOfLevel) {
+				distance++;
+				endOfLevel = tail;
+			}
+			int current = stack[head++];
+			if (wanted.get(current)) {
+				distances.put(classes[current], distance);
+				wanted.clear(current);
+			}
+			int[] edges = dependents[current];
+			for (int i = 0; i < dependentCounts[current]; i++) {
+				int dependent = edges[i];
+				if (!reached.get(dependent)) {
+					reached.set(dependent);
+					stack[tail++] = dependent;
+				}
+			}
+		}
+		reached.clear();
+		return distances;
+	}
+
+	/**
+	 * A new or removed edge to a class changes the dependents of that class
+	 * and of every class it depends on, which are exactly the cached results
+	 * that contain it.
+	 */
+	private void invalidateCachedDependents(int id) {
+		if (cachedDependents.isEmpty()) {
+			return;
+		}
+		Iterator<BitSet> iterator = cachedDependents.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().get(id)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	Collection<JavaClass> getClasses() {
+		List<JavaClass> result = newArrayListWithCapacity(ids.size());
+		for (int id = 0; id < nextId; id++) {
+			if (classes[id] != null) {
+				result.add(classes[id]);
+			}
+		}
+		return result;
+	}
+
+	int size() {
+		return ids.size();
+	}
+
+	private void removeDependencies(int id) {
+		if (dependencyCounts[id] > 0) {
+			invalidateCachedDependents(id);
+		}
+		for (int i = 0; i < dependencyCounts[id]; i++) {
+			int dependency = dependencies[id][i];
+			dependentCounts[dependency] = remove(dependents[dependency], dependentCounts[dependency], id);
+		}
+		dependencies[id] = NO_EDGES;
+		dependencyCounts[id] = 0;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > classes.length) {
+			int newCapacity = Math.max(capacity, classes.length * 2);
+			classes = Arrays.copyOf(classes, newCapacity);
+			dependencies = Arrays.copyOf(dependencies, newCapacity);
+			dependencyCounts = Arrays.copyOf(dependencyCounts, newCapacity);
+			dependents = Arrays.copyOf(dependents, newCapacity);
+			dependentCounts = Arrays.copyOf(dependentCounts, newCapacity);
+		}
+	}
+
+	private static boolean contains(int[] edges, int count, int id) {
+		for (int i = 0; i < count; i++) {
+			if (edges[i] == id) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int[] append(int[] edges, int count, int id) {
+		int[] result = edges;
+		if (count == edges.length) {
+			result = Arrays.copyOf(edges, Math.max(4, count * 2));
+		}
+		result[count] = id;
+		return result;
+	}
+
+	/**
+	 * Order doesn't matter, so the last edge takes the place of the removed one.
+	 *
+	 * @return the new number of edges
+	 */
+	private static int remove(int[] edges, int count, int id) {
+		for (int i = 0; i < count; i++) {
+			if (edges[i] == id) {
+				edges[i] = edges[count - 1];
+				return count - 1;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The state a core needs to pick up where it left off: the indexed classes and
+ * their dependencies, the content hash of each class file and the timestamps
+ * used to detect changes.
+ *
+ * @see IndexStore
+ */
+public class IndexSnapshot {
+	private final List<JavaClass> classes;
+	private final Map<File, String> hashes;
+	private final Map<File, Long> timestamps;
+
+	public IndexSnapshot() {
+		classes = newArrayList();
+		hashes = newHashMap();
+		timestamps = newHashMap();
+	}
+
+	public void addClass(JavaClass javaClass, String hash) {
+		classes.add(javaClass);
+		if (hash != null) {
+			hashes.put(javaClass.getClassFile(), hash);
+		}
+	}
+
+	public List<JavaClass> getClasses() {
+		return classes;
+	}
+
+	public String getHash(File classFile) {
+		return hashes.get(classFile);
+	}
+
+	public void setTimestamps(Map<File, Long> timestamps) {
+		this.timestamps.clear();
+		this.timestamps.putAll(timestamps);
+	}
+
+	public Map<File, Long> getTimestamps() {
+		return timestamps;
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static com.google.common.base.Charsets.*;
+import static java.util.logging.Level.*;
+import static org.infinitest.util.InfinitestUtils.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.infinitest.*;
+
+import com.google.common.collect.*;
+
+/**
+ * Saves an {@link IndexSnapshot} under the working directory of a
+ * {@link RuntimeEnvironment}, so a restarted IDE only has to reparse the class
+ * files that changed since the last save.
+ * <p/>
+ * The file starts with a magic number, a format version and the hash of the
+ * environment it was written for, followed by a table of every distinct string
+ * (class names, paths and hashes). Everything after that refers to strings by
+ * their position in the table.
+ */
+public class IndexStore {
+	static final int MAGIC = 0x494e4658;
+	// Version 2 stores class fingerprints instead of hashes of the raw bytes
+	static final int VERSION = 2;
+	static final String INDEX_DIRECTORY = ".infinitest";
+
+	private static final int NONE = -1;
+	private static final byte IS_A_TEST = 1;
+
+	public IndexSnapshot load(RuntimeEnvironment environment) {
+		File indexFile = indexFileFor(environment);
+		if (!indexFile.isFile()) {
+			return null;
+		}
+		try {
+			return read(indexFile, environment.hashCode());
+		} catch (IOException e) {
+			log(WARNING, "Ignoring unreadable dependency index " + indexFile + ": " + e.getMessage());
+		} catch (RuntimeException e) {
+			// Truncated or otherwise corrupted
+			log(WARNING, "Ignoring corrupt dependency index " + indexFile + ": " + e);
+		}
+		return null;
+	}
+
+	public void save(RuntimeEnvironment environment, IndexSnapshot snapshot) {
+		File indexFile = indexFileFor(environment);
+		File tempFile = new File(indexFile.getPath() + ".tmp");
+		try {
+			indexFile.getParentFile().mkdirs();
+			write(tempFile, environment.hashCode(), snapshot);
+			// Replacing the old index in one step means a crash never leaves a
+			// half-written index behind
+			indexFile.delete();
+			if (!tempFile.renameTo(indexFile)) {
+				throw new IOException("Cannot rename " + tempFile + " to " + indexFile);
+			}
+			log(CONFIG, "Saved dependency index for " + snapshot.getClasses().size() + " classes to " + indexFile);
+		} catch (IOException e) {
+			log(WARNING, "Could not save dependency index " + indexFile + ": " + e.getMessage());
+			tempFile.delete();
+		}
+	}
+
+	public void delete(RuntimeEnvironment environment) {
+		indexFileFor(environment).delete();
+	}
+
+	File indexFileFor(RuntimeEnvironment environment) {
+		// Several modules can share a working directory, but never their output
+		// directories
+		String name = "index-" + Integer.toHexString(environment.getClassOutputDirs().hashCode()) + ".bin";
+		return new File(new File(environment.getWorkingDirectory(), INDEX_DIRECTORY), name);
+	}
+
+	private void write(File file, int environmentHash, IndexSnapshot snapshot) throws IOException {
+		StringTable strings = new StringTable();
+		for (JavaClass each : snapshot.getClasses()) {
+			strings.add(each.getName());
+			strings.add(each.getClassFile().getPath());
+			strings.add(snapshot.getHash(each.getClassFile()));
+			for (String eachImport : each.getImports()) {
+				strings.add(eachImport);
+			}
+		}
+		for (File each : snapshot.getTimestamps().keySet()) {
+			strings.add(each.getPath());
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(environmentHash);
+
+			out.writeInt(strings.size());
+			for (String each : strings.values()) {
+				byte[] bytes = each.getBytes(UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+
+			out.writeInt(snapshot.getTimestamps().size());
+			for (Map.Entry<File, Long> each : snapshot.getTimestamps().entrySet()) {
+				out.writeInt(strings.idOf(each.getKey().getPath()));
+				out.writeLong(each.getValue());
+			}
+
+			out.writeInt(snapshot.getClasses().size());
+			for (JavaClass each : snapshot.getClasses()) {
+				out.writeInt(strings.idOf(each.getName()));
+				out.writeByte(each.isATest() ? IS_A_TEST : 0);
+				out.writeInt(strings.idOf(each.getClassFile().getPath()));
+				out.writeInt(strings.idOf(snapshot.getHash(each.getClassFile())));
+				String[] imports = each.getImports();
+				out.writeInt(imports.length);
+				for (String eachImport : imports) {
+					out.writeInt(strings.idOf(eachImport));
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	private IndexSnapshot read(File file, int environmentHash) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			ByteBuffer in = readFully(randomAccessFile.getChannel());
+			if ((in.getInt() != MAGIC) || (in.getInt() != VERSION)) {
+				throw new IOException("Not a dependency index, or written by another version of Infinitest");
+			}
+			if (in.getInt() != environmentHash) {
+				log(CONFIG, "Dependency index " + file + " was written for another runtime environment");
+				return null;
+			}
+
+			String[] strings = new String[in.getInt()];
+			for (int i = 0; i < strings.length; i++) {
+				byte[] bytes = new byte[in.getInt()];
+				in.get(bytes);
+				strings[i] = new String(bytes, UTF_8).intern();
+			}
+
+			IndexSnapshot snapshot = new IndexSnapshot();
+			Map<File, Long> timestamps = Maps.newHashMap();
+			int timestampCount = in.getInt();
+			for (int i = 0; i < timestampCount; i++) {
+				timestamps.put(new File(strings[in.getInt()]), in.getLong());
+			}
+			snapshot.setTimestamps(timestamps);
+
+			int classCount = in.getInt();
+			for (int i = 0; i < classCount; i++) {
+				String name = strings[in.getInt()];
+				boolean isATest = in.get() == IS_A_TEST;
+				File classFile = new File(strings[in.getInt()]);
+				int hashId = in.getInt();
+				String[] imports = new String[in.getInt()];
+				for (int j = 0; j < imports.length; j++) {
+					imports[j] = strings[in.getInt()];
+				}
+				snapshot.addClass(new ParsedClass(name, imports, isATest, classFile), hashId == NONE ? null : strings[hashId]);
+			}
+			return snapshot;
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	// Mapping the file would be faster still, but Windows keeps mapped files
+	// locked until the buffer is garbage collected, so we couldn't replace it
+	private ByteBuffer readFully(FileChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException();
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static class StringTable {
+		private final Map<String, Integer> ids = Maps.newLinkedHashMap();
+
+		void add(String value) {
+			if ((value != null) && !ids.containsKey(value)) {
+				ids.put(value, ids.size());
+			}
+		}
+
+		int idOf(String value) {
+			if (value == null) {
+				return NONE;
+			}
+			return ids.get(value);
+		}
+
+		int size() {
+			return ids.size();
+		}
+
+		Collection<String> values() {
+			return ids.keySet();
+		}
+	}
+}
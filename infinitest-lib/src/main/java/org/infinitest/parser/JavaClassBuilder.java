@@ -27,23 +27,31 @@
  */
 package org.infinitest.parser;
 
-import java.io.*;
+import static com.google.common.collect.Lists.*;
 
-import javassist.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.infinitest.*;
 
+import com.google.common.util.concurrent.*;
+
 /**
  * @author Ben Rady
  */
 class JavaClassBuilder {
-	private final JavaAssistClassParser parser;
+	// Below this, handing files over to other threads costs more than it saves
+	private static final int PARALLEL_THRESHOLD = 16;
+	private static final ExecutorService PARSER_THREADS = createParserThreads();
+
+	private final ClassFileParser parser;
 
 	JavaClassBuilder(ClasspathProvider classpath) {
-		this(new JavaAssistClassParser(classpath.getCompleteClasspath()));
+		this(new ClassFileParser(classpath.getCompleteClasspath()));
 	}
 
-	public JavaClassBuilder(JavaAssistClassParser parser) {
+	public JavaClassBuilder(ClassFileParser parser) {
 		this.parser = parser;
 	}
 
@@ -54,11 +62,8 @@ class JavaClassBuilder {
 	public JavaClass getClass(String classname) {
 		try {
 			return parser.getClass(classname);
-		} catch (RuntimeException e) {
-			// Can occur when a cached class disappears from the file system
-			rethrowIfSerious(e);
-			return new UnparsableClass(classname);
 		} catch (MissingClassException e) {
+			// Can also occur when a class disappears from the file system
 			return new UnparsableClass(classname);
 		}
 	}
@@ -66,20 +71,79 @@ class JavaClassBuilder {
 	public String classFileChanged(File file) {
 		try {
 			return parser.classFileChanged(file);
-		} catch (RuntimeException e) {
-			// If the class goes missing after we read it in but before we
-			// process it,
-			// we might get an exception that looks like this
-			rethrowIfSerious(e);
-			return null;
 		} catch (IOException e) {
+			// The class went missing, or is only partially written
 			return null;
 		}
 	}
 
-	private void rethrowIfSerious(RuntimeException e) {
-		if (!(e.getCause() instanceof NotFoundException)) {
-			throw e;
+	/**
+	 * Reads and hashes the files on all cores when there are enough of them,
+	 * like after a clean build.
+	 *
+	 * @return the names of the classes that changed, in the order of the files
+	 */
+	public List<String> classFilesChanged(Collection<File> files) {
+		List<String> classnames = newArrayList();
+		if (files.size() < PARALLEL_THRESHOLD) {
+			for (File each : files) {
+				addIfChanged(classnames, classFileChanged(each));
+			}
+			return classnames;
 		}
+
+		List<Future<String>> results = newArrayList();
+		for (final File each : files) {
+			results.add(PARSER_THREADS.submit(new Callable<String>() {
+				@Override
+				public String call() {
+					return classFileChanged(each);
+				}
+			}));
+		}
+		for (Future<String> each : results) {
+			addIfChanged(classnames, Futures.getUnchecked(each));
+		}
+		return classnames;
+	}
+
+	private void addIfChanged(List<String> classnames, String classname) {
+		if (classname != null) {
+			classnames.add(classname);
+		}
+	}
+
+	public void classFileRemoved(JavaClass removedClass) {
+		parser.classFileRemoved(removedClass.getClassFile(), removedClass.getName());
+	}
+
+	public String getHash(File classFile) {
+		return parser.getHash(classFile);
+	}
+
+	public void restoreHash(File classFile, String classname, String hash) {
+		parser.restoreHash(classFile, classname, hash);
+	}
+
+	public void forgetClasses(Set<String> classNames) {
+		parser.forgetClasses(classNames);
+	}
+
+	public void forgetHash(File classFile) {
+		parser.forgetHash(classFile);
+	}
+
+	public void clearHashes() {
+		parser.clearHashes();
+	}
+
+	private static ExecutorService createParserThreads() {
+		int threads = Runtime.getRuntime().availableProcessors();
+		ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("Infinitest class parser %d").setDaemon(true).build();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+		// Changes usually come one class at a time, no need to keep threads
+		// around between clean builds
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
 	}
 }
@@ -0,0 +1,81 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import java.io.*;
+
+/**
+ * A class found in a class file, either parsed by {@link ClassFileParser} or
+ * restored from an {@link IndexSnapshot}.
+ * <p/>
+ * Be careful: instances of this class are kept in a cache so we should keep
+ * its footprint minimal.
+ */
+class ParsedClass extends AbstractJavaClass {
+	private final String name;
+	private final String[] imports;
+	private final boolean isATest;
+	private final File classFile;
+
+	ParsedClass(String name, String[] imports, boolean isATest, File classFile) {
+		this.name = name;
+		this.imports = imports;
+		this.isATest = isATest;
+		this.classFile = classFile;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String[] getImports() {
+		return imports;
+	}
+
+	@Override
+	public boolean isATest() {
+		return isATest;
+	}
+
+	@Override
+	public boolean locatedInClassFile() {
+		return classFile != null;
+	}
+
+	@Override
+	public File getClassFile() {
+		return classFile;
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
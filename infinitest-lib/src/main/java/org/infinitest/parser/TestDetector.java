@@ -37,7 +37,44 @@ public interface TestDetector {
 
 	Set<JavaClass> findTestsToRun(Collection<File> changedFiles);
 
+	/**
+	 * @return how many dependencies separate each test found by the last call
+	 *         to {@link #findTestsToRun(Collection)} from the nearest changed
+	 *         class
+	 */
+	Map<String, Integer> getDistancesFromChanges();
+
+	/**
+	 * @return a hash of the test class and of every class file it depends on,
+	 *         or null if it can't be computed
+	 */
+	String getFingerprint(String testName);
+
+	/**
+	 * Removes the classes found in the given files from the dependency index.
+	 *
+	 * @return the tests that depended on the removed classes
+	 */
+	Set<JavaClass> removeClasses(Collection<File> removedFiles);
+
+	/**
+	 * Makes the classes that use any of the given classes count as changed the
+	 * next time their files are given to {@link #findTestsToRun(Collection)}.
+	 * The given classes are read again from the jars when they are needed.
+	 *
+	 * @return the class files of those classes
+	 */
+	Set<File> invalidateClassesUsing(Set<String> classNames);
+
 	void setClasspathProvider(ClasspathProvider classpath);
 
 	Set<String> getCurrentTests();
+
+	/**
+	 * Copies the dependency index into the snapshot, so it can be restored
+	 * later without parsing every class again.
+	 */
+	void saveIndex(IndexSnapshot snapshot);
+
+	void restoreIndex(IndexSnapshot snapshot);
 }
\ No newline at end of file
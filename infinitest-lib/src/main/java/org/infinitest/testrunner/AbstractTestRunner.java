@@ -110,6 +110,30 @@ abstract class AbstractTestRunner implements TestRunner {
 		}
 	}
 
+	@Override
+	public void prioritiesChanged(Collection<String> testNames) {
+	}
+
+	@Override
+	public void dispose() {
+	}
+
+	@Override
+	public void replayResults(Map<String, TestResults> results) {
+		for (Map.Entry<String, TestResults> each : results.entrySet()) {
+			eventSupport.fireStartingEvent(each.getKey());
+			eventSupport.fireTestCaseComplete(each.getKey(), each.getValue());
+		}
+		// Otherwise the run in progress reports its end
+		if (!results.isEmpty() && !isRunningTests()) {
+			eventSupport.fireTestRunComplete();
+		}
+	}
+
+	protected boolean isRunningTests() {
+		return false;
+	}
+
 	@Override
 	public void setRuntimeEnvironment(RuntimeEnvironment environment) {
 		this.environment = environment;
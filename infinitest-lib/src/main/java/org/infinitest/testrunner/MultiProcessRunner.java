@@ -36,16 +36,29 @@ import org.infinitest.testrunner.queue.*;
 
 public class MultiProcessRunner extends AbstractTestRunner {
 	private QueueConsumer queueConsumer;
+	private final ProcessConnectionFactory processManager;
 
 	// DEBT Move into QueueConsumer.
-	private Queue<String> queue;
+	private TestQueue queue;
 
 	public MultiProcessRunner() {
-		this(new NativeConnectionFactory(JUnit4Runner.class), null);
+		this(new ReusableConnectionFactory(JUnit4Runner.class), null);
 	}
 
 	public MultiProcessRunner(final ProcessConnectionFactory remoteProcessManager, RuntimeEnvironment environment) {
+		processManager = remoteProcessManager;
 		queue = new TestQueue(getTestPriority());
+		// Results change the statistics the priorities are computed from
+		addTestResultsListener(new TestResultsListener() {
+			@Override
+			public void testCaseStarting(TestEvent event) {
+			}
+
+			@Override
+			public void testCaseComplete(TestCaseEvent event) {
+				queue.priorityChanged(event.getTestName());
+			}
+		});
 
 		setRuntimeEnvironment(environment);
 		queueConsumer = new QueueConsumer(getEventSupport(), queue) {
@@ -53,6 +66,12 @@ public class MultiProcessRunner extends AbstractTestRunner {
 			protected QueueProcessor createQueueProcessor() throws IOException {
 				return new TestQueueProcessor(getEventSupport(), remoteProcessManager, getRuntimeEnvironment());
 			}
+
+			@Override
+			protected QueueProcessor createAdditionalQueueProcessor() throws IOException {
+				// Only the first processor reports the end of the run
+				return new TestQueueProcessor(getEventSupport(), remoteProcessManager, getRuntimeEnvironment(), false);
+			}
 		};
 	}
 
@@ -62,10 +81,52 @@ public class MultiProcessRunner extends AbstractTestRunner {
 		queueConsumer.setConcurrencySemaphore(getConcurrencySemaphore());
 	}
 
+	@Override
+	public void setTestPriority(Comparator<String> testPriority) {
+		super.setTestPriority(testPriority);
+		queue.setComparator(testPriority);
+	}
+
 	@Override
 	public void runTests(List<String> testNames) {
 		if (!testNames.isEmpty()) {
+			// Tests that are still queued may be queued for other reasons now
+			for (String each : testNames) {
+				queue.priorityChanged(each);
+			}
 			queueConsumer.push(testNames);
 		}
 	}
+
+	/**
+	 * The processes kept for the previous environment can't run the tests of
+	 * this one.
+	 */
+	@Override
+	public void setRuntimeEnvironment(RuntimeEnvironment environment) {
+		RuntimeEnvironment previousEnvironment = getRuntimeEnvironment();
+		super.setRuntimeEnvironment(environment);
+		if ((previousEnvironment != null) && !previousEnvironment.equals(environment)) {
+			dispose();
+		}
+	}
+
+	@Override
+	public void dispose() {
+		if (processManager instanceof ReusableConnectionFactory) {
+			((ReusableConnectionFactory) processManager).closeIdleConnections();
+		}
+	}
+
+	@Override
+	public void prioritiesChanged(Collection<String> testNames) {
+		for (String each : testNames) {
+			queue.priorityChanged(each);
+		}
+	}
+
+	@Override
+	protected boolean isRunningTests() {
+		return queueConsumer.isRunning();
+	}
 }
@@ -0,0 +1,488 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner;
+
+import static java.util.logging.Level.*;
+import static org.infinitest.util.InfinitestUtils.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * Keeps how long tests and their methods took, and when they failed, between
+ * sessions.
+ * <p/>
+ * Runs are kept in memory as they complete, and appended to a file when
+ * {@link #save()} is called, once per test run. The file starts with a magic
+ * number and a format version, followed by entries that either name a test or
+ * a method, or record a run of a previously named one. Once there are many
+ * more runs than needed, the file is rewritten with only the latest runs of
+ * each test and method.
+ * <p/>
+ * Nothing is read until the history is first used. Runs are then kept in
+ * arrays of primitives, together with totals for each name.
+ */
+public class RunHistory {
+	static final int MAGIC = 0x494e4648;
+	static final int VERSION = 1;
+	static final int RUNS_KEPT = 8;
+	private static final int MIN_RUNS_BEFORE_COMPACTION = 10000;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final int HEADER_SIZE = 8;
+	private static final byte NAME = 1;
+	private static final byte RUN = 2;
+	private static final int RUN_SIZE = 4 + 8 + 4 + 1;
+	private static final char METHOD_SEPARATOR = '#';
+	private static final int NOT_A_METHOD = -1;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final File file;
+	private boolean loaded;
+	private boolean writable;
+	private long validLength;
+	private int compactionThreshold;
+	// Entries not written to the file yet
+	private final ByteArrayOutputStream unsavedEntries;
+
+	// Names of tests and methods, by id
+	private final Map<String, Integer> ids;
+	private String[] names;
+	private int[] testOfName;
+	private int nameCount;
+
+	// Runs, in the order they completed
+	private int[] runNames;
+	private long[] runTimes;
+	private int[] runDurations;
+	private boolean[] runFailures;
+	private int runCount;
+
+	// Totals, by name id
+	private int[] runsOfName;
+	private long[] totalDurationOfName;
+	private int[] lastDurationOfName;
+	private long[] lastFailureOfName;
+
+	public RunHistory(File file) {
+		this.file = file;
+		ids = new HashMap<String, Integer>();
+		unsavedEntries = new ByteArrayOutputStream();
+		reset();
+	}
+
+	private void reset() {
+		ids.clear();
+		names = new String[INITIAL_CAPACITY];
+		testOfName = new int[INITIAL_CAPACITY];
+		runsOfName = new int[INITIAL_CAPACITY];
+		totalDurationOfName = new long[INITIAL_CAPACITY];
+		lastDurationOfName = new int[INITIAL_CAPACITY];
+		lastFailureOfName = new long[INITIAL_CAPACITY];
+		nameCount = 0;
+		runNames = new int[INITIAL_CAPACITY];
+		runTimes = new long[INITIAL_CAPACITY];
+		runDurations = new int[INITIAL_CAPACITY];
+		runFailures = new boolean[INITIAL_CAPACITY];
+		runCount = 0;
+		unsavedEntries.reset();
+		validLength = 0;
+		compactionThreshold = MIN_RUNS_BEFORE_COMPACTION;
+	}
+
+	/**
+	 * @return how many runs of the test are remembered
+	 */
+	public synchronized int getRuns(String testName) {
+		Integer id = findId(testName);
+		return id == null ? 0 : runsOfName[id];
+	}
+
+	/**
+	 * @return the time taken by all the remembered runs of the test, in
+	 *         milliseconds
+	 */
+	public synchronized long getTotalDuration(String testName) {
+		Integer id = findId(testName);
+		return id == null ? 0 : totalDurationOfName[id];
+	}
+
+	/**
+	 * @return when the test last failed, or 0 if it never did
+	 */
+	public synchronized long getLastFailureTime(String testName) {
+		Integer id = findId(testName);
+		return id == null ? 0 : lastFailureOfName[id];
+	}
+
+	/**
+	 * @return how long each method of each test took the last time it ran
+	 */
+	public synchronized Map<String, List<MethodStats>> getLastMethodStats() {
+		ensureLoaded();
+		Map<String, List<MethodStats>> methodStats = new HashMap<String, List<MethodStats>>();
+		for (int id = 0; id < nameCount; id++) {
+			int test = testOfName[id];
+			if ((test != NOT_A_METHOD) && (runsOfName[id] > 0)) {
+				List<MethodStats> statsOfTest = methodStats.get(names[test]);
+				if (statsOfTest == null) {
+					statsOfTest = new ArrayList<MethodStats>();
+					methodStats.put(names[test], statsOfTest);
+				}
+				MethodStats stats = new MethodStats(names[id].substring(names[test].length() + 1));
+				stats.stopTime = lastDurationOfName[id];
+				statsOfTest.add(stats);
+			}
+		}
+		return methodStats;
+	}
+
+	synchronized int size() {
+		ensureLoaded();
+		return runCount;
+	}
+
+	/**
+	 * Remembers the run of a test and of each of its methods. It is only
+	 * written to the file by the next {@link #save()}.
+	 */
+	public synchronized void record(TestCaseEvent event, long time) {
+		ensureLoaded();
+		DataOutputStream out = new DataOutputStream(unsavedEntries);
+		try {
+			String testName = event.getTestName();
+			long testDuration = 0;
+			for (MethodStats each : event.getRunStats()) {
+				testDuration += each.duration();
+			}
+			writeRun(out, idFor(testName, out), time, testDuration, event.failed());
+
+			Set<String> failedMethods = new HashSet<String>();
+			for (TestEvent each : event.getFailureEvents()) {
+				failedMethods.add(each.getTestMethod());
+			}
+			for (MethodStats each : event.getRunStats()) {
+				int id = idFor(testName + METHOD_SEPARATOR + each.methodName, out);
+				writeRun(out, id, time, each.duration(), failedMethods.contains(each.methodName));
+			}
+		} catch (IOException e) {
+			// Can't happen in memory
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Appends the runs recorded since the last save to the file, and compacts
+	 * it if needed.
+	 */
+	public synchronized void save() {
+		if (unsavedEntries.size() == 0) {
+			return;
+		}
+		append(unsavedEntries.toByteArray());
+		unsavedEntries.reset();
+		compactIfNeeded();
+	}
+
+	private Integer findId(String name) {
+		ensureLoaded();
+		return ids.get(name);
+	}
+
+	private int idFor(String name, DataOutputStream out) throws IOException {
+		Integer id = ids.get(name);
+		if (id != null) {
+			return id;
+		}
+		writeName(out, name);
+		return addName(name);
+	}
+
+	private void writeRun(DataOutputStream out, int id, long time, long duration, boolean failed) throws IOException {
+		int clippedDuration = (int) Math.min(duration, Integer.MAX_VALUE);
+		out.writeByte(RUN);
+		out.writeInt(id);
+		out.writeLong(time);
+		out.writeInt(clippedDuration);
+		out.writeBoolean(failed);
+		addRun(id, time, clippedDuration, failed);
+	}
+
+	private static void writeName(DataOutputStream out, String name) throws IOException {
+		byte[] bytes = name.getBytes(UTF_8);
+		out.writeByte(NAME);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	private int addName(String name) {
+		int id = nameCount++;
+		if (id == names.length) {
+			int newCapacity = names.length * 2;
+			names = Arrays.copyOf(names, newCapacity);
+			testOfName = Arrays.copyOf(testOfName, newCapacity);
+			runsOfName = Arrays.copyOf(runsOfName, newCapacity);
+			totalDurationOfName = Arrays.copyOf(totalDurationOfName, newCapacity);
+			lastDurationOfName = Arrays.copyOf(lastDurationOfName, newCapacity);
+			lastFailureOfName = Arrays.copyOf(lastFailureOfName, newCapacity);
+		}
+		names[id] = name;
+		ids.put(name, id);
+		// The test is always named before its methods
+		int separator = name.indexOf(METHOD_SEPARATOR);
+		Integer test = separator < 0 ? null : ids.get(name.substring(0, separator));
+		testOfName[id] = test == null ? NOT_A_METHOD : test;
+		return id;
+	}
+
+	private void addRun(int id, long time, int duration, boolean failed) {
+		int run = runCount++;
+		if (run == runNames.length) {
+			growRuns(runNames.length * 2);
+		}
+		runNames[run] = id;
+		runTimes[run] = time;
+		runDurations[run] = duration;
+		runFailures[run] = failed;
+
+		runsOfName[id]++;
+		totalDurationOfName[id] += duration;
+		lastDurationOfName[id] = duration;
+		if (failed) {
+			lastFailureOfName[id] = time;
+		}
+	}
+
+	private void growRuns(int capacity) {
+		runNames = Arrays.copyOf(runNames, capacity);
+		runTimes = Arrays.copyOf(runTimes, capacity);
+		runDurations = Arrays.copyOf(runDurations, capacity);
+		runFailures = Arrays.copyOf(runFailures, capacity);
+	}
+
+	private void ensureLoaded() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+		writable = true;
+		if (!file.isFile()) {
+			return;
+		}
+		try {
+			read();
+			log(CONFIG, "Loaded " + runCount + " test runs from " + file);
+		} catch (IOException e) {
+			log(WARNING, "Ignoring unreadable test history " + file + ": " + e.getMessage());
+			reset();
+		} catch (RuntimeException e) {
+			log(WARNING, "Ignoring corrupt test history " + file + ": " + e);
+			reset();
+		}
+	}
+
+	private void read() throws IOException {
+		byte[] in = readFully();
+		if ((in.length < HEADER_SIZE) || (intAt(in, 0) != MAGIC) || (intAt(in, 4) != VERSION)) {
+			throw new IOException("Not a test history, or written by another version of Infinitest");
+		}
+		// Most entries are runs, so this is about enough
+		growRuns(Math.max(runNames.length, (in.length - HEADER_SIZE) / (RUN_SIZE + 1)));
+
+		// Decoded by hand, since this is the bulk of the startup and mostly
+		// runs before the JIT kicks in
+		int position = HEADER_SIZE;
+		validLength = position;
+		// An entry cut short by a crash is dropped, and overwritten by the next
+		// run
+		while (position < in.length) {
+			byte type = in[position++];
+			int remaining = in.length - position;
+			if (type == NAME) {
+				if (remaining < 2) {
+					break;
+				}
+				int length = ((in[position] & 0xFF) << 8) | (in[position + 1] & 0xFF);
+				if (remaining < (2 + length)) {
+					break;
+				}
+				addName(new String(in, position + 2, length, UTF_8));
+				position += 2 + length;
+			} else if (type == RUN) {
+				if (remaining < RUN_SIZE) {
+					break;
+				}
+				int id = intAt(in, position);
+				long time = ((long) intAt(in, position + 4) << 32) | (intAt(in, position + 8) & 0xFFFFFFFFL);
+				int duration = intAt(in, position + 12);
+				boolean failed = in[position + 16] != 0;
+				if ((id < 0) || (id >= nameCount)) {
+					throw new IOException("Run of unknown test " + id);
+				}
+				addRun(id, time, duration, failed);
+				position += RUN_SIZE;
+			} else {
+				throw new IOException("Unknown entry " + type);
+			}
+			validLength = position;
+		}
+	}
+
+	private byte[] readFully() throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			byte[] bytes = new byte[(int) randomAccessFile.length()];
+			randomAccessFile.readFully(bytes);
+			return bytes;
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	private static int intAt(byte[] bytes, int offset) {
+		return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+	}
+
+	private void append(byte[] entries) {
+		if (!writable) {
+			return;
+		}
+		try {
+			file.getParentFile().mkdirs();
+			RandomAccessFile out = new RandomAccessFile(file, "rw");
+			try {
+				if (validLength == 0) {
+					out.setLength(0);
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					validLength = HEADER_SIZE;
+				} else if (out.length() != validLength) {
+					out.setLength(validLength);
+				}
+				out.seek(validLength);
+				out.write(entries);
+				validLength += entries.length;
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			log(WARNING, "Could not save test history " + file + ": " + e.getMessage());
+			writable = false;
+		}
+	}
+
+	// Only worth it once most runs would be dropped
+	private void compactIfNeeded() {
+		if (runCount <= compactionThreshold) {
+			return;
+		}
+		int keptRuns = 0;
+		for (int id = 0; id < nameCount; id++) {
+			keptRuns += Math.min(runsOfName[id], RUNS_KEPT);
+		}
+		if (runCount > (keptRuns * 2)) {
+			compact();
+		} else {
+			compactionThreshold = keptRuns * 2;
+		}
+	}
+
+	/**
+	 * Keeps only the latest runs of each test and method, in memory and on
+	 * disk.
+	 */
+	void compact() {
+		boolean[] kept = new boolean[runCount];
+		int[] keptRunsOfName = new int[nameCount];
+		for (int run = runCount - 1; run >= 0; run--) {
+			int id = runNames[run];
+			if (keptRunsOfName[id] < RUNS_KEPT) {
+				keptRunsOfName[id]++;
+				kept[run] = true;
+			}
+		}
+
+		String[] oldNames = Arrays.copyOf(names, nameCount);
+		int oldRunCount = runCount;
+		int[] oldRunNames = runNames;
+		long[] oldRunTimes = runTimes;
+		int[] oldRunDurations = runDurations;
+		boolean[] oldRunFailures = runFailures;
+		// The new file has every run, including the unsaved ones
+		reset();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			// Names keep their order, so tests are still named before their
+			// methods
+			for (String each : oldNames) {
+				writeName(out, each);
+				addName(each);
+			}
+			for (int run = 0; run < oldRunCount; run++) {
+				if (kept[run]) {
+					writeRun(out, oldRunNames[run], oldRunTimes[run], oldRunDurations[run], oldRunFailures[run]);
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		compactionThreshold = Math.max(MIN_RUNS_BEFORE_COMPACTION, runCount * 2);
+		log(CONFIG, "Compacted test history " + file + " from " + oldRunCount + " to " + runCount + " runs");
+
+		if (writable) {
+			replaceFile(bytes.toByteArray());
+		}
+	}
+
+	private void replaceFile(byte[] content) {
+		File tempFile = new File(file.getPath() + ".tmp");
+		try {
+			file.getParentFile().mkdirs();
+			FileOutputStream out = new FileOutputStream(tempFile);
+			try {
+				out.write(content);
+			} finally {
+				out.close();
+			}
+			file.delete();
+			if (!tempFile.renameTo(file)) {
+				throw new IOException("Cannot rename " + tempFile + " to " + file);
+			}
+			validLength = content.length;
+		} catch (IOException e) {
+			log(WARNING, "Could not save test history " + file + ": " + e.getMessage());
+			tempFile.delete();
+			writable = false;
+		}
+	}
+}
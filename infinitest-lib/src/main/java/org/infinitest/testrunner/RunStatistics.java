@@ -32,32 +32,187 @@ import static java.lang.System.*;
 
 import java.util.*;
 
+/**
+ * What is known about the tests that ran: when they last failed, how long they
+ * take and how far they are from the classes that changed last.
+ * <p/>
+ * With a {@link RunHistory}, failures and durations of previous sessions are
+ * known too.
+ */
 public class RunStatistics implements TestResultsListener {
-	private final Map<String, Long> failureTimestamps;
+	/**
+	 * The distance of tests the last changes didn't reach, or that were run for
+	 * another reason.
+	 */
+	public static final int UNKNOWN_DISTANCE = -1;
+
+	private final Map<String, TestHistory> histories;
+	private final Set<String> testsWithDistance;
+	private RunHistory runHistory;
 
 	public RunStatistics() {
-		failureTimestamps = newHashMap();
+		histories = newHashMap();
+		testsWithDistance = new HashSet<String>();
 	}
 
-	private void update(TestEvent event) {
-		failureTimestamps.put(event.getTestName(), currentTimeMillis());
+	/**
+	 * Where to remember runs between sessions. It is only read when a test it
+	 * may know about is looked up.
+	 */
+	public synchronized void setRunHistory(RunHistory runHistory) {
+		this.runHistory = runHistory;
+		histories.clear();
+		testsWithDistance.clear();
+	}
+
+	/**
+	 * Writes the runs that completed since the last save to the run history.
+	 */
+	public void saveRunHistory() {
+		RunHistory history;
+		synchronized (this) {
+			history = runHistory;
+		}
+		// Tests can be looked up while it is written
+		if (history != null) {
+			history.save();
+		}
+	}
+
+	/**
+	 * @return how long each method of each test took the last time it ran in
+	 *         a previous session
+	 */
+	public synchronized Map<String, List<MethodStats>> getPreviousMethodStats() {
+		if (runHistory == null) {
+			return Collections.emptyMap();
+		}
+		return runHistory.getLastMethodStats();
 	}
 
-	public long getLastFailureTime(String testName) {
-		if (!failureTimestamps.containsKey(testName)) {
-			return 0;
+	public synchronized long getLastFailureTime(String testName) {
+		TestHistory history = findHistory(testName);
+		return history == null ? 0 : history.lastFailureTime;
+	}
+
+	/**
+	 * @return the mean time it took to run the test, in milliseconds, or -1 if
+	 *         it never ran
+	 */
+	public synchronized long getMeanDuration(String testName) {
+		TestHistory history = findHistory(testName);
+		if ((history == null) || (history.runs == 0)) {
+			return -1;
+		}
+		return history.totalDuration / history.runs;
+	}
+
+	/**
+	 * @return how many dependencies separate the test from the nearest class
+	 *         that changed last, 0 if the test itself changed
+	 */
+	public synchronized int getDistanceFromChanges(String testName) {
+		TestHistory history = findHistory(testName);
+		return history == null ? UNKNOWN_DISTANCE : history.distanceFromChanges;
+	}
+
+	/**
+	 * Replaces the distances of the previous changes.
+	 * 
+	 * @return the tests whose distance changed, including tests of the previous
+	 *         changes that may still be queued
+	 */
+	public synchronized Set<String> setDistancesFromChanges(Map<String, Integer> distances) {
+		Set<String> changedTests = new HashSet<String>();
+		for (String each : testsWithDistance) {
+			if (!distances.containsKey(each) && historyOf(each).setDistanceFromChanges(UNKNOWN_DISTANCE)) {
+				changedTests.add(each);
+			}
+		}
+		testsWithDistance.clear();
+		for (Map.Entry<String, Integer> each : distances.entrySet()) {
+			if (historyOf(each.getKey()).setDistanceFromChanges(each.getValue())) {
+				changedTests.add(each.getKey());
+			}
+			testsWithDistance.add(each.getKey());
 		}
-		return failureTimestamps.get(testName);
+		return changedTests;
+	}
+
+	/**
+	 * Changes whenever anything known about the test changes, so values
+	 * computed from the statistics of a test can be kept until then.
+	 */
+	public synchronized int getVersion(String testName) {
+		TestHistory history = findHistory(testName);
+		return history == null ? 0 : history.version;
 	}
 
 	@Override
-	public void testCaseComplete(TestCaseEvent event) {
-		for (TestEvent each : event.getFailureEvents()) {
-			update(each);
+	public synchronized void testCaseComplete(TestCaseEvent event) {
+		long now = currentTimeMillis();
+		TestHistory history = historyOf(event.getTestName());
+		if (event.failed()) {
+			history.lastFailureTime = now;
+		}
+		long duration = 0;
+		boolean ran = false;
+		for (MethodStats each : event.getRunStats()) {
+			duration += each.duration();
+			ran = true;
+		}
+		if (ran) {
+			history.totalDuration += duration;
+			history.runs++;
+		}
+		history.version++;
+
+		if (runHistory != null) {
+			runHistory.record(event, now);
 		}
 	}
 
 	@Override
 	public void testCaseStarting(TestEvent event) {
 	}
+
+	private TestHistory findHistory(String testName) {
+		TestHistory history = histories.get(testName);
+		if ((history == null) && (runHistory != null) && (runHistory.getRuns(testName) > 0)) {
+			history = historyOf(testName);
+		}
+		return history;
+	}
+
+	private TestHistory historyOf(String testName) {
+		TestHistory history = histories.get(testName);
+		if (history == null) {
+			history = new TestHistory();
+			if (runHistory != null) {
+				history.lastFailureTime = runHistory.getLastFailureTime(testName);
+				history.totalDuration = runHistory.getTotalDuration(testName);
+				history.runs = runHistory.getRuns(testName);
+			}
+			histories.put(testName, history);
+		}
+		return history;
+	}
+
+	private static class TestHistory {
+		long lastFailureTime;
+		long totalDuration;
+		int runs;
+		int distanceFromChanges = UNKNOWN_DISTANCE;
+		// Starts above the version of tests that are not known at all
+		int version = 1;
+
+		boolean setDistanceFromChanges(int distance) {
+			if (distanceFromChanges == distance) {
+				return false;
+			}
+			distanceFromChanges = distance;
+			version++;
+			return true;
+		}
+	}
 }
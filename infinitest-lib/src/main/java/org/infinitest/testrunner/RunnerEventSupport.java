@@ -56,7 +56,9 @@ public class RunnerEventSupport {
 		listeners.remove(listener);
 	}
 
-	private void fireTestEvent(TestEvent testEvent) {
+	// Events are fired by every worker of a run, but listeners get them one at
+	// a time
+	private synchronized void fireTestEvent(TestEvent testEvent) {
 		for (TestResultsListener each : listeners) {
 			switch (testEvent.getType()) {
 				case TEST_CASE_STARTING:
@@ -68,7 +70,7 @@ public class RunnerEventSupport {
 		}
 	}
 
-	public void fireTestCaseComplete(String testName, TestResults results) {
+	public synchronized void fireTestCaseComplete(String testName, TestResults results) {
 		for (TestResultsListener each : listeners) {
 			each.testCaseComplete(new TestCaseEvent(testName, source, results));
 		}
@@ -86,7 +88,7 @@ public class RunnerEventSupport {
 		consoleListenerList.remove(listener);
 	}
 
-	public void fireTestRunComplete() {
+	public synchronized void fireTestRunComplete() {
 		for (TestQueueListener each : testQueueListenerList) {
 			each.testRunComplete();
 		}
@@ -106,7 +108,7 @@ public class RunnerEventSupport {
 		testQueueListenerList.remove(listener);
 	}
 
-	public void fireQueueEvent(TestQueueEvent event) {
+	public synchronized void fireQueueEvent(TestQueueEvent event) {
 		for (TestQueueListener each : testQueueListenerList) {
 			each.testQueueUpdated(event);
 		}
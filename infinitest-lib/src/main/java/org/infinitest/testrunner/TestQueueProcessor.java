@@ -31,6 +31,7 @@ import static java.util.logging.Level.*;
 import static org.infinitest.util.InfinitestUtils.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.infinitest.ConsoleOutputListener.OutputType;
 import org.infinitest.*;
@@ -42,23 +43,64 @@ class TestQueueProcessor implements QueueProcessor {
 	private final RunnerEventSupport eventSupport;
 
 	private final ProcessConnection currentConnection;
+	private final boolean reportingEndOfRun;
+	private String currentTest;
+	private boolean cancelled;
 
 	public TestQueueProcessor(RunnerEventSupport eventSupport, ProcessConnectionFactory factory, RuntimeEnvironment environment) throws IOException {
+		this(eventSupport, factory, environment, true);
+	}
+
+	/**
+	 * @param reportingEndOfRun
+	 *            false for a processor that shares its queue with another one
+	 *            that reports the end of the run
+	 */
+	public TestQueueProcessor(RunnerEventSupport eventSupport, ProcessConnectionFactory factory, RuntimeEnvironment environment, boolean reportingEndOfRun) throws IOException {
 		this.eventSupport = eventSupport;
 		this.factory = factory;
+		this.reportingEndOfRun = reportingEndOfRun;
 		currentConnection = establishConnection(environment);
 	}
 
 	@Override
 	public void process(String testName) {
 		getEventSupport().fireStartingEvent(testName);
+		startTest(testName);
 		TestResults results = currentConnection.runTest(testName);
-		getEventSupport().fireTestCaseComplete(testName, results);
+		if (endTest()) {
+			log(CONFIG, testName + " was cancelled, its results are out of date");
+		} else {
+			getEventSupport().fireTestCaseComplete(testName, results);
+		}
+	}
+
+	private synchronized void startTest(String testName) {
+		currentTest = testName;
+		cancelled = false;
+	}
+
+	/**
+	 * @return true if the test was cancelled
+	 */
+	private synchronized boolean endTest() {
+		currentTest = null;
+		return cancelled;
+	}
+
+	@Override
+	public synchronized void cancelIfRunning(Collection<String> testNames) {
+		if ((currentTest != null) && !cancelled && testNames.contains(currentTest)) {
+			cancelled = true;
+			currentConnection.cancel(currentTest);
+		}
 	}
 
 	@Override
 	public void close() {
-		getEventSupport().fireTestRunComplete();
+		if (reportingEndOfRun) {
+			getEventSupport().fireTestRunComplete();
+		}
 		currentConnection.close();
 	}
 
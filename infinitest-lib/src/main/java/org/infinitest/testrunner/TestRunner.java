@@ -36,6 +36,17 @@ public interface TestRunner {
 
 	void runTests(List<String> testNames);
 
+	/**
+	 * Tells the runner the priority of these tests changed, so the ones that
+	 * are still queued move to their new place.
+	 */
+	void prioritiesChanged(Collection<String> testNames);
+
+	/**
+	 * Reports results of tests that were not run again, as if they just ran.
+	 */
+	void replayResults(Map<String, TestResults> results);
+
 	void addTestResultsListener(TestResultsListener listener);
 
 	void removeTestStatusListener(TestResultsListener listener);
@@ -51,4 +62,10 @@ public interface TestRunner {
 	void removeTestQueueListener(ReloadListener testQueueNormalizer);
 
 	void setConcurrencyController(ConcurrencyController semaphore);
+
+	/**
+	 * Stops the processes kept for later runs. They are started again if more
+	 * tests are run.
+	 */
+	void dispose();
 }
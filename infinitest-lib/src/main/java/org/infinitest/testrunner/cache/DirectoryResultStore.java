@@ -0,0 +1,136 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.cache;
+
+import static java.util.logging.Level.*;
+import static org.infinitest.util.InfinitestUtils.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.infinitest.testrunner.*;
+
+import com.google.common.io.*;
+
+/**
+ * Keeps results in a directory, one file per fingerprint, so they survive a
+ * restart of the IDE and can be shared by the projects of a workspace.
+ * <p/>
+ * Reading a file marks it as recently used. Once there are too many files,
+ * the least recently used ones are deleted.
+ */
+public class DirectoryResultStore implements ResultStore {
+	static final String EXTENSION = ".res";
+	// Listing the directory costs more than a few extra files
+	private static final int SAVES_BETWEEN_CLEANUPS = 100;
+
+	private final File directory;
+	private final int maxEntries;
+	private int savesSinceCleanup;
+
+	public DirectoryResultStore(File directory, int maxEntries) {
+		this.directory = directory;
+		this.maxEntries = maxEntries;
+	}
+
+	@Override
+	public TestResults load(String fingerprint) {
+		File file = fileFor(fingerprint);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			TestResults results = StoredResults.fromBytes(Files.toByteArray(file));
+			file.setLastModified(System.currentTimeMillis());
+			return results;
+		} catch (IOException e) {
+			log(WARNING, "Ignoring unreadable test results " + file + ": " + e.getMessage());
+		} catch (RuntimeException e) {
+			// Truncated or otherwise corrupted
+			log(WARNING, "Ignoring corrupt test results " + file + ": " + e);
+		}
+		file.delete();
+		return null;
+	}
+
+	@Override
+	public void save(String fingerprint, TestResults results) {
+		File file = fileFor(fingerprint);
+		File tempFile = new File(file.getPath() + ".tmp");
+		try {
+			directory.mkdirs();
+			Files.write(StoredResults.toBytes(results), tempFile);
+			file.delete();
+			if (!tempFile.renameTo(file)) {
+				throw new IOException("Cannot rename " + tempFile + " to " + file);
+			}
+		} catch (IOException e) {
+			log(WARNING, "Could not save test results " + file + ": " + e.getMessage());
+			tempFile.delete();
+		}
+		cleanupIfNeeded();
+	}
+
+	private synchronized void cleanupIfNeeded() {
+		if (++savesSinceCleanup >= SAVES_BETWEEN_CLEANUPS) {
+			savesSinceCleanup = 0;
+			removeLeastRecentlyUsed();
+		}
+	}
+
+	synchronized void removeLeastRecentlyUsed() {
+		File[] files = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(EXTENSION);
+			}
+		});
+		if ((files == null) || (files.length <= maxEntries)) {
+			return;
+		}
+
+		final Map<File, Long> lastUses = new HashMap<File, Long>();
+		for (File each : files) {
+			lastUses.put(each, each.lastModified());
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File first, File second) {
+				return lastUses.get(first).compareTo(lastUses.get(second));
+			}
+		});
+		for (int i = 0; i < (files.length - maxEntries); i++) {
+			files[i].delete();
+		}
+		log(CONFIG, "Removed " + (files.length - maxEntries) + " test results from " + directory);
+	}
+
+	File fileFor(String fingerprint) {
+		return new File(directory, fingerprint + EXTENSION);
+	}
+}
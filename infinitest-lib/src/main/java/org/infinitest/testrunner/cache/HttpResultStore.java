@@ -0,0 +1,140 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.cache;
+
+import static java.net.HttpURLConnection.*;
+import static java.util.logging.Level.*;
+import static org.infinitest.util.InfinitestUtils.*;
+
+import java.io.*;
+import java.net.*;
+
+import org.infinitest.testrunner.*;
+
+import com.google.common.io.*;
+
+/**
+ * Shares results through an HTTP server, so a test only has to run once for a
+ * whole team. Results are read with a GET and written with a PUT of
+ * {@code <base url>/<fingerprint>}, which most build caches and plain WebDAV
+ * servers accept.
+ * <p/>
+ * An unreachable server is treated as a miss, and isn't asked again for a
+ * while, so a slow network never holds up the tests.
+ */
+public class HttpResultStore implements ResultStore {
+	private static final int CONNECT_TIMEOUT = 1000;
+	private static final int READ_TIMEOUT = 2000;
+	static final long RETRY_DELAY = 60 * 1000;
+
+	private final String baseUrl;
+	private volatile long unavailableUntil;
+
+	public HttpResultStore(String baseUrl) {
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+	}
+
+	@Override
+	public TestResults load(String fingerprint) {
+		if (isUnavailable()) {
+			return null;
+		}
+		HttpURLConnection connection = null;
+		try {
+			connection = open(fingerprint);
+			int status = connection.getResponseCode();
+			if (status == HTTP_OK) {
+				InputStream in = connection.getInputStream();
+				try {
+					return StoredResults.fromBytes(ByteStreams.toByteArray(in));
+				} finally {
+					in.close();
+				}
+			}
+			if (status != HTTP_NOT_FOUND) {
+				log(CONFIG, "Result cache " + baseUrl + " answered " + status + " for " + fingerprint);
+			}
+		} catch (IOException e) {
+			serverFailed(e);
+		} finally {
+			if (connection != null) {
+				connection.disconnect();
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void save(String fingerprint, TestResults results) {
+		if (isUnavailable()) {
+			return;
+		}
+		HttpURLConnection connection = null;
+		try {
+			byte[] bytes = StoredResults.toBytes(results);
+			connection = open(fingerprint);
+			connection.setRequestMethod("PUT");
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(bytes.length);
+			connection.setRequestProperty("Content-Type", "application/octet-stream");
+			OutputStream out = connection.getOutputStream();
+			try {
+				out.write(bytes);
+			} finally {
+				out.close();
+			}
+			int status = connection.getResponseCode();
+			if ((status / 100) != 2) {
+				log(CONFIG, "Result cache " + baseUrl + " refused " + fingerprint + " with " + status);
+			}
+		} catch (IOException e) {
+			serverFailed(e);
+		} finally {
+			if (connection != null) {
+				connection.disconnect();
+			}
+		}
+	}
+
+	private HttpURLConnection open(String fingerprint) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + fingerprint).openConnection();
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(READ_TIMEOUT);
+		connection.setUseCaches(false);
+		return connection;
+	}
+
+	private boolean isUnavailable() {
+		return System.currentTimeMillis() < unavailableUntil;
+	}
+
+	private void serverFailed(IOException e) {
+		log(WARNING, "Result cache " + baseUrl + " is unavailable: " + e.getMessage());
+		unavailableUntil = System.currentTimeMillis() + RETRY_DELAY;
+	}
+}
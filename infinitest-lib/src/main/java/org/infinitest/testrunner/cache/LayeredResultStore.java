@@ -0,0 +1,68 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.cache;
+
+import static java.util.Arrays.*;
+
+import java.util.*;
+
+import org.infinitest.testrunner.*;
+
+/**
+ * Looks results up in each store in turn, from the fastest to the slowest,
+ * and copies what it finds into the stores that missed it. Results are saved
+ * to every store.
+ */
+public class LayeredResultStore implements ResultStore {
+	private final List<ResultStore> stores;
+
+	public LayeredResultStore(ResultStore... stores) {
+		this.stores = asList(stores);
+	}
+
+	@Override
+	public TestResults load(String fingerprint) {
+		for (int i = 0; i < stores.size(); i++) {
+			TestResults results = stores.get(i).load(fingerprint);
+			if (results != null) {
+				for (int j = 0; j < i; j++) {
+					stores.get(j).save(fingerprint, results);
+				}
+				return results;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void save(String fingerprint, TestResults results) {
+		for (ResultStore each : stores) {
+			each.save(fingerprint, results);
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.cache;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
+import static java.io.File.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.infinitest.*;
+import org.infinitest.testrunner.*;
+
+import com.google.common.base.*;
+import com.google.common.hash.*;
+import com.google.common.util.concurrent.*;
+
+/**
+ * Remembers the results of the tests that passed, by the fingerprint of the
+ * classes they ran against, so a test is not run again until one of the
+ * classes it depends on changes to something it hasn't passed against yet.
+ * <p/>
+ * Failures are never cached, so a flaky test that failed once is run again.
+ * <p/>
+ * A shared store, reached through the network, is only used in the
+ * background: tests it may know about are run anyway, and the results it has
+ * are copied to the local store for the next lookups.
+ */
+public class ResultCache implements TestResultsListener {
+	private static final int SHARED_STORE_THREADS = 4;
+	private static final ExecutorService sharedStoreExecutor = createSharedStoreExecutor();
+
+	private final ResultStore store;
+	private final ResultStore sharedStore;
+	private final Set<String> pendingSharedLookups;
+	// The key of the last lookup of a test, until it starts
+	private final Map<String, String> keysOfQueuedTests;
+	// The key of what a test started with, which may be older by the time it
+	// completes
+	private final Map<String, String> keysOfRunningTests;
+	private volatile String environmentKey;
+	private final List<String> libraryNames;
+	private final List<String> vmArgs;
+	private String libraryContentHash;
+
+	public ResultCache(ResultStore store) {
+		this(store, null);
+	}
+
+	/**
+	 * @param sharedStore
+	 *            a store shared with other machines, or null
+	 */
+	public ResultCache(ResultStore store, ResultStore sharedStore) {
+		this.store = store;
+		this.sharedStore = sharedStore;
+		pendingSharedLookups = newConcurrentHashSet();
+		keysOfQueuedTests = newHashMap();
+		keysOfRunningTests = newHashMap();
+		environmentKey = "";
+		libraryNames = newArrayList();
+		vmArgs = newArrayList();
+		libraryContentHash = "";
+	}
+
+	/**
+	 * Results are only shared between environments with the same libraries.
+	 * Libraries are told apart by their file names, not their paths, so
+	 * results can be shared between machines. The VM arguments have to be the
+	 * same too, since a system property may change the outcome of a test.
+	 */
+	public synchronized void setRuntimeEnvironment(RuntimeEnvironment environment) {
+		libraryNames.clear();
+		String libraries = environment.createReusableProcessEnvironment().get("CLASSPATH");
+		for (String each : libraries.split(pathSeparator)) {
+			libraryNames.add(new File(each).getName());
+		}
+		vmArgs.clear();
+		vmArgs.addAll(environment.getVMArgs());
+		updateEnvironmentKey();
+	}
+
+	/**
+	 * Results are also told apart by the content of the libraries, so a test
+	 * that uses a jar rebuilt under the same name runs again. Like the names,
+	 * the hash doesn't depend on where the jars are.
+	 */
+	public synchronized void setLibraryContentHash(String contentHash) {
+		if (!contentHash.equals(libraryContentHash)) {
+			libraryContentHash = contentHash;
+			updateEnvironmentKey();
+		}
+	}
+
+	private void updateEnvironmentKey() {
+		Hasher hasher = Hashing.sha1().newHasher();
+		for (String each : libraryNames) {
+			hasher.putString(each, Charsets.UTF_8);
+		}
+		hasher.putInt(vmArgs.size());
+		for (String each : vmArgs) {
+			hasher.putString(each, Charsets.UTF_8);
+		}
+		hasher.putString(libraryContentHash, Charsets.UTF_8);
+		environmentKey = hasher.hash().toString().substring(0, 16);
+		keysOfQueuedTests.clear();
+		keysOfRunningTests.clear();
+	}
+
+	/**
+	 * @param fingerprint
+	 *            the fingerprint of the test and of the classes it depends on,
+	 *            or null if it is not known
+	 * @return the results of the test if it already passed with the same
+	 *         fingerprint, or null if it has to run. The results of a test
+	 *         that has to run are saved when it passes, under the fingerprint
+	 *         of its last lookup before it started.
+	 */
+	public TestResults lookup(String testName, String fingerprint) {
+		if (fingerprint == null) {
+			return null;
+		}
+		String key = keyOf(fingerprint);
+		TestResults results = store.load(key);
+		synchronized (this) {
+			if (results == null) {
+				keysOfQueuedTests.put(testName, key);
+			} else {
+				// A run queued earlier would not be running the classes it was
+				// looked up with
+				keysOfQueuedTests.remove(testName);
+			}
+		}
+		if (results == null) {
+			lookupInSharedStore(key);
+		}
+		return results;
+	}
+
+	private void lookupInSharedStore(final String key) {
+		if ((sharedStore == null) || !pendingSharedLookups.add(key)) {
+			return;
+		}
+		sharedStoreExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					TestResults results = sharedStore.load(key);
+					if (results != null) {
+						store.save(key, results);
+					}
+				} finally {
+					pendingSharedLookups.remove(key);
+				}
+			}
+		});
+	}
+
+	private void saveInSharedStore(final String key, final TestResults results) {
+		if (sharedStore == null) {
+			return;
+		}
+		sharedStoreExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				sharedStore.save(key, results);
+			}
+		});
+	}
+
+	private String keyOf(String fingerprint) {
+		return fingerprint + "-" + environmentKey;
+	}
+
+	@Override
+	public synchronized void testCaseStarting(TestEvent event) {
+		String key = keysOfQueuedTests.remove(event.getTestName());
+		if (key == null) {
+			keysOfRunningTests.remove(event.getTestName());
+		} else {
+			keysOfRunningTests.put(event.getTestName(), key);
+		}
+	}
+
+	@Override
+	public void testCaseComplete(TestCaseEvent event) {
+		String key;
+		synchronized (this) {
+			key = keysOfRunningTests.remove(event.getTestName());
+		}
+		if ((key != null) && !event.failed()) {
+			// Nothing but the timings, since the test passed
+			TestResults results = new TestResults();
+			results.addMethodStats(newArrayList(event.getRunStats()));
+			store.save(key, results);
+			saveInSharedStore(key, results);
+		}
+	}
+
+	private static ExecutorService createSharedStoreExecutor() {
+		ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("Infinitest shared result cache %d").setDaemon(true).build();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(SHARED_STORE_THREADS, SHARED_STORE_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
@@ -40,13 +40,24 @@ import org.infinitest.testrunner.*;
 
 public class NativeConnectionFactory implements ProcessConnectionFactory {
 	private final Class<? extends NativeRunner> runnerClass;
+	private final boolean reloadingClasses;
 
 	public NativeConnectionFactory(Class<? extends NativeRunner> testRunnerClass) {
+		this(testRunnerClass, false);
+	}
+
+	/**
+	 * @param reloadingClasses
+	 *            if true, the process loads the class directories again for
+	 *            each run, so it can be kept between runs
+	 */
+	public NativeConnectionFactory(Class<? extends NativeRunner> testRunnerClass, boolean reloadingClasses) {
 		runnerClass = testRunnerClass;
+		this.reloadingClasses = reloadingClasses;
 	}
 
 	@Override
-	public ProcessConnection getConnection(RuntimeEnvironment environment, OutputStreamHandler outputListener) throws IOException {
+	public NativeProcessConnection getConnection(RuntimeEnvironment environment, OutputStreamHandler outputListener) throws IOException {
 		TcpSocketProcessCommunicator communicator = createCommunicator();
 		Process process = startProcess(communicator.createSocket(), environment);
 		outputListener.processStream(process.getErrorStream(), OutputType.STDERR);
@@ -72,10 +83,14 @@ public class NativeConnectionFactory implements ProcessConnectionFactory {
 
 		List<String> arguments = environment.createProcessArguments();
 		arguments.addAll(buildRunnerArgs(port));
+		if (reloadingClasses) {
+			arguments.add(environment.getReloadableClasspath());
+			builder.environment().putAll(environment.createReusableProcessEnvironment());
+		} else {
+			builder.environment().putAll(environment.createProcessEnvironment());
+		}
 		builder.command(arguments);
 
-		builder.environment().putAll(environment.createProcessEnvironment());
-
 		logProcessEnvironment(builder);
 		return builder;
 	}
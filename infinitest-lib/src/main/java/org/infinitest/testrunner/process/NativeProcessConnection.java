@@ -58,4 +58,27 @@ public class NativeProcessConnection implements ProcessConnection {
 	public TestResults runTest(String testName) {
 		return communicator.sendMessage(testName);
 	}
+
+	@Override
+	public void cancel(String testName) {
+		communicator.cancel(testName);
+	}
+
+	/**
+	 * Tells a process started with reloadable classes that the run is over.
+	 * 
+	 * @return true if the process can be used for another run
+	 */
+	public boolean endRun() {
+		return communicator.endRun();
+	}
+
+	public boolean isRunning() {
+		try {
+			process.exitValue();
+			return false;
+		} catch (IllegalThreadStateException e) {
+			return true;
+		}
+	}
 }
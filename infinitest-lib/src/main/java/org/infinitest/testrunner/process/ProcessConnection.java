@@ -32,6 +32,12 @@ import org.infinitest.testrunner.*;
 public interface ProcessConnection {
 	TestResults runTest(String testName);
 
+	/**
+	 * Asks the process to stop running the test if it still does. Called from
+	 * another thread while {@link #runTest(String)} waits for its results.
+	 */
+	void cancel(String testName);
+
 	void close();
 
 	boolean abort();
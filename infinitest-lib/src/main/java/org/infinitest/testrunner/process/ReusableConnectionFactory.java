@@ -0,0 +1,202 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.process;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+import static java.io.File.*;
+import static java.util.logging.Level.*;
+import static org.infinitest.util.InfinitestGlobalSettings.*;
+import static org.infinitest.util.InfinitestUtils.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.infinitest.*;
+import org.infinitest.testrunner.*;
+
+/**
+ * Keeps test runner processes between runs when
+ * {@link org.infinitest.util.InfinitestGlobalSettings#isTestRunnerReused()} is
+ * set, which saves starting a JVM and loading the libraries of the project for
+ * every run. Otherwise, a new process is started for every run.
+ * <p/>
+ * A process is retired after a number of runs, or sooner if it reports that
+ * its heap is filling up. Idle processes of another environment are stopped,
+ * and no more are kept than the tests can use at the same time.
+ */
+public class ReusableConnectionFactory implements ProcessConnectionFactory {
+	static final int DEFAULT_MAX_RUNS = 50;
+	static final int DEFAULT_MAX_IDLE_CONNECTIONS = Runtime.getRuntime().availableProcessors();
+
+	private final ProcessConnectionFactory singleRunFactory;
+	private final ProcessConnectionFactory reloadingFactory;
+	private final int maxRuns;
+	private final int maxIdleConnections;
+	private final List<ReusableProcessConnection> idleConnections = newArrayList();
+
+	public ReusableConnectionFactory(Class<? extends NativeRunner> testRunnerClass) {
+		this(new NativeConnectionFactory(testRunnerClass), new NativeConnectionFactory(testRunnerClass, true), DEFAULT_MAX_RUNS);
+	}
+
+	ReusableConnectionFactory(ProcessConnectionFactory singleRunFactory, ProcessConnectionFactory reloadingFactory, int maxRuns) {
+		this(singleRunFactory, reloadingFactory, maxRuns, DEFAULT_MAX_IDLE_CONNECTIONS);
+	}
+
+	ReusableConnectionFactory(ProcessConnectionFactory singleRunFactory, ProcessConnectionFactory reloadingFactory, int maxRuns, int maxIdleConnections) {
+		this.singleRunFactory = singleRunFactory;
+		this.reloadingFactory = reloadingFactory;
+		this.maxRuns = maxRuns;
+		this.maxIdleConnections = maxIdleConnections;
+	}
+
+	@Override
+	public ProcessConnection getConnection(RuntimeEnvironment environment, OutputStreamHandler outputListener) throws IOException {
+		if (!isTestRunnerReused()) {
+			closeIdleConnections();
+			return singleRunFactory.getConnection(environment, outputListener);
+		}
+
+		Map<String, Long> libraries = librariesOf(environment);
+		ReusableProcessConnection idleConnection = takeIdleConnection(environment, libraries);
+		if (idleConnection != null) {
+			log(CONFIG, "Reusing test runner process");
+			return idleConnection;
+		}
+		return new ReusableProcessConnection(environment, libraries, reloadingFactory.getConnection(environment, outputListener));
+	}
+
+	private ReusableProcessConnection takeIdleConnection(RuntimeEnvironment environment, Map<String, Long> libraries) {
+		List<ReusableProcessConnection> staleConnections = newArrayList();
+		try {
+			synchronized (this) {
+				Iterator<ReusableProcessConnection> connections = idleConnections.iterator();
+				while (connections.hasNext()) {
+					ReusableProcessConnection each = connections.next();
+					connections.remove();
+					// Processes of a previous environment would never be taken again
+					if (!each.environment.equals(environment) || !each.libraries.equals(libraries)) {
+						staleConnections.add(each);
+					} else if (each.isRunning()) {
+						return each;
+					}
+				}
+			}
+			return null;
+		} finally {
+			for (ReusableProcessConnection each : staleConnections) {
+				log(CONFIG, "Environment or libraries changed, stopping test runner process");
+				each.connection.close();
+			}
+		}
+	}
+
+	/**
+	 * A process loads the libraries only once, so it can't be reused once one
+	 * of them was rebuilt.
+	 */
+	private static Map<String, Long> librariesOf(RuntimeEnvironment environment) {
+		Map<String, Long> timestamps = newHashMap();
+		for (String each : environment.createReusableProcessEnvironment().get("CLASSPATH").split(pathSeparator)) {
+			timestamps.put(each, new File(each).lastModified());
+		}
+		return timestamps;
+	}
+
+	private synchronized boolean release(ReusableProcessConnection connection) {
+		if (idleConnections.size() >= maxIdleConnections) {
+			return false;
+		}
+		idleConnections.add(connection);
+		return true;
+	}
+
+	synchronized int idleConnectionCount() {
+		return idleConnections.size();
+	}
+
+	/**
+	 * Stops the processes kept for later runs.
+	 */
+	public void closeIdleConnections() {
+		List<ReusableProcessConnection> connections;
+		synchronized (this) {
+			connections = newArrayList(idleConnections);
+			idleConnections.clear();
+		}
+		for (ReusableProcessConnection each : connections) {
+			each.connection.close();
+		}
+	}
+
+	private class ReusableProcessConnection implements ProcessConnection {
+		private final RuntimeEnvironment environment;
+		private final Map<String, Long> libraries;
+		private final ProcessConnection connection;
+		private int runs;
+		private boolean aborted;
+
+		ReusableProcessConnection(RuntimeEnvironment environment, Map<String, Long> libraries, ProcessConnection connection) {
+			this.environment = environment;
+			this.libraries = libraries;
+			this.connection = connection;
+		}
+
+		@Override
+		public TestResults runTest(String testName) {
+			return connection.runTest(testName);
+		}
+
+		@Override
+		public void cancel(String testName) {
+			connection.cancel(testName);
+		}
+
+		@Override
+		public boolean abort() {
+			aborted = true;
+			return connection.abort();
+		}
+
+		@Override
+		public void close() {
+			runs++;
+			if (aborted || (runs >= maxRuns) || !endRun() || !release(this)) {
+				connection.close();
+			}
+		}
+
+		private boolean endRun() {
+			return (connection instanceof NativeProcessConnection) && ((NativeProcessConnection) connection).endRun();
+		}
+
+		boolean isRunning() {
+			return !(connection instanceof NativeProcessConnection) || ((NativeProcessConnection) connection).isRunning();
+		}
+	}
+}
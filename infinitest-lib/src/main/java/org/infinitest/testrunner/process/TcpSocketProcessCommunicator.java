@@ -38,8 +38,7 @@ import org.infinitest.testrunner.*;
 
 public class TcpSocketProcessCommunicator {
 	private ServerSocket serverSocket;
-	private ObjectInputStream inStream;
-	private ObjectOutputStream outStream;
+	private volatile RunnerProtocol protocol;
 	private Socket socket;
 	private final int timeout;
 
@@ -69,8 +68,12 @@ public class TcpSocketProcessCommunicator {
 		try {
 			socket = serverSocket.accept();
 			log(Level.CONFIG, "Socket opened");
-			inStream = new ObjectInputStream(socket.getInputStream());
-			outStream = new ObjectOutputStream(socket.getOutputStream());
+			protocol = new RunnerProtocol(socket.getInputStream(), socket.getOutputStream());
+			protocol.writeHeader();
+			// Don't wait forever for a process that isn't a test runner
+			socket.setSoTimeout(timeout);
+			protocol.readHeader();
+			socket.setSoTimeout(0);
 		} catch (SocketTimeoutException e) {
 			log("Test runner process failed to start in a timely manner", e);
 			throw new RuntimeException(e);
@@ -85,13 +88,11 @@ public class TcpSocketProcessCommunicator {
 	 */
 	public synchronized void closeSocket() {
 		try {
-			if (outStream != null) {
-				outStream.writeObject(null);
+			if (protocol != null) {
+				protocol.sendClose();
 				if (!socket.isClosed()) {
-					inStream.close();
-					inStream = null;
-					outStream.close();
-					outStream = null;
+					protocol.close();
+					protocol = null;
 					socket.close();
 					socket = null;
 					log(Level.CONFIG, "Socket closed");
@@ -106,14 +107,40 @@ public class TcpSocketProcessCommunicator {
 	// closed
 	public synchronized TestResults sendMessage(String testName) {
 		try {
-			outStream.writeObject(testName);
-			return (TestResults) inStream.readObject();
+			protocol.sendTestName(testName);
+			return protocol.readResults();
 		} catch (IOException e) {
 			throw new TestRunAborted(testName, e);
-		} catch (ClassNotFoundException e) {
-			log("Error reading from socket", e);
-			throw new MissingClassException("Error reading from socket", e);
 		}
+	}
+
+	/**
+	 * @return true if the test runner process can be used for another run
+	 * @see TestRunnerProcess#END_OF_RUN
+	 */
+	public synchronized boolean endRun() {
+		try {
+			protocol.sendEndOfRun();
+			return protocol.readRunEnded();
+		} catch (IOException e) {
+			log(Level.INFO, "Test runner process cannot be kept: " + e.getMessage());
+			return false;
+		}
+	}
 
+	/**
+	 * Doesn't wait for the test to stop, so it can be called while
+	 * {@link #sendMessage(String)} waits for its results.
+	 */
+	public void cancel(String testName) {
+		RunnerProtocol currentProtocol = protocol;
+		if (currentProtocol == null) {
+			return;
+		}
+		try {
+			currentProtocol.sendCancel(testName);
+		} catch (IOException e) {
+			log(Level.INFO, "Could not cancel " + testName + ": " + e.getMessage());
+		}
 	}
 }
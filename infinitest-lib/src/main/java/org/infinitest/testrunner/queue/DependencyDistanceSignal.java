@@ -0,0 +1,65 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.queue;
+
+import static org.infinitest.testrunner.RunStatistics.*;
+
+import org.infinitest.testrunner.*;
+
+/**
+ * Tests that changed, or that use a changed class directly, are more likely to
+ * be broken by the change than tests that only reach it through other classes.
+ */
+public class DependencyDistanceSignal implements PrioritySignal {
+	private final RunStatistics stats;
+
+	public DependencyDistanceSignal(RunStatistics stats) {
+		this.stats = stats;
+	}
+
+	@Override
+	public double valueOf(String testName) {
+		int distance = stats.getDistanceFromChanges(testName);
+		if (distance == UNKNOWN_DISTANCE) {
+			return 0;
+		}
+		return 1.0 / (1 + distance);
+	}
+
+	@Override
+	public String describe(String testName) {
+		int distance = stats.getDistanceFromChanges(testName);
+		if (distance == UNKNOWN_DISTANCE) {
+			return "not reached by the last change";
+		}
+		if (distance == 0) {
+			return "changed";
+		}
+		return distance + " dependencies from the last change";
+	}
+}
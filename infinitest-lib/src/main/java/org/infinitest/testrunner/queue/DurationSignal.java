@@ -0,0 +1,63 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.queue;
+
+import static org.infinitest.util.InfinitestGlobalSettings.*;
+
+import org.infinitest.testrunner.*;
+
+/**
+ * Quick tests first, so the first results come in sooner. A test that takes
+ * the slow test time limit gets 0.5, as does a test that never ran.
+ */
+public class DurationSignal implements PrioritySignal {
+	private final RunStatistics stats;
+
+	public DurationSignal(RunStatistics stats) {
+		this.stats = stats;
+	}
+
+	@Override
+	public double valueOf(String testName) {
+		long duration = stats.getMeanDuration(testName);
+		if (duration < 0) {
+			return 0.5;
+		}
+		double limit = Math.max(1, getSlowTestTimeLimit());
+		return limit / (limit + duration);
+	}
+
+	@Override
+	public String describe(String testName) {
+		long duration = stats.getMeanDuration(testName);
+		if (duration < 0) {
+			return "never ran";
+		}
+		return "takes " + duration + "ms";
+	}
+}
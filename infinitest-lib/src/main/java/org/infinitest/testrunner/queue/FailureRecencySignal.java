@@ -0,0 +1,65 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.queue;
+
+import static java.lang.System.*;
+
+import org.infinitest.testrunner.*;
+
+/**
+ * Tests that failed recently are the most likely to fail again. The value of a
+ * failure halves every {@link #HALF_LIFE} milliseconds.
+ */
+public class FailureRecencySignal implements PrioritySignal {
+	static final long HALF_LIFE = 10 * 60 * 1000;
+
+	private final RunStatistics stats;
+
+	public FailureRecencySignal(RunStatistics stats) {
+		this.stats = stats;
+	}
+
+	@Override
+	public double valueOf(String testName) {
+		long lastFailure = stats.getLastFailureTime(testName);
+		if (lastFailure == 0) {
+			return 0;
+		}
+		long age = Math.max(0, currentTimeMillis() - lastFailure);
+		return Math.pow(0.5, (double) age / HALF_LIFE);
+	}
+
+	@Override
+	public String describe(String testName) {
+		long lastFailure = stats.getLastFailureTime(testName);
+		if (lastFailure == 0) {
+			return "never failed";
+		}
+		return "failed " + ((currentTimeMillis() - lastFailure) / 1000) + "s ago";
+	}
+}
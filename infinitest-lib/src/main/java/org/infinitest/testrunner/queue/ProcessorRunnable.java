@@ -28,9 +28,13 @@
 package org.infinitest.testrunner.queue;
 
 import static com.google.common.collect.Lists.*;
+import static java.util.Collections.*;
+import static java.util.logging.Level.*;
 import static org.infinitest.util.InfinitestUtils.*;
 
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.infinitest.*;
 import org.infinitest.testrunner.*;
@@ -38,24 +42,102 @@ import org.infinitest.testrunner.*;
 class ProcessorRunnable implements Runnable {
 	private final QueueProcessor processor;
 	private final Queue<String> testQueue;
-	private final RunnerEventSupport eventSupport;
-	private final int initialSize;
+	private final QueueEventBuffer events;
+	private volatile int initialSize;
 	private final ConcurrencyController concurrencySemaphore;
+	private final QueueProcessorFactory additionalProcessors;
+	private final List<AdditionalWorker> additionalWorkers;
+	private boolean acceptingTests;
 
 	public ProcessorRunnable(Queue<String> testQueue, QueueProcessor processor, RunnerEventSupport eventSupport, int initialSize, ConcurrencyController concurrencySemaphore) {
+		this(testQueue, processor, eventSupport, initialSize, concurrencySemaphore, null);
+	}
+
+	/**
+	 * @param additionalProcessors
+	 *            creates the processors of the workers that help with the
+	 *            queue when the concurrency controller has permits to spare, or
+	 *            null to process the queue alone
+	 */
+	public ProcessorRunnable(Queue<String> testQueue, QueueProcessor processor, RunnerEventSupport eventSupport, int initialSize, ConcurrencyController concurrencySemaphore, QueueProcessorFactory additionalProcessors) {
 		this.testQueue = testQueue;
 		this.processor = processor;
-		this.eventSupport = eventSupport;
+		events = new QueueEventBuffer(eventSupport);
 		this.initialSize = initialSize;
 		this.concurrencySemaphore = concurrencySemaphore;
+		this.additionalProcessors = additionalProcessors;
+		additionalWorkers = new CopyOnWriteArrayList<AdditionalWorker>();
+		acceptingTests = true;
+	}
+
+	/**
+	 * Adds tests to the queue of this run, unless it is already over. Running
+	 * tests that are queued again are cancelled, since their results would be
+	 * out of date.
+	 * 
+	 * @return false if the run is over, and the tests need a new run
+	 */
+	public synchronized boolean merge(Collection<String> tests) {
+		if (!acceptingTests) {
+			return false;
+		}
+		int sizeBefore = testQueue.size();
+		testQueue.addAll(tests);
+		initialSize += testQueue.size() - sizeBefore;
+		events.testsAdded(tests, testQueue.size(), initialSize);
+
+		processor.cancelIfRunning(tests);
+		for (AdditionalWorker each : additionalWorkers) {
+			each.cancelIfRunning(tests);
+		}
+		return true;
+	}
+
+	public int getInitialSize() {
+		return initialSize;
+	}
+
+	/**
+	 * Reports the whole queue, as the run is about to start.
+	 */
+	synchronized void fireQueueSnapshot() {
+		initialSize = testQueue.size();
+		events.snapshot(newArrayList(testQueue), initialSize);
+	}
+
+	synchronized boolean isAcceptingTests() {
+		return acceptingTests;
+	}
+
+	/**
+	 * @return true if no test can be merged into this run anymore
+	 */
+	private synchronized boolean stopAcceptingTestsWhenDone() {
+		if (testQueue.isEmpty()) {
+			acceptingTests = false;
+		}
+		return !acceptingTests;
+	}
+
+	private synchronized void stopAcceptingTests() {
+		acceptingTests = false;
 	}
 
 	public void terminate() {
+		for (AdditionalWorker each : additionalWorkers) {
+			each.terminate();
+		}
 		processor.cleanup();
 	}
 
-	private void fireEvent() {
-		eventSupport.fireQueueEvent(new TestQueueEvent(newArrayList(testQueue), initialSize));
+	public void interruptAdditionalWorkers() {
+		for (AdditionalWorker each : additionalWorkers) {
+			each.interrupt();
+		}
+	}
+
+	private void testStarted(String test) {
+		events.testStarted(test, testQueue.size(), initialSize);
 	}
 
 	@Override
@@ -64,18 +146,17 @@ class ProcessorRunnable implements Runnable {
 			String currentTest = null;
 			try {
 				concurrencySemaphore.acquire();
-				while (!testQueue.isEmpty()) {
-					currentTest = testQueue.poll();
-					processor.process(currentTest);
-					// RISK There might be a race condition here.
-					// If we fire all the events for a test
-					// run, and then the run is terminated, it's possible the
-					// queue events would not
-					// be fired. but testRunComplete would have been fired
-					// already. Is this actually
-					// a problem? I have no idea.
-					fireEvent();
-				}
+				do {
+					startAdditionalWorkers();
+					while ((currentTest = testQueue.poll()) != null) {
+						testStarted(currentTest);
+						processor.process(currentTest);
+						currentTest = null;
+					}
+					waitForAdditionalWorkers();
+					// A worker whose process died puts its test back, and
+					// tests may have been merged meanwhile
+				} while (!stopAcceptingTestsWhenDone());
 			} catch (QueueDispatchException e) {
 				reQueueTestAndTerminateProcess(currentTest);
 			} catch (InterruptedException e) {
@@ -85,7 +166,12 @@ class ProcessorRunnable implements Runnable {
 				// The process is already dead, no need to clean up
 				clearLingeringInterruptedState();
 			} finally {
+				stopAcceptingTests();
+				// The run is only complete when every worker is done
+				stopAdditionalWorkers();
 				concurrencySemaphore.release();
+				// Listeners must see the empty queue before the run completes
+				events.flush();
 				processor.close();
 			}
 		}
@@ -99,6 +185,58 @@ class ProcessorRunnable implements Runnable {
 		}
 	}
 
+	/**
+	 * Starts a worker with its own processor for each spare permit, as long as
+	 * there are tests left for it. Each worker releases its permit when the
+	 * queue is empty.
+	 */
+	private void startAdditionalWorkers() {
+		if (additionalProcessors == null) {
+			return;
+		}
+		// Workers are done when the queue was empty once
+		for (AdditionalWorker each : additionalWorkers) {
+			if (!each.isAlive()) {
+				additionalWorkers.remove(each);
+			}
+		}
+		int started = 0;
+		while ((additionalWorkers.size() < (testQueue.size() - 1)) && concurrencySemaphore.tryAcquire()) {
+			AdditionalWorker worker = new AdditionalWorker();
+			additionalWorkers.add(worker);
+			worker.start();
+			started++;
+		}
+		if (started > 0) {
+			log(CONFIG, "Running " + testQueue.size() + " tests with " + (additionalWorkers.size() + 1) + " test runner processes");
+		}
+	}
+
+	private void waitForAdditionalWorkers() throws InterruptedException {
+		for (AdditionalWorker each : additionalWorkers) {
+			each.join();
+		}
+	}
+
+	private void stopAdditionalWorkers() {
+		boolean interrupted = false;
+		for (AdditionalWorker each : additionalWorkers) {
+			each.interrupt();
+		}
+		for (AdditionalWorker each : additionalWorkers) {
+			while (each.isAlive()) {
+				try {
+					each.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	private void reQueueTestAndTerminateProcess(String currentTest) {
 		reQueueTest(currentTest);
 		processor.cleanup();
@@ -112,6 +250,60 @@ class ProcessorRunnable implements Runnable {
 		if (currentTest != null) {
 			log(currentTest + " was interrupted. Re-running.");
 			testQueue.add(currentTest);
+			events.testsAdded(singletonList(currentTest), testQueue.size(), initialSize);
+		}
+	}
+
+	private class AdditionalWorker extends Thread {
+		private volatile QueueProcessor workerProcessor;
+
+		@Override
+		public void run() {
+			String currentTest = null;
+			try {
+				workerProcessor = additionalProcessors.createQueueProcessor();
+				while (!isInterrupted() && ((currentTest = testQueue.poll()) != null)) {
+					testStarted(currentTest);
+					workerProcessor.process(currentTest);
+					currentTest = null;
+				}
+			} catch (QueueDispatchException e) {
+				reQueueTest(currentTest);
+				terminate();
+			} catch (InterruptedException e) {
+				reQueueTest(currentTest);
+				terminate();
+			} catch (TestRunAborted e) {
+				reQueueTest(currentTest);
+			} catch (IOException e) {
+				log(WARNING, "Could not start an additional test runner process: " + e.getMessage());
+			}
+			// CHECKSTYLE:OFF
+			catch (Throwable e)
+			// CHECKSTYLE:ON
+			{
+				reQueueTest(currentTest);
+				log("Error occurred while processing test run", e);
+			} finally {
+				if (workerProcessor != null) {
+					workerProcessor.close();
+				}
+				concurrencySemaphore.release();
+			}
+		}
+
+		void cancelIfRunning(Collection<String> tests) {
+			QueueProcessor currentProcessor = workerProcessor;
+			if (currentProcessor != null) {
+				currentProcessor.cancelIfRunning(tests);
+			}
+		}
+
+		void terminate() {
+			QueueProcessor currentProcessor = workerProcessor;
+			if (currentProcessor != null) {
+				currentProcessor.cleanup();
+			}
 		}
 	}
-}
\ No newline at end of file
+}
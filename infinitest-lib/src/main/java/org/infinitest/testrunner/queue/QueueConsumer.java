@@ -27,7 +27,6 @@
  */
 package org.infinitest.testrunner.queue;
 
-import static com.google.common.collect.Lists.*;
 import static java.util.concurrent.Executors.*;
 
 import java.io.*;
@@ -41,6 +40,7 @@ public abstract class QueueConsumer {
 	private final Queue<String> testQueue;
 	private final RunnerEventSupport eventSupport;
 	private QueueProcessorThread processorThread;
+	private volatile ProcessorRunnable currentRun;
 	private final long testTimeout;
 	private final ExecutorService executor;
 	private ConcurrencyController semaphore;
@@ -57,15 +57,38 @@ public abstract class QueueConsumer {
 		semaphore = new SingleLockConcurrencyController();
 	}
 
+	/**
+	 * Adds the tests to the run in progress, if there is one. Only the running
+	 * tests that are pushed again are stopped, so a run started by a previous
+	 * change doesn't start over.
+	 */
 	public void push(List<String> tests) {
+		ProcessorRunnable run = currentRun;
+		if ((run != null) && run.merge(tests)) {
+			return;
+		}
 		testQueue.addAll(tests);
 		startProcessing();
 	}
 
+	/**
+	 * @return true if a run is in progress and can still take more tests
+	 */
+	public boolean isRunning() {
+		ProcessorRunnable run = currentRun;
+		return (run != null) && run.isAcceptingTests();
+	}
+
 	private void startProcessing() {
 		try {
 			QueueProcessor processor = createQueueProcessor();
-			ProcessorRunnable runnable = new ProcessorRunnable(testQueue, processor, eventSupport, testQueue.size(), semaphore);
+			ProcessorRunnable runnable = new ProcessorRunnable(testQueue, processor, eventSupport, testQueue.size(), semaphore, new QueueProcessorFactory() {
+				@Override
+				public QueueProcessor createQueueProcessor() throws IOException {
+					return createAdditionalQueueProcessor();
+				}
+			});
+			currentRun = runnable;
 			executor.execute(new ProcessingKickoffRunnable(runnable));
 		} catch (IOException e) {
 			throw new RuntimeException(e);
@@ -82,6 +105,11 @@ public abstract class QueueConsumer {
 		@Override
 		public void run() {
 			try {
+				if (testsAreRunning()) {
+					// The previous run doesn't take tests anymore, it is
+					// closing its processors
+					processorThread.join(testTimeout);
+				}
 				if (testsAreRunning()) {
 					stopCurrentRun();
 				}
@@ -93,7 +121,7 @@ public abstract class QueueConsumer {
 
 		private void startNewTestRun() {
 			processorThread = new QueueProcessorThread(runnable);
-			eventSupport.fireQueueEvent(new TestQueueEvent(newArrayList(testQueue), testQueue.size()));
+			runnable.fireQueueSnapshot();
 			processorThread.start();
 		}
 
@@ -104,7 +132,7 @@ public abstract class QueueConsumer {
 
 	private void stopCurrentRun() throws InterruptedException {
 		// Die hard
-		processorThread.interrupt();
+		processorThread.interruptWorkers();
 		processorThread.join(testTimeout);
 		if (processorThread.isAlive()) {
 			// Die Harder
@@ -118,6 +146,16 @@ public abstract class QueueConsumer {
 
 	protected abstract QueueProcessor createQueueProcessor() throws IOException;
 
+	/**
+	 * Creates the processor of a worker that shares the queue with the one
+	 * created by {@link #createQueueProcessor()}, when the concurrency
+	 * controller allows more than one test runner process. The first processor
+	 * of a run is closed last.
+	 */
+	protected QueueProcessor createAdditionalQueueProcessor() throws IOException {
+		return createQueueProcessor();
+	}
+
 	public void setConcurrencySemaphore(ConcurrencyController controller) {
 		semaphore = controller;
 	}
@@ -0,0 +1,150 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.queue;
+
+import static com.google.common.collect.Lists.*;
+import static java.lang.Math.*;
+import static java.util.concurrent.Executors.*;
+import static java.util.concurrent.TimeUnit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.infinitest.*;
+import org.infinitest.testrunner.*;
+
+import com.google.common.util.concurrent.*;
+
+/**
+ * Collects the changes to the queue of a run and reports them in a single
+ * {@link TestQueueEvent} at most once per interval, so a run of many short
+ * tests doesn't copy the queue and repaint the status after every test.
+ * <p/>
+ * Events are fired by a shared background thread, never by the thread that
+ * changed the queue, except for {@link #flush()}.
+ */
+class QueueEventBuffer {
+	static final long DEFAULT_INTERVAL = 100;
+
+	private static final ScheduledExecutorService flusher = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("Infinitest queue events").setDaemon(true).build());
+
+	private final RunnerEventSupport eventSupport;
+	private final long interval;
+	// Keeps events in order when a scheduled flush and an explicit one race
+	private final Object fireLock = new Object();
+	private List<String> added = newArrayList();
+	private List<String> started = newArrayList();
+	private int queueSize;
+	private int initialSize;
+	private String currentTest;
+	private long lastFired;
+	private boolean pending;
+	private boolean flushScheduled;
+
+	QueueEventBuffer(RunnerEventSupport eventSupport) {
+		this(eventSupport, DEFAULT_INTERVAL);
+	}
+
+	QueueEventBuffer(RunnerEventSupport eventSupport, long interval) {
+		this.eventSupport = eventSupport;
+		this.interval = interval;
+	}
+
+	/**
+	 * Fires the whole queue right away, dropping the changes that are not
+	 * reported yet since the queue already contains them.
+	 */
+	void snapshot(List<String> queue, int initialSize) {
+		synchronized (fireLock) {
+			synchronized (this) {
+				added = newArrayList();
+				started = newArrayList();
+				pending = false;
+				queueSize = queue.size();
+				this.initialSize = initialSize;
+				currentTest = queue.isEmpty() ? null : queue.get(0);
+				lastFired = System.currentTimeMillis();
+			}
+			eventSupport.fireQueueEvent(new TestQueueEvent(queue, initialSize));
+		}
+	}
+
+	synchronized void testsAdded(Collection<String> tests, int queueSize, int initialSize) {
+		added.addAll(tests);
+		changed(queueSize, initialSize);
+	}
+
+	synchronized void testStarted(String test, int queueSize, int initialSize) {
+		started.add(test);
+		currentTest = test;
+		changed(queueSize, initialSize);
+	}
+
+	private void changed(int newQueueSize, int newInitialSize) {
+		queueSize = newQueueSize;
+		initialSize = newInitialSize;
+		pending = true;
+		if (!flushScheduled) {
+			flushScheduled = true;
+			long delay = max(0, (lastFired + interval) - System.currentTimeMillis());
+			flusher.schedule(new Runnable() {
+				@Override
+				public void run() {
+					synchronized (QueueEventBuffer.this) {
+						flushScheduled = false;
+					}
+					flush();
+				}
+			}, delay, MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Fires the changes that are not reported yet, if any.
+	 */
+	void flush() {
+		synchronized (fireLock) {
+			TestQueueEvent event = takePendingEvent();
+			if (event != null) {
+				eventSupport.fireQueueEvent(event);
+			}
+		}
+	}
+
+	private synchronized TestQueueEvent takePendingEvent() {
+		if (!pending) {
+			return null;
+		}
+		TestQueueEvent event = new TestQueueEvent(added, Collections.<String> emptyList(), started, queueSize, initialSize, currentTest);
+		added = newArrayList();
+		started = newArrayList();
+		pending = false;
+		lastFired = System.currentTimeMillis();
+		return event;
+	}
+}
@@ -28,10 +28,18 @@
 package org.infinitest.testrunner.queue;
 
 import java.io.*;
+import java.util.*;
 
 public interface QueueProcessor {
 	void process(String string) throws InterruptedException, IOException;
 
+	/**
+	 * Stops the test being processed if it is one of the given tests, without
+	 * reporting its results. Called from another thread than the one
+	 * processing the test.
+	 */
+	void cancelIfRunning(Collection<String> testNames);
+
 	void close();
 
 	void cleanup();
@@ -38,4 +38,12 @@ class QueueProcessorThread extends Thread {
 	public void terminate() {
 		runnable.terminate();
 	}
+
+	/**
+	 * Interrupts this thread and the workers helping it with the queue.
+	 */
+	public void interruptWorkers() {
+		runnable.interruptAdditionalWorkers();
+		interrupt();
+	}
 }
\ No newline at end of file
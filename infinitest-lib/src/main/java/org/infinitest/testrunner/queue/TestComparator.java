@@ -27,19 +27,106 @@
  */
 package org.infinitest.testrunner.queue;
 
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+import static org.infinitest.util.InfinitestGlobalSettings.*;
+
 import java.util.*;
 
 import org.infinitest.testrunner.*;
 
+/**
+ * Runs first the tests that are the most likely to fail, and to tell so
+ * quickly.
+ * <p/>
+ * Each test gets a score, the weighted sum of the values of every
+ * {@link PrioritySignal}. A score is kept until the statistics of its test
+ * change, so comparing two tests doesn't compute anything. Use
+ * {@link #explain(String)} to find out how a score was made.
+ */
 public class TestComparator implements Comparator<String> {
 	private final RunStatistics stats;
+	private final List<PrioritySignal> signals;
+	private double[] weights;
+	private final Map<String, TestScore> scores;
 
+	/**
+	 * Combines recent failures, the distance from the last changes and the
+	 * duration of tests, with the weights of the global settings.
+	 */
 	public TestComparator(RunStatistics stats) {
 		this.stats = stats;
+		signals = newArrayList();
+		weights = new double[0];
+		scores = newHashMap();
+		addSignal(new FailureRecencySignal(stats), getFailureRecencyWeight());
+		addSignal(new DependencyDistanceSignal(stats), getDependencyDistanceWeight());
+		addSignal(new DurationSignal(stats), getDurationWeight());
+	}
+
+	/**
+	 * Adds the value of the signal, times the weight, to the score of every
+	 * test. A signal with a weight of 0 is ignored.
+	 */
+	public synchronized void addSignal(PrioritySignal signal, double weight) {
+		if (weight == 0) {
+			return;
+		}
+		signals.add(signal);
+		weights = Arrays.copyOf(weights, weights.length + 1);
+		weights[weights.length - 1] = weight;
+		scores.clear();
 	}
 
 	@Override
-	public int compare(String test1, String test2) {
-		return new Long(stats.getLastFailureTime(test2)).compareTo(stats.getLastFailureTime(test1));
+	public synchronized int compare(String test1, String test2) {
+		return Double.compare(scoreOf(test2), scoreOf(test1));
+	}
+
+	public synchronized double scoreOf(String testName) {
+		return updatedScore(testName).total;
+	}
+
+	/**
+	 * @return the score of the test and what it is made of
+	 */
+	public synchronized String explain(String testName) {
+		TestScore score = updatedScore(testName);
+		StringBuilder explanation = new StringBuilder();
+		explanation.append(testName).append(String.format(" scores %.3f", score.total));
+		for (int i = 0; i < signals.size(); i++) {
+			explanation.append(i == 0 ? " = " : " + ");
+			explanation.append(String.format("%.2f x %.3f", weights[i], score.values[i]));
+			explanation.append(" (").append(signals.get(i).describe(testName)).append(")");
+		}
+		return explanation.toString();
+	}
+
+	private TestScore updatedScore(String testName) {
+		int version = stats.getVersion(testName);
+		TestScore score = scores.get(testName);
+		if (score == null) {
+			score = new TestScore();
+			scores.put(testName, score);
+		} else if ((score.version == version) && (score.values.length == signals.size())) {
+			return score;
+		}
+
+		if (score.values.length != signals.size()) {
+			score.values = new double[signals.size()];
+		}
+		score.total = 0;
+		for (int i = 0; i < score.values.length; i++) {
+			score.values[i] = signals.get(i).valueOf(testName);
+			score.total += weights[i] * score.values[i];
+		}
+		score.version = version;
+		return score;
+	}
+
+	private static class TestScore {
+		int version;
+		double total;
+		double[] values = new double[0];
 	}
 }
@@ -27,21 +27,292 @@
  */
 package org.infinitest.testrunner.queue;
 
+import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
+
 import java.util.*;
 import java.util.concurrent.*;
 
-public class TestQueue extends PriorityBlockingQueue<String> {
-	private static final long serialVersionUID = -1L;
+/**
+ * The tests waiting to run, highest priority first. A test is queued at most
+ * once.
+ * <p/>
+ * The queue is a binary heap with the position of each test in a hash map, so
+ * checking for a test is constant time and adding or removing one is
+ * logarithmic. When the priority of a queued test changes, call
+ * {@link #priorityChanged(String)} and the test moves to its new place before
+ * the next test is taken.
+ */
+public class TestQueue extends AbstractQueue<String> implements BlockingQueue<String> {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Comparator<String> comparator;
+	private String[] heap;
+	private int size;
+	private final Map<String, Integer> positions;
+	private final Set<String> changedPriorities;
 
 	public TestQueue(Comparator<String> comparator) {
-		super(11, comparator);
+		this.comparator = comparator;
+		heap = new String[INITIAL_CAPACITY];
+		positions = newHashMap();
+		changedPriorities = newHashSet();
+	}
+
+	/**
+	 * Reorders the queued tests by a new priority.
+	 */
+	public synchronized void setComparator(Comparator<String> comparator) {
+		this.comparator = comparator;
+		changedPriorities.clear();
+		heapify();
+	}
+
+	/**
+	 * Tells the queue that the priority of a test may have changed. Does
+	 * nothing if the test isn't queued.
+	 */
+	public synchronized void priorityChanged(String testName) {
+		if (positions.containsKey(testName)) {
+			changedPriorities.add(testName);
+		}
 	}
 
 	@Override
 	public boolean add(String testName) {
-		if (!contains(testName)) {
-			return super.add(testName);
+		return offer(testName);
+	}
+
+	@Override
+	public synchronized boolean addAll(Collection<? extends String> testNames) {
+		boolean changed = false;
+		for (String each : testNames) {
+			changed |= insert(each);
+		}
+		notifyAll();
+		return changed;
+	}
+
+	@Override
+	public synchronized boolean offer(String testName) {
+		boolean added = insert(testName);
+		notifyAll();
+		return added;
+	}
+
+	@Override
+	public boolean offer(String testName, long timeout, TimeUnit unit) {
+		return offer(testName);
+	}
+
+	@Override
+	public void put(String testName) {
+		offer(testName);
+	}
+
+	@Override
+	public synchronized String poll() {
+		applyChangedPriorities();
+		if (size == 0) {
+			return null;
+		}
+		return removeAt(0);
+	}
+
+	@Override
+	public synchronized String poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (size == 0) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return null;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return poll();
+	}
+
+	@Override
+	public synchronized String take() throws InterruptedException {
+		while (size == 0) {
+			wait();
+		}
+		return poll();
+	}
+
+	@Override
+	public synchronized String peek() {
+		applyChangedPriorities();
+		return size == 0 ? null : heap[0];
+	}
+
+	@Override
+	public synchronized boolean contains(Object testName) {
+		return positions.containsKey(testName);
+	}
+
+	@Override
+	public synchronized boolean remove(Object testName) {
+		Integer position = positions.get(testName);
+		if (position == null) {
+			return false;
+		}
+		removeAt(position);
+		return true;
+	}
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public synchronized void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+		positions.clear();
+		changedPriorities.clear();
+	}
+
+	@Override
+	public int drainTo(Collection<? super String> collection) {
+		return drainTo(collection, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public synchronized int drainTo(Collection<? super String> collection, int maxElements) {
+		int drained = 0;
+		while ((drained < maxElements) && (size > 0)) {
+			collection.add(poll());
+			drained++;
+		}
+		return drained;
+	}
+
+	/**
+	 * Iterates over a copy of the queued tests, in no particular order.
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		final Iterator<String> snapshot;
+		synchronized (this) {
+			snapshot = Arrays.asList(Arrays.copyOf(heap, size)).iterator();
+		}
+		return new Iterator<String>() {
+			private String current;
+
+			@Override
+			public boolean hasNext() {
+				return snapshot.hasNext();
+			}
+
+			@Override
+			public String next() {
+				current = snapshot.next();
+				return current;
+			}
+
+			@Override
+			public void remove() {
+				TestQueue.this.remove(current);
+			}
+		};
+	}
+
+	private boolean insert(String testName) {
+		if (testName == null) {
+			throw new NullPointerException();
+		}
+		if (positions.containsKey(testName)) {
+			return false;
+		}
+		applyChangedPriorities();
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		heap[size] = testName;
+		positions.put(testName, size);
+		siftUp(size++);
+		return true;
+	}
+
+	private String removeAt(int position) {
+		String removed = heap[position];
+		// Sifting only works if every test is in place
+		applyChangedPriorities();
+		int current = positions.remove(removed);
+
+		size--;
+		if (current != size) {
+			place(heap[size], current);
+			heap[size] = null;
+			siftDown(current);
+			siftUp(current);
+		} else {
+			heap[size] = null;
+		}
+		return removed;
+	}
+
+	private void applyChangedPriorities() {
+		if (changedPriorities.size() == 1) {
+			int position = positions.get(changedPriorities.iterator().next());
+			siftUp(position);
+			siftDown(position);
+		} else if (!changedPriorities.isEmpty()) {
+			// Sifting one test past another that is out of place could leave
+			// it out of place too
+			heapify();
 		}
-		return false;
+		changedPriorities.clear();
+	}
+
+	private void heapify() {
+		for (int i = (size / 2) - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	private void siftUp(int position) {
+		String testName = heap[position];
+		int current = position;
+		while (current > 0) {
+			int parent = (current - 1) / 2;
+			if (comparator.compare(testName, heap[parent]) >= 0) {
+				break;
+			}
+			place(heap[parent], current);
+			current = parent;
+		}
+		place(testName, current);
+	}
+
+	private void siftDown(int position) {
+		String testName = heap[position];
+		int current = position;
+		int half = size / 2;
+		while (current < half) {
+			int child = (2 * current) + 1;
+			int right = child + 1;
+			if ((right < size) && (comparator.compare(heap[right], heap[child]) < 0)) {
+				child = right;
+			}
+			if (comparator.compare(testName, heap[child]) <= 0) {
+				break;
+			}
+			place(heap[child], current);
+			current = child;
+		}
+		place(testName, current);
+	}
+
+	private void place(String testName, int position) {
+		heap[position] = testName;
+		positions.put(testName, position);
 	}
 }
@@ -37,10 +37,20 @@ import java.util.logging.*;
 public class InfinitestGlobalSettings {
 	private static Level logLevel = Level.INFO;
 	private static long slowTestTimeLimit = 500;
+	private static boolean testRunnerReused = false;
+	private static double failureRecencyWeight = 1;
+	private static double dependencyDistanceWeight = 0.5;
+	private static double durationWeight = 0.25;
+	private static boolean resultCacheEnabled = true;
+	private static String sharedResultCacheUrl = null;
 
 	public static void resetToDefaults() {
 		setLogLevel(INFO);
 		setSlowTestTimeLimit(500);
+		setTestRunnerReused(false);
+		setPriorityWeights(1, 0.5, 0.25);
+		setResultCacheEnabled(true);
+		setSharedResultCacheUrl(null);
 	}
 
 	public static Level getLogLevel() {
@@ -58,4 +68,66 @@ public class InfinitestGlobalSettings {
 	public static long getSlowTestTimeLimit() {
 		return slowTestTimeLimit;
 	}
+
+	/**
+	 * Keeps test runner processes between runs instead of starting a new one
+	 * for every run. Tests that rely on the system class loader seeing their
+	 * own classes won't work.
+	 */
+	public static void setTestRunnerReused(boolean reused) {
+		testRunnerReused = reused;
+	}
+
+	public static boolean isTestRunnerReused() {
+		return testRunnerReused;
+	}
+
+	/**
+	 * How much each reason to run a test first counts. Recent failures should
+	 * usually count the most, since they are the best hint of what fails next.
+	 * A weight of 0 ignores the reason. Applies to the cores created after the
+	 * change.
+	 */
+	public static void setPriorityWeights(double failureRecency, double dependencyDistance, double duration) {
+		failureRecencyWeight = failureRecency;
+		dependencyDistanceWeight = dependencyDistance;
+		durationWeight = duration;
+	}
+
+	public static double getFailureRecencyWeight() {
+		return failureRecencyWeight;
+	}
+
+	public static double getDependencyDistanceWeight() {
+		return dependencyDistanceWeight;
+	}
+
+	public static double getDurationWeight() {
+		return durationWeight;
+	}
+
+	/**
+	 * Reuses the results of tests that already passed against the same
+	 * version of every class they depend on, instead of running them again.
+	 * Applies to the cores created after the change.
+	 */
+	public static void setResultCacheEnabled(boolean enabled) {
+		resultCacheEnabled = enabled;
+	}
+
+	public static boolean isResultCacheEnabled() {
+		return resultCacheEnabled;
+	}
+
+	/**
+	 * An HTTP server to share cached results with other machines, or null to
+	 * only keep them on this one.
+	 */
+	public static void setSharedResultCacheUrl(String url) {
+		sharedResultCacheUrl = url;
+	}
+
+	public static String getSharedResultCacheUrl() {
+		return sharedResultCacheUrl;
+	}
 }
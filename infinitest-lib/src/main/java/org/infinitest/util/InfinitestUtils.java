@@ -94,8 +94,15 @@ public class InfinitestUtils {
 		}
 	}
 
+	/**
+	 * Lets callers skip building messages that would not be logged.
+	 */
+	public static boolean isLoggable(Level level) {
+		return level.intValue() >= InfinitestGlobalSettings.getLogLevel().intValue();
+	}
+
 	private static void fireLoggingEvent(Level level, String logMsg) {
-		if (level.intValue() >= InfinitestGlobalSettings.getLogLevel().intValue()) {
+		if (isLoggable(level)) {
 			for (LoggingListener each : loggingListeners) {
 				each.logMessage(level, logMsg);
 			}
@@ -101,7 +101,7 @@ public class CoreDependencySupport {
 		for (Class<?> each : changedClasses) {
 			changedFiles.add(getFileForClass(each));
 		}
-		return new FakeChangeDetector(changedFiles, false);
+		return new FakeChangeDetector(changedFiles, Collections.<File> emptySet());
 	}
 
 	public static ChangeDetector withNoChangedFiles() {
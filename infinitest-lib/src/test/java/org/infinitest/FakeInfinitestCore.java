@@ -84,7 +84,20 @@ public class FakeInfinitestCore implements InfinitestCore {
 		throw new UnsupportedOperationException();
 	}
 
+	public RunStatistics getRunStatistics() {
+		return new RunStatistics();
+	}
+
 	public int update(Collection<File> changedFiles) {
 		throw new UnsupportedOperationException();
 	}
+
+	@Override
+	public int update(Collection<File> changedFiles, Collection<File> removedFiles) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void dispose() {
+	}
 }
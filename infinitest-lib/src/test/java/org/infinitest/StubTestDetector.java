@@ -51,6 +51,26 @@ class StubTestDetector implements TestDetector {
 		return emptySet();
 	}
 
+	@Override
+	public Map<String, Integer> getDistancesFromChanges() {
+		return emptyMap();
+	}
+
+	@Override
+	public String getFingerprint(String testName) {
+		return null;
+	}
+
+	@Override
+	public Set<JavaClass> removeClasses(Collection<File> removedFiles) {
+		return emptySet();
+	}
+
+	@Override
+	public Set<File> invalidateClassesUsing(Set<String> classNames) {
+		return emptySet();
+	}
+
 	public boolean isEmpty() {
 		throw new UnsupportedOperationException();
 	}
@@ -68,4 +88,14 @@ class StubTestDetector implements TestDetector {
 	public Set<String> getCurrentTests() {
 		return emptySet();
 	}
+
+	@Override
+	public void saveIndex(IndexSnapshot snapshot) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void restoreIndex(IndexSnapshot snapshot) {
+		throw new UnsupportedOperationException();
+	}
 }
\ No newline at end of file
@@ -39,8 +39,8 @@ import org.junit.*;
 public class WhenATestIsRun {
 	@Test
 	public void shouldEvent() {
-		EventNormalizer normalizer = new EventNormalizer(new ControlledEventQueue());
-		assertNotNull(normalizer.consoleEventNormalizer(new ConsoleListenerAdapter()));
+		EventDispatcher dispatcher = new EventDispatcher(new ControlledEventQueue());
+		assertNotNull(dispatcher.consoleOutputDispatcher(new ConsoleListenerAdapter()));
 	}
 
 	@Test
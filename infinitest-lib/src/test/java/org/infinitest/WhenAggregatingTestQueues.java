@@ -98,24 +98,52 @@ public class WhenAggregatingTestQueues {
 	public void shouldCalculateTestQueueSizeBasedOnTheAggregatedQueues() {
 		listenerForCore(0).testQueueUpdated(new TestQueueEvent(asList("test1", "test2"), 2));
 		assertEquals(2, lastEvent().getInitialSize());
-		assertEquals(2, lastEvent().getTestQueue().size());
+		assertEquals(2, lastEvent().getQueueSize());
 
 		listenerForCore(1).testQueueUpdated(new TestQueueEvent(asList("test2", "test3"), 2));
 		assertEquals(4, lastEvent().getInitialSize());
-		assertEquals(4, lastEvent().getTestQueue().size());
+		assertEquals(4, lastEvent().getQueueSize());
 		assertEquals(2, updateEvents.size());
 
 		List<String> emptyQueue = emptyList();
 		listenerForCore(0).testQueueUpdated(new TestQueueEvent(emptyQueue, 2));
 		listenerForCore(1).testQueueUpdated(new TestQueueEvent(emptyQueue, 2));
-		assertEquals(0, lastEvent().getTestQueue().size());
+		assertEquals(0, lastEvent().getQueueSize());
 		assertEquals(4, lastEvent().getInitialSize());
 
 		listenerForCore(0).testQueueUpdated(new TestQueueEvent(asList("test1", "test2"), 2));
-		assertEquals(2, lastEvent().getTestQueue().size());
+		assertEquals(2, lastEvent().getQueueSize());
 		assertEquals(2, lastEvent().getInitialSize());
 	}
 
+	@Test
+	public void shouldApplyChangesReportedByEachCore() {
+		listenerForCore(0).testQueueUpdated(new TestQueueEvent(asList("test1", "test2"), 2));
+		listenerForCore(1).testQueueUpdated(new TestQueueEvent(asList("test3"), 1));
+
+		listenerForCore(0).testQueueUpdated(new TestQueueEvent(asList("test4"), noTests(), asList("test1", "test2"), 1, 3, "test2"));
+		assertEquals(2, lastEvent().getQueueSize());
+		assertEquals(asList("test4"), lastEvent().getAdded());
+		assertEquals(asList("test1", "test2"), lastEvent().getStarted());
+		assertEquals("test2", lastEvent().getCurrentTest());
+		assertFalse(lastEvent().isSnapshot());
+	}
+
+	@Test
+	public void shouldReportTheTestsReplacedByASnapshotAsRemoved() {
+		listenerForCore(0).testQueueUpdated(new TestQueueEvent(asList("test1", "test2"), 2));
+		listenerForCore(0).testQueueUpdated(new TestQueueEvent(noTests(), noTests(), asList("test1"), 1, 2, "test1"));
+
+		listenerForCore(0).testQueueUpdated(new TestQueueEvent(asList("test3"), 1));
+		assertEquals(asList("test2"), lastEvent().getRemoved());
+		assertEquals(asList("test3"), lastEvent().getAdded());
+		assertEquals(1, lastEvent().getQueueSize());
+	}
+
+	private static List<String> noTests() {
+		return emptyList();
+	}
+
 	private TestQueueEvent lastEvent() {
 		return getLast(updateEvents);
 	}
@@ -75,6 +75,16 @@ public class WhenComparingRuntimeEnvironments {
 		assertThat(createEqualInstance(), not(equalTo(env)));
 	}
 
+	@Test
+	public void shouldCompareAdditionalArgsAddedAfterTheEnvironmentWasHashed() {
+		RuntimeEnvironment env = createEqualInstance();
+		int hashCode = env.hashCode();
+		env.addVMArgs(Arrays.asList("additionalArg"));
+
+		assertThat(env.hashCode(), not(equalTo(hashCode)));
+		assertThat(createEqualInstance(), not(equalTo(env)));
+	}
+
 	@Test
 	public void shouldNotBeEqualToNull() {
 		assertFalse(createEqualInstance().equals(null));
@@ -64,9 +64,10 @@ public class WhenDetachingFromTheCore {
 	}
 
 	@Test
-	public void shouldTreatNormalizedListenersAsEquivelent() {
-		EventNormalizer normalizer = new EventNormalizer(new FakeEventQueue());
-		assertEquals(normalizer.testQueueNormalizer(listener), normalizer.testQueueNormalizer(listener));
-		assertThat(normalizer.testQueueNormalizer(listener), not(equalTo(normalizer.testQueueNormalizer(new TestQueueAdapter()))));
+	public void shouldTreatDispatchersOfTheSameListenerAsEquivelent() {
+		EventDispatcher dispatcher = new EventDispatcher(new FakeEventQueue());
+		assertEquals(dispatcher.testQueueDispatcher(listener), dispatcher.testQueueDispatcher(listener));
+		assertEquals(dispatcher.testQueueDispatcher(listener).hashCode(), dispatcher.testQueueDispatcher(listener).hashCode());
+		assertThat(dispatcher.testQueueDispatcher(listener), not(equalTo(dispatcher.testQueueDispatcher(new TestQueueAdapter()))));
 	}
 }
@@ -0,0 +1,108 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest;
+
+import static com.google.common.collect.Sets.*;
+import static java.io.File.*;
+import static org.infinitest.util.FakeEnvironments.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.jar.*;
+
+import org.junit.*;
+import org.junit.rules.*;
+
+public class WhenDiffingClasspaths {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void shouldListTheClassesOfAddedAndRemovedJars() throws IOException {
+		File oldJar = createJar("lib-1.0.jar", "com/fakeco/Library.class", "com/fakeco/Removed.class");
+		File newJar = createJar("lib-1.1.jar", "com/fakeco/Library.class", "com/fakeco/Added.class", "META-INF/MANIFEST.MF");
+
+		ClasspathDiff diff = new ClasspathDiff(environment(oldJar), environment(newJar));
+
+		assertEquals(newHashSet("com.fakeco.Library", "com.fakeco.Removed", "com.fakeco.Added"), diff.findLibraryClasses());
+	}
+
+	@Test
+	public void shouldIgnoreEntriesThatOnlyMoved() throws IOException {
+		File firstJar = createJar("first.jar", "com/fakeco/First.class");
+		File secondJar = createJar("second.jar", "com/fakeco/Second.class");
+
+		ClasspathDiff diff = new ClasspathDiff(environment(firstJar, secondJar), environment(secondJar, firstJar));
+
+		assertTrue(diff.isEmpty());
+		assertTrue(diff.findLibraryClasses().isEmpty());
+	}
+
+	@Test
+	public void shouldFindRemovedClassDirectories() throws IOException {
+		File classDirectory = temporaryFolder.newFolder("classes");
+		File otherClassDirectory = temporaryFolder.newFolder("otherClasses");
+
+		ClasspathDiff diff = new ClasspathDiff(environment(classDirectory, otherClassDirectory), environment(classDirectory));
+
+		assertEquals(newHashSet(otherClassDirectory), diff.getRemovedClassDirectories());
+		assertTrue(diff.findLibraryClasses().isEmpty());
+	}
+
+	@Test(expected = IOException.class)
+	public void shouldNotGuessTheClassesOfARemovedJarThatIsGone() throws IOException {
+		File jar = createJar("lib.jar", "com/fakeco/Library.class");
+		ClasspathDiff diff = new ClasspathDiff(environment(jar), environment());
+		assertTrue(jar.delete());
+
+		diff.findLibraryClasses();
+	}
+
+	private RuntimeEnvironment environment(File... entries) {
+		StringBuilder classpath = new StringBuilder();
+		for (File each : entries) {
+			classpath.append(each.getAbsolutePath()).append(pathSeparator);
+		}
+		return new RuntimeEnvironment(fakeBuildPaths(), fakeWorkingDirectory(), classpath.toString(), currentJavaHome());
+	}
+
+	private File createJar(String name, String... paths) throws IOException {
+		File jar = temporaryFolder.newFile(name);
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		try {
+			for (String each : paths) {
+				out.putNextEntry(new JarEntry(each));
+				out.closeEntry();
+			}
+		} finally {
+			out.close();
+		}
+		return jar;
+	}
+}
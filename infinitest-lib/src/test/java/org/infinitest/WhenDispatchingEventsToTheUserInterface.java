@@ -0,0 +1,113 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest;
+
+import static java.util.Arrays.*;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.infinitest.ConsoleOutputListener.OutputType;
+import org.junit.*;
+
+public class WhenDispatchingEventsToTheUserInterface {
+	private CountingEventQueue eventQueue;
+	private EventDispatcher dispatcher;
+	private List<String> received;
+
+	@Before
+	public void inContext() {
+		eventQueue = new CountingEventQueue();
+		dispatcher = new EventDispatcher(eventQueue);
+		received = new ArrayList<String>();
+	}
+
+	@Test
+	public void shouldDeliverABurstOfEventsWithASinglePush() {
+		ConsoleOutputListener console = dispatcher.consoleOutputDispatcher(new RecordingConsole());
+
+		console.consoleOutputUpdate("one", OutputType.STDOUT);
+		console.consoleOutputUpdate("two", OutputType.STDOUT);
+		dispatcher.testQueueDispatcher(new TestQueueAdapter() {
+			@Override
+			public void testRunComplete() {
+				received.add("complete");
+			}
+		}).testRunComplete();
+		assertTrue(received.isEmpty());
+
+		eventQueue.flush();
+		assertEquals(1, eventQueue.pushCount);
+		assertEquals(asList("one", "two", "complete"), received);
+	}
+
+	@Test
+	public void shouldPushAgainForEventsFiredAfterTheBatchWasDelivered() {
+		ConsoleOutputListener console = dispatcher.consoleOutputDispatcher(new RecordingConsole());
+
+		console.consoleOutputUpdate("one", OutputType.STDOUT);
+		eventQueue.flush();
+		console.consoleOutputUpdate("two", OutputType.STDOUT);
+		eventQueue.flush();
+
+		assertEquals(2, eventQueue.pushCount);
+		assertEquals(asList("one", "two"), received);
+	}
+
+	@Test
+	public void shouldKeepDeliveringWhenAListenerFails() {
+		dispatcher.consoleOutputDispatcher(new ConsoleOutputListener() {
+			@Override
+			public void consoleOutputUpdate(String newText, OutputType outputType) {
+				throw new IllegalStateException();
+			}
+		}).consoleOutputUpdate("lost", OutputType.STDERR);
+		dispatcher.consoleOutputDispatcher(new RecordingConsole()).consoleOutputUpdate("delivered", OutputType.STDOUT);
+
+		eventQueue.flush();
+
+		assertEquals(asList("delivered"), received);
+	}
+
+	private class RecordingConsole implements ConsoleOutputListener {
+		@Override
+		public void consoleOutputUpdate(String newText, OutputType outputType) {
+			received.add(newText);
+		}
+	}
+
+	private static class CountingEventQueue extends ControlledEventQueue {
+		private int pushCount;
+
+		@Override
+		public synchronized void push(Runnable runnable) {
+			pushCount++;
+			super.push(runnable);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest;
+
+import static com.google.common.collect.Lists.*;
+import static org.infinitest.CoreDependencySupport.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.infinitest.parser.*;
+import org.infinitest.testrunner.*;
+import org.infinitest.testrunner.cache.*;
+import org.junit.*;
+
+public class WhenReusingTestResults {
+	private List<String> testsRun;
+	private EventSupport eventSupport;
+
+	@Before
+	public void inContext() {
+		testsRun = newArrayList();
+		eventSupport = new EventSupport();
+	}
+
+	@Test
+	public void shouldReplayResultsOfAPassingTestInsteadOfRunningItAgain() throws Exception {
+		DefaultInfinitestCore core = createCoreWithCache(PASSING_TEST);
+
+		core.update();
+		eventSupport.assertRunComplete();
+		eventSupport.resetEvents();
+		core.update();
+
+		assertEquals(newArrayList(PASSING_TEST.getName()), testsRun);
+		eventSupport.assertTestsStarted(PASSING_TEST);
+		eventSupport.assertTestPassed(PASSING_TEST);
+		eventSupport.assertRunComplete();
+	}
+
+	@Test
+	public void shouldRunAFailingTestAgain() {
+		DefaultInfinitestCore core = createCoreWithCache(FAILING_TEST);
+
+		core.update();
+		core.update();
+
+		assertEquals(newArrayList(FAILING_TEST.getName(), FAILING_TEST.getName()), testsRun);
+		eventSupport.assertTestFailed(FAILING_TEST);
+	}
+
+	private DefaultInfinitestCore createCoreWithCache(Class<?> test) {
+		DefaultInfinitestCore core = new DefaultInfinitestCore(new InProcessRunner() {
+			@Override
+			public void runTests(List<String> testClasses) {
+				testsRun.addAll(testClasses);
+				super.runTests(testClasses);
+			}
+		}, new FakeEventQueue());
+		core.setChangeDetector(withChangedFiles());
+		core.setTestDetector(withFingerprintedTest(test));
+		core.setResultCache(new ResultCache(new MemoryResultStore(10)));
+		core.addTestResultsListener(eventSupport);
+		core.addTestQueueListener(eventSupport);
+		return core;
+	}
+
+	private static TestDetector withFingerprintedTest(final Class<?> test) {
+		final TestDetector tests = withTests(test);
+		return new StubTestDetector() {
+			@Override
+			public Set<JavaClass> findTestsToRun(Collection<File> changedFiles) {
+				return tests.findTestsToRun(changedFiles);
+			}
+
+			@Override
+			public String getFingerprint(String testName) {
+				return "a1b2";
+			}
+		};
+	}
+}
@@ -59,6 +59,15 @@ public class WhenRunningUpdatesInParallel {
 		assertEquals(2, controller.availablePermits());
 	}
 
+	@Test
+	public void shouldOnlyAcquireAvailablePermitsWithoutWaiting() {
+		MultiCoreConcurrencyController controller = new MultiCoreConcurrencyController(2, 3);
+
+		assertTrue(controller.tryAcquire());
+		assertTrue(controller.tryAcquire());
+		assertFalse(controller.tryAcquire());
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void shouldThrowExceptionIfMaxIsSetTooHigh() {
 		MultiCoreConcurrencyController controller = new MultiCoreConcurrencyController(1, 1);
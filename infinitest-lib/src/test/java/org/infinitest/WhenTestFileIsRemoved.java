@@ -27,25 +27,54 @@
  */
 package org.infinitest;
 
+import static java.util.Arrays.*;
 import static org.infinitest.CoreDependencySupport.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 import java.io.*;
 import java.util.*;
 
 import org.infinitest.changedetect.*;
+import org.infinitest.parser.*;
 import org.junit.*;
 
 public class WhenTestFileIsRemoved {
-	@Test
-	public void shouldReloadIndex() throws Exception {
-		InfinitestCore core = createCore(withRemovedFiles(), withNoTestsToRun());
-		EventSupport eventSupport = new EventSupport();
+	private File removedFile;
+	private TestDetector testDetector;
+	private InfinitestCore core;
+	private EventSupport eventSupport;
+
+	@Before
+	public void inContext() {
+		removedFile = new File("target/test-classes/com/fakeco/RemovedTest.class");
+		testDetector = mock(TestDetector.class);
+		core = createCore(withRemovedFiles(), testDetector);
+		eventSupport = new EventSupport();
 		core.addTestQueueListener(eventSupport);
+	}
+
+	@Test
+	public void shouldRemoveClassesFromTheIndexInsteadOfReloading() {
+		core.update();
+
+		verify(testDetector).removeClasses(Collections.singleton(removedFile));
+		verify(testDetector, never()).clear();
+		assertEquals(0, eventSupport.getReloadCount());
+	}
+
+	@Test
+	public void shouldDisableRemovedTests() {
+		when(testDetector.getCurrentTests()).thenReturn(new HashSet<String>(asList("com.fakeco.RemovedTest")), Collections.<String> emptySet());
+		DisabledTestListener listener = mock(DisabledTestListener.class);
+		core.addDisabledTestListener(listener);
+
 		core.update();
-		eventSupport.assertReloadOccured();
+
+		verify(listener).testsDisabled(Collections.singleton("com.fakeco.RemovedTest"));
 	}
 
 	private ChangeDetector withRemovedFiles() {
-		return new FakeChangeDetector(Collections.<File> emptySet(), true);
+		return new FakeChangeDetector(Collections.<File> emptySet(), new HashSet<File>(asList(removedFile)));
 	}
 }
@@ -27,20 +27,29 @@
  */
 package org.infinitest;
 
+import static com.google.common.collect.Sets.*;
+import static java.io.File.*;
+import static java.util.Arrays.*;
+import static java.util.Collections.*;
 import static org.infinitest.CoreDependencySupport.*;
 import static org.infinitest.util.FakeEnvironments.*;
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
 
+import java.io.*;
 import java.util.*;
 
 import org.infinitest.changedetect.*;
 import org.infinitest.parser.*;
 import org.infinitest.testrunner.*;
 import org.junit.*;
+import org.junit.rules.*;
 
 public class WhenTheRuntimeEnvironmentChanges {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	@Test
 	public void shouldTriggerACompleteReloadInTheCore() throws Exception {
 		InfinitestCore core = createCore(withNoChangedFiles(), withNoTestsToRun());
@@ -83,4 +92,63 @@ public class WhenTheRuntimeEnvironmentChanges {
 		core.setRuntimeEnvironment(emptyRuntimeEnvironment());
 		assertEquals(1, eventSupport.getReloadCount());
 	}
+
+	@Test
+	public void shouldKeepTheIndexWhenOnlyTheClasspathChanged() throws IOException {
+		File classDirectory = temporaryFolder.newFolder("classes");
+		File removedClassDirectory = temporaryFolder.newFolder("removedClasses");
+		File classFile = new File(classDirectory, "AClass.class");
+		File removedClassFile = new File(removedClassDirectory, "RemovedClass.class");
+		TestDetector testDetector = mock(TestDetector.class);
+		ChangeDetector changeDetector = mock(ChangeDetector.class);
+		Map<File, Long> timestamps = new HashMap<File, Long>();
+		timestamps.put(classFile, 1L);
+		timestamps.put(removedClassFile, 2L);
+		when(changeDetector.getTimestamps()).thenReturn(timestamps);
+		DefaultInfinitestCore core = createCore(changeDetector, testDetector);
+		core.setRuntimeEnvironment(environmentWithClasspath(classDirectory + pathSeparator + removedClassDirectory, currentJavaHome()));
+
+		core.setRuntimeEnvironment(environmentWithClasspath(classDirectory.getPath(), currentJavaHome()));
+		core.update();
+
+		verify(testDetector).clear();
+		verify(testDetector).restoreIndex(any(IndexSnapshot.class));
+		verify(changeDetector).restoreTimestamps(singletonMap(classFile, 1L));
+		verify(testDetector).removeClasses(newHashSet(removedClassFile));
+	}
+
+	@Test
+	public void shouldRunAllTestsAgainWhenTheVMArgumentsChanged() {
+		TestRunner testRunner = mock(TestRunner.class);
+		TestDetector testDetector = mock(TestDetector.class);
+		when(testDetector.getCurrentTests()).thenReturn(newHashSet("com.fakeco.ATest"));
+		DefaultInfinitestCore core = new DefaultInfinitestCore(testRunner, new FakeEventQueue());
+		core.setChangeDetector(mock(ChangeDetector.class));
+		core.setTestDetector(testDetector);
+		core.setRuntimeEnvironment(environmentWithClasspath("classpath", currentJavaHome()));
+		RuntimeEnvironment environmentWithProperty = environmentWithClasspath("classpath", currentJavaHome());
+		environmentWithProperty.addVMArgs(asList("-Dmode=test"));
+
+		core.setRuntimeEnvironment(environmentWithProperty);
+		core.update();
+
+		verify(testDetector).clear();
+		verify(testRunner).runTests(asList("com.fakeco.ATest"));
+	}
+
+	@Test
+	public void shouldStartOverWhenTheJdkChanged() {
+		TestDetector testDetector = mock(TestDetector.class);
+		DefaultInfinitestCore core = createCore(mock(ChangeDetector.class), testDetector);
+		core.setRuntimeEnvironment(environmentWithClasspath("classpath", currentJavaHome()));
+
+		core.setRuntimeEnvironment(environmentWithClasspath("classpath", new File("anotherJdk")));
+
+		verify(testDetector, times(2)).clear();
+		verify(testDetector, never()).restoreIndex(any(IndexSnapshot.class));
+	}
+
+	private static RuntimeEnvironment environmentWithClasspath(String classpath, File javaHome) {
+		return new RuntimeEnvironment(fakeBuildPaths(), fakeWorkingDirectory(), classpath, javaHome);
+	}
 }
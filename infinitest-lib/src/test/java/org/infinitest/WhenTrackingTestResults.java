@@ -147,6 +147,50 @@ public class WhenTrackingTestResults extends ResultCollectorTestSupport {
 		assertEquals(0, collector.getFailuresForPointOfFailure(pointOfFailure).size());
 	}
 
+	@Test
+	public void shouldKeepPointsOfFailureInTheOrderTheyWereFirstSeen() {
+		Exception firstException = new Exception("First");
+		Exception secondException = new Exception("Second");
+		testRun(methodFailed("FirstTest", "shouldFoo", firstException));
+		testRun(methodFailed("SecondTest", "shouldBar", secondException));
+		testRun(methodFailed("ThirdTest", "shouldBaz", firstException));
+
+		PointOfFailure first = collector.getPointOfFailure(0);
+		PointOfFailure second = collector.getPointOfFailure(1);
+		assertEquals("First", first.getMessage());
+		assertEquals("Second", second.getMessage());
+		assertEquals(1, collector.getPointOfFailureIndex(second));
+		assertEquals(2, collector.getTestsFor(first).size());
+	}
+
+	@Test
+	public void shouldForgetPointsOfFailureOnceTheirTestsPass() {
+		testRun(methodFailed("FirstTest", "shouldFoo", new Exception("First")));
+		testRun(methodFailed("SecondTest", "shouldBar", new Exception("Second")));
+		PointOfFailure first = collector.getPointOfFailure(0);
+		PointOfFailure second = collector.getPointOfFailure(1);
+
+		testRunWith("FirstTest");
+
+		assertEquals(1, collector.getPointOfFailureCount());
+		assertEquals(0, collector.getPointOfFailureIndex(second));
+		assertFalse(collector.isPointOfFailure(first));
+		assertEquals(-1, collector.getPointOfFailureIndex(first));
+		assertTrue(collector.getTestsFor(first).isEmpty());
+	}
+
+	@Test
+	public void shouldNotChangeIndexesAlreadyHandedOut() {
+		testRun(methodFailed("FirstTest", "shouldFoo", new Exception("First")));
+		FailureIndex index = collector.getFailureIndex();
+
+		testRun(methodFailed("SecondTest", "shouldBar", new Exception("Second")));
+
+		assertEquals(1, index.getPointOfFailureCount());
+		assertEquals(2, collector.getFailureIndex().getPointOfFailureCount());
+		assertSame(collector.getFailureIndex(), collector.getFailureIndex());
+	}
+
 	private static TestEvent eventWithError() {
 		return eventWithError(new AssertionFailedError());
 	}
@@ -35,6 +35,7 @@ import static org.mockito.Mockito.*;
 import java.io.*;
 import java.util.*;
 
+import org.infinitest.changedetect.*;
 import org.infinitest.parser.*;
 import org.infinitest.testrunner.*;
 import org.junit.*;
@@ -71,4 +72,17 @@ public class WhenTriggeringACoreUpdate {
 
 		assertEquals(1, core.update(updatedFiles));
 	}
+
+	@Test
+	public void shouldStillLookForRemovedFiles() {
+		File removedFile = new File("out/com/fakeco/RemovedTest.class");
+		ChangeDetector changeDetector = mock(ChangeDetector.class);
+		when(changeDetector.findRemovedFiles()).thenReturn(newHashSet(removedFile));
+		core.setChangeDetector(changeDetector);
+		testsToExpect();
+
+		core.update(updatedFiles);
+
+		verify(testDetector).removeClasses(newHashSet(removedFile));
+	}
 }
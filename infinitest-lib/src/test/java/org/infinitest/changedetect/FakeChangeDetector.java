@@ -36,15 +36,15 @@ import org.infinitest.*;
 
 public class FakeChangeDetector implements ChangeDetector {
 	private Set<File> changedFiles;
-	private boolean filesRemoved;
+	private Set<File> removedFiles;
 
-	public FakeChangeDetector(Set<File> changedFiles, boolean filesRemoved) {
+	public FakeChangeDetector(Set<File> changedFiles, Set<File> removedFiles) {
 		this.changedFiles = changedFiles;
-		this.filesRemoved = filesRemoved;
+		this.removedFiles = removedFiles;
 	}
 
 	public FakeChangeDetector() {
-		changedFiles = emptySet();
+		this(Collections.<File> emptySet(), Collections.<File> emptySet());
 	}
 
 	@Override
@@ -54,7 +54,14 @@ public class FakeChangeDetector implements ChangeDetector {
 
 	@Override
 	public boolean filesWereRemoved() {
-		return filesRemoved;
+		return !removedFiles.isEmpty();
+	}
+
+	@Override
+	public Set<File> findRemovedFiles() {
+		Set<File> result = removedFiles;
+		removedFiles = emptySet();
+		return result;
 	}
 
 	/**
@@ -70,4 +77,19 @@ public class FakeChangeDetector implements ChangeDetector {
 	public void setClasspathProvider(ClasspathProvider classpath) {
 		// nothing to do here
 	}
+
+	@Override
+	public Map<File, Long> getTimestamps() {
+		return emptyMap();
+	}
+
+	@Override
+	public void restoreTimestamps(Map<File, Long> timestamps) {
+		// nothing to do here
+	}
+
+	@Override
+	public void acknowledgeChanges(Collection<File> changedFiles, Collection<File> removedFiles) {
+		// nothing to do here
+	}
 }
@@ -0,0 +1,171 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.changedetect;
+
+import static com.google.common.collect.Sets.*;
+import static java.io.File.*;
+import static java.util.Arrays.*;
+import static java.util.Collections.*;
+import static org.infinitest.util.InfinitestTestUtils.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.jar.*;
+
+import org.infinitest.*;
+import org.infinitest.filter.*;
+import org.infinitest.parser.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+import com.fakeco.fakeproduct.*;
+import com.google.common.io.*;
+
+public class WhenLookingForChangesInJars {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File classDir;
+	private File jar;
+	private JarChangeDetector detector;
+
+	@Before
+	public void inContext() throws IOException {
+		classDir = temporaryFolder.newFolder("classes");
+		jar = new File(temporaryFolder.getRoot(), "module.jar");
+		writeJar("com/fakeco/Changed.class", "com/fakeco/Unchanged.class", "com/fakeco/Removed.class");
+		detector = new JarChangeDetector();
+		detector.setClasspathProvider(new StandaloneClasspath(asList(classDir), classDir + pathSeparator + jar));
+	}
+
+	@Test
+	public void shouldNotReportTheClassesOfJarsSeenForTheFirstTime() {
+		assertTrue(detector.findChangedClasses().isEmpty());
+	}
+
+	@Test
+	public void shouldReportClassesThatChangedInAJar() throws IOException {
+		detector.findChangedClasses();
+
+		writeJar("com/fakeco/Changed.class!", "com/fakeco/Unchanged.class", "com/fakeco/Added.class");
+
+		assertEquals(newHashSet("com.fakeco.Changed", "com.fakeco.Removed", "com.fakeco.Added"), detector.findChangedClasses());
+		assertTrue(detector.findChangedClasses().isEmpty());
+	}
+
+	@Test
+	public void shouldNotReportJarsRebuiltWithTheSameClasses() throws IOException {
+		detector.findChangedClasses();
+		String contentHash = detector.getContentHash();
+
+		writeJar("com/fakeco/Changed.class", "com/fakeco/Unchanged.class", "com/fakeco/Removed.class");
+
+		assertTrue(detector.findChangedClasses().isEmpty());
+		assertEquals(contentHash, detector.getContentHash());
+	}
+
+	@Test
+	public void shouldChangeTheContentHashWhenAJarChanges() throws IOException {
+		detector.findChangedClasses();
+		String contentHash = detector.getContentHash();
+
+		writeJar("com/fakeco/Changed.class!", "com/fakeco/Unchanged.class", "com/fakeco/Removed.class");
+		detector.findChangedClasses();
+
+		assertFalse(contentHash.equals(detector.getContentHash()));
+	}
+
+	@Test
+	public void shouldReadClassesThatChangedInAJarAgain() throws IOException {
+		File testClassFile = new File(classDir, pathOf(JUnit4TestThatInherits.class));
+		testClassFile.getParentFile().mkdirs();
+		Files.copy(getFileForClass(JUnit4TestThatInherits.class), testClassFile);
+		writeJar(TestJUnit4TestCase.class);
+		detector.findChangedClasses();
+		ClassFileTestDetector tests = new ClassFileTestDetector(new NoTestFilter());
+		tests.setClasspathProvider(new StandaloneClasspath(asList(classDir), classDir + pathSeparator + jar));
+		assertEquals(1, tests.findTestsToRun(asList(testClassFile)).size());
+
+		// The tests of the subclass were all inherited
+		writeJar("com/fakeco/fakeproduct/Unrelated.class");
+		Set<File> invalidatedFiles = tests.invalidateClassesUsing(detector.findChangedClasses());
+		tests.findTestsToRun(invalidatedFiles);
+
+		assertEquals(singleton(testClassFile), invalidatedFiles);
+		assertTrue(tests.getCurrentTests().isEmpty());
+	}
+
+	private static String pathOf(Class<?> javaClass) {
+		return javaClass.getName().replace('.', '/') + ".class";
+	}
+
+	private void writeJar(Class<?> javaClass) throws IOException {
+		long previousModification = jar.lastModified();
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		try {
+			out.putNextEntry(new JarEntry(pathOf(javaClass)));
+			out.write(Files.toByteArray(getFileForClass(javaClass)));
+			out.closeEntry();
+		} finally {
+			out.close();
+		}
+		assertTrue(jar.setLastModified(previousModification + 2000));
+	}
+
+	private static class NoTestFilter implements TestFilter {
+		@Override
+		public void updateFilterList() {
+		}
+
+		@Override
+		public boolean match(JavaClass javaClass) {
+			return false;
+		}
+	}
+
+	/**
+	 * The content of each class entry is its own path, plus a ! to make it
+	 * look changed.
+	 */
+	private void writeJar(String... entries) throws IOException {
+		long previousModification = jar.lastModified();
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		try {
+			for (String each : entries) {
+				out.putNextEntry(new JarEntry(each.replace("!", "")));
+				out.write(each.getBytes("UTF-8"));
+				out.closeEntry();
+			}
+		} finally {
+			out.close();
+		}
+		// Some file systems only keep the modification time to the second
+		assertTrue(jar.setLastModified(previousModification + 2000));
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.changedetect;
+
+import static java.util.Arrays.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.infinitest.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+public class WhenWatchingClassDirectoriesForChanges {
+	private static final long EVENT_TIMEOUT = 5000;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File classDir;
+	private WatchServiceChangeDetector detector;
+
+	@Before
+	public void inContext() throws IOException {
+		classDir = temporaryFolder.newFolder("classes");
+		detector = new WatchServiceChangeDetector();
+		detector.setClasspathProvider(new StandaloneClasspath(asList(classDir), ""));
+	}
+
+	@Test
+	public void shouldScanClassDirectoriesOnFirstUpdate() throws IOException {
+		File existing = createClassFile("com/fakeco/Existing.class");
+
+		assertThat(detector.findChangedFiles()).containsOnly(existing);
+	}
+
+	@Test
+	public void shouldFindClassFilesReportedByTheFileSystem() throws Exception {
+		createClassFile("com/fakeco/Existing.class");
+		detector.findChangedFiles();
+
+		File added = createClassFile("com/fakeco/Added.class");
+
+		assertThat(waitForChangedFiles()).containsOnly(added);
+		assertThat(detector.findChangedFiles()).isEmpty();
+	}
+
+	@Test
+	public void shouldFindClassFilesInNewPackages() throws Exception {
+		detector.findChangedFiles();
+
+		File added = createClassFile("com/fakeco/newpackage/Added.class");
+
+		assertThat(waitForChangedFiles()).containsOnly(added);
+	}
+
+	@Test
+	public void shouldFindRemovedFiles() throws Exception {
+		File existing = createClassFile("com/fakeco/Existing.class");
+		detector.findChangedFiles();
+
+		assertTrue(existing.delete());
+
+		assertTrue(waitForRemovedFiles());
+		assertThat(detector.findRemovedFiles()).containsOnly(existing);
+		assertFalse(detector.filesWereRemoved());
+	}
+
+	@Test
+	public void shouldRescanAfterBeingCleared() throws IOException {
+		File existing = createClassFile("com/fakeco/Existing.class");
+		detector.findChangedFiles();
+
+		detector.clear();
+
+		assertThat(detector.findChangedFiles()).containsOnly(existing);
+	}
+
+	@Test
+	public void shouldNotReportChangesTheIdeAlreadyReported() throws Exception {
+		detector.findChangedFiles();
+
+		File added = createClassFile("com/fakeco/Added.class");
+		detector.acknowledgeChanges(asList(added), Collections.<File> emptySet());
+
+		Thread.sleep(200);
+		assertThat(detector.findChangedFiles()).isEmpty();
+	}
+
+	private Set<File> waitForChangedFiles() throws Exception {
+		long start = System.currentTimeMillis();
+		Set<File> changedFiles = detector.findChangedFiles();
+		while (changedFiles.isEmpty() && ((System.currentTimeMillis() - start) < EVENT_TIMEOUT)) {
+			Thread.sleep(20);
+			changedFiles = detector.findChangedFiles();
+		}
+		return changedFiles;
+	}
+
+	private boolean waitForRemovedFiles() throws Exception {
+		long start = System.currentTimeMillis();
+		while (!detector.filesWereRemoved()) {
+			if ((System.currentTimeMillis() - start) > EVENT_TIMEOUT) {
+				return false;
+			}
+			Thread.sleep(20);
+		}
+		return true;
+	}
+
+	private File createClassFile(String path) throws IOException {
+		File classFile = new File(classDir, path);
+		classFile.getParentFile().mkdirs();
+		assertTrue(classFile.createNewFile());
+		return classFile;
+	}
+}
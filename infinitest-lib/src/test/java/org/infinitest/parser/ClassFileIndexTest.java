@@ -65,4 +65,37 @@ public class ClassFileIndexTest {
 		ClassFileIndex index = new ClassFileIndex(fakeClasspath());
 		assertEquals(Collections.emptySet(), index.findClasses(newArrayList(new File("notAClassFile"))));
 	}
+
+	@Test
+	public void shouldFingerprintAClassWithTheClassesItDependsOn() {
+		File testFile = new File("com/fakeco/ATest.class");
+		File productFile = new File("com/fakeco/AProduct.class");
+		restoreTestDependingOnProduct(testFile, productFile);
+		when(builder.getHash(testFile)).thenReturn("1111");
+		when(builder.getHash(productFile)).thenReturn("2222");
+		JavaClass test = index.findJavaClass("com.fakeco.ATest");
+
+		String fingerprint = index.fingerprintOf(test);
+		when(builder.getHash(productFile)).thenReturn("3333");
+
+		assertNotNull(fingerprint);
+		assertFalse(fingerprint.equals(index.fingerprintOf(test)));
+	}
+
+	@Test
+	public void shouldNotFingerprintAClassDependingOnAClassFileThatWasNotHashed() {
+		File testFile = new File("com/fakeco/ATest.class");
+		File productFile = new File("com/fakeco/AProduct.class");
+		restoreTestDependingOnProduct(testFile, productFile);
+		when(builder.getHash(testFile)).thenReturn("1111");
+
+		assertNull(index.fingerprintOf(index.findJavaClass("com.fakeco.ATest")));
+	}
+
+	private void restoreTestDependingOnProduct(File testFile, File productFile) {
+		IndexSnapshot snapshot = new IndexSnapshot();
+		snapshot.addClass(new ParsedClass("com.fakeco.ATest", new String[] { "com.fakeco.AProduct" }, true, testFile), null);
+		snapshot.addClass(new ParsedClass("com.fakeco.AProduct", new String[0], false, productFile), null);
+		index.restore(snapshot);
+	}
 }
@@ -29,35 +29,33 @@ package org.infinitest.parser;
 
 import static org.assertj.core.api.Assertions.*;
 
-import javassist.*;
-
 import org.junit.*;
 
 import com.fakeco.fakeproduct.*;
 
-public class JavaAssistClassTestDetectionTest {
-	private ClassPoolForFakeClassesTestUtil classPoolUtil;
+public class ClassFileParserTestDetectionTest {
+	private ParserForFakeClassesTestUtil parserUtil;
 
 	@Before
-	public void inContext() throws NotFoundException {
-		classPoolUtil = new ClassPoolForFakeClassesTestUtil();
+	public void inContext() {
+		parserUtil = new ParserForFakeClassesTestUtil();
 	}
 
 	@Test
 	public void shouldDetectTestsInClass() {
-		assertThat(classPoolUtil.getClass(TestJunit3TestCase.class).isATest()).isTrue();
-		assertThat(classPoolUtil.getClass(TestJUnit4TestCase.class).isATest()).isTrue();
-		assertThat(classPoolUtil.getClass(TestThatInherits.class).isATest()).isTrue();
-		assertThat(classPoolUtil.getClass(JUnit3TestThatInherits.class).isATest()).isTrue();
-		assertThat(classPoolUtil.getClass(JUnit4TestThatInherits.class).isATest()).isTrue();
-		assertThat(classPoolUtil.getClass(TestWithACustomRunner.class).isATest()).isTrue();
-		assertThat(classPoolUtil.getClass(ParameterizedTest.class).isATest()).isTrue();
-		assertThat(classPoolUtil.getClass(TestNGFakeProductTest.class).isATest()).isTrue();
-		assertThat(classPoolUtil.getClass(TestNGWithClassLevelOnlyTestAnnotationFakeTest.class).isATest()).isTrue();
+		assertThat(parserUtil.getClass(TestJunit3TestCase.class).isATest()).isTrue();
+		assertThat(parserUtil.getClass(TestJUnit4TestCase.class).isATest()).isTrue();
+		assertThat(parserUtil.getClass(TestThatInherits.class).isATest()).isTrue();
+		assertThat(parserUtil.getClass(JUnit3TestThatInherits.class).isATest()).isTrue();
+		assertThat(parserUtil.getClass(JUnit4TestThatInherits.class).isATest()).isTrue();
+		assertThat(parserUtil.getClass(TestWithACustomRunner.class).isATest()).isTrue();
+		assertThat(parserUtil.getClass(ParameterizedTest.class).isATest()).isTrue();
+		assertThat(parserUtil.getClass(TestNGFakeProductTest.class).isATest()).isTrue();
+		assertThat(parserUtil.getClass(TestNGWithClassLevelOnlyTestAnnotationFakeTest.class).isATest()).isTrue();
 	}
 
 	@Test
-	public void shouldNotDetectTestsInNotTestClass() throws NotFoundException {
-		assertThat(classPoolUtil.getClass(FakeProduct.class).isATest()).isFalse();
+	public void shouldNotDetectTestsInNotTestClass() {
+		assertThat(parserUtil.getClass(FakeProduct.class).isATest()).isFalse();
 	}
 }
@@ -30,6 +30,9 @@ package org.infinitest.parser;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.*;
 
+import java.io.*;
+import java.util.*;
+
 import javassist.*;
 import javax.swing.*;
 
@@ -38,12 +41,12 @@ import org.junit.*;
 import com.fakeco.fakeproduct.*;
 import com.fakeco.fakeproduct.id.*;
 
-public class JavaAssistClassTest {
-	private ClassPoolForFakeClassesTestUtil classPoolUtil;
+public class ClassFileReaderTest {
+	private ParserForFakeClassesTestUtil parserUtil;
 
 	@Before
-	public void inContext() throws NotFoundException {
-		classPoolUtil = new ClassPoolForFakeClassesTestUtil();
+	public void inContext() {
+		parserUtil = new ParserForFakeClassesTestUtil();
 	}
 
 	@Test
@@ -55,7 +58,7 @@ public class JavaAssistClassTest {
 
 	@Test
 	public void shouldReturnClassNameInToString() {
-		assertEquals(FakeProduct.class.getName(), classPoolUtil.getClass(FakeProduct.class).toString());
+		assertEquals(FakeProduct.class.getName(), parserUtil.getClass(FakeProduct.class).toString());
 	}
 
 	@Test
@@ -96,14 +99,55 @@ public class JavaAssistClassTest {
 
 	@Test
 	public void shouldIgnoreTestsWithStrangeOneArgConstructors() throws Exception {
-		ClassPool classPool = classPoolUtil.getClassPool();
+		ClassPool classPool = ClassPool.getDefault();
 		CtClass fakeClass = classPool.makeClass("FakeClass");
 		CtClass[] params = {classPool.get(Integer.class.getName())};
-		fakeClass.addConstructor(new CtConstructor(params, fakeClass));
-		assertFalse(new JavaAssistClass(fakeClass).canInstantiate(fakeClass));
+		fakeClass.addConstructor(CtNewConstructor.make(params, new CtClass[0], fakeClass));
+
+		ClassFileInfo classFile = ClassFileReader.read(fakeClass.toBytecode(), "FakeClass");
+
+		assertTrue(classFile.hasNonPrivateConstructor());
+		assertFalse(classFile.hasJUnitCompatibleConstructor());
+	}
+
+	@Test
+	public void shouldOnlyCountPublicMethodsAsTestMethods() throws Exception {
+		ClassPool classPool = ClassPool.getDefault();
+		CtClass fakeClass = classPool.makeClass("FakeClassWithNonPublicTestMethods");
+		fakeClass.addMethod(CtNewMethod.make("private void testSomething() {}", fakeClass));
+		fakeClass.addMethod(CtNewMethod.make("protected void testSomethingElse() {}", fakeClass));
+		fakeClass.addMethod(CtNewMethod.make("void testAnotherThing() {}", fakeClass));
+
+		ClassFileInfo classFile = ClassFileReader.read(fakeClass.toBytecode(), "FakeClassWithNonPublicTestMethods");
+
+		assertFalse(classFile.declaresMethodsNamedTest());
+	}
+
+	@Test
+	public void shouldCountPublicMethodsAsTestMethods() throws Exception {
+		ClassPool classPool = ClassPool.getDefault();
+		CtClass fakeClass = classPool.makeClass("FakeClassWithPublicTestMethod");
+		fakeClass.addMethod(CtNewMethod.make("public void testSomething() {}", fakeClass));
+
+		ClassFileInfo classFile = ClassFileReader.read(fakeClass.toBytecode(), "FakeClassWithPublicTestMethod");
+
+		assertTrue(classFile.declaresMethodsNamedTest());
+	}
+
+	@Test(expected = MalformedClassFileException.class)
+	public void shouldRejectFilesThatAreNotClassFiles() throws IOException {
+		ClassFileReader.read(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }, "NotAClass.class");
+	}
+
+	@Test(expected = MalformedClassFileException.class)
+	public void shouldRejectTruncatedClassFiles() throws Exception {
+		CtClass fakeClass = ClassPool.getDefault().makeClass("TruncatedClass");
+		byte[] bytes = fakeClass.toBytecode();
+
+		ClassFileReader.read(Arrays.copyOf(bytes, bytes.length / 2), "TruncatedClass.class");
 	}
 
 	private String[] dependenciesOf(Class<?> dependingClass) {
-		return classPoolUtil.dependenciesOf(dependingClass);
+		return parserUtil.dependenciesOf(dependingClass);
 	}
 }
@@ -0,0 +1,103 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static org.infinitest.util.InfinitestTestUtils.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import javassist.*;
+import javassist.bytecode.*;
+
+import org.junit.*;
+
+import com.fakeco.fakeproduct.*;
+import com.google.common.io.*;
+
+public class ClassFingerprintTest {
+	@Test
+	public void shouldIgnoreDebugInformation() throws Exception {
+		byte[] bytes = Files.toByteArray(getFileForClass(FakeProduct.class));
+
+		assertEquals(fingerprintOf(bytes), fingerprintOf(withoutDebugInformation(bytes)));
+	}
+
+	@Test
+	public void shouldIgnoreTheOrderOfTheConstantPool() throws Exception {
+		byte[] bytes = makeClass("return \"forty-two\".length();", false);
+		byte[] reordered = makeClass("return \"forty-two\".length();", true);
+
+		assertFalse(Arrays.equals(bytes, reordered));
+		assertEquals(fingerprintOf(bytes), fingerprintOf(reordered));
+	}
+
+	@Test
+	public void shouldChangeWhenTheCodeChanges() throws Exception {
+		assertFalse(fingerprintOf(makeClass("return 42;", false)).equals(fingerprintOf(makeClass("return 43;", false))));
+	}
+
+	@Test(expected = MalformedClassFileException.class)
+	public void shouldRejectFilesThatAreNotClassFiles() throws IOException {
+		ClassFingerprint.of(new byte[] { 1, 2, 3 }, "NotAClass.class");
+	}
+
+	private static String fingerprintOf(byte[] bytes) throws IOException {
+		return ClassFingerprint.of(bytes, "Fingerprinted.class");
+	}
+
+	private static byte[] makeClass(String body, boolean padConstantPool) throws Exception {
+		CtClass ctClass = new ClassPool(true).makeClass("com.fakeco.Fingerprinted");
+		if (padConstantPool) {
+			// Shifts every constant the method refers to
+			ctClass.getClassFile().getConstPool().addUtf8Info("padding");
+		}
+		ctClass.addMethod(CtNewMethod.make("public int answer() { " + body + " }", ctClass));
+		return ctClass.toBytecode();
+	}
+
+	private static byte[] withoutDebugInformation(byte[] bytes) throws IOException {
+		ClassFile classFile = new ClassFile(new DataInputStream(new ByteArrayInputStream(bytes)));
+		for (Object method : classFile.getMethods()) {
+			CodeAttribute code = ((MethodInfo) method).getCodeAttribute();
+			if (code != null) {
+				Iterator<?> attributes = code.getAttributes().iterator();
+				while (attributes.hasNext()) {
+					String name = ((AttributeInfo) attributes.next()).getName();
+					if (LineNumberAttribute.tag.equals(name) || LocalVariableAttribute.tag.equals(name)) {
+						attributes.remove();
+					}
+				}
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		classFile.write(new DataOutputStream(out));
+		return out.toByteArray();
+	}
+}
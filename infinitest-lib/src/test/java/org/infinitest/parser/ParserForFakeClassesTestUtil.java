@@ -29,38 +29,18 @@ package org.infinitest.parser;
 
 import static org.infinitest.util.FakeEnvironments.*;
 
-import javassist.*;
+class ParserForFakeClassesTestUtil {
+	private final ClassFileParser parser;
 
-class ClassPoolForFakeClassesTestUtil {
-
-	private ClassPool classPool = new ClassPool();
-
-	ClassPoolForFakeClassesTestUtil() throws NotFoundException {
-		classPool = new ClassPool();
-		// If you get a NotFoundException here, you may need to make a copy of
-		// your jgrapht jar file
-		// that lives in a lib subdirectory. Not sure why a scalafied project
-		// doesn't parse the
-		// .classpath file correctly, but somewhere betweeen there and eclipse
-		// that path
-		// gets messed up.
-		classPool.appendPathList(fakeClasspath().getCompleteClasspath());
-		classPool.appendSystemPath();
+	ParserForFakeClassesTestUtil() {
+		parser = new ClassFileParser(fakeClasspath().getCompleteClasspath());
 	}
 
 	String[] dependenciesOf(Class<?> dependingClass) {
 		return getClass(dependingClass).getImports();
 	}
 
-	JavaAssistClass getClass(Class<?> dependingClass) {
-		try {
-			return new JavaAssistClass(classPool.get(dependingClass.getName()));
-		} catch (NotFoundException e) {
-			throw new RuntimeException(e);
-		}
-	}
-
-	ClassPool getClassPool() {
-		return classPool;
+	JavaClass getClass(Class<?> dependingClass) {
+		return parser.getClass(dependingClass.getName());
 	}
 }
@@ -32,17 +32,14 @@ import static org.mockito.Mockito.*;
 
 import java.io.*;
 
-import javassist.*;
-
 import org.junit.*;
 
 public class WhenClassFilesCannotBeFound {
 	@Test
 	public void shouldReturnNullIfClassDissapearsWhileParsing() throws IOException {
-		JavaAssistClassParser mockParser = mock(JavaAssistClassParser.class);
+		ClassFileParser mockParser = mock(ClassFileParser.class);
 		JavaClassBuilder builder = new JavaClassBuilder(mockParser);
-		NotFoundException cause = new NotFoundException("");
-		when(mockParser.classFileChanged(new File("UNKNOWN"))).thenThrow(new RuntimeException(cause));
+		when(mockParser.classFileChanged(new File("UNKNOWN"))).thenThrow(new FileNotFoundException("UNKNOWN"));
 
 		assertNull(builder.classFileChanged(new File("UNKNOWN")));
 	}
@@ -85,8 +85,8 @@ public class WhenCreatingJavaClassNodesInDependencyGraph {
 
 	@Test
 	public void shouldReturnUnparsableClassIfErrorOccursWhileParsing() {
-		JavaAssistClassParser parser = mock(JavaAssistClassParser.class);
-		when(parser.getClass("MyClassName")).thenThrow(new RuntimeException(new NotFoundException("")));
+		ClassFileParser parser = mock(ClassFileParser.class);
+		when(parser.getClass("MyClassName")).thenThrow(new MissingClassException("Could not read MyClassName", new MalformedClassFileException("MyClassName.class")));
 
 		builder = new JavaClassBuilder(parser);
 
@@ -129,6 +129,22 @@ public class WhenCreatingJavaClassNodesInDependencyGraph {
 		foobarClass.writeFile(newDir.getAbsolutePath());
 	}
 
+	@Test
+	public void shouldParseManyChangedClassFilesAtOnce() {
+		File packageDir = InfinitestTestUtils.getFileForClass(FakeProduct.class).getParentFile();
+		List<File> classFiles = new ArrayList<File>();
+		for (File each : packageDir.listFiles()) {
+			if (each.getName().endsWith(".class")) {
+				classFiles.add(each);
+			}
+		}
+
+		List<String> classnames = builder.classFilesChanged(classFiles);
+
+		assertThat(classFiles.size()).isGreaterThan(16);
+		assertThat(classnames).hasSize(classFiles.size()).contains(FakeProduct.class.getName(), FakeTree.class.getName());
+	}
+
 	@Test
 	public void shouldFindDependenciesInSamePackage() {
 		JavaClass javaClass = builder.getClass(FakeTree.class.getName());
@@ -110,6 +110,18 @@ public class WhenLookingForChangedFiles {
     assertThat(detector.findChangedFiles()).doesNotContain(newFile);
   }
 
+  @Test
+  public void shouldForgetRemovedFilesOnceFound() throws Exception {
+    File newFile = createFileForClass(TestFakeProduct.class);
+    detector.findChangedFiles();
+
+    newFile.delete();
+
+    assertThat(detector.findRemovedFiles()).containsOnly(newFile);
+    assertThat(detector.findRemovedFiles()).isEmpty();
+    assertFalse(detector.filesWereRemoved());
+  }
+
   @Test
   public void shouldDetectChangedFilesByTimeStamp() throws Exception {
     detector = new FileChangeDetector() {
@@ -125,6 +137,28 @@ public class WhenLookingForChangedFiles {
     assertFalse("Timestamp changed", detector.findChangedFiles().isEmpty());
   }
 
+  @Test
+  public void shouldNotReportChangesItWasToldAbout() throws Exception {
+    File newFile = createFileForClass(TestFakeProduct.class);
+    detector.findChangedFiles();
+    assertTrue(newFile.setLastModified(newFile.lastModified() + 2000));
+
+    detector.acknowledgeChanges(singleton(newFile), Collections.<File> emptySet());
+
+    assertThat(detector.findChangedFiles()).isEmpty();
+  }
+
+  @Test
+  public void shouldNotReportRemovalsItWasToldAbout() throws Exception {
+    File newFile = createFileForClass(TestFakeProduct.class);
+    detector.findChangedFiles();
+    newFile.delete();
+
+    detector.acknowledgeChanges(Collections.<File> emptySet(), singleton(newFile));
+
+    assertFalse(detector.filesWereRemoved());
+  }
+
   @Test
   public void shouldBeTolerantOfDissapearingDirectories() throws Exception {
     detector = new FileChangeDetector() {
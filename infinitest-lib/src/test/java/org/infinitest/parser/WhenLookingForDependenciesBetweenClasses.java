@@ -90,12 +90,11 @@ public class WhenLookingForDependenciesBetweenClasses extends DependencyGraphTes
 
   @Test
   public void canFilterTests() {
-    Set<File> fileSet = setify(getFileForClass(TestFakeProduct.class));
-    Set<JavaClass> testsToRun = getGraph().findTestsToRun(fileSet);
+    Set<JavaClass> testsToRun = findTestsForChangedFiles(TestFakeProduct.class);
     assertEquals("TestFakeProduct should have been found", 1, testsToRun.size());
 
     addFilter(TestFakeProduct.class.getName());
-    testsToRun = getGraph().findTestsToRun(fileSet);
+    testsToRun = findTestsForChangedFiles(TestFakeProduct.class);
     assertEquals("TestFakeProduct should have been filtered", 0, testsToRun.size());
   }
 
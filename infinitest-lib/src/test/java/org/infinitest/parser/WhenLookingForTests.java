@@ -29,20 +29,17 @@ package org.infinitest.parser;
 
 import static org.infinitest.util.FakeEnvironments.*;
 import static org.junit.Assert.*;
-import javassist.*;
 
 import org.junit.*;
 
 import com.fakeco.fakeproduct.*;
 
 public class WhenLookingForTests {
-	private ClassPool classPool;
+	private ClassFileParser parser;
 
 	@Before
-	public void inContext() throws NotFoundException {
-		classPool = new ClassPool();
-		classPool.appendPathList(fakeClasspath().getCompleteClasspath());
-		classPool.appendSystemPath();
+	public void inContext() {
+		parser = new ClassFileParser(fakeClasspath().getCompleteClasspath());
 	}
 
 	@Test
@@ -97,11 +94,7 @@ public class WhenLookingForTests {
 		assertTrue(classFor(TestNGFakeProductTest.class).isATest());
 	}
 
-	private JavaAssistClass classFor(Class<?> testClass) {
-		try {
-			return new JavaAssistClass(classPool.get(testClass.getName()));
-		} catch (NotFoundException e) {
-			throw new RuntimeException(e);
-		}
+	private JavaClass classFor(Class<?> testClass) {
+		return parser.getClass(testClass.getName());
 	}
 }
@@ -34,16 +34,22 @@ import static org.junit.Assert.*;
 import java.io.*;
 
 import org.infinitest.*;
+import org.infinitest.util.*;
 import org.junit.*;
+import org.junit.rules.*;
 
 import com.fakeco.fakeproduct.*;
+import com.google.common.io.*;
 
 public class WhenParsingClassFiles {
-	private JavaAssistClassParser parser;
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private ClassFileParser parser;
 
 	@Before
 	public void inContext() {
-		parser = new JavaAssistClassParser(fakeClasspath().getCompleteClasspath());
+		parser = new ClassFileParser(fakeClasspath().getCompleteClasspath());
 	}
 
 	private JavaClass parseClass(Class<?> classToParse) {
@@ -51,18 +57,18 @@ public class WhenParsingClassFiles {
 	}
 
 	@Test
-	public void shouldLazilyCreateClassPool() {
-		new JavaAssistClassParser("doesNotExist.jar");
+	public void shouldNotReadClasspathUntilAClassIsNeeded() {
+		new ClassFileParser("doesNotExist.jar");
 	}
 
 	@Test(expected = MissingClassException.class)
 	public void shouldThrowMissingClassExceptionIfClasspathElementsCannotBeFound() {
-		JavaAssistClassParser classParser = new JavaAssistClassParser("doesNotExist.jar");
+		ClassFileParser classParser = new ClassFileParser("doesNotExist.jar");
 		classParser.getClass("doesn't matter");
 	}
 
 	@Test
-	public void shouldIncludeSystemClasspathInClasspool() {
+	public void shouldFindClassesOnTheSystemClasspath() {
 		JavaClass stringClass = parseClass(String.class);
 		assertEquals(String.class.getName(), stringClass.getName());
 	}
@@ -87,15 +93,82 @@ public class WhenParsingClassFiles {
 	}
 
 	@Test
-	public void shouldSkipMissingJarFilesWhenCreatingClassPool() {
+	public void shouldSkipMissingJarFiles() {
 		String classpath = fakeClasspath().getCompleteClasspath();
 		classpath += File.pathSeparator + "notAJar.jar";
-		parser = new JavaAssistClassParser(classpath);
+		parser = new ClassFileParser(classpath);
 		assertNotNull(parseClass(FakeProduct.class));
 	}
 
 	@Test
 	public void shouldHandleMissingClassDirs() {
-		parser = new JavaAssistClassParser("notADirYet");
+		parser = new ClassFileParser("notADirYet");
+	}
+
+	@Test
+	public void shouldLocateClassesInClassDirectories() {
+		JavaClass javaClass = parseClass(FakeProduct.class);
+
+		assertTrue(javaClass.locatedInClassFile());
+		assertEquals(InfinitestTestUtils.getFileForClass(FakeProduct.class).getAbsoluteFile(), javaClass.getClassFile().getAbsoluteFile());
+	}
+
+	@Test
+	public void shouldNotShareClassesWithParsersOfOtherClasspaths() {
+		parseClass(FakeProduct.class);
+
+		assertFalse(new ClassFileParser("notADirYet").getClass(FakeProduct.class.getName()).locatedInClassFile());
+	}
+
+	@Test
+	public void shouldLookForAMissingClassAgainOnceCleared() throws IOException {
+		File classDirectory = temporaryFolder.newFolder("classes");
+		parser = new ClassFileParser(classDirectory.getPath());
+		assertFalse(parseClass(FakeProduct.class).locatedInClassFile());
+
+		File classFile = new File(classDirectory, FakeProduct.class.getName().replace('.', '/') + ".class");
+		classFile.getParentFile().mkdirs();
+		Files.copy(InfinitestTestUtils.getFileForClass(FakeProduct.class), classFile);
+		parser.clear();
+
+		assertTrue(parseClass(FakeProduct.class).locatedInClassFile());
+	}
+
+	@Test
+	public void shouldNotLocateClassesFromJars() {
+		assertFalse(parseClass(Test.class).locatedInClassFile());
+	}
+
+	@Test
+	public void shouldReturnTheNameOfAChangedClassFile() throws IOException {
+		File classFile = InfinitestTestUtils.getFileForClass(FakeProduct.class);
+
+		assertEquals(FakeProduct.class.getName(), parser.classFileChanged(classFile));
+	}
+
+	@Test
+	public void shouldIgnoreClassFilesWithTheSameFingerprint() throws IOException {
+		File classFile = InfinitestTestUtils.getFileForClass(FakeProduct.class);
+		parser.classFileChanged(classFile);
+
+		assertNull(parser.classFileChanged(classFile));
+	}
+
+	@Test
+	public void shouldParseClassFilesAgainOnceHashesAreCleared() throws IOException {
+		File classFile = InfinitestTestUtils.getFileForClass(FakeProduct.class);
+		parser.classFileChanged(classFile);
+
+		parser.clearHashes();
+
+		assertEquals(FakeProduct.class.getName(), parser.classFileChanged(classFile));
+	}
+
+	@Test(expected = MalformedClassFileException.class)
+	public void shouldRejectFilesThatAreNotClassFiles() throws IOException {
+		File notAClass = File.createTempFile("NotAClass", ".class");
+		notAClass.deleteOnExit();
+
+		parser.classFileChanged(notAClass);
 	}
 }
@@ -0,0 +1,117 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static java.util.Arrays.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.infinitest.util.FakeEnvironments.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.infinitest.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+public class WhenPersistingTheDependencyIndex {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private RuntimeEnvironment environment;
+	private IndexStore store;
+	private File testClassFile;
+
+	@Before
+	public void inContext() throws IOException {
+		environment = new RuntimeEnvironment(fakeBuildPaths(), temporaryFolder.newFolder("workingDir"), systemClasspath(), currentJavaHome());
+		store = new IndexStore();
+		testClassFile = new File("target/test-classes/com/fakeco/ATest.class");
+	}
+
+	@Test
+	public void shouldRestoreClassesHashesAndTimestamps() {
+		IndexSnapshot snapshot = new IndexSnapshot();
+		snapshot.addClass(new ParsedClass("com.fakeco.ATest", new String[] { "com.fakeco.AClass" }, true, testClassFile), "a1b2c3");
+		snapshot.setTimestamps(Collections.singletonMap(testClassFile, 42L));
+
+		store.save(environment, snapshot);
+		IndexSnapshot restored = store.load(environment);
+
+		JavaClass restoredClass = restored.getClasses().get(0);
+		assertEquals("com.fakeco.ATest", restoredClass.getName());
+		assertTrue(restoredClass.isATest());
+		assertEquals(testClassFile, restoredClass.getClassFile());
+		assertThat(restoredClass.getImports()).containsOnly("com.fakeco.AClass");
+		assertEquals("a1b2c3", restored.getHash(testClassFile));
+		assertEquals(Long.valueOf(42L), restored.getTimestamps().get(testClassFile));
+	}
+
+	@Test
+	public void shouldIgnoreIndexWrittenForAnotherEnvironment() {
+		store.save(environment, new IndexSnapshot());
+		RuntimeEnvironment otherEnvironment = new RuntimeEnvironment(fakeBuildPaths(), environment.getWorkingDirectory(), "otherClasspath", currentJavaHome());
+
+		assertNull(store.load(otherEnvironment));
+	}
+
+	@Test
+	public void shouldIgnoreCorruptIndex() throws IOException {
+		File indexFile = store.indexFileFor(environment);
+		indexFile.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(indexFile);
+		out.write(new byte[] { 1, 2, 3 });
+		out.close();
+
+		assertNull(store.load(environment));
+	}
+
+	@Test
+	public void shouldNotFindAnIndexAfterItIsDeleted() {
+		store.save(environment, new IndexSnapshot());
+
+		store.delete(environment);
+
+		assertNull(store.load(environment));
+	}
+
+	@Test
+	public void shouldRestoreDependenciesBetweenIndexedClasses() {
+		File classFile = new File("target/test-classes/com/fakeco/AClass.class");
+		IndexSnapshot snapshot = new IndexSnapshot();
+		snapshot.addClass(new ParsedClass("com.fakeco.ATest", new String[] { "com.fakeco.AClass" }, true, testClassFile), null);
+		snapshot.addClass(new ParsedClass("com.fakeco.AClass", new String[0], false, classFile), null);
+
+		ClassFileIndex index = new ClassFileIndex(fakeClasspath());
+		index.restore(snapshot);
+
+		JavaClass changedClass = index.findJavaClass("com.fakeco.AClass");
+		Set<JavaClass> changedParents = index.findChangedParents(new HashSet<JavaClass>(asList(changedClass)));
+		assertThat(changedParents).contains(index.findJavaClass("com.fakeco.ATest"));
+	}
+}
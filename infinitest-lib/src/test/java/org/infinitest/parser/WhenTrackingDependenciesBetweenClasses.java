@@ -0,0 +1,225 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.parser;
+
+import static java.util.Arrays.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+public class WhenTrackingDependenciesBetweenClasses {
+	private DependencyGraph graph;
+	private JavaClass test;
+	private JavaClass product;
+	private JavaClass dependency;
+
+	@Before
+	public void inContext() {
+		graph = new DependencyGraph(8);
+		test = new FakeJavaClass("com.fakeco.ATest");
+		product = new FakeJavaClass("com.fakeco.AProduct");
+		dependency = new FakeJavaClass("com.fakeco.ADependency");
+		graph.add(test);
+		graph.add(product);
+		graph.add(dependency);
+		graph.addDependency(test, product);
+		graph.addDependency(product, dependency);
+	}
+
+	@Test
+	public void shouldFindClassesByName() {
+		assertSame(product, graph.find("com.fakeco.AProduct"));
+		assertNull(graph.find("com.fakeco.Unknown"));
+	}
+
+	@Test
+	public void shouldFindDependents() {
+		assertThat(graph.getDependents(dependency)).containsOnly(product);
+		assertThat(graph.getDependents(product)).containsOnly(test);
+		assertThat(graph.getDependents(test)).isEmpty();
+	}
+
+	@Test
+	public void shouldNotAddTheSameDependencyTwice() {
+		assertFalse(graph.addDependency(test, product));
+
+		assertThat(graph.getDependents(product)).containsExactly(test);
+	}
+
+	@Test
+	public void shouldIgnoreDependenciesOnClassesOutsideTheGraph() {
+		assertFalse(graph.addDependency(test, new FakeJavaClass("java.lang.Object")));
+	}
+
+	@Test
+	public void shouldKeepDependentsOfAReplacedClass() {
+		JavaClass newProduct = new FakeJavaClass("com.fakeco.AProduct");
+
+		assertFalse(graph.add(newProduct));
+
+		assertSame(newProduct, graph.find("com.fakeco.AProduct"));
+		assertThat(graph.getDependents(newProduct)).containsOnly(test);
+		assertEquals(3, graph.size());
+	}
+
+	@Test
+	public void shouldDropDependenciesOfAReplacedClass() {
+		graph.add(new FakeJavaClass("com.fakeco.AProduct"));
+
+		assertThat(graph.getDependents(dependency)).isEmpty();
+	}
+
+	@Test
+	public void shouldFindAllDependentsTransitively() {
+		assertThat(graph.findAllDependents(asList(dependency))).containsOnly(dependency, product, test);
+		assertThat(graph.findAllDependents(asList(product))).containsOnly(product, test);
+	}
+
+	@Test
+	public void shouldFindShortestDistanceFromChangedClasses() {
+		Map<JavaClass, Integer> distances = graph.findDistances(asList(dependency), asList(test, product, dependency));
+
+		assertEquals(Integer.valueOf(0), distances.get(dependency));
+		assertEquals(Integer.valueOf(1), distances.get(product));
+		assertEquals(Integer.valueOf(2), distances.get(test));
+
+		graph.addDependency(test, dependency);
+		assertEquals(Integer.valueOf(1), graph.findDistances(asList(dependency), asList(test)).get(test));
+	}
+
+	@Test
+	public void shouldOnlyFindDistancesOfReachedTargets() {
+		assertThat(graph.findDistances(asList(product), asList(test, dependency)).keySet()).containsOnly(test);
+	}
+
+	@Test
+	public void shouldFindAllDependenciesTransitively() {
+		assertThat(graph.findAllDependencies(test)).containsOnly(test, product, dependency);
+		assertThat(graph.findAllDependencies(dependency)).containsOnly(dependency);
+		assertThat(graph.findAllDependencies(new FakeJavaClass("com.fakeco.Unknown"))).isEmpty();
+	}
+
+	@Test
+	public void shouldFindAllDependentsOfClassesDependingOnEachOther() {
+		graph.addDependency(dependency, test);
+
+		assertThat(graph.findAllDependents(asList(test))).containsOnly(dependency, product, test);
+	}
+
+	@Test
+	public void shouldIgnoreClassesOutsideTheGraphWhenFindingDependents() {
+		assertThat(graph.findAllDependents(asList((JavaClass) new FakeJavaClass("java.lang.Object")))).isEmpty();
+	}
+
+	@Test
+	public void shouldNotReturnCachedDependentsAfterANewDependency() {
+		graph.findAllDependents(asList(dependency));
+		JavaClass otherTest = new FakeJavaClass("com.fakeco.AnotherTest");
+		graph.add(otherTest);
+		graph.addDependency(otherTest, product);
+
+		assertThat(graph.findAllDependents(asList(dependency))).contains(otherTest);
+	}
+
+	@Test
+	public void shouldNotReturnCachedDependentsAfterAClassIsReplaced() {
+		graph.findAllDependents(asList(dependency));
+
+		graph.add(new FakeJavaClass("com.fakeco.AProduct"));
+
+		assertThat(graph.findAllDependents(asList(dependency))).containsOnly(dependency);
+	}
+
+	@Test
+	public void shouldRemoveAClassAndItsDependencies() {
+		assertTrue(graph.remove(product));
+
+		assertNull(graph.find("com.fakeco.AProduct"));
+		assertThat(graph.getClasses()).containsOnly(test, dependency);
+		assertThat(graph.getDependents(dependency)).isEmpty();
+		assertThat(graph.findAllDependents(asList(dependency))).containsOnly(dependency);
+		assertEquals(2, graph.size());
+	}
+
+	@Test
+	public void shouldNotRemoveAClassOutsideTheGraph() {
+		assertFalse(graph.remove(new FakeJavaClass("java.lang.Object")));
+	}
+
+	@Test
+	public void shouldNotReturnCachedDependentsAfterAClassIsRemoved() {
+		graph.findAllDependents(asList(dependency));
+
+		graph.remove(product);
+
+		assertThat(graph.findAllDependents(asList(dependency))).containsOnly(dependency);
+	}
+
+	@Test
+	public void shouldLinkDependentsAgainWhenARemovedClassComesBack() {
+		JavaClass importingTest = new ParsedClass("com.fakeco.ImportingTest", new String[] { "com.fakeco.AProduct" }, true, null);
+		graph.add(importingTest);
+		graph.addDependency(importingTest, product);
+		graph.remove(product);
+
+		JavaClass newProduct = new FakeJavaClass("com.fakeco.AProduct");
+		assertTrue(graph.add(newProduct));
+
+		assertThat(graph.getDependents(newProduct)).containsOnly(importingTest);
+	}
+
+	@Test
+	public void shouldFollowLongChainsOfDependencies() {
+		JavaClass previous = dependency;
+		for (int i = 0; i < 100000; i++) {
+			JavaClass each = new FakeJavaClass("com.fakeco.Chained" + i);
+			graph.add(each);
+			graph.addDependency(each, previous);
+			previous = each;
+		}
+
+		Set<JavaClass> dependents = graph.findAllDependents(asList(dependency));
+
+		assertThat(dependents).hasSize(100003).contains(previous);
+	}
+
+	@Test
+	public void shouldGrowPastItsInitialCapacity() {
+		for (int i = 0; i < 1000; i++) {
+			JavaClass each = new FakeJavaClass("com.fakeco.Generated" + i);
+			graph.add(each);
+			graph.addDependency(each, dependency);
+		}
+
+		assertEquals(1003, graph.size());
+		assertThat(graph.getDependents(dependency)).hasSize(1001);
+	}
+}
@@ -33,6 +33,8 @@ import static org.junit.Assert.*;
 import static org.mockito.AdditionalMatchers.not;
 import static org.mockito.Mockito.*;
 
+import java.io.*;
+
 import org.infinitest.*;
 import org.infinitest.filter.*;
 import org.infinitest.parser.*;
@@ -40,6 +42,7 @@ import org.junit.*;
 import org.mockito.*;
 
 import com.fakeco.fakeproduct.simple.*;
+import com.google.common.io.*;
 
 public class WhenRunningTests {
   private static EventSupport eventHistory;
@@ -48,7 +51,10 @@ public class WhenRunningTests {
   @BeforeClass
   public static void inContext() throws InterruptedException {
     if (eventHistory == null) {
-      InfinitestCoreBuilder builder = new InfinitestCoreBuilder(fakeEnvironment(), new FakeEventQueue());
+      // The index and the results saved by a previous build would mean no test runs
+      File workingDirectory = Files.createTempDir();
+      RuntimeEnvironment environment = new RuntimeEnvironment(fakeBuildPaths(), workingDirectory, systemClasspath(), currentJavaHome());
+      InfinitestCoreBuilder builder = new InfinitestCoreBuilder(environment, new FakeEventQueue());
       builder.setUpdateSemaphore(mock(ConcurrencyController.class));
 
       TestFilter testFilter = mock(TestFilter.class);
@@ -0,0 +1,99 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+import org.junit.rules.*;
+
+/**
+ * Writes a history of 100,000 runs, then times how long a new session takes
+ * to load it. Run the main method to see the load time once the JVM is warm.
+ */
+public class RunHistorySimulation {
+	private static final int TEST_COUNT = 10000;
+	private static final int RUNS_PER_TEST = 5;
+	// Each run of a test records a run of its only method too
+	private static final int RECORD_COUNT = TEST_COUNT * RUNS_PER_TEST * 2;
+	private static final long LOAD_TARGET = 50;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	public static void main(String[] args) throws IOException {
+		File historyFile = File.createTempFile("history", ".bin");
+		historyFile.deleteOnExit();
+		writeHistory(historyFile);
+		System.out.println(RECORD_COUNT + " runs, " + historyFile.length() + " bytes");
+		for (int i = 0; i < 10; i++) {
+			System.out.println("Loaded in " + load(historyFile) + "ms, target is " + LOAD_TARGET + "ms");
+		}
+	}
+
+	@Test
+	public void canLoad100000RunsQuickly() {
+		File historyFile = new File(temporaryFolder.getRoot(), "history.bin");
+		writeHistory(historyFile);
+
+		// The first load also pays for loading classes and a cold JIT. About
+		// 25ms after that on a single core, leaving room for slow build
+		// machines
+		load(historyFile);
+		assertThat(load(historyFile)).isLessThan(LOAD_TARGET * 4);
+	}
+
+	private static void writeHistory(File historyFile) {
+		RunHistory history = new RunHistory(historyFile);
+		for (int run = 0; run < RUNS_PER_TEST; run++) {
+			for (int test = 0; test < TEST_COUNT; test++) {
+				history.record(testCaseTaking("com.fakeco.fakeproduct.Test" + test, run), run);
+			}
+			history.save();
+		}
+		assertThat(new RunHistory(historyFile).size()).isEqualTo(RECORD_COUNT);
+	}
+
+	private static long load(File historyFile) {
+		long start = System.nanoTime();
+		new RunHistory(historyFile).size();
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	private static TestCaseEvent testCaseTaking(String testName, long duration) {
+		MethodStats stats = new MethodStats("shouldWork");
+		stats.startTime = 1000;
+		stats.stopTime = 1000 + duration;
+		TestResults results = new TestResults();
+		results.addMethodStats(Arrays.asList(stats));
+		return new TestCaseEvent(testName, new Object(), results);
+	}
+}
@@ -28,13 +28,21 @@
 package org.infinitest.testrunner;
 
 import static java.lang.System.*;
+import static java.util.Collections.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.infinitest.EventSupport.*;
+import static org.infinitest.testrunner.RunStatistics.*;
 import static org.junit.Assert.*;
 
+import java.io.*;
+
 import org.junit.*;
+import org.junit.rules.*;
 
 public class WhenCalculatingTestStatistics {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private RunStatistics statistics;
 
   @Before
@@ -60,4 +68,65 @@ public class WhenCalculatingTestStatistics {
 
     assertThat(currentTimeMillis() - statistics.getLastFailureTime("test1")).isLessThan(10l);
   }
+
+  @Test
+  public void shouldProvideMeanDuration() {
+    statistics.testCaseComplete(testCaseTaking("test1", 100));
+    statistics.testCaseComplete(testCaseTaking("test1", 300));
+
+    assertEquals(200, statistics.getMeanDuration("test1"));
+    assertEquals(-1, statistics.getMeanDuration("UnknownTest"));
+  }
+
+  @Test
+  public void shouldReplaceDistancesOfPreviousChanges() {
+    statistics.setDistancesFromChanges(singletonMap("test1", 2));
+    statistics.setDistancesFromChanges(singletonMap("test2", 0));
+
+    assertEquals(UNKNOWN_DISTANCE, statistics.getDistanceFromChanges("test1"));
+    assertEquals(0, statistics.getDistanceFromChanges("test2"));
+  }
+
+  @Test
+  public void shouldReportTestsWhoseDistanceChanged() {
+    statistics.setDistancesFromChanges(singletonMap("test1", 2));
+
+    assertThat(statistics.setDistancesFromChanges(singletonMap("test2", 0))).containsOnly("test1", "test2");
+    assertThat(statistics.setDistancesFromChanges(singletonMap("test2", 0))).isEmpty();
+  }
+
+  @Test
+  public void shouldChangeVersionWhenStatisticsChange() {
+    int version = statistics.getVersion("test1");
+
+    statistics.testCaseComplete(testCaseTaking("test1", 100));
+
+    assertThat(statistics.getVersion("test1")).isNotEqualTo(version);
+  }
+
+  @Test
+  public void shouldRememberStatisticsOfPreviousSessions() {
+    File historyFile = new File(temporaryFolder.getRoot(), "history.bin");
+    statistics.setRunHistory(new RunHistory(historyFile));
+    statistics.testCaseComplete(testCaseTaking("test1", 100));
+    statistics.testCaseComplete(testCaseFailing("test2", "", new Throwable()));
+    statistics.saveRunHistory();
+
+    RunStatistics nextSession = new RunStatistics();
+    nextSession.setRunHistory(new RunHistory(historyFile));
+    nextSession.testCaseComplete(testCaseTaking("test1", 300));
+
+    assertEquals(200, nextSession.getMeanDuration("test1"));
+    assertEquals(statistics.getLastFailureTime("test2"), nextSession.getLastFailureTime("test2"));
+    assertEquals(0, nextSession.getLastFailureTime("UnknownTest"));
+  }
+
+  private static TestCaseEvent testCaseTaking(String testName, long duration) {
+    MethodStats stats = new MethodStats("shouldPass");
+    stats.startTime = 1000;
+    stats.stopTime = 1000 + duration;
+    TestResults results = new TestResults();
+    results.addMethodStats(singletonList(stats));
+    return new TestCaseEvent(testName, new Object(), results);
+  }
 }
@@ -69,25 +69,23 @@ public class WhenCommunicatingWithTestRunnerProcess {
 			public void run() {
 				try {
 					Socket clientSocket = new Socket("127.0.0.1", portNum);
-					ObjectOutputStream ooStream = new ObjectOutputStream(clientSocket.getOutputStream());
-					ObjectInputStream inStream = new ObjectInputStream(clientSocket.getInputStream());
-					assertEquals("hello", inStream.readObject());
-					ooStream.writeObject(new TestResults(testCaseStarting("hello")));
-					assertNull(inStream.readObject());
-					ooStream.writeObject(new TestResults());
+					RunnerProtocol protocol = new RunnerProtocol(clientSocket.getInputStream(), clientSocket.getOutputStream());
+					protocol.writeHeader();
+					protocol.readHeader();
+					assertEquals("hello", protocol.readRequest());
+					protocol.sendResults(new TestResults(testCaseStarting("hello")));
+					assertNull(protocol.readRequest());
 					clientSocket.close();
 				} catch (UnknownHostException e) {
 					e.printStackTrace();
 				} catch (IOException e) {
 					e.printStackTrace();
-				} catch (ClassNotFoundException e) {
-					e.printStackTrace();
 				}
 			}
 		}).start();
 		communicator.openSocket();
 		assertEquals(1, size(communicator.sendMessage("hello")));
-		assertTrue(isEmpty(communicator.sendMessage(null)));
+		communicator.closeSocket();
 	}
 
 	@Test(timeout = 1000)
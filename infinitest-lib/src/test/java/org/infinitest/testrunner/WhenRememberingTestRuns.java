@@ -0,0 +1,171 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner;
+
+import static java.util.Arrays.*;
+import static org.infinitest.testrunner.TestEvent.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+import org.junit.rules.*;
+
+public class WhenRememberingTestRuns {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File historyFile;
+	private RunHistory history;
+
+	@Before
+	public void inContext() {
+		historyFile = new File(temporaryFolder.getRoot(), ".infinitest/history.bin");
+		history = new RunHistory(historyFile);
+	}
+
+	@Test
+	public void shouldNotKnowTestsThatNeverRan() {
+		assertEquals(0, history.getRuns("com.fakeco.ATest"));
+		assertEquals(0, history.getLastFailureTime("com.fakeco.ATest"));
+		assertTrue(history.getLastMethodStats().isEmpty());
+	}
+
+	@Test
+	public void shouldRestoreRunsOfAPreviousSession() {
+		history.record(passing("com.fakeco.ATest", 100), 1000);
+		history.record(failing("com.fakeco.ATest", 50), 2000);
+		history.record(passing("com.fakeco.ATest", 300), 3000);
+		history.save();
+
+		RunHistory nextSession = new RunHistory(historyFile);
+
+		assertEquals(3, nextSession.getRuns("com.fakeco.ATest"));
+		assertEquals(450, nextSession.getTotalDuration("com.fakeco.ATest"));
+		assertEquals(2000, nextSession.getLastFailureTime("com.fakeco.ATest"));
+	}
+
+	@Test
+	public void shouldRestoreTheLastDurationOfEachMethod() {
+		history.record(passing("com.fakeco.ATest", 100), 1000);
+		history.record(passing("com.fakeco.ATest", 300), 2000);
+		history.save();
+
+		List<MethodStats> methodStats = new RunHistory(historyFile).getLastMethodStats().get("com.fakeco.ATest");
+
+		assertEquals(1, methodStats.size());
+		assertEquals("shouldPass", methodStats.get(0).methodName);
+		assertEquals(300, methodStats.get(0).duration());
+	}
+
+	@Test
+	public void shouldOnlyWriteRunsWhenSaved() {
+		history.record(passing("com.fakeco.ATest", 100), 1000);
+
+		assertFalse(historyFile.exists());
+		assertEquals(1, history.getRuns("com.fakeco.ATest"));
+
+		history.save();
+		history.record(passing("com.fakeco.ATest", 300), 2000);
+
+		assertEquals(1, new RunHistory(historyFile).getRuns("com.fakeco.ATest"));
+	}
+
+	@Test
+	public void shouldIgnoreARunCutShortByACrash() throws IOException {
+		history.record(passing("com.fakeco.ATest", 100), 1000);
+		history.save();
+		appendBytes(2, 0, 0);
+
+		RunHistory nextSession = new RunHistory(historyFile);
+		nextSession.record(passing("com.fakeco.ATest", 300), 2000);
+		nextSession.save();
+
+		assertEquals(2, new RunHistory(historyFile).getRuns("com.fakeco.ATest"));
+	}
+
+	@Test
+	public void shouldStartOverWhenTheHistoryIsCorrupt() throws IOException {
+		historyFile.getParentFile().mkdirs();
+		appendBytes(1, 2, 3);
+
+		RunHistory nextSession = new RunHistory(historyFile);
+		nextSession.record(passing("com.fakeco.ATest", 100), 1000);
+		nextSession.save();
+
+		assertEquals(1, new RunHistory(historyFile).getRuns("com.fakeco.ATest"));
+	}
+
+	@Test
+	public void shouldOnlyKeepTheLatestRunsWhenCompacting() {
+		for (int i = 0; i < (RunHistory.RUNS_KEPT + 2); i++) {
+			history.record(passing("com.fakeco.ATest", i), i);
+		}
+		history.record(passing("com.fakeco.AnotherTest", 10), 100);
+
+		history.compact();
+		RunHistory nextSession = new RunHistory(historyFile);
+
+		assertEquals(RunHistory.RUNS_KEPT, nextSession.getRuns("com.fakeco.ATest"));
+		assertEquals(1, nextSession.getRuns("com.fakeco.AnotherTest"));
+		assertEquals(2 * (RunHistory.RUNS_KEPT + 1), nextSession.size());
+		assertEquals(RunHistory.RUNS_KEPT + 1, nextSession.getLastMethodStats().get("com.fakeco.ATest").get(0).duration());
+	}
+
+	private void appendBytes(int... values) throws IOException {
+		FileOutputStream out = new FileOutputStream(historyFile, true);
+		for (int each : values) {
+			out.write(each);
+		}
+		out.close();
+	}
+
+	private static TestCaseEvent passing(String testName, long duration) {
+		return new TestCaseEvent(testName, new Object(), resultsTaking(duration));
+	}
+
+	private static TestCaseEvent failing(String testName, long duration) {
+		TestResults results = new TestResults(methodFailed(testName, "shouldPass", new AssertionError()));
+		results.addMethodStats(methodStatsTaking(duration));
+		return new TestCaseEvent(testName, new Object(), results);
+	}
+
+	private static TestResults resultsTaking(long duration) {
+		TestResults results = new TestResults();
+		results.addMethodStats(methodStatsTaking(duration));
+		return results;
+	}
+
+	private static List<MethodStats> methodStatsTaking(long duration) {
+		MethodStats stats = new MethodStats("shouldPass");
+		stats.startTime = 1000;
+		stats.stopTime = 1000 + duration;
+		return asList(stats);
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.cache;
+
+import static java.util.Arrays.*;
+import static org.infinitest.testrunner.TestEvent.*;
+import static org.infinitest.util.FakeEnvironments.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.infinitest.*;
+import org.infinitest.testrunner.*;
+import org.junit.*;
+
+public class WhenCachingTestResults {
+	private static final String TEST_NAME = "com.fakeco.ATest";
+
+	private MemoryResultStore store;
+	private ResultCache cache;
+
+	@Before
+	public void inContext() {
+		store = new MemoryResultStore(10);
+		cache = new ResultCache(store);
+	}
+
+	@Test
+	public void shouldMissResultsOfATestThatNeverRan() {
+		assertNull(cache.lookup(TEST_NAME, "a1b2"));
+	}
+
+	@Test
+	public void shouldReuseResultsOfAPassingTest() {
+		cache.lookup(TEST_NAME, "a1b2");
+		run(passingResults());
+
+		TestResults results = cache.lookup(TEST_NAME, "a1b2");
+
+		assertNotNull(results);
+		assertFalse(results.iterator().hasNext());
+		assertEquals("shouldPass", results.getMethodStats().iterator().next().methodName);
+	}
+
+	@Test
+	public void shouldSaveResultsUnderTheFingerprintTheTestStartedWith() {
+		cache.lookup(TEST_NAME, "a1b2");
+		cache.testCaseStarting(testCaseStarting(TEST_NAME));
+		cache.lookup(TEST_NAME, "c3d4");
+		cache.testCaseComplete(new TestCaseEvent(TEST_NAME, this, passingResults()));
+
+		assertNull(cache.lookup(TEST_NAME, "c3d4"));
+		assertNotNull(cache.lookup(TEST_NAME, "a1b2"));
+	}
+
+	@Test
+	public void shouldNotSaveResultsOfARunQueuedBeforeAHit() {
+		cache.lookup(TEST_NAME, "a1b2");
+		run(passingResults());
+		cache.lookup(TEST_NAME, "c3d4");
+		cache.lookup(TEST_NAME, "a1b2");
+		run(passingResults());
+
+		assertNull(cache.lookup(TEST_NAME, "c3d4"));
+	}
+
+	@Test
+	public void shouldNotReuseResultsOfAnotherFingerprint() {
+		cache.lookup(TEST_NAME, "a1b2");
+		run(passingResults());
+
+		assertNull(cache.lookup(TEST_NAME, "c3d4"));
+	}
+
+	@Test
+	public void shouldNeverCacheFailures() {
+		cache.lookup(TEST_NAME, "a1b2");
+		TestEvent failure = methodFailed("message", TEST_NAME, "shouldPass", new AssertionError());
+		run(new TestResults(failure));
+
+		assertNull(cache.lookup(TEST_NAME, "a1b2"));
+	}
+
+	@Test
+	public void shouldOnlySaveResultsOfTestsThatWereLookedUp() {
+		run(passingResults());
+
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	public void shouldNotCacheTestsWithoutAFingerprint() {
+		assertNull(cache.lookup(TEST_NAME, null));
+		run(passingResults());
+
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	public void shouldNotShareResultsBetweenEnvironmentsWithDifferentLibraries() {
+		cache.setRuntimeEnvironment(environmentWithLibraries("junit-4.11.jar"));
+		cache.lookup(TEST_NAME, "a1b2");
+		run(passingResults());
+
+		cache.setRuntimeEnvironment(environmentWithLibraries("junit-4.12.jar"));
+
+		assertNull(cache.lookup(TEST_NAME, "a1b2"));
+	}
+
+	@Test
+	public void shouldShareResultsBetweenEnvironmentsWithTheSameLibrariesInOtherPlaces() {
+		cache.setRuntimeEnvironment(environmentWithLibraries("/home/alice/repository/junit-4.12.jar"));
+		cache.lookup(TEST_NAME, "a1b2");
+		run(passingResults());
+
+		cache.setRuntimeEnvironment(environmentWithLibraries("/home/bob/repository/junit-4.12.jar"));
+
+		assertNotNull(cache.lookup(TEST_NAME, "a1b2"));
+	}
+
+	@Test
+	public void shouldNotShareResultsBetweenEnvironmentsWithDifferentVMArguments() {
+		cache.setRuntimeEnvironment(environmentWithLibraries("junit-4.12.jar"));
+		cache.lookup(TEST_NAME, "a1b2");
+		run(passingResults());
+
+		RuntimeEnvironment environmentWithProperty = environmentWithLibraries("junit-4.12.jar");
+		environmentWithProperty.addVMArgs(asList("-Dmode=test"));
+		cache.setRuntimeEnvironment(environmentWithProperty);
+
+		assertNull(cache.lookup(TEST_NAME, "a1b2"));
+	}
+
+	@Test
+	public void shouldNotShareResultsBetweenDifferentContentsOfTheSameLibraries() {
+		cache.setRuntimeEnvironment(environmentWithLibraries("module-1.0-SNAPSHOT.jar"));
+		cache.setLibraryContentHash("e5f6");
+		cache.lookup(TEST_NAME, "a1b2");
+		run(passingResults());
+
+		cache.setLibraryContentHash("a7b8");
+
+		assertNull(cache.lookup(TEST_NAME, "a1b2"));
+	}
+
+	@Test
+	public void shouldForgetLeastRecentlyUsedResultsInMemory() {
+		MemoryResultStore smallStore = new MemoryResultStore(2);
+		smallStore.save("first", passingResults());
+		smallStore.save("second", passingResults());
+		smallStore.load("first");
+
+		smallStore.save("third", passingResults());
+
+		assertNotNull(smallStore.load("first"));
+		assertNull(smallStore.load("second"));
+	}
+
+	@Test
+	public void shouldCopyResultsFoundInASlowerStoreToTheFasterOnes() {
+		MemoryResultStore fastStore = new MemoryResultStore(10);
+		MemoryResultStore slowStore = new MemoryResultStore(10);
+		slowStore.save("a1b2", passingResults());
+
+		assertNotNull(new LayeredResultStore(fastStore, slowStore).load("a1b2"));
+		assertNotNull(fastStore.load("a1b2"));
+	}
+
+	@Test
+	public void shouldSaveResultsToEveryLayer() {
+		MemoryResultStore fastStore = new MemoryResultStore(10);
+		MemoryResultStore slowStore = new MemoryResultStore(10);
+
+		new LayeredResultStore(fastStore, slowStore).save("a1b2", passingResults());
+
+		assertNotNull(fastStore.load("a1b2"));
+		assertNotNull(slowStore.load("a1b2"));
+	}
+
+	@Test
+	public void shouldNotWaitForTheSharedStore() throws Exception {
+		final CountDownLatch answer = new CountDownLatch(1);
+		ResultStore sharedStore = new MemoryResultStore(10) {
+			@Override
+			public TestResults load(String fingerprint) {
+				try {
+					answer.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return passingResults();
+			}
+		};
+		cache = new ResultCache(store, sharedStore);
+
+		try {
+			assertNull(cache.lookup(TEST_NAME, "a1b2"));
+		} finally {
+			answer.countDown();
+		}
+
+		waitUntilSaved(store);
+		assertNotNull(cache.lookup(TEST_NAME, "a1b2"));
+	}
+
+	@Test
+	public void shouldSaveResultsToTheSharedStoreInTheBackground() throws Exception {
+		MemoryResultStore sharedStore = new MemoryResultStore(10);
+		cache = new ResultCache(store, sharedStore);
+
+		cache.lookup(TEST_NAME, "a1b2");
+		run(passingResults());
+
+		waitUntilSaved(sharedStore);
+		assertEquals(1, store.size());
+	}
+
+	private static void waitUntilSaved(MemoryResultStore store) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 5000;
+		while ((store.size() == 0) && (System.currentTimeMillis() < timeout)) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, store.size());
+	}
+
+	private void run(TestResults results) {
+		cache.testCaseStarting(testCaseStarting(TEST_NAME));
+		cache.testCaseComplete(new TestCaseEvent(TEST_NAME, this, results));
+	}
+
+	static TestResults passingResults() {
+		MethodStats stats = new MethodStats("shouldPass");
+		stats.startTime = 100;
+		stats.stopTime = 150;
+		TestResults results = new TestResults();
+		results.addMethodStats(asList(stats));
+		return results;
+	}
+
+	private RuntimeEnvironment environmentWithLibraries(String libraries) {
+		return new RuntimeEnvironment(fakeBuildPaths(), new File("."), libraries, currentJavaHome());
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.cache;
+
+import static org.infinitest.testrunner.cache.WhenCachingTestResults.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.google.common.io.*;
+import com.sun.net.httpserver.*;
+
+public class WhenSharingResultsOverHttp {
+	private HttpServer server;
+	private Map<String, byte[]> entries;
+	private String baseUrl;
+
+	@Before
+	public void inContext() throws IOException {
+		entries = new ConcurrentHashMap<String, byte[]>();
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/cache", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String key = exchange.getRequestURI().getPath().substring("/cache/".length());
+				if ("PUT".equals(exchange.getRequestMethod())) {
+					entries.put(key, ByteStreams.toByteArray(exchange.getRequestBody()));
+					exchange.sendResponseHeaders(201, -1);
+				} else if (entries.containsKey(key)) {
+					byte[] body = entries.get(key);
+					exchange.sendResponseHeaders(200, body.length);
+					exchange.getResponseBody().write(body);
+				} else {
+					exchange.sendResponseHeaders(404, -1);
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort() + "/cache";
+	}
+
+	@After
+	public void cleanup() {
+		server.stop(0);
+	}
+
+	@Test
+	public void shouldShareSavedResults() {
+		new HttpResultStore(baseUrl).save("a1b2", passingResults());
+
+		assertTrue(entries.containsKey("a1b2"));
+		assertNotNull(new HttpResultStore(baseUrl).load("a1b2"));
+	}
+
+	@Test
+	public void shouldMissResultsTheServerDoesNotHave() {
+		assertNull(new HttpResultStore(baseUrl).load("a1b2"));
+	}
+
+	@Test
+	public void shouldTreatAnUnreachableServerAsAMiss() {
+		HttpResultStore store = new HttpResultStore(baseUrl);
+		server.stop(0);
+
+		assertNull(store.load("a1b2"));
+		store.save("a1b2", passingResults());
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.cache;
+
+import static org.infinitest.testrunner.cache.WhenCachingTestResults.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.infinitest.testrunner.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+import com.google.common.io.*;
+
+public class WhenStoringResultsInADirectory {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File directory;
+	private DirectoryResultStore store;
+
+	@Before
+	public void inContext() throws IOException {
+		directory = new File(temporaryFolder.getRoot(), "results");
+		store = new DirectoryResultStore(directory, 2);
+	}
+
+	@Test
+	public void shouldRestoreSavedResults() {
+		store.save("a1b2", passingResults());
+
+		TestResults results = new DirectoryResultStore(directory, 2).load("a1b2");
+
+		MethodStats stats = results.getMethodStats().iterator().next();
+		assertEquals("shouldPass", stats.methodName);
+		assertEquals(50, stats.duration());
+	}
+
+	@Test
+	public void shouldMissResultsThatWereNeverSaved() {
+		assertNull(store.load("a1b2"));
+	}
+
+	@Test
+	public void shouldIgnoreAndDeleteCorruptResults() throws IOException {
+		directory.mkdirs();
+		File file = store.fileFor("a1b2");
+		Files.write(new byte[] { 1, 2, 3 }, file);
+
+		assertNull(store.load("a1b2"));
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void shouldRemoveLeastRecentlyUsedResults() {
+		store.save("first", passingResults());
+		store.save("second", passingResults());
+		store.save("third", passingResults());
+		store.fileFor("first").setLastModified(1000);
+		store.fileFor("second").setLastModified(3000);
+		store.fileFor("third").setLastModified(2000);
+
+		store.removeLeastRecentlyUsed();
+
+		assertFalse(store.fileFor("first").exists());
+		assertTrue(store.fileFor("second").exists());
+		assertTrue(store.fileFor("third").exists());
+	}
+}
@@ -52,6 +52,21 @@ public class NativeConnectionFactoryTest {
 		assertEquals(FAILING_EVENT, getOnlyElement(results));
 	}
 
+	@Test
+	public void shouldKeepProcessBetweenRunsWhenReloadingClasses() throws Exception {
+		NativeConnectionFactory manager = new NativeConnectionFactory(FailingRunner.class, true);
+		NativeProcessConnection connection = manager.getConnection(fakeEnvironment(), new NoOpOutputHandler());
+		try {
+			connection.runTest("testName");
+			assertTrue(connection.endRun());
+
+			assertEquals(FAILING_EVENT, getOnlyElement(connection.runTest("testName")));
+			assertTrue(connection.isRunning());
+		} finally {
+			connection.close();
+		}
+	}
+
 	@Test
 	public void canStopTestRun() throws Exception {
 		final SynchronousQueue<String> testQueue = new SynchronousQueue<String>();
@@ -62,30 +62,25 @@ public class WhenCreatingRunnerProcessConnection {
 		assertEquals("World", events.get(1).getTestName());
 	}
 
-	private List<TestEvent> sendMessageWithServerSocket(String input) throws UnknownHostException, IOException, ClassNotFoundException {
+	private List<TestEvent> sendMessageWithServerSocket(String input) throws UnknownHostException, IOException {
 		return sendMessageWithServerSocket(new String[] { input });
 	}
 
-	private List<TestEvent> sendMessageWithServerSocket(String... messages) throws UnknownHostException, IOException, ClassNotFoundException {
+	private List<TestEvent> sendMessageWithServerSocket(String... messages) throws UnknownHostException, IOException {
 		ServerSocket serverSocket = new ServerSocket(0);
 		try {
 			factory.startProcess(serverSocket.getLocalPort(), fakeEnvironment());
 			Socket socket = serverSocket.accept();
-			ObjectInputStream inStream = new ObjectInputStream(socket.getInputStream());
-			ObjectOutputStream outStream = new ObjectOutputStream(socket.getOutputStream());
+			RunnerProtocol protocol = new RunnerProtocol(socket.getInputStream(), socket.getOutputStream());
+			protocol.writeHeader();
+			protocol.readHeader();
 			List<TestEvent> results = Lists.newArrayList();
-			TestResults result = null;
-			int i = 0;
-			do {
-				outStream.writeObject(messages[i++]);
-				result = (TestResults) inStream.readObject();
-				if (result != null) {
-					addAll(results, result);
-				}
-			} while (i < messages.length);
-			outStream.writeObject(null);
-			inStream.close();
-			outStream.close();
+			for (String each : messages) {
+				protocol.sendTestName(each);
+				addAll(results, protocol.readResults());
+			}
+			protocol.sendClose();
+			protocol.close();
 			socket.close();
 			return results;
 		} finally {
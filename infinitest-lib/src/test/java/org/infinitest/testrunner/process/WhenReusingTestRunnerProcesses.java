@@ -0,0 +1,159 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.process;
+
+import static org.infinitest.util.FakeEnvironments.*;
+import static org.infinitest.util.InfinitestGlobalSettings.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import org.infinitest.*;
+import org.junit.*;
+
+public class WhenReusingTestRunnerProcesses {
+	private ProcessConnectionFactory singleRunFactory;
+	private ProcessConnectionFactory reloadingFactory;
+	private NativeProcessConnection process;
+	private ReusableConnectionFactory factory;
+	private RuntimeEnvironment environment;
+
+	@Before
+	public void inContext() throws Exception {
+		singleRunFactory = mock(ProcessConnectionFactory.class);
+		reloadingFactory = mock(ProcessConnectionFactory.class);
+		process = mock(NativeProcessConnection.class);
+		when(process.endRun()).thenReturn(true);
+		when(process.isRunning()).thenReturn(true);
+		when(reloadingFactory.getConnection(any(RuntimeEnvironment.class), any(OutputStreamHandler.class))).thenReturn(process);
+		factory = new ReusableConnectionFactory(singleRunFactory, reloadingFactory, 3);
+		environment = fakeEnvironment();
+		setTestRunnerReused(true);
+	}
+
+	@After
+	public void cleanup() {
+		resetToDefaults();
+	}
+
+	@Test
+	public void shouldStartANewProcessForEachRunByDefault() throws Exception {
+		setTestRunnerReused(false);
+
+		factory.getConnection(environment, new NoOpOutputHandler()).close();
+		factory.getConnection(environment, new NoOpOutputHandler()).close();
+
+		verify(singleRunFactory, times(2)).getConnection(eq(environment), any(OutputStreamHandler.class));
+		verifyZeroInteractions(reloadingFactory);
+	}
+
+	@Test
+	public void shouldReuseProcessOfPreviousRun() throws Exception {
+		ProcessConnection first = factory.getConnection(environment, new NoOpOutputHandler());
+		first.close();
+		ProcessConnection second = factory.getConnection(environment, new NoOpOutputHandler());
+
+		assertSame(first, second);
+		verify(reloadingFactory, times(1)).getConnection(eq(environment), any(OutputStreamHandler.class));
+		verify(process, never()).close();
+	}
+
+	@Test
+	public void shouldNotReuseProcessForAnotherEnvironment() throws Exception {
+		factory.getConnection(environment, new NoOpOutputHandler()).close();
+
+		RuntimeEnvironment otherEnvironment = new RuntimeEnvironment(fakeBuildPaths(), fakeWorkingDirectory(), "otherClasspath", currentJavaHome());
+		factory.getConnection(otherEnvironment, new NoOpOutputHandler());
+
+		verify(reloadingFactory).getConnection(eq(otherEnvironment), any(OutputStreamHandler.class));
+	}
+
+	@Test
+	public void shouldStopIdleProcessOfAnotherEnvironment() throws Exception {
+		factory.getConnection(environment, new NoOpOutputHandler()).close();
+
+		RuntimeEnvironment otherEnvironment = new RuntimeEnvironment(fakeBuildPaths(), fakeWorkingDirectory(), "otherClasspath", currentJavaHome());
+		factory.getConnection(otherEnvironment, new NoOpOutputHandler());
+
+		verify(process).close();
+		assertEquals(0, factory.idleConnectionCount());
+	}
+
+	@Test
+	public void shouldKeepNoMoreIdleProcessesThanAllowed() throws Exception {
+		factory = new ReusableConnectionFactory(singleRunFactory, reloadingFactory, 3, 1);
+		ProcessConnection first = factory.getConnection(environment, new NoOpOutputHandler());
+		ProcessConnection second = factory.getConnection(environment, new NoOpOutputHandler());
+
+		first.close();
+		second.close();
+
+		assertEquals(1, factory.idleConnectionCount());
+		verify(process).close();
+	}
+
+	@Test
+	public void shouldStopProcessThatCannotBeReused() throws Exception {
+		when(process.endRun()).thenReturn(false);
+
+		factory.getConnection(environment, new NoOpOutputHandler()).close();
+
+		verify(process).close();
+		assertEquals(0, factory.idleConnectionCount());
+	}
+
+	@Test
+	public void shouldStopAbortedProcess() throws Exception {
+		ProcessConnection connection = factory.getConnection(environment, new NoOpOutputHandler());
+		connection.abort();
+		connection.close();
+
+		verify(process, never()).endRun();
+		verify(process).close();
+	}
+
+	@Test
+	public void shouldRetireProcessAfterMaximumNumberOfRuns() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			factory.getConnection(environment, new NoOpOutputHandler()).close();
+		}
+
+		verify(process, times(2)).endRun();
+		verify(process).close();
+	}
+
+	@Test
+	public void shouldStopIdleProcessesWhenNoLongerReused() throws Exception {
+		factory.getConnection(environment, new NoOpOutputHandler()).close();
+
+		setTestRunnerReused(false);
+		factory.getConnection(environment, new NoOpOutputHandler());
+
+		verify(process).close();
+	}
+}
@@ -35,8 +35,10 @@ import static org.mockito.Mockito.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.infinitest.*;
+import org.infinitest.testrunner.*;
 import org.junit.*;
 
 public class ProcessorRunnableTest {
@@ -72,8 +74,113 @@ public class ProcessorRunnableTest {
 		QueueProcessor processor = mock(QueueProcessor.class);
 		doThrow(new QueueDispatchException(new Throwable())).when(processor).process("test1");
 
-		ProcessorRunnable runnable = new ProcessorRunnable(testQueue, processor, null, 1, mock(ConcurrencyController.class));
+		ProcessorRunnable runnable = new ProcessorRunnable(testQueue, processor, new RunnerEventSupport(this), 1, mock(ConcurrencyController.class));
 		runnable.run();
 		assertEquals("test1", getOnlyElement(testQueue));
 	}
+
+	@Test
+	public void shouldShareQueueWithAdditionalWorkersWhenPermitsAreAvailable() {
+		Queue<String> testQueue = new LinkedBlockingQueue<String>(asList("test1", "test2", "test3", "test4"));
+		RecordingProcessor processor = new RecordingProcessor();
+		MultiCoreConcurrencyController controller = new MultiCoreConcurrencyController(3, 3);
+
+		ProcessorRunnable runnable = new ProcessorRunnable(testQueue, processor, new RunnerEventSupport(this), 4, controller, processor);
+		runnable.run();
+
+		assertTrue(testQueue.isEmpty());
+		assertEquals(4, processor.processed.size());
+		assertEquals(3, processor.threads.size());
+		assertEquals(3, processor.closeCount);
+		assertEquals(3, controller.availablePermits());
+	}
+
+	@Test
+	public void shouldNotStartAdditionalWorkersWithoutSparePermits() {
+		Queue<String> testQueue = new LinkedBlockingQueue<String>(asList("test1", "test2"));
+		RecordingProcessor processor = new RecordingProcessor();
+
+		ProcessorRunnable runnable = new ProcessorRunnable(testQueue, processor, new RunnerEventSupport(this), 2, new SingleLockConcurrencyController(), processor);
+		runnable.run();
+
+		assertEquals(asList("test1", "test2"), processor.processed);
+		assertEquals(1, processor.threads.size());
+	}
+
+	@Test
+	public void shouldRunTestsMergedIntoTheRun() {
+		Queue<String> testQueue = new LinkedBlockingQueue<String>(asList("test1"));
+		final List<String> processed = newArrayList();
+		final ProcessorRunnable[] runnable = new ProcessorRunnable[1];
+		QueueProcessor processor = new RecordingProcessor() {
+			@Override
+			public void process(String test) {
+				if (processed.isEmpty()) {
+					assertTrue(runnable[0].merge(asList("test2", "test3")));
+				}
+				processed.add(test);
+			}
+		};
+		runnable[0] = new ProcessorRunnable(testQueue, processor, new RunnerEventSupport(this), 1, new SingleLockConcurrencyController());
+
+		runnable[0].run();
+
+		assertEquals(asList("test1", "test2", "test3"), processed);
+		assertEquals(3, runnable[0].getInitialSize());
+	}
+
+	@Test
+	public void shouldCancelRunningTestsThatAreMergedAgain() {
+		Queue<String> testQueue = newLinkedList(asList("test1"));
+		QueueProcessor processor = mock(QueueProcessor.class);
+		ProcessorRunnable runnable = new ProcessorRunnable(testQueue, processor, new RunnerEventSupport(this), 1, mock(ConcurrencyController.class));
+
+		runnable.merge(asList("test1", "test2"));
+
+		verify(processor).cancelIfRunning(asList("test1", "test2"));
+	}
+
+	@Test
+	public void shouldNotTakeTestsOnceTheRunIsOver() {
+		Queue<String> testQueue = newLinkedList(asList("test1"));
+		ProcessorRunnable runnable = new ProcessorRunnable(testQueue, mock(QueueProcessor.class), new RunnerEventSupport(this), 1, mock(ConcurrencyController.class));
+		runnable.run();
+
+		assertFalse(runnable.merge(asList("test2")));
+		assertTrue(testQueue.isEmpty());
+	}
+
+	private static class RecordingProcessor implements QueueProcessor, QueueProcessorFactory {
+		final List<String> processed = new CopyOnWriteArrayList<String>();
+		final Set<Thread> threads = new CopyOnWriteArraySet<Thread>();
+		int closeCount;
+
+		@Override
+		public QueueProcessor createQueueProcessor() {
+			return this;
+		}
+
+		@Override
+		public void process(String test) throws InterruptedException {
+			threads.add(Thread.currentThread());
+			// Long enough for the other workers to pick up a test
+			Thread.sleep(50);
+			processed.add(test);
+		}
+
+		@Override
+		public synchronized void close() {
+			closeCount++;
+		}
+
+		@Override
+		public void cancelIfRunning(Collection<String> testNames) {
+			// Tests are too short to cancel
+		}
+
+		@Override
+		public void cleanup() {
+			// Nothing to clean
+		}
+	}
 }
@@ -30,7 +30,6 @@ package org.infinitest.testrunner.queue;
 import static com.google.common.collect.Iterables.*;
 import static com.google.common.collect.Lists.*;
 import static java.util.Arrays.*;
-import static java.util.Collections.*;
 import static java.util.concurrent.TimeUnit.*;
 import static org.junit.Assert.*;
 
@@ -104,99 +103,117 @@ public class QueueConsumerTest {
 	}
 
 	@Test
-	public void shouldForceCleanIfInterruptFails() throws Exception {
+	public void shouldMergeTestsIntoTheRunningRun() throws Exception {
+		processSemaphore = new Semaphore(1);
+		processSemaphore.acquire();
+		queue.push(asList("test1"));
+		assertEquals("Starting test1", poll());
+
+		queue.push(asList("test2"));
+		processSemaphore.release();
+		assertEquals("Finished test1", poll());
+		assertEquals("Starting test2", poll());
+		assertEquals("Finished test2", poll());
+
+		assertEquals("Closed", poll());
+		List<String> added = newArrayList();
+		for (TestQueueEvent each : queueUpdates.subList(1, queueUpdates.size())) {
+			added.addAll(each.getAdded());
+		}
+		assertEquals(asList("test2"), added);
+		assertEquals(2, getLast(queueUpdates).getInitialSize());
+	}
+
+	@Test
+	public void shouldCancelRunningTestWhenItIsPushedAgain() throws Exception {
 		queue = new QueueConsumer(runnerEvents, new LinkedList<String>(), 50) {
 			@Override
 			protected QueueProcessor createQueueProcessor() {
-				return new ProcessorThatHangsUntilCleaned();
+				return new ProcessorThatHangsUntilCancelled();
 			}
 		};
 
 		queue.push(asList("test1"));
 		assertEquals("Starting test1", poll());
 
-		queue.push(asList("test2"));
-		assertEquals("Cleaned", poll());
-
+		queue.push(asList("test1", "test2"));
+		assertEquals("Cancelled test1", poll());
+		assertEquals("Starting test1", poll());
+		assertEquals("Finished test1", poll());
 		assertEquals("Starting test2", poll());
+		assertEquals("Finished test2", poll());
 	}
 
 	@Test
-	public void shouldInterruptProcessorWhenAddingToQueue() throws Exception {
-		processSemaphore = new Semaphore(1);
-		processSemaphore.acquire();
+	public void shouldStartNewRunOnceTheRunIsOver() throws Exception {
 		queue.push(asList("test1"));
 		assertEquals("Starting test1", poll());
+		assertEquals("Finished test1", poll());
+		assertEquals("Closed", poll());
 
 		queue.push(asList("test2"));
-		assertEquals("Cleaned", poll());
-		assertEquals("Closed", poll());
 		assertEquals("Starting test2", poll());
-		processSemaphore.release();
 		assertEquals("Finished test2", poll());
-		assertEquals("Starting test1", poll());
-		assertEquals("Finished test1", poll());
-
 		assertEquals("Closed", poll());
 	}
 
 	private void assertQueueEventsFired() {
 		TestQueueEvent firstEvent = get(queueUpdates, 0);
-		assertEquals(firstEvent.getTestQueue(), asList("test1", "test2"));
-		assertEquals(firstEvent.getInitialSize(), 2);
+		assertTrue(firstEvent.isSnapshot());
+		assertEquals(asList("test1", "test2"), firstEvent.getAdded());
+		assertEquals(2, firstEvent.getInitialSize());
 
-		TestQueueEvent secondEvent = get(queueUpdates, 1);
-		assertEquals(secondEvent.getTestQueue(), asList("test2"));
-		assertEquals(secondEvent.getInitialSize(), 2);
+		List<String> started = newArrayList();
+		for (TestQueueEvent each : queueUpdates.subList(1, queueUpdates.size())) {
+			assertFalse(each.isSnapshot());
+			started.addAll(each.getStarted());
+		}
+		assertEquals(asList("test1", "test2"), started);
 
-		TestQueueEvent thirdEvent = get(queueUpdates, 2);
-		assertEquals(thirdEvent.getTestQueue(), emptyList());
+		TestQueueEvent lastEvent = getLast(queueUpdates);
+		assertEquals(0, lastEvent.getQueueSize());
+		assertEquals(2, lastEvent.getInitialSize());
 	}
 
 	private String poll() throws InterruptedException {
 		return events.poll(1000, MILLISECONDS);
 	}
 
-	private class ProcessorThatHangsUntilCleaned implements QueueProcessor {
-		private boolean cleaned;
+	private class ProcessorThatHangsUntilCancelled implements QueueProcessor {
+		private final Set<String> cancelled = new HashSet<String>();
 
 		@Override
-		public synchronized void cleanup() {
-			cleaned = true;
-			try {
-				if (Thread.interrupted()) {
-					events.put("Interrupted");
+		public void process(String test) throws InterruptedException {
+			boolean firstRun = !isCancelled(test);
+			events.put("Starting " + test);
+			if (firstRun) {
+				synchronized (this) {
+					while (!cancelled.contains(test)) {
+						wait();
+					}
 				}
-				events.put("Cleaned");
-				notify();
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
+				events.put("Cancelled " + test);
+			} else {
+				events.put("Finished " + test);
 			}
 		}
 
+		private synchronized boolean isCancelled(String test) {
+			return cancelled.contains(test);
+		}
+
+		@Override
+		public synchronized void cancelIfRunning(Collection<String> testNames) {
+			cancelled.addAll(testNames);
+			notifyAll();
+		}
+
 		@Override
 		public void close() {
-			try {
-				if (Thread.interrupted()) {
-					events.put("Interrupted");
-				}
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
-			}
 		}
 
 		@Override
-		public void process(String test) throws InterruptedException {
-			if (Thread.interrupted()) {
-				events.put("Interrupted");
-			}
-			events.put("Starting " + test);
-			synchronized (this) {
-				while (!cleaned) {
-					wait();
-				}
-			}
-			throw new TestRunAborted(test, new NullPointerException());
+		public void cleanup() {
 		}
 	}
 
@@ -222,6 +239,11 @@ public class QueueConsumerTest {
 			}
 		}
 
+		@Override
+		public void cancelIfRunning(Collection<String> testNames) {
+			// Lets its tests finish
+		}
+
 		@Override
 		public void cleanup() {
 			try {
@@ -0,0 +1,104 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.queue;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+/**
+ * Queues 10,000 tests, queues them all again, then takes them all, with
+ * {@link TestQueue} and with the priority queue it replaced. Run the main
+ * method to compare both.
+ */
+public class TestQueueSimulation {
+	private static final int TEST_COUNT = 10000;
+
+	private final List<String> testNames = testNames();
+	private final Comparator<String> priority = new Comparator<String>() {
+		@Override
+		public int compare(String first, String second) {
+			return first.compareTo(second);
+		}
+	};
+
+	public static void main(String[] args) {
+		TestQueueSimulation simulation = new TestQueueSimulation();
+		for (int i = 0; i < 3; i++) {
+			System.out.println("TestQueue: " + simulation.fill(new TestQueue(simulation.priority)) + "ms");
+			System.out.println("PriorityBlockingQueue with contains: " + simulation.fill(new ScanningQueue(simulation.priority)) + "ms");
+		}
+	}
+
+	@Test
+	public void canQueue10000TestsQuickly() {
+		// Tens of milliseconds on a laptop, against more than a second for the
+		// old queue
+		assertThat(fill(new TestQueue(priority))).isLessThan(1000L);
+	}
+
+	private long fill(Queue<String> queue) {
+		long start = System.currentTimeMillis();
+		queue.addAll(testNames);
+		queue.addAll(testNames);
+		String previous = "";
+		String each;
+		while ((each = queue.poll()) != null) {
+			assertThat(each).isGreaterThan(previous);
+			previous = each;
+		}
+		return System.currentTimeMillis() - start;
+	}
+
+	private static List<String> testNames() {
+		List<String> testNames = new ArrayList<String>();
+		for (int i = 0; i < TEST_COUNT; i++) {
+			testNames.add("com.fakeco.fakeproduct.Test" + ((i * 7919) % TEST_COUNT));
+		}
+		return testNames;
+	}
+
+	private static class ScanningQueue extends PriorityBlockingQueue<String> {
+		private static final long serialVersionUID = -1L;
+
+		ScanningQueue(Comparator<String> comparator) {
+			super(11, comparator);
+		}
+
+		@Override
+		public boolean add(String testName) {
+			if (!contains(testName)) {
+				return super.add(testName);
+			}
+			return false;
+		}
+	}
+}
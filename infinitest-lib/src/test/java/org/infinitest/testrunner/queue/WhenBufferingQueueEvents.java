@@ -0,0 +1,122 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner.queue;
+
+import static com.google.common.collect.Iterables.*;
+import static java.util.Arrays.*;
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.infinitest.*;
+import org.infinitest.testrunner.*;
+import org.junit.*;
+
+public class WhenBufferingQueueEvents {
+	private static final long NEVER = 60000;
+
+	private RunnerEventSupport eventSupport;
+	private BlockingQueue<TestQueueEvent> events;
+
+	@Before
+	public void inContext() {
+		events = new LinkedBlockingQueue<TestQueueEvent>();
+		eventSupport = new RunnerEventSupport(this);
+		eventSupport.addTestQueueListener(new TestQueueAdapter() {
+			@Override
+			public void testQueueUpdated(TestQueueEvent event) {
+				events.add(event);
+			}
+		});
+	}
+
+	@Test
+	public void shouldFireSnapshotsRightAway() {
+		QueueEventBuffer buffer = new QueueEventBuffer(eventSupport, NEVER);
+
+		buffer.snapshot(asList("test1", "test2"), 2);
+
+		TestQueueEvent event = getOnlyElement(events);
+		assertTrue(event.isSnapshot());
+		assertEquals(asList("test1", "test2"), event.getAdded());
+		assertEquals("test1", event.getCurrentTest());
+	}
+
+	@Test
+	public void shouldCoalesceChangesUntilTheyAreFlushed() {
+		QueueEventBuffer buffer = new QueueEventBuffer(eventSupport, NEVER);
+		buffer.snapshot(asList("test1", "test2"), 2);
+		events.clear();
+
+		buffer.testStarted("test1", 1, 2);
+		buffer.testsAdded(asList("test3"), 2, 3);
+		buffer.testStarted("test2", 1, 3);
+		assertTrue(events.isEmpty());
+
+		buffer.flush();
+		TestQueueEvent event = getOnlyElement(events);
+		assertEquals(asList("test1", "test2"), event.getStarted());
+		assertEquals(asList("test3"), event.getAdded());
+		assertEquals(1, event.getQueueSize());
+		assertEquals(3, event.getInitialSize());
+		assertEquals("test2", event.getCurrentTest());
+	}
+
+	@Test
+	public void shouldNotFireWhenNothingChanged() {
+		QueueEventBuffer buffer = new QueueEventBuffer(eventSupport, NEVER);
+
+		buffer.flush();
+
+		assertTrue(events.isEmpty());
+	}
+
+	@Test
+	public void shouldDropChangesThatASnapshotAlreadyContains() {
+		QueueEventBuffer buffer = new QueueEventBuffer(eventSupport, NEVER);
+		buffer.testsAdded(asList("test1"), 1, 1);
+
+		buffer.snapshot(asList("test1"), 1);
+		buffer.flush();
+
+		assertTrue(getOnlyElement(events).isSnapshot());
+	}
+
+	@Test
+	public void shouldFireChangesOnceTheIntervalIsOver() throws InterruptedException {
+		QueueEventBuffer buffer = new QueueEventBuffer(eventSupport, 10);
+
+		buffer.testStarted("test1", 0, 1);
+
+		TestQueueEvent event = events.poll(5, TimeUnit.SECONDS);
+		assertEquals(singletonList("test1"), event.getStarted());
+		assertTrue(event.isQueueEmpty());
+	}
+}
@@ -27,22 +27,28 @@
  */
 package org.infinitest.testrunner.queue;
 
+import static com.google.common.collect.Lists.*;
 import static java.lang.Thread.*;
 import static java.util.Arrays.*;
 import static org.infinitest.EventSupport.*;
+import static org.infinitest.testrunner.TestEvent.*;
 import static org.junit.Assert.*;
 
+import java.util.*;
+
 import org.infinitest.testrunner.*;
 import org.junit.*;
 
 public class WhenPrioritizingTests {
 	private RunStatistics stats;
+	private TestComparator priority;
 	private TestQueue queue;
 
 	@Before
 	public void inContext() {
 		stats = new RunStatistics();
-		queue = new TestQueue(new TestComparator(stats));
+		priority = new TestComparator(stats);
+		queue = new TestQueue(priority);
 	}
 
 	@Test
@@ -57,9 +63,138 @@ public class WhenPrioritizingTests {
 		assertEquals("test2", queue.take());
 	}
 
+	@Test
+	public void shouldRunQuickTestsFirst() {
+		stats.testCaseComplete(testCaseTaking("slowTest", 2000, false));
+		stats.testCaseComplete(testCaseTaking("quickTest", 10, false));
+
+		queue.addAll(asList("slowTest", "unknownTest", "quickTest"));
+
+		assertEquals(asList("quickTest", "unknownTest", "slowTest"), pollAll());
+	}
+
+	@Test
+	public void shouldRunTestsCloseToTheChangesFirst() {
+		Map<String, Integer> distances = new HashMap<String, Integer>();
+		distances.put("farTest", 3);
+		distances.put("changedTest", 0);
+		distances.put("directTest", 1);
+		stats.setDistancesFromChanges(distances);
+
+		queue.addAll(asList("farTest", "directTest", "changedTest"));
+
+		assertEquals(asList("changedTest", "directTest", "farTest"), pollAll());
+	}
+
+	@Test
+	public void shouldPreferRecentFailuresToQuickTestsCloseToTheChanges() {
+		stats.testCaseComplete(testCaseTaking("failingTest", 2000, true));
+		stats.testCaseComplete(testCaseTaking("quickTest", 10, false));
+		stats.setDistancesFromChanges(Collections.singletonMap("quickTest", 0));
+
+		queue.addAll(asList("quickTest", "failingTest"));
+
+		assertEquals("failingTest", queue.poll());
+	}
+
+	@Test
+	public void shouldCombineAddedSignals() {
+		priority.addSignal(new PrioritySignal() {
+			@Override
+			public double valueOf(String testName) {
+				return testName.equals("favoriteTest") ? 1 : 0;
+			}
+
+			@Override
+			public String describe(String testName) {
+				return "favorite";
+			}
+		}, 10);
+		stats.testCaseComplete(testCaseFailing("failingTest", "", new Exception()));
+
+		queue.addAll(asList("failingTest", "favoriteTest"));
+
+		assertEquals("favoriteTest", queue.poll());
+	}
+
+	@Test
+	public void shouldExplainScores() {
+		stats.setDistancesFromChanges(Collections.singletonMap("aTest", 1));
+
+		String explanation = priority.explain("aTest");
+
+		assertTrue(explanation, explanation.startsWith("aTest scores "));
+		assertTrue(explanation, explanation.contains("(never failed)"));
+		assertTrue(explanation, explanation.contains("(1 dependencies from the last change)"));
+		assertTrue(explanation, explanation.contains("(never ran)"));
+	}
+
 	@Test
 	public void shouldNeverRunTheSameTestTwice() {
 		queue.addAll(asList("test1", "test2", "test1"));
 		assertEquals(2, queue.size());
 	}
+
+	@Test
+	public void shouldMoveQueuedTestWhenItsPriorityChanges() throws Exception {
+		queue.addAll(asList("test1", "test2", "test3"));
+
+		stats.testCaseComplete(testCaseFailing("test3", "", new Exception()));
+		queue.priorityChanged("test3");
+
+		assertEquals("test3", queue.take());
+	}
+
+	@Test
+	public void shouldReorderQueuedTestsForNewPriority() {
+		queue.addAll(asList("b", "c", "a"));
+
+		queue.setComparator(new Comparator<String>() {
+			@Override
+			public int compare(String first, String second) {
+				return first.compareTo(second);
+			}
+		});
+
+		assertEquals(asList("a", "b", "c"), pollAll());
+	}
+
+	@Test
+	public void shouldKeepOrderWhenTestsAreRemoved() {
+		queue.setComparator(Collections.<String> reverseOrder());
+		for (int i = 0; i < 100; i++) {
+			queue.add(String.valueOf(1000 + ((i * 37) % 100)));
+		}
+
+		for (int i = 0; i < 100; i += 3) {
+			assertTrue(queue.remove(String.valueOf(1000 + i)));
+		}
+		assertFalse(queue.contains("1000"));
+
+		List<String> expected = newArrayList(queue);
+		Collections.sort(expected, Collections.<String> reverseOrder());
+		assertEquals(expected, pollAll());
+	}
+
+	private static TestCaseEvent testCaseTaking(String testName, long duration, boolean failing) {
+		MethodStats methodStats = new MethodStats("shouldWork");
+		methodStats.stopTime = duration;
+		TestResults results;
+		if (failing) {
+			results = new TestResults(methodFailed(testName, "shouldWork", new Exception()));
+		} else {
+			results = new TestResults();
+		}
+		results.addMethodStats(asList(methodStats));
+		return new TestCaseEvent(testName, new Object(), results);
+	}
+
+	private List<String> pollAll() {
+		List<String> tests = newArrayList();
+		String test;
+		while ((test = queue.poll()) != null) {
+			tests.add(test);
+		}
+		return tests;
+	}
 }
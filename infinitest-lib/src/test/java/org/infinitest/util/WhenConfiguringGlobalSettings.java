@@ -38,8 +38,10 @@ public class WhenConfiguringGlobalSettings {
 	public void canResetToDefaults() {
 		InfinitestGlobalSettings.setSlowTestTimeLimit(100);
 		setLogLevel(CONFIG);
+		setTestRunnerReused(true);
 		resetToDefaults();
 		assertEquals(INFO, getLogLevel());
 		assertEquals(500, InfinitestGlobalSettings.getSlowTestTimeLimit());
+		assertFalse(isTestRunnerReused());
 	}
 }
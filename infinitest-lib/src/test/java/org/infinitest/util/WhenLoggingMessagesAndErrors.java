@@ -85,6 +85,14 @@ public class WhenLoggingMessagesAndErrors implements LoggingListener {
 		assertNull(messages.get(message));
 	}
 
+	@Test
+	public void shouldTellWhetherALevelIsLogged() {
+		setLogLevel(Level.INFO);
+		assertTrue(isLoggable(Level.WARNING));
+		assertTrue(isLoggable(Level.INFO));
+		assertFalse(isLoggable(Level.FINE));
+	}
+
 	@Override
 	public void logError(String message, Throwable throwable) {
 		errors.put(message, throwable);
@@ -36,6 +36,7 @@ import junit.framework.*;
 
 import org.infinitest.*;
 import org.junit.runner.*;
+import org.junit.runner.notification.*;
 import org.testng.*;
 
 /**
@@ -44,8 +45,10 @@ import org.testng.*;
  * TODO: we should either rename this class or split it up in
  * two classes with the respective JUnit/TestNG functionality.
  */
-public class JUnit4Runner implements NativeRunner {
+public class JUnit4Runner implements CancellableRunner {
 	private TestNGConfiguration config;
+	private volatile RunNotifier currentNotifier;
+	private volatile boolean cancelled;
 
 	public void setTestNGConfiguration(TestNGConfiguration configuration) {
 		config = configuration;
@@ -53,9 +56,10 @@ public class JUnit4Runner implements NativeRunner {
 
 	@Override
 	public TestResults runTest(String testClass) {
+		cancelled = false;
 		Class<?> clazz;
 		try {
-			clazz = Class.forName(testClass);
+			clazz = Class.forName(testClass, true, testClassLoader());
 		} catch (ClassNotFoundException e) {
 			throw new MissingClassException(testClass);
 		}
@@ -63,6 +67,26 @@ public class JUnit4Runner implements NativeRunner {
 		return isTestNGTest(clazz) ? runTestNGTest(clazz) : runJUnitTest(clazz);
 	}
 
+	/**
+	 * Stops a JUnit test before its next method. TestNG tests always run to the
+	 * end.
+	 */
+	@Override
+	public void cancelCurrentTest() {
+		cancelled = true;
+		RunNotifier notifier = currentNotifier;
+		if (notifier != null) {
+			notifier.pleaseStop();
+		}
+	}
+
+	// A runner process kept between runs loads the tests in a new class loader
+	// for each run
+	private static ClassLoader testClassLoader() {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		return classLoader == null ? JUnit4Runner.class.getClassLoader() : classLoader;
+	}
+
 	private TestResults runTestNGTest(Class<?> clazz) {
 		TestNGEventTranslator eventTranslator = new TestNGEventTranslator();
 
@@ -88,18 +112,36 @@ public class JUnit4Runner implements NativeRunner {
 	private TestResults runJUnitTest(Class<?> clazz) {
 		EventTranslator eventTranslator = new EventTranslator();
 
-		JUnitCore core = new JUnitCore();
-		core.addListener(eventTranslator);
-
 		if (isJUnit3TestCase(clazz) && cannotBeInstantiated(clazz)) {
-			core.run(new UninstantiableJUnit3TestRequest(clazz));
+			run(new UninstantiableJUnit3TestRequest(clazz).getRunner(), eventTranslator);
 		} else {
-			core.run(classWithoutSuiteMethod(clazz));
+			run(classWithoutSuiteMethod(clazz).getRunner(), eventTranslator);
 		}
 
 		return eventTranslator.getTestResults();
 	}
 
+	// What JUnitCore does, with a notifier we can ask to stop
+	private void run(Runner runner, RunListener listener) {
+		Result result = new Result();
+		RunNotifier notifier = new RunNotifier();
+		notifier.addFirstListener(result.createListener());
+		notifier.addListener(listener);
+		currentNotifier = notifier;
+		if (cancelled) {
+			notifier.pleaseStop();
+		}
+		try {
+			notifier.fireTestRunStarted(runner.getDescription());
+			runner.run(notifier);
+		} catch (StoppedByUserException e) {
+			// Cancelled, nobody waits for these results anymore
+		} finally {
+			currentNotifier = null;
+		}
+		notifier.fireTestRunFinished(result);
+	}
+
 	private static boolean isJUnit3TestCase(Class<?> clazz) {
 		return TestCase.class.isAssignableFrom(clazz);
 	}
@@ -0,0 +1,130 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner;
+
+import static org.infinitest.testrunner.ResultsEncoder.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.infinitest.testrunner.TestEvent.TestState;
+
+/**
+ * Reads test results written by a {@link ResultsEncoder}. Use a new decoder
+ * for each message.
+ */
+public class ResultsDecoder {
+	private static final TestState[] STATES = TestState.values();
+
+	private final DataInput in;
+	private final List<String> strings = new ArrayList<String>();
+
+	public ResultsDecoder(DataInput in) {
+		this.in = in;
+	}
+
+	public TestResults readResults() throws IOException {
+		int eventCount = readCount();
+		List<TestEvent> events = new ArrayList<TestEvent>(eventCount);
+		for (int i = 0; i < eventCount; i++) {
+			events.add(readEvent());
+		}
+		TestResults results = new TestResults(events);
+
+		int methodStatsCount = readCount();
+		List<MethodStats> methodStats = new ArrayList<MethodStats>(methodStatsCount);
+		for (int i = 0; i < methodStatsCount; i++) {
+			methodStats.add(readMethodStats());
+		}
+		results.addMethodStats(methodStats);
+		return results;
+	}
+
+	public TestEvent readEvent() throws IOException {
+		int state = in.readUnsignedByte();
+		if (state >= STATES.length) {
+			throw new IOException("Unknown test event type " + state);
+		}
+		String message = readString();
+		String testName = readString();
+		String testMethod = readString();
+		boolean isAssertionFailure = in.readBoolean();
+		String simpleErrorClassName = readString();
+		String fullErrorClassName = readString();
+
+		StackTraceElement[] stackTrace = null;
+		int stackTraceLength = readCount() - 1;
+		if (stackTraceLength >= 0) {
+			stackTrace = new StackTraceElement[stackTraceLength];
+			for (int i = 0; i < stackTraceLength; i++) {
+				String className = readString();
+				String methodName = readString();
+				String fileName = readString();
+				stackTrace[i] = new StackTraceElement(className, methodName, fileName, in.readInt());
+			}
+		}
+		return new TestEvent(STATES[state], message, testName, testMethod, isAssertionFailure, simpleErrorClassName, fullErrorClassName, stackTrace);
+	}
+
+	public MethodStats readMethodStats() throws IOException {
+		MethodStats methodStats = new MethodStats(readString());
+		methodStats.startTime = in.readLong();
+		methodStats.stopTime = in.readLong();
+		return methodStats;
+	}
+
+	public String readString() throws IOException {
+		int id = readCount();
+		if (id == NULL_STRING) {
+			return null;
+		}
+		if (id == NEW_STRING) {
+			byte[] bytes = new byte[readCount()];
+			in.readFully(bytes);
+			String value = new String(bytes, UTF_8);
+			strings.add(value);
+			return value;
+		}
+		if ((id - FIRST_STRING_ID) >= strings.size()) {
+			throw new IOException("Unknown string reference " + id);
+		}
+		return strings.get(id - FIRST_STRING_ID);
+	}
+
+	int readCount() throws IOException {
+		int count = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int next = in.readUnsignedByte();
+			count |= (next & 0x7F) << shift;
+			if ((next & 0x80) == 0) {
+				return count;
+			}
+		}
+		throw new IOException("Malformed count");
+	}
+}
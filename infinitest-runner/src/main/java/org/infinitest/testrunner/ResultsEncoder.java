@@ -0,0 +1,138 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * Writes test results in the format read by {@link ResultsDecoder}.
+ * <p/>
+ * Each string is written once per encoder; later occurrences refer to the
+ * first one, so the class names of a stack trace cost little. Use a new
+ * encoder for each message.
+ */
+public class ResultsEncoder {
+	static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	// String references
+	static final int NULL_STRING = 0;
+	static final int NEW_STRING = 1;
+	static final int FIRST_STRING_ID = 2;
+
+	private static final int NO_STACK_TRACE = 0;
+
+	private final DataOutput out;
+	private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+	public ResultsEncoder(DataOutput out) {
+		this.out = out;
+	}
+
+	public void writeResults(TestResults results) throws IOException {
+		List<TestEvent> events = new ArrayList<TestEvent>();
+		for (TestEvent each : results) {
+			events.add(each);
+		}
+		writeCount(events.size());
+		for (TestEvent each : events) {
+			writeEvent(each);
+		}
+
+		List<MethodStats> methodStats = new ArrayList<MethodStats>();
+		for (MethodStats each : results.getMethodStats()) {
+			methodStats.add(each);
+		}
+		writeCount(methodStats.size());
+		for (MethodStats each : methodStats) {
+			writeMethodStats(each);
+		}
+	}
+
+	public void writeEvent(TestEvent event) throws IOException {
+		out.writeByte(event.getType().ordinal());
+		writeString(event.getMessage());
+		writeString(event.getTestName());
+		writeString(event.getTestMethod());
+		out.writeBoolean(event.isFailure());
+		writeString(event.getErrorClassName());
+		writeString(event.getFullErrorClassName());
+
+		StackTraceElement[] stackTrace = event.getStackTrace();
+		if (stackTrace == null) {
+			writeCount(NO_STACK_TRACE);
+		} else {
+			writeCount(stackTrace.length + 1);
+			for (StackTraceElement each : stackTrace) {
+				writeString(each.getClassName());
+				writeString(each.getMethodName());
+				writeString(each.getFileName());
+				out.writeInt(each.getLineNumber());
+			}
+		}
+	}
+
+	public void writeMethodStats(MethodStats methodStats) throws IOException {
+		writeString(methodStats.methodName);
+		out.writeLong(methodStats.startTime);
+		out.writeLong(methodStats.stopTime);
+	}
+
+	public void writeString(String value) throws IOException {
+		if (value == null) {
+			writeCount(NULL_STRING);
+			return;
+		}
+
+		Integer id = stringIds.get(value);
+		if (id != null) {
+			writeCount(id);
+			return;
+		}
+
+		stringIds.put(value, FIRST_STRING_ID + stringIds.size());
+		byte[] bytes = value.getBytes(UTF_8);
+		writeCount(NEW_STRING);
+		writeCount(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Writes a positive number in as few bytes as possible, seven bits at a
+	 * time.
+	 */
+	void writeCount(int count) throws IOException {
+		int remaining = count;
+		while ((remaining & ~0x7F) != 0) {
+			out.writeByte((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		out.writeByte(remaining);
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner;
+
+import java.io.*;
+
+/**
+ * The messages exchanged between the core and a test runner process.
+ * <p/>
+ * Both ends start by writing a magic number and the protocol version. Then
+ * each message is a type, the length of its body, and a body written by a
+ * {@link ResultsEncoder}.
+ * <p/>
+ * Messages can be sent from several threads, but only one thread should read.
+ */
+public class RunnerProtocol {
+	static final int MAGIC = 0x494e5452;
+	// Version 2 adds cancelling the running test
+	static final int VERSION = 2;
+
+	// Sent by the core
+	static final byte RUN_TEST = 1;
+	static final byte END_RUN = 2;
+	static final byte CLOSE = 3;
+	static final byte CANCEL = 6;
+	// Sent by the runner process
+	static final byte RESULTS = 4;
+	static final byte RUN_ENDED = 5;
+
+	private final DataInputStream in;
+	private final DataOutputStream out;
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+	public RunnerProtocol(InputStream in, OutputStream out) {
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+	}
+
+	public void writeHeader() throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.flush();
+	}
+
+	public void readHeader() throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not an Infinitest test runner connection");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Test runner protocol version " + version + " is not supported, expected " + VERSION);
+		}
+	}
+
+	public synchronized void sendTestName(String testName) throws IOException {
+		newEncoder().writeString(testName);
+		send(RUN_TEST);
+	}
+
+	public synchronized void sendEndOfRun() throws IOException {
+		send(END_RUN);
+	}
+
+	public synchronized void sendClose() throws IOException {
+		send(CLOSE);
+	}
+
+	/**
+	 * Can be sent by another thread while waiting for the results of the test.
+	 * The process still answers with results, which are not worth reading.
+	 */
+	public synchronized void sendCancel(String testName) throws IOException {
+		newEncoder().writeString(testName);
+		send(CANCEL);
+	}
+
+	/**
+	 * @return the name of the test to run, {@link TestRunnerProcess#END_OF_RUN}
+	 *         at the end of a run, {@link TestRunnerProcess#CANCEL} followed by
+	 *         the name of a test to stop running, or null when the connection
+	 *         is closed
+	 */
+	public String readRequest() throws IOException {
+		byte type = in.readByte();
+		DataInput message = readBody();
+		switch (type) {
+		case RUN_TEST:
+			return new ResultsDecoder(message).readString();
+		case END_RUN:
+			return TestRunnerProcess.END_OF_RUN;
+		case CANCEL:
+			return TestRunnerProcess.CANCEL + new ResultsDecoder(message).readString();
+		case CLOSE:
+			return null;
+		default:
+			throw new IOException("Unexpected message type " + type);
+		}
+	}
+
+	public synchronized void sendResults(TestResults results) throws IOException {
+		newEncoder().writeResults(results);
+		send(RESULTS);
+	}
+
+	public TestResults readResults() throws IOException {
+		return new ResultsDecoder(readBody(RESULTS)).readResults();
+	}
+
+	public synchronized void sendRunEnded(boolean reusable) throws IOException {
+		new DataOutputStream(body).writeBoolean(reusable);
+		send(RUN_ENDED);
+	}
+
+	/**
+	 * @return true if the test runner process can be used for another run
+	 */
+	public boolean readRunEnded() throws IOException {
+		return readBody(RUN_ENDED).readBoolean();
+	}
+
+	public void close() throws IOException {
+		in.close();
+		out.close();
+	}
+
+	private ResultsEncoder newEncoder() {
+		return new ResultsEncoder(new DataOutputStream(body));
+	}
+
+	private void send(byte type) throws IOException {
+		out.writeByte(type);
+		out.writeInt(body.size());
+		body.writeTo(out);
+		out.flush();
+		body.reset();
+	}
+
+	private DataInput readBody(byte expectedType) throws IOException {
+		byte type = in.readByte();
+		if (type != expectedType) {
+			throw new IOException("Expected message type " + expectedType + " but was " + type);
+		}
+		return readBody();
+	}
+
+	private DataInput readBody() throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+}
@@ -65,6 +65,19 @@ public class TestEvent implements Serializable {
 		}
 	}
 
+	/**
+	 * Recreates an event sent by a test runner process.
+	 * 
+	 * @see ResultsDecoder
+	 */
+	TestEvent(TestState eventType, String message, String testName, String testMethod, boolean isAssertionFailure, String simpleErrorClassName, String fullErrorClassName, StackTraceElement[] stackTrace) {
+		this(eventType, message, testName, testMethod, null);
+		this.isAssertionFailure = isAssertionFailure;
+		this.simpleErrorClassName = simpleErrorClassName;
+		this.fullErrorClassName = fullErrorClassName;
+		this.stackTrace = stackTrace;
+	}
+
 	public static TestEvent methodFailed(String message, String testName, String methodName, Throwable throwable) {
 		return new TestEvent(METHOD_FAILURE, message, testName, methodName, throwable);
 	}
@@ -31,14 +31,46 @@ import static org.infinitest.testrunner.TestEvent.*;
 
 import java.io.*;
 import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 // RISK This class is only tested by running it, which is slow and throws off coverage
 public class TestRunnerProcess {
 	public static final String TEST_RUN_ERROR = "Error occurred during test run";
-	private NativeRunner runner;
 
-	private TestRunnerProcess(String runnerClass) {
-		createRunner(runnerClass);
+	/**
+	 * Read instead of a test name at the end of a run, by a process that is
+	 * kept for the next runs. The process answers whether it can still be
+	 * used.
+	 * 
+	 * @see RunnerProtocol#readRequest()
+	 */
+	public static final String END_OF_RUN = "infinitest:endOfRun";
+
+	/**
+	 * Read, followed by the name of a test, when the results of that test are
+	 * not needed anymore. Does nothing if the test is not running.
+	 * 
+	 * @see CancellableRunner
+	 */
+	public static final String CANCEL = "infinitest:cancel:";
+
+	// Above this, classes of previous runs are probably leaking through
+	// static fields of libraries
+	private static final double MAX_HEAP_USAGE_AFTER_RUN = 0.75;
+
+	private final String runnerClassName;
+	private final URL[] reloadableClasspath;
+	private volatile NativeRunner runner;
+	private ClassLoader runClassLoader;
+	private String currentTest;
+
+	private TestRunnerProcess(String runnerClass, URL[] reloadableClasspath) {
+		runnerClassName = runnerClass;
+		this.reloadableClasspath = reloadableClasspath;
+		if (reloadableClasspath == null) {
+			runner = instantiateTestRunner(runnerClass, TestRunnerProcess.class.getClassLoader());
+		}
 	}
 
 	private static void checkForJUnit4() {
@@ -49,13 +81,9 @@ public class TestRunnerProcess {
 		}
 	}
 
-	private void createRunner(String runnerClassName) {
-		runner = instantiateTestRunner(runnerClassName);
-	}
-
-	private NativeRunner instantiateTestRunner(String runnerClassName) {
+	private NativeRunner instantiateTestRunner(String runnerClassName, ClassLoader classLoader) {
 		try {
-			Class<?> runnerClass = Class.forName(runnerClassName);
+			Class<?> runnerClass = Class.forName(runnerClassName, true, classLoader);
 			return (NativeRunner) runnerClass.newInstance();
 		} catch (ClassNotFoundException e) {
 			throw new RuntimeException(e);
@@ -67,31 +95,85 @@ public class TestRunnerProcess {
 	}
 
 	private TestResults runTest(String testName) {
-		return runner.runTest(testName);
+		if ((reloadableClasspath != null) && (runClassLoader == null)) {
+			startRun();
+		}
+		setCurrentTest(testName);
+		try {
+			return runner.runTest(testName);
+		} finally {
+			setCurrentTest(null);
+		}
+	}
+
+	private synchronized void setCurrentTest(String testName) {
+		currentTest = testName;
+	}
+
+	private synchronized void cancel(String testName) {
+		NativeRunner currentRunner = runner;
+		if (testName.equals(currentTest) && (currentRunner instanceof CancellableRunner)) {
+			((CancellableRunner) currentRunner).cancelCurrentTest();
+		}
+	}
+
+	/**
+	 * Loads the class directories in a new class loader, so the classes that
+	 * changed since the previous run are seen. Libraries stay loaded.
+	 */
+	private void startRun() {
+		runClassLoader = new URLClassLoader(reloadableClasspath, TestRunnerProcess.class.getClassLoader());
+		Thread.currentThread().setContextClassLoader(runClassLoader);
+		runner = instantiateTestRunner(runnerClassName, runClassLoader);
 	}
 
+	/**
+	 * @return true if the process can be used for another run
+	 */
+	private boolean endRun() {
+		runClassLoader = null;
+		Thread.currentThread().setContextClassLoader(TestRunnerProcess.class.getClassLoader());
+		runner = null;
+
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+		return usedHeap < (runtime.maxMemory() * MAX_HEAP_USAGE_AFTER_RUN);
+	}
+
+	/**
+	 * @param args
+	 *            the class of the {@link NativeRunner}, the port to connect to
+	 *            and, for a process that is kept between runs, the class
+	 *            directories to load again for each run
+	 */
 	public static void main(String[] args) {
 		try {
 			checkForJUnit4();
 
-			TestRunnerProcess process = new TestRunnerProcess(args[0]);
+			TestRunnerProcess process = new TestRunnerProcess(args[0], args.length > 2 ? toUrls(args[2]) : null);
 			int portNum = Integer.parseInt(args[1]);
 			Socket clientSocket = new Socket("127.0.0.1", portNum);
-			// DEBT Extract this to a reader class
-			ObjectOutputStream outputStream = new ObjectOutputStream(clientSocket.getOutputStream());
-			ObjectInputStream inputStream = new ObjectInputStream(clientSocket.getInputStream());
+			RunnerProtocol protocol = new RunnerProtocol(clientSocket.getInputStream(), clientSocket.getOutputStream());
+			protocol.writeHeader();
+			protocol.readHeader();
+
+			// Reads in the background, so a test can be cancelled while it runs
+			RequestReader reader = new RequestReader(process, protocol);
+			reader.start();
 
 			String testName;
 			do {
-				testName = (String) inputStream.readObject();
+				testName = reader.nextRequest();
 
-				if (testName != null) {
-					writeTestResultToOutputStream(process, outputStream, testName);
+				if (END_OF_RUN.equals(testName)) {
+					protocol.sendRunEnded(process.endRun());
+				} else if (testName != null) {
+					writeTestResultToOutputStream(process, protocol, testName);
 				}
-
 			} while (testName != null);
 
-			outputStream.close();
+			protocol.close();
 			clientSocket.close();
 		}
 		// CHECKSTYLE:OFF
@@ -106,7 +188,17 @@ public class TestRunnerProcess {
 
 	}
 
-	private static void writeTestResultToOutputStream(TestRunnerProcess process, ObjectOutputStream outputStream, String testName) throws IOException {
+	private static URL[] toUrls(String classpath) throws MalformedURLException {
+		List<URL> urls = new ArrayList<URL>();
+		for (String each : classpath.split(File.pathSeparator)) {
+			if (each.length() > 0) {
+				urls.add(new File(each).toURI().toURL());
+			}
+		}
+		return urls.toArray(new URL[urls.size()]);
+	}
+
+	private static void writeTestResultToOutputStream(TestRunnerProcess process, RunnerProtocol protocol, String testName) throws IOException {
 		TestResults results;
 		try {
 			results = process.runTest(testName);
@@ -117,6 +209,57 @@ public class TestRunnerProcess {
 		{
 			results = new TestResults(methodFailed(testName, "", e));
 		}
-		outputStream.writeObject(results);
+		protocol.sendResults(results);
+	}
+
+	private static class RequestReader extends Thread {
+		// A blocking queue can't hold null
+		private static final String CLOSED = "infinitest:closed";
+
+		private final TestRunnerProcess process;
+		private final RunnerProtocol protocol;
+		private final BlockingQueue<String> requests;
+		private volatile IOException failure;
+
+		RequestReader(TestRunnerProcess process, RunnerProtocol protocol) {
+			super("Infinitest request reader");
+			this.process = process;
+			this.protocol = protocol;
+			requests = new LinkedBlockingQueue<String>();
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				String request;
+				do {
+					request = protocol.readRequest();
+					if ((request != null) && request.startsWith(CANCEL)) {
+						process.cancel(request.substring(CANCEL.length()));
+					} else if (request != null) {
+						requests.add(request);
+					}
+				} while (request != null);
+			} catch (IOException e) {
+				failure = e;
+			} finally {
+				requests.add(CLOSED);
+			}
+		}
+
+		/**
+		 * @see RunnerProtocol#readRequest()
+		 */
+		String nextRequest() throws IOException, InterruptedException {
+			String request = requests.take();
+			if (CLOSED.equals(request)) {
+				if (failure != null) {
+					throw failure;
+				}
+				return null;
+			}
+			return request;
+		}
 	}
 }
@@ -0,0 +1,116 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.infinitest.testrunner.TestEvent.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+/**
+ * Compares the results sent by a test runner process with Java serialization
+ * and with {@link ResultsEncoder}, for a run where many tests fail. Run the
+ * main method to see the throughput of both.
+ */
+public class ResultsEncodingSimulation {
+	private static final int FAILURE_COUNT = 50;
+	private static final int WARMUP_ROUNDS = 2000;
+	private static final int MEASURED_ROUNDS = 5000;
+
+	private final TestResults results = resultHeavyRun();
+
+	public static void main(String[] args) throws Exception {
+		ResultsEncodingSimulation simulation = new ResultsEncodingSimulation();
+		System.out.println("Serialized: " + simulation.serialize().length + " bytes");
+		System.out.println("Encoded: " + simulation.encode().length + " bytes");
+
+		simulation.measure(WARMUP_ROUNDS);
+		simulation.measure(MEASURED_ROUNDS);
+	}
+
+	@Test
+	public void shouldSendLessThanHalfAsManyBytesAsSerialization() throws IOException {
+		assertThat(encode().length).isLessThan(serialize().length / 2);
+	}
+
+	private void measure(int rounds) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			deserialize(serialize());
+		}
+		long serializationTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			decode(encode());
+		}
+		long encodingTime = System.nanoTime() - start;
+
+		System.out.println(rounds + " round trips: serialized in " + (serializationTime / 1000000) + "ms, encoded in " + (encodingTime / 1000000) + "ms");
+	}
+
+	private byte[] serialize() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(results);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static TestResults deserialize(byte[] bytes) throws Exception {
+		return (TestResults) new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+	}
+
+	private byte[] encode() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new ResultsEncoder(new DataOutputStream(bytes)).writeResults(results);
+		return bytes.toByteArray();
+	}
+
+	private static TestResults decode(byte[] bytes) throws IOException {
+		return new ResultsDecoder(new DataInputStream(new ByteArrayInputStream(bytes))).readResults();
+	}
+
+	private static TestResults resultHeavyRun() {
+		List<TestEvent> events = new ArrayList<TestEvent>();
+		List<MethodStats> methodStats = new ArrayList<MethodStats>();
+		for (int i = 0; i < FAILURE_COUNT; i++) {
+			events.add(methodFailed("com.fakeco.SomeTest", "shouldWork" + i, new AssertionError("expected:<" + i + "> but was:<" + (i + 1) + ">")));
+			MethodStats stats = new MethodStats("shouldWork" + i);
+			stats.startTime = i;
+			stats.stopTime = i + 5;
+			methodStats.add(stats);
+		}
+		TestResults results = new TestResults(events);
+		results.addMethodStats(methodStats);
+		return results;
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner;
+
+import static java.util.Arrays.*;
+import static org.infinitest.testrunner.TestEvent.*;
+import static org.infinitest.testrunner.TestEvent.TestState.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+public class WhenEncodingTestResults {
+	private ByteArrayOutputStream bytes;
+	private ResultsEncoder encoder;
+
+	@Before
+	public void inContext() {
+		bytes = new ByteArrayOutputStream();
+		encoder = new ResultsEncoder(new DataOutputStream(bytes));
+	}
+
+	@Test
+	public void shouldDecodeFailures() throws IOException {
+		TestEvent failure = methodFailed("message", "com.fakeco.SomeTest", "shouldWork", new AssertionError());
+
+		encoder.writeEvent(failure);
+		TestEvent decoded = decoder().readEvent();
+
+		assertEquals(failure, decoded);
+		assertEquals(METHOD_FAILURE, decoded.getType());
+		assertEquals("message", decoded.getMessage());
+		assertTrue(decoded.isFailure());
+		assertEquals("AssertionError", decoded.getErrorClassName());
+		assertEquals(AssertionError.class.getName(), decoded.getFullErrorClassName());
+		assertEquals(failure.getPointOfFailure(), decoded.getPointOfFailure());
+		assertSameStackTrace(failure.getStackTrace(), decoded.getStackTrace());
+	}
+
+	@Test
+	public void shouldDecodeEventsWithoutError() throws IOException {
+		encoder.writeEvent(testCaseStarting("com.fakeco.SomeTest"));
+		TestEvent decoded = decoder().readEvent();
+
+		assertEquals(TEST_CASE_STARTING, decoded.getType());
+		assertEquals("com.fakeco.SomeTest", decoded.getTestName());
+		assertNull(decoded.getStackTrace());
+		assertNull(decoded.getPointOfFailure());
+	}
+
+	@Test
+	public void shouldDecodeResultsWithMethodStats() throws IOException {
+		MethodStats methodStats = new MethodStats("shouldWork");
+		methodStats.startTime = 100;
+		methodStats.stopTime = 142;
+		TestResults results = new TestResults(testCaseStarting("com.fakeco.SomeTest"));
+		results.addMethodStats(asList(methodStats));
+
+		encoder.writeResults(results);
+		TestResults decoded = decoder().readResults();
+
+		assertEquals(testCaseStarting("com.fakeco.SomeTest"), decoded.iterator().next());
+		MethodStats decodedStats = decoded.getMethodStats().iterator().next();
+		assertEquals("shouldWork", decodedStats.methodName);
+		assertEquals(42, decodedStats.duration());
+	}
+
+	@Test
+	public void shouldWriteRepeatedStringsOnce() throws IOException {
+		String longName = "com.fakeco.AVeryLongPackageName.AndAnEvenLongerClassName";
+
+		encoder.writeString(longName);
+		int sizeOfFirst = bytes.size();
+		encoder.writeString(longName);
+
+		assertEquals(1, bytes.size() - sizeOfFirst);
+		ResultsDecoder decoder = decoder();
+		String first = decoder.readString();
+		assertEquals(longName, first);
+		assertSame(first, decoder.readString());
+	}
+
+	@Test
+	public void shouldDecodeStringsLongerThanModifiedUtf8Allows() throws IOException {
+		char[] message = new char[70000];
+		Arrays.fill(message, '\u00e9');
+
+		encoder.writeString(new String(message));
+
+		assertEquals(new String(message), decoder().readString());
+	}
+
+	private ResultsDecoder decoder() {
+		return new ResultsDecoder(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+	}
+
+	private static void assertSameStackTrace(StackTraceElement[] expected, StackTraceElement[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getClassName(), actual[i].getClassName());
+			assertEquals(expected[i].getMethodName(), actual[i].getMethodName());
+			assertEquals(expected[i].getFileName(), actual[i].getFileName());
+			assertEquals(expected[i].getLineNumber(), actual[i].getLineNumber());
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Infinitest, a Continuous Test Runner.
+ *
+ * Copyright (C) 2010-2013
+ * "Ben Rady" <benrady@gmail.com>,
+ * "Rod Coffin" <rfciii@gmail.com>,
+ * "Ryan Breidenbach" <ryan.breidenbach@gmail.com>
+ * "David Gageot" <david@gageot.net>, et al.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.infinitest.testrunner;
+
+import static org.infinitest.testrunner.TestEvent.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.junit.*;
+
+public class WhenTalkingToATestRunnerProcess {
+	private ByteArrayOutputStream sent;
+
+	@Before
+	public void inContext() {
+		sent = new ByteArrayOutputStream();
+	}
+
+	@Test
+	public void shouldReadRequestsInOrder() throws IOException {
+		RunnerProtocol core = new RunnerProtocol(new ByteArrayInputStream(new byte[0]), sent);
+		core.writeHeader();
+		core.sendTestName("com.fakeco.SomeTest");
+		core.sendEndOfRun();
+		core.sendClose();
+
+		RunnerProtocol runner = receiver();
+		runner.readHeader();
+		assertEquals("com.fakeco.SomeTest", runner.readRequest());
+		assertEquals(TestRunnerProcess.END_OF_RUN, runner.readRequest());
+		assertNull(runner.readRequest());
+	}
+
+	@Test
+	public void shouldReadCancelledTest() throws IOException {
+		RunnerProtocol core = new RunnerProtocol(new ByteArrayInputStream(new byte[0]), sent);
+		core.sendTestName("com.fakeco.SomeTest");
+		core.sendCancel("com.fakeco.SomeTest");
+
+		RunnerProtocol runner = receiver();
+		assertEquals("com.fakeco.SomeTest", runner.readRequest());
+		assertEquals(TestRunnerProcess.CANCEL + "com.fakeco.SomeTest", runner.readRequest());
+	}
+
+	@Test
+	public void shouldReadReplies() throws IOException {
+		RunnerProtocol runner = new RunnerProtocol(new ByteArrayInputStream(new byte[0]), sent);
+		runner.sendResults(new TestResults(testCaseStarting("com.fakeco.SomeTest")));
+		runner.sendRunEnded(true);
+
+		RunnerProtocol core = receiver();
+		assertEquals(testCaseStarting("com.fakeco.SomeTest"), core.readResults().iterator().next());
+		assertTrue(core.readRunEnded());
+	}
+
+	@Test(expected = IOException.class)
+	public void shouldRejectUnexpectedReplies() throws IOException {
+		new RunnerProtocol(new ByteArrayInputStream(new byte[0]), sent).sendRunEnded(true);
+
+		receiver().readResults();
+	}
+
+	@Test(expected = IOException.class)
+	public void shouldRejectAnotherProtocolVersion() throws IOException {
+		DataOutputStream out = new DataOutputStream(sent);
+		out.writeInt(RunnerProtocol.MAGIC);
+		out.writeInt(RunnerProtocol.VERSION + 1);
+
+		receiver().readHeader();
+	}
+
+	private RunnerProtocol receiver() {
+		return new RunnerProtocol(new ByteArrayInputStream(sent.toByteArray()), new ByteArrayOutputStream());
+	}
+}